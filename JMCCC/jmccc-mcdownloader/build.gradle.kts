@@ -12,4 +12,25 @@ dependencies {
     implementation("javax.cache:cache-api:$cacheapiVersion")
 
     testImplementation("junit:junit:$junitVersion")
-}
\ No newline at end of file
+}
+// The java.net.http downloader needs Java 11, while the rest of the module targets Java 8.
+// It's only compiled when the build runs on Java 11 or later, and it's loaded reflectively
+// by HttpClientDownloaderBuilder, so the jar still works on Java 8.
+if (JavaVersion.current().isJava11Compatible) {
+    val main = sourceSets["main"]
+    val java11 by sourceSets.creating {
+        compileClasspath += main.output + main.compileClasspath
+    }
+
+    tasks.getByName<JavaCompile>(java11.compileJavaTaskName) {
+        sourceCompatibility = "11"
+        targetCompatibility = "11"
+        options.compilerArgs.add("-proc:none")
+    }
+
+    tasks.getByName<Jar>("jar") {
+        from(java11.output)
+    }
+
+    sourceSets["test"].runtimeClasspath += java11.output
+}
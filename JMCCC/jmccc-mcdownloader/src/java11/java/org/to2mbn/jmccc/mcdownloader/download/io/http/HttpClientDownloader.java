@@ -0,0 +1,636 @@
+package org.to2mbn.jmccc.mcdownloader.download.io.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.Callback;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackAsyncTask;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.Callbacks;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.Cancelable;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallbacks;
+import org.to2mbn.jmccc.mcdownloader.download.io.ConnectionMetrics;
+import org.to2mbn.jmccc.mcdownloader.download.io.DownloaderHelper;
+import org.to2mbn.jmccc.mcdownloader.download.io.GzipDownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.io.HostConnectionLimiter;
+import org.to2mbn.jmccc.mcdownloader.download.io.IllegalHttpResponseCodeException;
+import org.to2mbn.jmccc.mcdownloader.download.io.SegmentedDownloadHandler;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ConditionalDownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ResumableDownloadSession;
+
+class HttpClientDownloader implements Downloader {
+
+	/**
+	 * Performs a request, and streams the response body into the download
+	 * session.
+	 */
+	private class Exchange<T> implements BodySubscriber<T>, Cancelable {
+
+		private final DownloadTask<T> task;
+		private final ResumableDownloadSession<T> resumable;
+		private final ConditionalDownloadSession<T> conditional;
+		private final DownloadCallback<T> callback;
+
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private volatile Flow.Subscription subscription;
+		private volatile CompletableFuture<?> responseFuture;
+		private volatile boolean aborted;
+		private volatile long lastReceived;
+
+		private DownloadSession<T> session;
+		private boolean notModified;
+		private Throwable responseError;
+		private long downloaded = 0;
+		private long total = -1;
+		private long expected = -1;
+
+		public Exchange(DownloadTask<T> task, ResumableDownloadSession<T> resumable, ConditionalDownloadSession<T> conditional, DownloadCallback<T> callback) {
+			this.task = task;
+			this.resumable = resumable;
+			this.conditional = conditional;
+			this.callback = callback;
+		}
+
+		public CompletableFuture<T> start() {
+			HttpRequest.Builder request = HttpRequest.newBuilder(task.getURI())
+					.timeout(Duration.ofMillis(readTimeout))
+					.header("Accept", "*/*")
+					.GET();
+			if (resumable == null) {
+				request.header("Accept-Encoding", "gzip");
+			} else {
+				// ranges are applied to the encoded data, so don't let the server compress it
+				request.header("Accept-Encoding", "identity");
+				long offset = resumable.getResumeOffset();
+				long end = resumable.getRangeEnd();
+				if (offset > 0 || end >= 0) {
+					request.header("Range", "bytes=" + offset + "-" + (end >= 0 ? String.valueOf(end) : ""));
+					if (resumable.getValidator() != null) {
+						request.header("If-Range", resumable.getValidator());
+					}
+				}
+			}
+			if (conditional != null) {
+				if (conditional.getETag() != null) {
+					request.header("If-None-Match", conditional.getETag());
+				}
+				if (conditional.getLastModified() != null) {
+					request.header("If-Modified-Since", conditional.getLastModified());
+				}
+			}
+
+			CompletableFuture<HttpResponse<T>> future = client.sendAsync(request.build(), this::onResponse);
+			responseFuture = future;
+			future.whenComplete((response, e) -> {
+				if (e != null) {
+					// failed before the body was subscribed, such as a connection failure
+					fail(unwrap(e));
+				}
+			});
+			return result;
+		}
+
+		private BodySubscriber<T> onResponse(ResponseInfo response) {
+			try {
+				beginTransfer(response);
+			} catch (Throwable e) {
+				responseError = e;
+			}
+			return this;
+		}
+
+		private void beginTransfer(ResponseInfo response) throws IOException {
+			int statusCode = response.statusCode();
+			HttpHeaders headers = response.headers();
+			if (statusCode == 416 && resumable != null && (resumable.getResumeOffset() > 0 || resumable.getRangeEnd() >= 0)) {
+				// the resource has been truncated, restart from the beginning next time
+				resumable.beginTransfer(false, -1, null);
+				throw new IOException("Range not satisfiable, discarded the partial data of " + task.getURI());
+			}
+			if (statusCode == 304 && conditional != null) {
+				// the body is built from the copy held by the session
+				notModified = true;
+				return;
+			}
+			if (statusCode < 200 || statusCode > 299) {
+				// non-2xx response code
+				throw new IllegalHttpResponseCodeException("HTTP " + statusCode, statusCode);
+			}
+
+			boolean gzip = "gzip".equals(headers.firstValue("Content-Encoding").orElse(null));
+			long contentLength = headers.firstValueAsLong("Content-Length").orElse(-1);
+			total = contentLength;
+			expected = contentLength;
+
+			if (conditional != null) {
+				conditional.beginTransfer(gzip ? -1 : contentLength,
+						headers.firstValue("ETag").orElse(null),
+						headers.firstValue("Last-Modified").orElse(null));
+				session = gzip ? new GzipDownloadSession<>(conditional) : conditional;
+			} else if (resumable == null) {
+				session = contentLength == -1
+						? task.createSession()
+						: task.createSession(contentLength);
+
+				if (gzip) {
+					session = new GzipDownloadSession<>(session);
+				}
+			} else {
+				boolean partial = statusCode == 206;
+				if (partial) {
+					String contentRange = headers.firstValue("Content-Range").orElse(null);
+					long[] range = DownloaderHelper.parseContentRange(contentRange);
+					if (gzip || range == null || range[0] != resumable.getResumeOffset()) {
+						resumable.beginTransfer(false, -1, null);
+						throw new IOException("Unexpected partial response: Content-Range=" + contentRange + ", gzip=" + gzip);
+					}
+					downloaded = range[0];
+					total = range[2];
+					expected = range[1] + 1;
+				}
+
+				resumable.beginTransfer(partial, total, gzip ? null : DownloaderHelper.getRangeValidator(
+						headers.firstValue("ETag").orElse(null),
+						headers.firstValue("Last-Modified").orElse(null)));
+				session = gzip ? new GzipDownloadSession<>(resumable) : resumable;
+			}
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			if (responseError != null) {
+				subscription.cancel();
+				fail(responseError);
+			} else if (aborted) {
+				subscription.cancel();
+				fail(new CancellationException());
+			} else {
+				lastReceived = System.nanoTime();
+				if (readTimeout > 0) {
+					scheduleReadTimeout(TimeUnit.MILLISECONDS.toNanos(readTimeout));
+				}
+				subscription.request(1);
+			}
+		}
+
+		/**
+		 * HttpRequest.timeout() only covers the response headers, so the
+		 * body is checked here, like the socket read timeout of the other
+		 * downloaders.
+		 */
+		private void scheduleReadTimeout(long delay) {
+			ExecutorService pool = ioPool;
+			if (pool == null) {
+				// shutdown
+				return;
+			}
+			CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, pool).execute(this::checkReadTimeout);
+		}
+
+		private void checkReadTimeout() {
+			if (closed.get()) {
+				return;
+			}
+			long timeout = TimeUnit.MILLISECONDS.toNanos(readTimeout);
+			long idle = System.nanoTime() - lastReceived;
+			if (idle < timeout) {
+				scheduleReadTimeout(timeout - idle);
+				return;
+			}
+			subscription.cancel();
+			fail(new SocketTimeoutException("Read timed out: received nothing from " + task.getURI() + " in " + readTimeout + " ms"));
+		}
+
+		@Override
+		public synchronized void onNext(List<ByteBuffer> items) {
+			if (closed.get()) {
+				subscription.cancel();
+				return;
+			}
+			try {
+				// the buffers are handed over to the session as they are
+				for (ByteBuffer buf : items) {
+					if (session == null) {
+						// not modified, there shouldn't be a body
+						break;
+					}
+					int len = buf.remaining();
+					session.receiveData(buf);
+					lastReceived = System.nanoTime();
+					downloaded += len;
+					callback.updateProgress(downloaded, total);
+				}
+			} catch (Throwable e) {
+				subscription.cancel();
+				fail(e);
+				return;
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			fail(throwable);
+		}
+
+		@Override
+		public synchronized void onComplete() {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				if (notModified) {
+					result.complete(conditional.notModified());
+					return;
+				}
+				if (expected != -1 && downloaded < expected) {
+					IOException e = new IOException("Premature end of stream: received " + downloaded + " of " + expected + " bytes");
+					try {
+						session.failed();
+					} catch (Throwable e1) {
+						e.addSuppressed(e1);
+					}
+					throw e;
+				}
+				result.complete(session.completed());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return result;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			aborted = true;
+			Flow.Subscription subscription = this.subscription;
+			if (subscription != null) {
+				subscription.cancel();
+			}
+			CompletableFuture<?> responseFuture = this.responseFuture;
+			if (responseFuture != null) {
+				responseFuture.cancel(mayInterruptIfRunning);
+			}
+			fail(new CancellationException());
+			return true;
+		}
+
+		private synchronized void fail(Throwable e) {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			// the resumable or conditional session is opened before the response arrives
+			DownloadSession<T> active = session != null ? session
+					: notModified ? null
+							: resumable != null ? resumable : conditional;
+			if (active != null) {
+				try {
+					active.failed();
+				} catch (Throwable e1) {
+					if (e1 != e)
+						e.addSuppressed(e1);
+				}
+			}
+			result.completeExceptionally(e);
+		}
+
+	}
+
+	private class AsyncDownloadTask<T> extends CallbackAsyncTask<T> {
+
+		private final DownloadTask<T> task;
+		private final DownloadCallback<T> callback;
+		private final int maxTries;
+
+		private volatile int currentTries;
+		private volatile String hostKey;
+
+		public AsyncDownloadTask(DownloadTask<T> task, DownloadCallback<T> callback, int maxTries) {
+			Objects.requireNonNull(task);
+			Objects.requireNonNull(callback);
+			if (maxTries < 1)
+				throw new IllegalArgumentException(String.valueOf(maxTries));
+
+			this.task = task;
+			this.callback = callback;
+			this.maxTries = maxTries;
+		}
+
+		@Override
+		protected void execute() throws Exception {
+			download();
+		}
+
+		private void download() {
+			if (Thread.interrupted() || isExceptional()) {
+				lifecycle().cancelled();
+				return;
+			}
+
+			String key = limiter == null ? null : limiter.keyOf(task.getURI());
+			if (key == null) {
+				connect();
+				return;
+			}
+			// wait for a permit of the host in a queue rather than on a bootstrap thread,
+			// the permit may be handed over on any thread releasing it
+			limiter.execute(key, () -> {
+				hostKey = key;
+				try {
+					bootstrapPool.execute(this::connect);
+				} catch (RejectedExecutionException e) {
+					hostKey = null;
+					limiter.release(key);
+					lifecycle().cancelled();
+				}
+			});
+		}
+
+		private void connect() {
+			if (Thread.interrupted() || isExceptional()) {
+				releaseHost();
+				lifecycle().cancelled();
+				return;
+			}
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				releaseHost();
+				lifecycle().cancelled();
+				return;
+			}
+
+			if (metrics != null) {
+				metrics.requestStarted(task.getURI());
+			}
+
+			Exchange<T> exchange;
+			try {
+				ConditionalDownloadSession<T> conditional = task.createConditionalSession();
+				exchange = new Exchange<>(task, conditional == null ? task.createResumableSession() : null, conditional, callback);
+			} catch (Throwable e) {
+				requestCompleted();
+				onFailure(e);
+				return;
+			}
+
+			addCancelable(exchange);
+			CompletableFuture<T> future;
+			try {
+				future = exchange.start();
+			} catch (Throwable e) {
+				requestCompleted();
+				removeCancelable(exchange);
+				exchange.fail(e);
+				onFailure(e);
+				return;
+			}
+			future.whenComplete((result, e) -> {
+				requestCompleted();
+				removeCancelable(exchange);
+				if (e == null) {
+					lifecycle().done(result);
+				} else {
+					onFailure(unwrap(e));
+				}
+			});
+		}
+
+		private void requestCompleted() {
+			releaseHost();
+			permits.release();
+			if (metrics != null) {
+				metrics.requestCompleted();
+			}
+		}
+
+		private void releaseHost() {
+			String key = hostKey;
+			if (key != null) {
+				hostKey = null;
+				limiter.release(key);
+			}
+		}
+
+		private void onFailure(Throwable e) {
+			if (e instanceof CancellationException) {
+				lifecycle().cancelled();
+				return;
+			}
+			currentTries++;
+			if (currentTries < maxTries && DownloaderHelper.shouldRetry(e)) {
+				callback.retry(e, currentTries, maxTries);
+				try {
+					bootstrapPool.execute(this::download);
+				} catch (RejectedExecutionException e1) {
+					lifecycle().cancelled();
+				}
+			} else {
+				lifecycle().failed(e);
+			}
+		}
+
+	}
+
+	private class TaskInactiver implements Runnable {
+
+		private final Future<?> future;
+
+		public TaskInactiver(Future<?> future) {
+			Objects.requireNonNull(future);
+			this.future = future;
+		}
+
+		@Override
+		public void run() {
+			tasks.remove(future);
+		}
+
+	}
+
+	private final HttpClient client;
+	private final Semaphore permits;
+	private final HostConnectionLimiter limiter;
+	private final int readTimeout;
+	private final ConnectionMetrics metrics;
+
+	private ExecutorService bootstrapPool;
+	private ExecutorService ioPool;
+
+	private volatile boolean shutdown;
+	private final ReadWriteLock rwlock = new ReentrantReadWriteLock();
+	private final Set<Future<?>> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
+
+	public HttpClientDownloader(ExecutorService bootstrapPool, ExecutorService ioPool, int maxConns, HostConnectionLimiter limiter, int connectTimeout, int readTimeout, Proxy proxy, ConnectionMetrics metrics) {
+		Objects.requireNonNull(bootstrapPool);
+		Objects.requireNonNull(ioPool);
+		Objects.requireNonNull(proxy);
+
+		this.bootstrapPool = bootstrapPool;
+		this.ioPool = ioPool;
+		this.readTimeout = readTimeout;
+		this.metrics = metrics;
+		this.permits = new Semaphore(maxConns);
+		this.limiter = limiter;
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(connectTimeout))
+				.proxy(resolveProxy(proxy))
+				.executor(ioPool)
+				.build();
+	}
+
+	@Override
+	public <T> Future<T> download(DownloadTask<T> task, DownloadCallback<T> callback) {
+		return download(task, callback, 1);
+	}
+
+	@Override
+	public <T> Future<T> download(DownloadTask<T> downloadTask, DownloadCallback<T> callback, int tries) {
+		/*
+		 * # Submit task
+		 * ++++ read lock
+		 * 	1. Has the shutdown flag been set? ................................................... read shutdown
+		 * 		Yes - Reject execution.
+		 * 		No - Go on.
+		 *
+		 * 	2. Create a task handler, store it in tasks. ......................................... write tasks
+		 *
+		 * 	3. Start the task handler. ........................................................... read bootstrapPool
+		 * ---- read unlock
+		 */
+
+		Objects.requireNonNull(downloadTask);
+		if (tries < 1)
+			throw new IllegalArgumentException("tries < 1");
+
+		if (downloadTask.getSegments() > 1)
+			return SegmentedDownloadHandler.start(this, downloadTask, callback, tries);
+
+		CallbackAsyncTask<T> task = new AsyncDownloadTask<>(downloadTask, callback == null ? DownloadCallbacks.<T> empty() : callback, tries);
+		Callback<T> statusCallback = Callbacks.whatever(new TaskInactiver(task));
+		if (callback != null)
+			statusCallback = Callbacks.group(statusCallback, callback);
+		task.setCallback(statusCallback);
+
+		Lock lock = rwlock.readLock();
+		lock.lock();
+		try {
+			if (shutdown)
+				throw new RejectedExecutionException("The downloader has been shutdown.");
+
+			tasks.add(task);
+			bootstrapPool.execute(task);
+		} finally {
+			lock.unlock();
+		}
+
+		return task;
+	}
+
+	@Override
+	public void shutdown() {
+		/*
+		 * # Shutdown
+		 * ++++ write lock
+		 * 	1. Has the shutdown flag been set? ................................................... read shutdown
+		 * 		Yes - Do nothing.
+		 * 		No - Go on.
+		 *
+		 * 	2. Set the shutdown flag. ............................................................ write shutdown
+		 * ---- write unlock
+		 *
+		 * 	3. Cancel all the tasks. ............................................................. read tasks
+		 *
+		 * 	4. Shutdown the pools. ............................................................... write pools
+		 */
+
+		Lock lock = rwlock.writeLock();
+		lock.lock();
+		try {
+			if (shutdown) {
+				return;
+			}
+
+			shutdown = true;
+		} finally {
+			lock.unlock();
+		}
+
+		for (Future<?> task : tasks)
+			task.cancel(true);
+
+		bootstrapPool.shutdownNow();
+		ioPool.shutdownNow();
+		bootstrapPool = null;
+		ioPool = null;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e;
+	}
+
+	private static ProxySelector resolveProxy(Proxy proxy) {
+		if (proxy.type() == Proxy.Type.DIRECT) {
+			return HttpClient.Builder.NO_PROXY;
+		}
+		if (proxy.type() == Proxy.Type.HTTP) {
+			SocketAddress socketAddress = proxy.address();
+			if (socketAddress instanceof InetSocketAddress) {
+				return ProxySelector.of((InetSocketAddress) socketAddress);
+			}
+		}
+		throw new IllegalArgumentException("Proxy '" + proxy + "' is not supported");
+	}
+
+}
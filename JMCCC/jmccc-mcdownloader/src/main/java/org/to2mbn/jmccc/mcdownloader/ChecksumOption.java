@@ -11,6 +11,15 @@ public enum ChecksumOption implements MinecraftDownloadOption {
 	/**
 	 * Verify the checksums of assets.
 	 */
-	CHECK_ASSETS;
+	CHECK_ASSETS,
+
+	/**
+	 * Hash every file again when verifying, instead of trusting the
+	 * verification journal for files which haven't changed since the last
+	 * verification.
+	 * 
+	 * @see org.to2mbn.jmccc.util.VerificationJournal
+	 */
+	DEEP_SCAN;
 
 }
@@ -6,19 +6,25 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import org.to2mbn.jmccc.internal.org.json.JSONObject;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadContext;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadTask;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackAdapter;
 import org.to2mbn.jmccc.mcdownloader.provider.MinecraftDownloadProvider;
 import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.option.SharedObjectStore;
+import org.to2mbn.jmccc.util.ChecksumEngine;
 import org.to2mbn.jmccc.util.ChecksumUtils;
 import org.to2mbn.jmccc.util.IOUtils;
+import org.to2mbn.jmccc.util.VerificationJournal;
 import org.to2mbn.jmccc.version.Asset;
 import org.to2mbn.jmccc.version.DownloadInfo;
 import org.to2mbn.jmccc.version.Library;
@@ -32,13 +38,16 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 	private MinecraftDownloadProvider provider;
 	private boolean checkLibrariesHash;
 	private boolean checkAssetsHash;
+	private boolean deepScan;
 	private boolean updateSnapshots;
 	private AssetOption assetOption;
 
+	private VerificationJournal journal;
+
 	private Set<String> handledVersions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 	private String resolvedVersion;
 
-	public IncrementallyDownloadTask(MinecraftDownloadProvider downloadProvider, MinecraftDirectory mcdir, String version, boolean checkLibrariesHash, boolean checkAssetsHash, boolean updateSnapshots, AssetOption assetOption) {
+	public IncrementallyDownloadTask(MinecraftDownloadProvider downloadProvider, MinecraftDirectory mcdir, String version, boolean checkLibrariesHash, boolean checkAssetsHash, boolean deepScan, boolean updateSnapshots, AssetOption assetOption) {
 		Objects.requireNonNull(mcdir);
 		Objects.requireNonNull(version);
 		Objects.requireNonNull(downloadProvider);
@@ -47,6 +56,7 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 		this.provider = downloadProvider;
 		this.checkLibrariesHash = checkLibrariesHash;
 		this.checkAssetsHash = checkAssetsHash;
+		this.deepScan = deepScan;
 		this.updateSnapshots = updateSnapshots;
 		this.assetOption = assetOption;
 	}
@@ -56,6 +66,15 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 		handledVersions.clear();
 		resolvedVersion = null;
 
+		if (checkAssetsHash || checkLibrariesHash) {
+			journal = VerificationJournal.load(mcdir.getVerificationJournal());
+			if (deepScan) {
+				journal.clear();
+			}
+		} else {
+			journal = null;
+		}
+
 		handleVersionJson(version, context, new Callable<Void>() {
 
 			@Override
@@ -101,6 +120,9 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 
 					@Override
 					public Void call() throws Exception {
+						if (journal != null) {
+							journal.save();
+						}
 						context.done(versionModel);
 						return null;
 					}
@@ -165,42 +187,132 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 
 		final boolean fatal = assetOption == AssetOption.FORCIBLY_DOWNLOAD;
 
-		if (checkAssetsHash)
-			for (final Asset asset : hashMapping.values())
-				context.submit(new Callable<Void>() {
+		if (checkAssetsHash) {
+			final Map<File, Asset> files = new HashMap<>();
+			for (Asset asset : hashMapping.values())
+				files.put(mcdir.getAsset(asset), asset);
 
-					@Override
-					public Void call() throws Exception {
-						if (!asset.isValid(mcdir))
-							context.submit(provider.asset(mcdir, asset), null, fatal);
+			context.submit(new Callable<Void>() {
 
-						return null;
+				@Override
+				public Void call() throws Exception {
+					Iterator<ChecksumEngine.Result> results = ChecksumEngine.getDefault().verifyAll(files.keySet(), "SHA-1", new Function<File, String>() {
+
+						@Override
+						public String apply(File file) {
+							return files.get(file).getHash();
+						}
+					}, new ToLongFunction<File>() {
+
+						@Override
+						public long applyAsLong(File file) {
+							return files.get(file).getSize();
+						}
+					}, journal).iterator();
+
+					while (results.hasNext()) {
+						ChecksumEngine.Result result = results.next();
+						if (!result.isValid()) {
+							Asset asset = files.get(result.getFile());
+							if (!repairFromStore(asset))
+								downloadAsset(context, asset, fatal);
+						}
 					}
-				}, null, false);
+					return null;
+				}
+			}, null, fatal);
 
-		else
+		} else
 			for (Asset asset : hashMapping.values())
-				if (!mcdir.getAsset(asset).isFile())
-					context.submit(provider.asset(mcdir, asset), null, fatal);
+				if (!isAvailable(asset))
+					downloadAsset(context, asset, fatal);
+	}
+
+	private boolean isAvailable(Asset asset) {
+		try {
+			return mcdir.resolveAsset(asset).isFile();
+		} catch (IOException e) {
+			// couldn't link it from the store, download it instead
+			return false;
+		}
+	}
+
+	private boolean repairFromStore(Asset asset) throws NoSuchAlgorithmException {
+		try {
+			return linkFromStore(asset) && asset.isValid(mcdir, journal);
+		} catch (IOException e) {
+			// a broken link or an unreadable file only affects this asset
+			return false;
+		}
+	}
+
+	private boolean linkFromStore(Asset asset) throws IOException {
+		SharedObjectStore store = mcdir.getObjectStore();
+		return store != null && store.linkAsset(mcdir, asset);
+	}
+
+	private void downloadAsset(final CombinedDownloadContext<?> context, final Asset asset, boolean fatal) throws InterruptedException {
+		final SharedObjectStore store = mcdir.getObjectStore();
+		context.submit(provider.asset(mcdir, asset), store == null ? null : new CallbackAdapter<Void>() {
+
+			@Override
+			public void done(Void result) {
+				try {
+					context.submit(new Callable<Void>() {
+
+						@Override
+						public Void call() throws Exception {
+							store.storeAsset(mcdir, asset);
+							return null;
+						}
+					}, null, false);
+				} catch (InterruptedException e) {
+					context.cancelled();
+				}
+			}
+		}, fatal);
 	}
 
 	private void downloadLibraries(final CombinedDownloadContext<?> context, Version version) throws InterruptedException {
-		if (checkLibrariesHash)
-			for (final Library library : version.getLibraries())
-				context.submit(new Callable<Void>() {
+		if (checkLibrariesHash) {
+			final Set<Library> libraries = version.getLibraries();
+			context.submit(new Callable<Void>() {
 
-					@Override
-					public Void call() throws Exception {
-						if (needDownload(mcdir.getLibrary(library), library.getDownloadInfo()))
-							downloadLibrary(context, library, true);
-						else
-							checkAndUpdate(context, library);
+				@Override
+				public Void call() throws Exception {
+					final Map<File, Library> files = new HashMap<>();
+					for (Library library : libraries)
+						files.put(resolveLibrary(library), library);
 
-						return null;
+					Iterator<ChecksumEngine.Result> results = ChecksumEngine.getDefault().verifyAll(files.keySet(), "SHA-1", new Function<File, String>() {
+
+						@Override
+						public String apply(File file) {
+							DownloadInfo info = files.get(file).getDownloadInfo();
+							return info == null ? null : info.getChecksum();
+						}
+					}, new ToLongFunction<File>() {
+
+						@Override
+						public long applyAsLong(File file) {
+							DownloadInfo info = files.get(file).getDownloadInfo();
+							return info == null ? -1 : info.getSize();
+						}
+					}, journal).iterator();
+
+					while (results.hasNext()) {
+						ChecksumEngine.Result result = results.next();
+						Library library = files.get(result.getFile());
+						if (result.isValid())
+							checkAndUpdate(context, library);
+						else
+							downloadLibrary(context, library, true);
 					}
-				}, null, true);
+					return null;
+				}
+			}, null, true);
 
-		else {
+		} else {
 			Set<Library> missing = version.getMissingLibraries(mcdir);
 			for (Library library : missing)
 				downloadLibrary(context, library, true);
@@ -212,15 +324,40 @@ class IncrementallyDownloadTask extends CombinedDownloadTask<Version> {
 		}
 	}
 
-	private void downloadLibrary(CombinedDownloadContext<?> context, Library library, boolean fatal) throws InterruptedException {
-		context.submit(provider.library(mcdir, library), null, fatal);
+	private File resolveLibrary(Library library) {
+		try {
+			return mcdir.resolveLibrary(library);
+		} catch (IOException e) {
+			// couldn't link it from the store, verify (and download) it in place
+			return mcdir.getLibrary(library);
+		}
 	}
 
-	private boolean needDownload(File target, DownloadInfo info) throws NoSuchAlgorithmException, IOException {
-		if (info == null)
-			return !target.isFile();
-		else
-			return !ChecksumUtils.verify(target, info.getChecksum(), "SHA-1", info.getSize());
+	private void downloadLibrary(final CombinedDownloadContext<?> context, final Library library, boolean fatal) throws InterruptedException {
+		final SharedObjectStore store = mcdir.getObjectStore();
+		if (store != null) {
+			// some library processors write into the target in place,
+			// unlink it first so that the shared copy won't be modified
+			mcdir.getLibrary(library).delete();
+		}
+		context.submit(provider.library(mcdir, library), store == null ? null : new CallbackAdapter<Void>() {
+
+			@Override
+			public void done(Void result) {
+				try {
+					context.submit(new Callable<Void>() {
+
+						@Override
+						public Void call() throws Exception {
+							store.storeLibrary(mcdir, library);
+							return null;
+						}
+					}, null, false);
+				} catch (InterruptedException e) {
+					context.cancelled();
+				}
+			}
+		}, fatal);
 	}
 
 	private void checkAndUpdate(final CombinedDownloadContext<?> context, final Library lib) throws InterruptedException {
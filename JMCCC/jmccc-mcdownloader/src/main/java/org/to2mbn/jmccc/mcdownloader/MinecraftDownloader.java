@@ -2,6 +2,7 @@ package org.to2mbn.jmccc.mcdownloader;
 
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import org.to2mbn.jmccc.launch.PreflightReport;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloader;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.CombinedDownloadCallback;
 import org.to2mbn.jmccc.mcdownloader.provider.MinecraftDownloadProvider;
@@ -26,6 +27,24 @@ public interface MinecraftDownloader extends CombinedDownloader {
 	 */
 	Future<Version> downloadIncrementally(MinecraftDirectory dir, String version, CombinedDownloadCallback<Version> callback, MinecraftDownloadOption... options);
 
+	/**
+	 * Downloads the libraries listed in a preflight report again.
+	 * <p>
+	 * Both the missing and the corrupted libraries are downloaded. This is
+	 * cheaper than {@link #downloadIncrementally(MinecraftDirectory, String,
+	 * CombinedDownloadCallback, MinecraftDownloadOption...)} when the report
+	 * is already known, for example from a
+	 * {@link org.to2mbn.jmccc.launch.MissingDependenciesException}.
+	 * 
+	 * @param dir the minecraft dir
+	 * @param report the preflight report
+	 * @param callback the callback
+	 * @return future representing pending completion of the operation
+	 * @throws NullPointerException if <code>dir==null || report==null</code>
+	 * @throws RejectedExecutionException if the downloader has been shutdown
+	 */
+	Future<Void> repair(MinecraftDirectory dir, PreflightReport report, CombinedDownloadCallback<Void> callback);
+
 	/**
 	 * Fetches the remote version list asynchronously.
 	 * 
@@ -2,6 +2,7 @@ package org.to2mbn.jmccc.mcdownloader;
 
 import java.util.Objects;
 import java.util.concurrent.Future;
+import org.to2mbn.jmccc.launch.PreflightReport;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadTask;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloader;
 import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadTask.CacheStrategy;
@@ -56,6 +57,7 @@ class MinecraftDownloaderImpl implements MinecraftDownloader {
 	public Future<Version> downloadIncrementally(MinecraftDirectory dir, String version, CombinedDownloadCallback<Version> callback, MinecraftDownloadOption... options) {
 		boolean checkLibrariesHash = false;
 		boolean checkAssetsHash = false;
+		boolean deepScan = false;
 		boolean updateSnapshots = false;
 		AssetOption assetOption = null;
 		CacheOption cacheOption = null;
@@ -84,13 +86,16 @@ class MinecraftDownloaderImpl implements MinecraftDownloader {
 					case CHECK_LIBRARIES:
 						checkLibrariesHash = true;
 						break;
+					case DEEP_SCAN:
+						deepScan = true;
+						break;
 					default:
 						break;
 				}
 			}
 		}
 
-		CombinedDownloadTask<Version> task = new IncrementallyDownloadTask(downloadProvider, dir, version, checkLibrariesHash, checkAssetsHash, updateSnapshots, assetOption);
+		CombinedDownloadTask<Version> task = new IncrementallyDownloadTask(downloadProvider, dir, version, checkLibrariesHash, checkAssetsHash, deepScan, updateSnapshots, assetOption);
 
 		if (cacheOption != null) {
 			task = processCacheOption(task, cacheOption);
@@ -99,6 +104,13 @@ class MinecraftDownloaderImpl implements MinecraftDownloader {
 		return download(task, callback);
 	}
 
+	@Override
+	public Future<Void> repair(MinecraftDirectory dir, PreflightReport report, CombinedDownloadCallback<Void> callback) {
+		Objects.requireNonNull(dir);
+		Objects.requireNonNull(report);
+		return download(new RepairTask(downloadProvider, dir, report.getLibrariesToRepair()), callback);
+	}
+
 	@Override
 	public Future<RemoteVersionList> fetchRemoteVersionList(CombinedDownloadCallback<RemoteVersionList> callback, CacheOption... options) {
 		CombinedDownloadTask<RemoteVersionList> task = downloadProvider.versionList();
@@ -0,0 +1,88 @@
+package org.to2mbn.jmccc.mcdownloader;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadContext;
+import org.to2mbn.jmccc.mcdownloader.download.combine.CombinedDownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackAdapter;
+import org.to2mbn.jmccc.mcdownloader.provider.MinecraftDownloadProvider;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.option.SharedObjectStore;
+import org.to2mbn.jmccc.version.Library;
+
+class RepairTask extends CombinedDownloadTask<Void> {
+
+	private MinecraftDirectory mcdir;
+	private Set<Library> libraries;
+	private MinecraftDownloadProvider provider;
+
+	public RepairTask(MinecraftDownloadProvider downloadProvider, MinecraftDirectory mcdir, Set<Library> libraries) {
+		Objects.requireNonNull(downloadProvider);
+		Objects.requireNonNull(mcdir);
+		Objects.requireNonNull(libraries);
+		this.provider = downloadProvider;
+		this.mcdir = mcdir;
+		this.libraries = libraries;
+	}
+
+	@Override
+	public void execute(final CombinedDownloadContext<Void> context) throws Exception {
+		final SharedObjectStore store = mcdir.getObjectStore();
+		for (final Library library : libraries) {
+			final CombinedDownloadTask<Void> task = provider.library(mcdir, library);
+			if (task == null) {
+				// the provider doesn't know how to download it
+				continue;
+			}
+
+			context.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					if (store != null) {
+						// the corrupted file may be linked to the shared copy,
+						// which mustn't be written through
+						File file = mcdir.getLibrary(library);
+						Files.deleteIfExists(file.toPath());
+					}
+					submitDownload(context, store, library, task);
+					return null;
+				}
+			}, null, true);
+		}
+
+		context.awaitAllTasks(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				context.done(null);
+				return null;
+			}
+		});
+	}
+
+	private void submitDownload(final CombinedDownloadContext<Void> context, final SharedObjectStore store, final Library library, CombinedDownloadTask<Void> task) throws InterruptedException {
+		context.submit(task, store == null ? null : new CallbackAdapter<Void>() {
+
+			@Override
+			public void done(Void result) {
+				try {
+					context.submit(new Callable<Void>() {
+
+						@Override
+						public Void call() throws Exception {
+							store.storeLibrary(mcdir, library);
+							return null;
+						}
+					}, null, false);
+				} catch (InterruptedException e) {
+					context.cancelled();
+				}
+			}
+		}, true);
+	}
+
+}
@@ -3,6 +3,7 @@ package org.to2mbn.jmccc.mcdownloader.download;
 import org.to2mbn.jmccc.mcdownloader.download.cache.CachedDownloaderBuilder;
 import org.to2mbn.jmccc.mcdownloader.download.io.JdkDownloaderBuilder;
 import org.to2mbn.jmccc.mcdownloader.download.io.async.HttpAsyncDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.http.HttpClientDownloaderBuilder;
 import org.to2mbn.jmccc.util.Builder;
 
 public final class DownloaderBuilders {
@@ -15,6 +16,39 @@ public final class DownloaderBuilders {
 		}
 	}
 
+	/**
+	 * Returns a builder of the downloader based on
+	 * <code>java.net.http</code>, which multiplexes the requests to a host
+	 * over HTTP/2.
+	 * <p>
+	 * It's not used by {@link #downloader()}, since it doesn't support SOCKS
+	 * proxies. If it's not available, this method returns
+	 * {@link #downloader()}.
+	 * 
+	 * @return the builder
+	 * @see HttpClientDownloaderBuilder
+	 */
+	public static Builder<Downloader> httpClientDownloader() {
+		if (HttpClientDownloaderBuilder.isAvailable()) {
+			return HttpClientDownloaderBuilder.create();
+		} else {
+			return downloader();
+		}
+	}
+
+	/**
+	 * Returns a builder of the downloader which runs each request on a virtual
+	 * thread.
+	 * <p>
+	 * If virtual threads are not supported by the JVM, the downloader falls
+	 * back to a pool of platform threads.
+	 * 
+	 * @return the builder
+	 */
+	public static Builder<Downloader> virtualThreadDownloader() {
+		return JdkDownloaderBuilder.create().useVirtualThreads(true);
+	}
+
 	public static Builder<Downloader> cacheableDownloader(Builder<Downloader> underlying) {
 		if (CachedDownloaderBuilder.isAvailable()){
 			return CachedDownloaderBuilder.create(underlying);
@@ -0,0 +1,111 @@
+package org.to2mbn.jmccc.mcdownloader.download.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the body of a download for caching.
+ * <p>
+ * If the length is known, the data is copied directly into an exactly-sized
+ * array, which is handed to the cache provider without any further copy.
+ * Otherwise the data is appended into fixed-size segments, which are joined
+ * once when the download completes.
+ */
+class CacheBuffer {
+
+	private static final int SEGMENT_SIZE = 64 * 1024;
+	private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+	// used when the length is known
+	private byte[] exact;
+
+	// used when the length is unknown, or the data exceeds the expected length
+	private List<byte[]> segments;
+	private int segmentPosition;
+
+	private long length;
+
+	/**
+	 * @param expectedLength the length of the data, -1 if unknown
+	 */
+	public CacheBuffer(long expectedLength) {
+		if (expectedLength >= 0 && expectedLength <= MAX_LENGTH) {
+			exact = new byte[(int) expectedLength];
+		} else {
+			segments = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Appends the remaining bytes of the buffer.
+	 * 
+	 * @param data the data to append, its position will be changed
+	 * @return false if the data is too large to be cached
+	 */
+	public boolean append(ByteBuffer data) {
+		int remaining = data.remaining();
+		if (length + remaining > MAX_LENGTH) {
+			return false;
+		}
+
+		if (exact != null) {
+			int free = exact.length - (int) length;
+			if (remaining <= free) {
+				data.get(exact, (int) length, remaining);
+				length += remaining;
+				return true;
+			}
+			// the server sent more than it declared, switch to segments
+			segments = new ArrayList<>();
+			segments.add(exact);
+			segmentPosition = (int) length;
+			exact = null;
+		}
+
+		while (data.hasRemaining()) {
+			byte[] segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+			if (segment == null || segmentPosition == segment.length) {
+				segment = new byte[SEGMENT_SIZE];
+				segments.add(segment);
+				segmentPosition = 0;
+			}
+			int n = Math.min(data.remaining(), segment.length - segmentPosition);
+			data.get(segment, segmentPosition, n);
+			segmentPosition += n;
+			length += n;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the collected data.
+	 * <p>
+	 * The returned array is owned by the caller, the buffer must not be used
+	 * after this method is called.
+	 * 
+	 * @return the collected data
+	 */
+	public byte[] toArray() {
+		if (exact != null) {
+			if (length == exact.length) {
+				return exact;
+			}
+			return Arrays.copyOf(exact, (int) length);
+		}
+
+		if (segments.size() == 1 && segments.get(0).length == length) {
+			return segments.get(0);
+		}
+		byte[] result = new byte[(int) length];
+		int offset = 0;
+		for (byte[] segment : segments) {
+			int n = (int) Math.min(segment.length, length - offset);
+			System.arraycopy(segment, 0, result, offset, n);
+			offset += n;
+		}
+		return result;
+	}
+
+}
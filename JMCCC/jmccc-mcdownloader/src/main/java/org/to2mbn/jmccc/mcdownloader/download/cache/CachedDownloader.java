@@ -1,6 +1,5 @@
 package org.to2mbn.jmccc.mcdownloader.download.cache;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.ref.SoftReference;
 import java.net.URI;
@@ -10,11 +9,16 @@ import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.cache.provider.CacheEntry;
 import org.to2mbn.jmccc.mcdownloader.download.cache.provider.CacheProvider;
+import org.to2mbn.jmccc.mcdownloader.download.cache.provider.ValidatingCacheProvider;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.CompletedFuture;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ConditionalDownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ResumableDownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.SegmentedDownloadTarget;
 
 class CachedDownloader implements Downloader {
 
@@ -24,46 +28,52 @@ class CachedDownloader implements Downloader {
 
 		private final DownloadTask<T> proxiedTask;
 
-		public CachingDownloadTask(DownloadTask<T> proxiedTask) {
+		// the expired entry to revalidate, null if there is none
+		private volatile CacheEntry<byte[]> expired;
+
+		// the resumable session created while choosing the session type
+		private ResumableDownloadSession<T> pendingResumable;
+
+		public CachingDownloadTask(DownloadTask<T> proxiedTask, CacheEntry<byte[]> expired) {
 			super(proxiedTask.getURI());
 			this.proxiedTask = proxiedTask;
+			this.expired = expired;
 		}
 
 		private class CachingDownloadSession implements DownloadSession<T> {
 
 			private final DownloadSession<T> proxiedSession;
 
+			// the validators of the received resource
+			String etag;
+			String lastModified;
+
 			// use SoftReference to prevent OOM
-			private SoftReference<ByteArrayOutputStream> bufRef;
+			private SoftReference<CacheBuffer> bufRef;
 
 			public CachingDownloadSession(DownloadSession<T> proxiedSession, long length) {
 				this.proxiedSession = proxiedSession;
-				if (length < Integer.MAX_VALUE) {
-					try {
-						bufRef = new SoftReference<>(new ByteArrayOutputStream((int) length));
-					} catch (OutOfMemoryError e) {
-						dropCache();
-					}
+				try {
+					bufRef = new SoftReference<>(new CacheBuffer(length));
+				} catch (OutOfMemoryError e) {
+					dropCache();
 				}
 			}
 
 			@Override
 			public void receiveData(ByteBuffer data) throws IOException {
-				byte[] copiedData = new byte[data.remaining()];
-				data.get(copiedData);
-
-				proxiedSession.receiveData(ByteBuffer.wrap(copiedData));
-
 				if (bufRef != null) {
 					try {
-						ByteArrayOutputStream buf = bufRef.get();
-						if (buf != null) {
-							buf.write(copiedData);
+						CacheBuffer buf = bufRef.get();
+						if (buf == null || !buf.append(data.duplicate())) {
+							dropCache();
 						}
 					} catch (OutOfMemoryError e) {
 						dropCache();
 					}
 				}
+
+				proxiedSession.receiveData(data);
 			}
 
 			@Override
@@ -85,25 +95,28 @@ class CachedDownloader implements Downloader {
 				proxiedSession.failed();
 			}
 
-			private void dropCache() {
+			void dropCache() {
 				if (bufRef != null) {
 					bufRef.clear();
 					bufRef = null;
 				}
 			}
 
+			void resetCache(long length) {
+				dropCache();
+				try {
+					bufRef = new SoftReference<>(new CacheBuffer(length));
+				} catch (OutOfMemoryError e) {
+					dropCache();
+				}
+			}
+
 			private void saveCache() {
 				if (bufRef != null) {
 					try {
-						ByteArrayOutputStream buf = bufRef.get();
+						CacheBuffer buf = bufRef.get();
 						if (buf != null) {
-							byte[] data = buf.toByteArray();
-							URI uri = proxiedTask.getURI();
-							String pool = resolveCachePool(proxiedTask.getCachePool());
-							cacheProvider.put(pool, uri, data);
-
-							if (LOGGER.isLoggable(Level.FINE))
-								LOGGER.fine(String.format("Cached [%s] into [%s], length=%d", uri, pool, data.length));
+							putCache(buf.toArray(), etag, lastModified);
 						}
 					} catch (OutOfMemoryError e) {
 						dropCache();
@@ -113,9 +126,177 @@ class CachedDownloader implements Downloader {
 
 		}
 
+		private class ResumableCachingDownloadSession extends CachingDownloadSession implements ResumableDownloadSession<T> {
+
+			private final ResumableDownloadSession<T> proxiedSession;
+
+			public ResumableCachingDownloadSession(ResumableDownloadSession<T> proxiedSession) {
+				super(proxiedSession, -1);
+				this.proxiedSession = proxiedSession;
+			}
+
+			@Override
+			public long getResumeOffset() {
+				return proxiedSession.getResumeOffset();
+			}
+
+			@Override
+			public long getRangeEnd() {
+				return proxiedSession.getRangeEnd();
+			}
+
+			@Override
+			public String getValidator() {
+				return proxiedSession.getValidator();
+			}
+
+			@Override
+			public void beginTransfer(boolean partial, long totalLength, String validator) throws IOException {
+				if (partial) {
+					// the data received by the previous sessions isn't in the buffer
+					dropCache();
+				} else {
+					resetCache(totalLength);
+					// a range validator is either a strong entity tag, which is quoted, or a date
+					if (validator != null && validator.startsWith("\"")) {
+						etag = validator;
+					} else {
+						lastModified = validator;
+					}
+				}
+				proxiedSession.beginTransfer(partial, totalLength, validator);
+			}
+
+		}
+
+		private class CachingSegmentedTarget implements SegmentedDownloadTarget<T> {
+
+			private final SegmentedDownloadTarget<T> proxiedTarget;
+
+			// use SoftReference to prevent OOM
+			private final SoftReference<byte[]> bufRef;
+
+			public CachingSegmentedTarget(SegmentedDownloadTarget<T> proxiedTarget, long length) {
+				this.proxiedTarget = proxiedTarget;
+				SoftReference<byte[]> ref = null;
+				if (length <= Integer.MAX_VALUE - 8) {
+					try {
+						ref = new SoftReference<>(new byte[(int) length]);
+					} catch (OutOfMemoryError e) {
+						// don't cache it
+					}
+				}
+				bufRef = ref == null ? new SoftReference<byte[]>(null) : ref;
+			}
+
+			@Override
+			public void write(long position, ByteBuffer data) throws IOException {
+				byte[] buf = bufRef.get();
+				if (buf != null) {
+					// the segments never overlap, so they can be copied concurrently
+					data.duplicate().get(buf, (int) position, data.remaining());
+				}
+				proxiedTarget.write(position, data);
+			}
+
+			@Override
+			public T completed() throws Exception {
+				T result;
+				try {
+					result = proxiedTarget.completed();
+				} catch (Throwable e) {
+					bufRef.clear();
+					throw e;
+				}
+				byte[] buf = bufRef.get();
+				if (buf != null) {
+					// the validators aren't known to a segmented target
+					putCache(buf, null, null);
+				}
+				return result;
+			}
+
+			@Override
+			public void failed() throws Exception {
+				bufRef.clear();
+				proxiedTarget.failed();
+			}
+
+		}
+
+		private class ConditionalCachingDownloadSession implements ConditionalDownloadSession<T> {
+
+			private CachingDownloadSession session;
+
+			@Override
+			public String getETag() {
+				CacheEntry<byte[]> entry = expired;
+				return entry == null ? null : entry.getETag();
+			}
+
+			@Override
+			public String getLastModified() {
+				CacheEntry<byte[]> entry = expired;
+				return entry == null ? null : entry.getLastModified();
+			}
+
+			@Override
+			public void beginTransfer(long length, String etag, String lastModified) throws IOException {
+				session = new CachingDownloadSession(length == -1
+						? proxiedTask.createSession()
+						: proxiedTask.createSession(length), length);
+				session.etag = etag;
+				session.lastModified = lastModified;
+			}
+
+			@Override
+			public void receiveData(ByteBuffer data) throws IOException {
+				session.receiveData(data);
+			}
+
+			@Override
+			public T completed() throws Exception {
+				return session.completed();
+			}
+
+			@Override
+			public void failed() throws Exception {
+				if (session != null) {
+					session.failed();
+				}
+			}
+
+			@Override
+			public T notModified() throws Exception {
+				CacheEntry<byte[]> entry = expired;
+				if (entry == null) {
+					throw new IOException("Unexpected 304 response: no cached copy of " + getURI());
+				}
+
+				URI uri = proxiedTask.getURI();
+				String pool = resolveCachePool(proxiedTask.getCachePool());
+				T result;
+				try {
+					result = processCache(proxiedTask, entry.getValue());
+				} catch (Throwable e) {
+					// download the whole resource when retrying
+					expired = null;
+					cacheProvider.remove(pool, uri);
+					throw new IOException("Couldn't apply the revalidated cache of " + uri, e);
+				}
+				((ValidatingCacheProvider<URI, byte[]>) cacheProvider).revalidated(pool, uri);
+
+				if (LOGGER.isLoggable(Level.FINE))
+					LOGGER.fine(String.format("Revalidated cache [%s] in [%s], length=%d", uri, pool, entry.getValue().length));
+
+				return result;
+			}
+
+		}
+
 		@Override
 		public DownloadSession<T> createSession() throws IOException {
-			return new CachingDownloadSession(proxiedTask.createSession(), 8192);
+			return new CachingDownloadSession(proxiedTask.createSession(), -1);
 		}
 
 		@Override
@@ -123,6 +304,59 @@ class CachedDownloader implements Downloader {
 			return new CachingDownloadSession(proxiedTask.createSession(length), length);
 		}
 
+		@Override
+		public ResumableDownloadSession<T> createResumableSession() throws IOException {
+			ResumableDownloadSession<T> session = pendingResumable;
+			if (session == null) {
+				session = proxiedTask.createResumableSession();
+			} else {
+				pendingResumable = null;
+			}
+			return session == null ? null : new ResumableCachingDownloadSession(session);
+		}
+
+		@Override
+		public ConditionalDownloadSession<T> createConditionalSession() throws IOException {
+			if (!(cacheProvider instanceof ValidatingCacheProvider)) {
+				return null;
+			}
+			if (expired == null) {
+				// nothing to revalidate, prefer resuming if the task supports it,
+				// a resumable session collects the validator as well
+				ResumableDownloadSession<T> session = proxiedTask.createResumableSession();
+				if (session != null) {
+					// the downloader asks for it right after this method returns null
+					pendingResumable = session;
+					return null;
+				}
+			}
+			return new ConditionalCachingDownloadSession();
+		}
+
+		@Override
+		public int getSegments() {
+			return proxiedTask.getSegments();
+		}
+
+		@Override
+		public SegmentedDownloadTarget<T> createSegmentedTarget(long length) throws IOException {
+			SegmentedDownloadTarget<T> target = proxiedTask.createSegmentedTarget(length);
+			return target == null ? null : new CachingSegmentedTarget(target, length);
+		}
+
+		private void putCache(byte[] data, String etag, String lastModified) {
+			URI uri = proxiedTask.getURI();
+			String pool = resolveCachePool(proxiedTask.getCachePool());
+			if (cacheProvider instanceof ValidatingCacheProvider) {
+				((ValidatingCacheProvider<URI, byte[]>) cacheProvider).put(pool, uri, data, etag, lastModified);
+			} else {
+				cacheProvider.put(pool, uri, data);
+			}
+
+			if (LOGGER.isLoggable(Level.FINE))
+				LOGGER.fine(String.format("Cached [%s] into [%s], length=%d", uri, pool, data.length));
+		}
+
 	}
 
 	private Downloader upstream;
@@ -169,10 +403,11 @@ class CachedDownloader implements Downloader {
 			if (LOGGER.isLoggable(Level.FINER))
 				LOGGER.finer(String.format("Resolved the cache pool of [%s]: [%s] -> [%s]", uri, task.getCachePool(), pool));
 
-			byte[] cached = cacheProvider.get(pool, uri);
-			if (cached == null) {
-				return submitToUpstream(new CachingDownloadTask<>(task), callback, tries);
+			CacheEntry<byte[]> entry = getCacheEntry(pool, uri);
+			if (entry == null || entry.isExpired()) {
+				return submitToUpstream(new CachingDownloadTask<>(task, entry != null && entry.isRevalidatable() ? entry : null), callback, tries);
 			} else {
+				byte[] cached = entry.getValue();
 
 				T result;
 				try {
@@ -183,7 +418,7 @@ class CachedDownloader implements Downloader {
 					if (LOGGER.isLoggable(Level.FINE))
 						LOGGER.log(Level.FINE, String.format("Removed cache [%s] from [%s] because an exception has thrown when applying cache", uri, pool), e);
 
-					return submitToUpstream(new CachingDownloadTask<>(task), callback, tries);
+					return submitToUpstream(new CachingDownloadTask<>(task, null), callback, tries);
 				}
 
 				if (LOGGER.isLoggable(Level.FINE))
@@ -199,6 +434,14 @@ class CachedDownloader implements Downloader {
 		}
 	}
 
+	private CacheEntry<byte[]> getCacheEntry(String pool, URI uri) {
+		if (cacheProvider instanceof ValidatingCacheProvider) {
+			return ((ValidatingCacheProvider<URI, byte[]>) cacheProvider).getEntry(pool, uri);
+		}
+		byte[] cached = cacheProvider.get(pool, uri);
+		return cached == null ? null : new CacheEntry<>(cached, null, null, false);
+	}
+
 	private <T> Future<T> submitToUpstream(DownloadTask<T> task, DownloadCallback<T> callback, int tries) {
 		if (tries == -1) {
 			return upstream.download(task, callback);
@@ -210,7 +453,8 @@ class CachedDownloader implements Downloader {
 	private <T> T processCache(DownloadTask<T> task, byte[] cached) throws Exception {
 		DownloadSession<T> session = task.createSession(cached.length);
 		try {
-			session.receiveData(ByteBuffer.wrap(cached));
+			// the cached array is shared, don't let the session modify it
+			session.receiveData(ByteBuffer.wrap(cached).asReadOnlyBuffer());
 		} catch (Throwable e) {
 			session.failed();
 			throw e;
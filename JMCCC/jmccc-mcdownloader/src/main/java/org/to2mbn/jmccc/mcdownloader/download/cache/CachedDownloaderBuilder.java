@@ -1,11 +1,13 @@
 package org.to2mbn.jmccc.mcdownloader.download.cache;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import org.to2mbn.jmccc.mcdownloader.download.Downloader;
 import org.to2mbn.jmccc.mcdownloader.download.cache.provider.CacheProvider;
+import org.to2mbn.jmccc.mcdownloader.download.cache.provider.DiskCacheProvider;
 import org.to2mbn.jmccc.mcdownloader.download.cache.provider.EhcacheProvider;
 import org.to2mbn.jmccc.mcdownloader.download.cache.provider.JCacheProvider;
 import org.to2mbn.jmccc.util.Builder;
@@ -46,6 +48,39 @@ public class CachedDownloaderBuilder implements Builder<Downloader> {
 		return this;
 	}
 
+	// === Disk cache Supports
+
+	/**
+	 * Stores the cache on the disk, so that it survives restarts. Expired
+	 * entries are revalidated with conditional requests.
+	 * 
+	 * @param dir the cache directory
+	 * @return the builder itself
+	 * @see DiskCacheProvider
+	 */
+	public CachedDownloaderBuilder diskCache(File dir) {
+		this.cacheProvider = Builders.of(new DiskCacheProvider(dir));
+		return this;
+	}
+
+	/**
+	 * Stores the cache on the disk, so that it survives restarts. Expired
+	 * entries are revalidated with conditional requests.
+	 * 
+	 * @param dir the cache directory
+	 * @param ttl how long an entry can be used without being revalidated
+	 * @param unit the unit of <code>ttl</code>
+	 * @param maxEntrySize the max length of a body to store
+	 * @return the builder itself
+	 * @see DiskCacheProvider
+	 */
+	public CachedDownloaderBuilder diskCache(File dir, long ttl, TimeUnit unit, long maxEntrySize) {
+		this.cacheProvider = Builders.of(new DiskCacheProvider(dir, ttl, unit, maxEntrySize));
+		return this;
+	}
+
+	// ===
+
 	// === Ehcache Supports
 
 	private static class EhcacheProviderBuilder implements Builder<CacheProvider<URI, byte[]>> {
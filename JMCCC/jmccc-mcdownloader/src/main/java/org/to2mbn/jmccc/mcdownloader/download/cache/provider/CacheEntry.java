@@ -0,0 +1,62 @@
+package org.to2mbn.jmccc.mcdownloader.download.cache.provider;
+
+/**
+ * A cached value together with the validators of the resource it came from.
+ * 
+ * @param <V> the type of the cached value
+ * @see ValidatingCacheProvider
+ */
+public class CacheEntry<V> {
+
+	private final V value;
+	private final String etag;
+	private final String lastModified;
+	private final boolean expired;
+
+	/**
+	 * Constructs a CacheEntry.
+	 * 
+	 * @param value the cached value
+	 * @param etag the <code>ETag</code> of the resource, null if unknown
+	 * @param lastModified the <code>Last-Modified</code> of the resource, null
+	 *            if unknown
+	 * @param expired true if the entry must be revalidated before use
+	 */
+	public CacheEntry(V value, String etag, String lastModified, boolean expired) {
+		this.value = value;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.expired = expired;
+	}
+
+	public V getValue() {
+		return value;
+	}
+
+	public String getETag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public boolean isExpired() {
+		return expired;
+	}
+
+	/**
+	 * Returns true if the entry can be revalidated with a conditional request.
+	 * 
+	 * @return true if the entry has an entity tag or a modification date
+	 */
+	public boolean isRevalidatable() {
+		return etag != null || lastModified != null;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CacheEntry [etag=%s, lastModified=%s, expired=%s]", etag, lastModified, expired);
+	}
+
+}
@@ -0,0 +1,253 @@
+package org.to2mbn.jmccc.mcdownloader.download.cache.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import org.to2mbn.jmccc.util.HexUtils;
+
+/**
+ * A cache provider which stores the cached bodies on the disk, so that they
+ * survive restarts.
+ * <p>
+ * Every cache pool is kept in its own directory. An entry consists of two
+ * files named after the SHA-1 of the URI: the body, and a
+ * <code>.meta</code> file holding the URI, the length and the CRC32 of the
+ * body, the validators of the resource, and the time when the entry was last
+ * validated. Both files are written to a temporary file first and then moved
+ * into place, so readers never see a partially written entry.
+ * <p>
+ * Entries older than the time-to-live are not returned by
+ * {@link #get(String, URI)}, but they are kept so that they can be revalidated
+ * with a conditional request.
+ */
+public class DiskCacheProvider implements ValidatingCacheProvider<URI, byte[]> {
+
+	private static final Logger LOGGER = Logger.getLogger(DiskCacheProvider.class.getCanonicalName());
+
+	private static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(2);
+	private static final long DEFAULT_MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+
+	private static final String META_SUFFIX = ".meta";
+
+	private final File dir;
+	private final long ttl;
+	private final long maxEntrySize;
+
+	/**
+	 * Constructs a DiskCacheProvider with a time-to-live of 2 hours, which
+	 * doesn't store bodies larger than 16 MiB.
+	 * 
+	 * @param dir the cache directory
+	 */
+	public DiskCacheProvider(File dir) {
+		this(dir, DEFAULT_TTL, TimeUnit.MILLISECONDS, DEFAULT_MAX_ENTRY_SIZE);
+	}
+
+	/**
+	 * Constructs a DiskCacheProvider.
+	 * 
+	 * @param dir the cache directory
+	 * @param ttl how long an entry can be used without being revalidated
+	 * @param unit the unit of <code>ttl</code>
+	 * @param maxEntrySize the max length of a body to store
+	 */
+	public DiskCacheProvider(File dir, long ttl, TimeUnit unit, long maxEntrySize) {
+		if (ttl < 0)
+			throw new IllegalArgumentException("ttl < 0");
+		if (maxEntrySize < 0)
+			throw new IllegalArgumentException("maxEntrySize < 0");
+		this.dir = Objects.requireNonNull(dir);
+		this.ttl = unit.toMillis(ttl);
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	@Override
+	public byte[] get(String cachePool, URI key) {
+		CacheEntry<byte[]> entry = getEntry(cachePool, key);
+		if (entry == null || entry.isExpired()) {
+			return null;
+		}
+		return entry.getValue();
+	}
+
+	@Override
+	public CacheEntry<byte[]> getEntry(String cachePool, URI key) {
+		File body = getBodyFile(cachePool, key);
+		File metaFile = getMetaFile(body);
+		try {
+			Properties meta = readMeta(metaFile);
+			if (meta == null || !key.toString().equals(meta.getProperty("uri"))) {
+				return null;
+			}
+
+			byte[] data = Files.readAllBytes(body.toPath());
+			if (data.length != Long.parseLong(meta.getProperty("length")) || crc32(data) != Long.parseLong(meta.getProperty("crc32"))) {
+				// the body has been replaced by another writer
+				return null;
+			}
+
+			long validated = Long.parseLong(meta.getProperty("validated"));
+			long now = System.currentTimeMillis();
+			boolean expired = now - validated >= ttl || validated > now;
+			return new CacheEntry<>(data, meta.getProperty("etag"), meta.getProperty("lastModified"), expired);
+
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.FINE, "Couldn't read cache entry " + metaFile, e);
+			return null;
+		}
+	}
+
+	@Override
+	public void put(String cachePool, URI key, byte[] value) {
+		put(cachePool, key, value, null, null);
+	}
+
+	@Override
+	public void put(String cachePool, URI key, byte[] value, String etag, String lastModified) {
+		File body = getBodyFile(cachePool, key);
+		if (value.length > maxEntrySize) {
+			delete(body);
+			return;
+		}
+
+		Properties meta = new Properties();
+		meta.setProperty("uri", key.toString());
+		meta.setProperty("length", String.valueOf(value.length));
+		meta.setProperty("crc32", String.valueOf(crc32(value)));
+		meta.setProperty("validated", String.valueOf(System.currentTimeMillis()));
+		if (etag != null)
+			meta.setProperty("etag", etag);
+		if (lastModified != null)
+			meta.setProperty("lastModified", lastModified);
+
+		try {
+			writeAtomically(body, value);
+			writeMeta(getMetaFile(body), meta);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Couldn't write cache entry " + body, e);
+			delete(body);
+		}
+	}
+
+	@Override
+	public void revalidated(String cachePool, URI key) {
+		File metaFile = getMetaFile(getBodyFile(cachePool, key));
+		try {
+			Properties meta = readMeta(metaFile);
+			if (meta != null) {
+				meta.setProperty("validated", String.valueOf(System.currentTimeMillis()));
+				writeMeta(metaFile, meta);
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Couldn't update cache entry " + metaFile, e);
+		}
+	}
+
+	@Override
+	public void remove(String cachePool, URI key) {
+		delete(getBodyFile(cachePool, key));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Every cache pool is stored in its own directory, so this method always
+	 * returns true.
+	 */
+	@Override
+	public boolean hasCache(String cachePool) {
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {}
+
+	private File getBodyFile(String cachePool, URI key) {
+		return new File(new File(dir, cachePool.replaceAll("[^A-Za-z0-9._-]", "_")), sha1(key.toString()));
+	}
+
+	private File getMetaFile(File body) {
+		return new File(body.getParentFile(), body.getName() + META_SUFFIX);
+	}
+
+	private void delete(File body) {
+		// delete the metadata first, so the body is never used without it
+		try {
+			Files.deleteIfExists(getMetaFile(body).toPath());
+			Files.deleteIfExists(body.toPath());
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Couldn't delete cache entry " + body, e);
+		}
+	}
+
+	private Properties readMeta(File metaFile) throws IOException {
+		if (!metaFile.isFile()) {
+			return null;
+		}
+		Properties meta = new Properties();
+		try (InputStream in = new FileInputStream(metaFile)) {
+			meta.load(in);
+		}
+		return meta;
+	}
+
+	private void writeMeta(File metaFile, Properties meta) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		meta.store(out, null);
+		writeAtomically(metaFile, out.toByteArray());
+	}
+
+	private void writeAtomically(File target, byte[] data) throws IOException {
+		File parent = target.getParentFile();
+		Files.createDirectories(parent.toPath());
+		File temp = File.createTempFile(target.getName(), ".tmp", parent);
+		try {
+			Files.write(temp.toPath(), data);
+			try {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	private static long crc32(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return crc.getValue();
+	}
+
+	private static String sha1(String str) {
+		try {
+			return HexUtils.bytesToHex(MessageDigest.getInstance("SHA-1").digest(str.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DiskCacheProvider [dir=%s, ttl=%d, maxEntrySize=%d]", dir, ttl, maxEntrySize);
+	}
+
+}
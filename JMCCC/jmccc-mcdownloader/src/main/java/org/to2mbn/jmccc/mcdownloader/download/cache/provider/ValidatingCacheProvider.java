@@ -0,0 +1,45 @@
+package org.to2mbn.jmccc.mcdownloader.download.cache.provider;
+
+/**
+ * A cache provider which keeps expired entries together with their
+ * validators, so that they can be revalidated with a conditional request
+ * instead of being downloaded again.
+ * <p>
+ * {@link #get(String, Object)} returns only entries which haven't expired.
+ * 
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public interface ValidatingCacheProvider<K, V> extends CacheProvider<K, V> {
+
+	/**
+	 * Gets the entry of the given key, even if it has expired.
+	 * 
+	 * @param cachePool the cache pool
+	 * @param key the key
+	 * @return the entry, null if not cached
+	 */
+	CacheEntry<V> getEntry(String cachePool, K key);
+
+	/**
+	 * Stores a value together with the validators of the resource.
+	 * 
+	 * @param cachePool the cache pool
+	 * @param key the key
+	 * @param value the value
+	 * @param etag the <code>ETag</code> of the resource, null if none
+	 * @param lastModified the <code>Last-Modified</code> of the resource, null
+	 *            if none
+	 */
+	void put(String cachePool, K key, V value, String etag, String lastModified);
+
+	/**
+	 * Marks an entry as fresh again, after the server has confirmed that the
+	 * resource hasn't changed.
+	 * 
+	 * @param cachePool the cache pool
+	 * @param key the key
+	 */
+	void revalidated(String cachePool, K key);
+
+}
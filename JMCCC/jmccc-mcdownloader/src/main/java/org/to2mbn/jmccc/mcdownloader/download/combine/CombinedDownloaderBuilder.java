@@ -31,6 +31,7 @@ public class CombinedDownloaderBuilder implements Builder<CombinedDownloader> {
 	protected long threadPoolKeepAliveTime = 10;
 	protected TimeUnit threadPoolKeepAliveTimeUnit = TimeUnit.SECONDS;
 	protected int defaultTries = 3;
+	protected boolean useVirtualThreads = false;
 
 	protected CombinedDownloaderBuilder(Builder<Downloader> underlying) {
 		this.underlying = Objects.requireNonNull(underlying);
@@ -52,12 +53,26 @@ public class CombinedDownloaderBuilder implements Builder<CombinedDownloader> {
 		return this;
 	}
 
+	/**
+	 * Sets whether to run the subtasks on virtual threads.
+	 * <p>
+	 * If virtual threads are not supported by the JVM, a pool of
+	 * <code>threadPoolSize</code> platform threads is used as usual.
+	 * 
+	 * @param useVirtualThreads whether to use virtual threads
+	 * @return the builder itself
+	 */
+	public CombinedDownloaderBuilder useVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+		return this;
+	}
+
 	@Override
 	public CombinedDownloader build() {
 		ExecutorService pool = null;
 		Downloader downloader = null;
 		try {
-			pool = ThreadPoolUtils.createPool(threadPoolSize, threadPoolKeepAliveTime, threadPoolKeepAliveTimeUnit, "combinedDownloader");
+			pool = ThreadPoolUtils.createExecutor(useVirtualThreads, threadPoolSize, threadPoolKeepAliveTime, threadPoolKeepAliveTimeUnit, "combinedDownloader");
 			downloader = Objects.requireNonNull(this.underlying.build(), "Underlying downloader builder returns null");
 			return new CombinedDownloaderImpl(pool, downloader, defaultTries);
 		} catch (Throwable e) {
@@ -1,6 +1,10 @@
 package org.to2mbn.jmccc.mcdownloader.download.io;
 
 import java.net.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import org.to2mbn.jmccc.mcdownloader.download.Downloader;
 import org.to2mbn.jmccc.util.Builder;
@@ -8,6 +12,11 @@ import org.to2mbn.jmccc.util.Builder;
 abstract public class AbstractDownloaderBuilder implements Builder<Downloader> {
 
 	protected int maxConnections = 20;
+	protected int maxConnectionsPerHost = -1;
+	protected final Map<String, Integer> hostConnectionLimits = new LinkedHashMap<>();
+	protected long connectionIdleTimeout = 30;
+	protected TimeUnit connectionIdleTimeoutUnit = TimeUnit.SECONDS;
+	protected ConnectionMetrics metrics;
 	protected int connectTimeout = 10000;
 	protected int readTimeout = 20000;
 	protected Proxy proxy = Proxy.NO_PROXY;
@@ -22,6 +31,67 @@ abstract public class AbstractDownloaderBuilder implements Builder<Downloader> {
 		return this;
 	}
 
+	/**
+	 * Sets the max number of concurrent connections to a single host.
+	 * 
+	 * @param maxConnectionsPerHost the max number of connections per host, -1
+	 *            to use the value of <code>maxConnections</code>
+	 * @return the builder itself
+	 */
+	public AbstractDownloaderBuilder maxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		return this;
+	}
+
+	/**
+	 * Sets the max number of concurrent connections to the given host, which
+	 * overrides <code>maxConnectionsPerHost</code>.
+	 * <p>
+	 * For example, the asset server can be given more connections than the
+	 * metadata server.
+	 * 
+	 * @param host the host name, such as
+	 *            <code>resources.download.minecraft.net</code>
+	 * @param maxConnections the max number of connections to the host
+	 * @return the builder itself
+	 */
+	public AbstractDownloaderBuilder maxConnectionsPerHost(String host, int maxConnections) {
+		Objects.requireNonNull(host);
+		if (maxConnections < 1)
+			throw new IllegalArgumentException("maxConnections < 1");
+		hostConnectionLimits.put(host.toLowerCase(Locale.ROOT), maxConnections);
+		return this;
+	}
+
+	/**
+	 * Sets how long an idle connection is kept for reuse before it's closed.
+	 * <p>
+	 * This only applies to the downloaders which manage their own connection
+	 * pool. The keep-alive cache of <code>URLConnection</code> and
+	 * <code>java.net.http</code> is configured through system properties
+	 * instead.
+	 * 
+	 * @param connectionIdleTimeout the idle timeout
+	 * @param unit the unit of the timeout
+	 * @return the builder itself
+	 */
+	public AbstractDownloaderBuilder connectionIdleTimeout(long connectionIdleTimeout, TimeUnit unit) {
+		this.connectionIdleTimeout = connectionIdleTimeout;
+		this.connectionIdleTimeoutUnit = Objects.requireNonNull(unit);
+		return this;
+	}
+
+	/**
+	 * Sets the metrics to collect the request and connection statistics into.
+	 * 
+	 * @param metrics the metrics, null to disable
+	 * @return the builder itself
+	 */
+	public AbstractDownloaderBuilder metrics(ConnectionMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
 	public AbstractDownloaderBuilder connectTimeout(int connectTimeout) {
 		this.connectTimeout = connectTimeout;
 		return this;
@@ -0,0 +1,127 @@
+package org.to2mbn.jmccc.mcdownloader.download.io;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the request and connection statistics of a downloader.
+ * <p>
+ * Pass an instance to {@link AbstractDownloaderBuilder#metrics(ConnectionMetrics)},
+ * then read it at any time. The number of opened connections can only be
+ * observed if the downloader manages its own connection pool, otherwise
+ * {@link #getConnectionsOpened()} returns -1.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ConnectionMetrics {
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final AtomicLong connectionsOpened = new AtomicLong();
+	private final ConcurrentMap<String, AtomicLong> hostRequests = new ConcurrentHashMap<>();
+
+	private volatile boolean connectionsTracked;
+
+	/**
+	 * Calls by the downloader when a request is sent.
+	 * 
+	 * @param uri the uri requested
+	 */
+	public void requestStarted(URI uri) {
+		requests.incrementAndGet();
+		activeRequests.incrementAndGet();
+		String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+		AtomicLong counter = hostRequests.get(host);
+		if (counter == null) {
+			AtomicLong created = new AtomicLong();
+			counter = hostRequests.putIfAbsent(host, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * Calls by the downloader when a request completes, successfully or not.
+	 */
+	public void requestCompleted() {
+		activeRequests.decrementAndGet();
+	}
+
+	/**
+	 * Calls by the downloader when a new connection is opened.
+	 */
+	public void connectionOpened() {
+		connectionsTracked = true;
+		connectionsOpened.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of requests sent, including the retries.
+	 * 
+	 * @return the number of requests
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * Gets the number of requests in flight.
+	 * 
+	 * @return the number of active requests
+	 */
+	public int getActiveRequests() {
+		return activeRequests.get();
+	}
+
+	/**
+	 * Gets the number of connections opened.
+	 * 
+	 * @return the number of connections opened, -1 if the downloader cannot
+	 *         observe it
+	 */
+	public long getConnectionsOpened() {
+		return connectionsTracked ? connectionsOpened.get() : -1;
+	}
+
+	/**
+	 * Gets the fraction of requests which were sent on a reused connection.
+	 * 
+	 * @return the reuse ratio between 0 and 1, or -1 if it's unknown
+	 */
+	public double getReuseRatio() {
+		long opened = getConnectionsOpened();
+		long total = getRequests();
+		if (opened == -1 || total == 0) {
+			return -1;
+		}
+		return Math.max(0, total - opened) / (double) total;
+	}
+
+	/**
+	 * Gets the number of requests sent to each host.
+	 * 
+	 * @return a snapshot of the requests per host
+	 */
+	public Map<String, Long> getRequestsPerHost() {
+		Map<String, Long> result = new TreeMap<>();
+		for (Map.Entry<String, AtomicLong> entry : hostRequests.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().get());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionMetrics [requests=" + getRequests() + ", activeRequests=" + getActiveRequests() + ", connectionsOpened=" + getConnectionsOpened() + ", reuseRatio=" + getReuseRatio() + "]";
+	}
+
+}
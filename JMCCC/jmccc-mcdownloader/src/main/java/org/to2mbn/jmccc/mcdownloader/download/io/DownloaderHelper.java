@@ -7,7 +7,7 @@ public final class DownloaderHelper {
 	private DownloaderHelper() {}
 
 	public static boolean shouldRetry(Throwable e) {
-		if (!(e instanceof IOException)) {
+		if (!(e instanceof IOException) || e instanceof RangeNotSupportedException) {
 			return false;
 		}
 		if (e instanceof IllegalHttpResponseCodeException) {
@@ -16,6 +16,56 @@ public final class DownloaderHelper {
 		return true;
 	}
 
+	/**
+	 * Parses the value of a <code>Content-Range</code> header, such as
+	 * <code>bytes 100-199/1000</code>.
+	 * 
+	 * @param contentRange the header value
+	 * @return <code>{first, last, total}</code>, the total is -1 if it's
+	 *         unknown, or null if the value cannot be parsed
+	 */
+	public static long[] parseContentRange(String contentRange) {
+		if (contentRange == null) {
+			return null;
+		}
+		contentRange = contentRange.trim();
+		if (!contentRange.startsWith("bytes ")) {
+			return null;
+		}
+		int dash = contentRange.indexOf('-');
+		int slash = contentRange.indexOf('/');
+		if (dash == -1 || slash == -1 || dash > slash) {
+			return null;
+		}
+		try {
+			long first = Long.parseLong(contentRange.substring(6, dash).trim());
+			long last = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+			String totalStr = contentRange.substring(slash + 1).trim();
+			long total = "*".equals(totalStr) ? -1 : Long.parseLong(totalStr);
+			return new long[] { first, last, total };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Chooses the validator to send in <code>If-Range</code>.
+	 * <p>
+	 * Weak entity tags cannot be used in <code>If-Range</code>, so the
+	 * <code>Last-Modified</code> date is used instead.
+	 * 
+	 * @param etag the <code>ETag</code> header value, may be null
+	 * @param lastModified the <code>Last-Modified</code> header value, may be
+	 *            null
+	 * @return the validator, or null if none can be used
+	 */
+	public static String getRangeValidator(String etag, String lastModified) {
+		if (etag != null && !etag.startsWith("W/")) {
+			return etag;
+		}
+		return lastModified;
+	}
+
 	public static boolean isResponseCodeRetryable(int responseCode) {
 		if (responseCode >= 400 && responseCode <= 499) { // 4xx
 			if (responseCode == 408 // Request Timeout
@@ -0,0 +1,200 @@
+package org.to2mbn.jmccc.mcdownloader.download.io;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Limits the number of concurrent connections to each host.
+ * <p>
+ * The servers are told apart by the host and the port, so
+ * <code>host:80</code> and <code>host:8080</code> have their own limits. The
+ * limit of a specific host applies to each of its ports.
+ */
+public class HostConnectionLimiter {
+
+	private static final Logger LOGGER = Logger.getLogger(HostConnectionLimiter.class.getCanonicalName());
+
+	private static class Host {
+
+		final int limit;
+		int active;
+		final Queue<Runnable> waiting = new ArrayDeque<>();
+
+		Host(int limit) {
+			this.limit = limit;
+		}
+	}
+
+	private final int maxConnectionsPerHost;
+	private final Map<String, Integer> hostLimits;
+	private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a HostConnectionLimiter.
+	 * 
+	 * @param maxConnectionsPerHost the default limit of a host, -1 if the
+	 *            hosts without a specific limit are unlimited
+	 * @param hostLimits the limits of specific hosts
+	 */
+	public HostConnectionLimiter(int maxConnectionsPerHost, Map<String, Integer> hostLimits) {
+		if (maxConnectionsPerHost < 1 && maxConnectionsPerHost != -1)
+			throw new IllegalArgumentException("maxConnectionsPerHost < 1");
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.hostLimits = new HashMap<>();
+		for (Map.Entry<String, Integer> entry : hostLimits.entrySet()) {
+			if (entry.getValue() < 1)
+				throw new IllegalArgumentException("Connection limit of " + entry.getKey() + " < 1");
+			this.hostLimits.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+		}
+	}
+
+	/**
+	 * Gets the key of the host of the given uri.
+	 * 
+	 * @param uri the uri to connect to
+	 * @return the key to pass to {@link #execute(String, Runnable)},
+	 *         {@link #acquire(String)} and {@link #release(String)}, null if
+	 *         the host is unlimited
+	 */
+	public String keyOf(URI uri) {
+		String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+		String key = host + ":" + portOf(uri);
+		return hostOf(host, key) == null ? null : key;
+	}
+
+	/**
+	 * Runs the action once a connection permit for the host is available,
+	 * without blocking the current thread.
+	 * <p>
+	 * If a permit is available, the action runs on the current thread at once.
+	 * Otherwise the action is queued, and runs on the thread which releases a
+	 * permit of the host. So the action should only hand the request over to
+	 * an executor. The permit is held by the action, which must release it
+	 * with {@link #release(String)} once the connection is closed.
+	 * 
+	 * @param key the key returned by {@link #keyOf(URI)}
+	 * @param action the action to run
+	 */
+	public void execute(String key, Runnable action) {
+		Host host = hosts.get(key);
+		synchronized (host) {
+			if (host.active >= host.limit) {
+				host.waiting.add(action);
+				return;
+			}
+			host.active++;
+		}
+		try {
+			action.run();
+		} catch (RuntimeException | Error e) {
+			release(key);
+			throw e;
+		}
+	}
+
+	/**
+	 * Acquires a connection permit for the host of the given uri, blocking
+	 * until one is available.
+	 * <p>
+	 * Prefer {@link #execute(String, Runnable)} unless blocking the current
+	 * thread is cheap, for example on a virtual thread.
+	 * 
+	 * @param uri the uri to connect to
+	 * @return the key to pass to {@link #release(String)}, null if the host
+	 *         is unlimited
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public String acquire(URI uri) throws InterruptedException {
+		String key = keyOf(uri);
+		if (key != null) {
+			acquire(key);
+		}
+		return key;
+	}
+
+	/**
+	 * Acquires a connection permit for the host, blocking until one is
+	 * available.
+	 * 
+	 * @param key the key returned by {@link #keyOf(URI)}
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public void acquire(String key) throws InterruptedException {
+		Host host = hosts.get(key);
+		synchronized (host) {
+			while (host.active >= host.limit) {
+				host.wait();
+			}
+			host.active++;
+		}
+	}
+
+	/**
+	 * Releases a permit, handing it over to the next queued action if any.
+	 * 
+	 * @param key the key of the host
+	 */
+	public void release(String key) {
+		Host host = hosts.get(key);
+		for (;;) {
+			Runnable next;
+			synchronized (host) {
+				next = host.waiting.poll();
+				if (next == null) {
+					host.active--;
+					host.notify();
+					return;
+				}
+			}
+			try {
+				next.run();
+				return;
+			} catch (RuntimeException e) {
+				// the permit is still ours, pass it on
+				LOGGER.log(Level.WARNING, "Couldn't start a request waiting for " + key, e);
+			}
+		}
+	}
+
+	private static int portOf(URI uri) {
+		int port = uri.getPort();
+		if (port != -1) {
+			return port;
+		}
+		String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+		switch (scheme) {
+			case "http":
+				return 80;
+			case "https":
+				return 443;
+			default:
+				return -1;
+		}
+	}
+
+	private Host hostOf(String host, String key) {
+		Host result = hosts.get(key);
+		if (result == null) {
+			Integer limit = hostLimits.get(host);
+			int permitCount = limit == null ? maxConnectionsPerHost : limit;
+			if (permitCount == -1) {
+				return null;
+			}
+			Host created = new Host(permitCount);
+			result = hosts.putIfAbsent(key, created);
+			if (result == null) {
+				result = created;
+			}
+		}
+		return result;
+	}
+
+}
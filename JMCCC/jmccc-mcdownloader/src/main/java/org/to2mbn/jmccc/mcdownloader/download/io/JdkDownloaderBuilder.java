@@ -1,6 +1,8 @@
 package org.to2mbn.jmccc.mcdownloader.download.io;
 
+import java.util.concurrent.ExecutorService;
 import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.util.ThreadPoolUtils;
 
 public class JdkDownloaderBuilder extends AbstractDownloaderBuilder {
 
@@ -12,9 +14,38 @@ public class JdkDownloaderBuilder extends AbstractDownloaderBuilder {
 		return create().build();
 	}
 
+	protected boolean useVirtualThreads = false;
+
+	/**
+	 * Sets whether to run the requests on virtual threads.
+	 * <p>
+	 * If enabled, each request runs on its own virtual thread, and the number
+	 * of concurrent connections is limited per host rather than by the size
+	 * of a thread pool. If virtual threads are not supported by the JVM, a
+	 * pool of platform threads is used as usual.
+	 * 
+	 * @param useVirtualThreads whether to use virtual threads
+	 * @return the builder itself
+	 * @see ThreadPoolUtils#isVirtualThreadAvailable()
+	 */
+	public JdkDownloaderBuilder useVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+		return this;
+	}
+
 	@Override
 	public Downloader build() {
-		return new JdkHttpDownloader(maxConnections, connectTimeout, readTimeout, downloadPoolKeepAliveTime, downloadPoolKeepAliveTimeUnit, proxy);
+		boolean virtual = useVirtualThreads && ThreadPoolUtils.isVirtualThreadAvailable();
+		int maxConnsPerHost = maxConnectionsPerHost;
+		if (virtual && maxConnsPerHost == -1) {
+			// there is no pool to limit the connections
+			maxConnsPerHost = maxConnections;
+		}
+		HostConnectionLimiter limiter = maxConnsPerHost == -1 && hostConnectionLimits.isEmpty()
+				? null
+				: new HostConnectionLimiter(maxConnsPerHost, hostConnectionLimits);
+		ExecutorService executor = ThreadPoolUtils.createExecutor(virtual, maxConnections, downloadPoolKeepAliveTime, downloadPoolKeepAliveTimeUnit, "jdkDownloader.io");
+		return new JdkHttpDownloader(executor, limiter, metrics, connectTimeout, readTimeout, proxy);
 	}
 
 }
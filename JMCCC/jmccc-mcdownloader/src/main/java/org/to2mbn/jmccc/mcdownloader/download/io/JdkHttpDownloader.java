@@ -13,6 +13,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -25,8 +26,10 @@ import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackFutureTask;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.Callbacks;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallbacks;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ConditionalDownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ResumableDownloadSession;
 import org.to2mbn.jmccc.mcdownloader.util.ThreadPoolUtils;
 
 class JdkHttpDownloader implements Downloader {
@@ -58,6 +61,9 @@ class JdkHttpDownloader implements Downloader {
 		public T call() throws Exception {
 			int currentTries = 0;
 			for (;;) {
+				if (metrics != null) {
+					metrics.requestStarted(task.getURI());
+				}
 				try {
 					return download();
 				} catch (IOException e) {
@@ -68,77 +74,159 @@ class JdkHttpDownloader implements Downloader {
 					} else {
 						throw e;
 					}
+				} finally {
+					if (metrics != null) {
+						metrics.requestCompleted();
+					}
 				}
 			}
 		}
 
 		private T download() throws Exception {
-			URLConnection connection = task.getURI().toURL().openConnection(proxy);
-			connection.setReadTimeout(readTimeout);
-			connection.setConnectTimeout(connectTimeout);
-			connection.setRequestProperty("Accept", "*/*");
-			connection.setRequestProperty("Connection", "keep-alive");
-			connection.setRequestProperty("Accept-Encoding", "gzip");
-			if (connection instanceof HttpURLConnection) {
-				((HttpURLConnection) connection).setRequestMethod("GET");
-			}
-			connection.connect();
-
+			ConditionalDownloadSession<T> conditional = task.createConditionalSession();
+			ResumableDownloadSession<T> resumable = conditional == null ? task.createResumableSession() : null;
+			DownloadSession<T> session = null;
 			try {
-				if (connection instanceof HttpURLConnection) {
-					int responseCode = ((HttpURLConnection) connection).getResponseCode();
-					if (responseCode < 200 || responseCode > 299) {
-						// non-2xx response code
-						throw new IllegalHttpResponseCodeException(((HttpURLConnection) connection).getHeaderField(0), responseCode);
+				long offset = resumable == null ? 0 : resumable.getResumeOffset();
+				long end = resumable == null ? -1 : resumable.getRangeEnd();
+
+				URLConnection connection = task.getURI().toURL().openConnection(proxy);
+				connection.setReadTimeout(readTimeout);
+				connection.setConnectTimeout(connectTimeout);
+				connection.setRequestProperty("Accept", "*/*");
+				connection.setRequestProperty("Connection", "keep-alive");
+				if (resumable == null) {
+					connection.setRequestProperty("Accept-Encoding", "gzip");
+				} else {
+					// ranges are applied to the encoded data, so don't let the server compress it
+					connection.setRequestProperty("Accept-Encoding", "identity");
+					if (offset > 0 || end >= 0) {
+						connection.setRequestProperty("Range", "bytes=" + offset + "-" + (end >= 0 ? String.valueOf(end) : ""));
+						if (resumable.getValidator() != null) {
+							connection.setRequestProperty("If-Range", resumable.getValidator());
+						}
 					}
 				}
+				if (conditional != null) {
+					if (conditional.getETag() != null) {
+						connection.setRequestProperty("If-None-Match", conditional.getETag());
+					}
+					if (conditional.getLastModified() != null) {
+						connection.setRequestProperty("If-Modified-Since", conditional.getLastModified());
+					}
+				}
+				if (connection instanceof HttpURLConnection) {
+					((HttpURLConnection) connection).setRequestMethod("GET");
+				}
+				connection.connect();
 
-				String contentLengthStr = connection.getHeaderField("Content-Length");
-				long contentLength = -1;
-				if (contentLengthStr != null) {
-					try {
-						contentLength = Long.parseLong(contentLengthStr);
-						if (contentLength < 0) {
-							LOGGER.warning("Invalid Content-Length: " + contentLengthStr + ", ignoring");
-							contentLength = -1;
+				boolean reusable = false;
+				try {
+					int responseCode = -1;
+					if (connection instanceof HttpURLConnection) {
+						responseCode = ((HttpURLConnection) connection).getResponseCode();
+						if (responseCode == 416 && (offset > 0 || end >= 0)) {
+							// the resource has been truncated, restart from the beginning next time
+							resumable.beginTransfer(false, -1, null);
+							throw new IOException("Range not satisfiable, discarded the partial data of " + task.getURI());
+						}
+						if (responseCode == 304 && conditional != null) {
+							// a 304 response has no body
+							reusable = true;
+							session = conditional;
+							return conditional.notModified();
+						}
+						if (responseCode < 200 || responseCode > 299) {
+							// non-2xx response code
+							throw new IllegalHttpResponseCodeException(((HttpURLConnection) connection).getHeaderField(0), responseCode);
 						}
-					} catch (NumberFormatException e) {
-						LOGGER.warning("Invalid Content-Length: " + contentLengthStr + ", ignoring: " + e);
 					}
-				}
 
-				checkInterrupted();
+					String contentLengthStr = connection.getHeaderField("Content-Length");
+					long contentLength = -1;
+					if (contentLengthStr != null) {
+						try {
+							contentLength = Long.parseLong(contentLengthStr);
+							if (contentLength < 0) {
+								LOGGER.warning("Invalid Content-Length: " + contentLengthStr + ", ignoring");
+								contentLength = -1;
+							}
+						} catch (NumberFormatException e) {
+							LOGGER.warning("Invalid Content-Length: " + contentLengthStr + ", ignoring: " + e);
+						}
+					}
 
-				DownloadSession<T> session = (contentLength == -1)
-						? task.createSession()
-						: task.createSession(contentLength);
+					checkInterrupted();
 
-				if (connection instanceof HttpURLConnection && "gzip".equals(connection.getHeaderField("Content-Encoding"))) {
-					session = new GzipDownloadSession<>(session);
-				}
+					boolean gzip = connection instanceof HttpURLConnection && "gzip".equals(connection.getHeaderField("Content-Encoding"));
+					long downloaded = 0;
+					long total = contentLength;
+					long expected = contentLength;
+
+					if (conditional != null) {
+						conditional.beginTransfer(gzip ? -1 : contentLength, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+						session = gzip ? new GzipDownloadSession<>(conditional) : conditional;
+					} else if (resumable == null) {
+						session = (contentLength == -1)
+								? task.createSession()
+								: task.createSession(contentLength);
+
+						if (gzip) {
+							session = new GzipDownloadSession<>(session);
+						}
+					} else {
+						boolean partial = responseCode == 206;
+						if (partial) {
+							long[] range = DownloaderHelper.parseContentRange(connection.getHeaderField("Content-Range"));
+							if (gzip || range == null || range[0] != offset) {
+								resumable.beginTransfer(false, -1, null);
+								throw new IOException("Unexpected partial response: Content-Range=" + connection.getHeaderField("Content-Range") + ", Content-Encoding=" + connection.getHeaderField("Content-Encoding"));
+							}
+							downloaded = offset;
+							total = range[2];
+							expected = range[1] + 1;
+						}
 
-				long downloaded = 0;
-
-				try (InputStream in = connection.getInputStream()) {
-					byte[] buf = new byte[BUFFER_SIZE];
-					int read;
-					while ((read = in.read(buf)) != -1) {
-						checkInterrupted();
-						downloaded += read;
-						session.receiveData(ByteBuffer.wrap(buf, 0, read));
-						skipRetry = true;
-						callback.updateProgress(downloaded, contentLength);
-						skipRetry = false;
+						resumable.beginTransfer(partial, total, gzip ? null : DownloaderHelper.getRangeValidator(connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified")));
+						session = gzip ? new GzipDownloadSession<>(resumable) : resumable;
+					}
+
+					try (InputStream in = connection.getInputStream()) {
+						byte[] buf = new byte[BUFFER_SIZE];
+						int read;
+						while ((read = in.read(buf)) != -1) {
+							checkInterrupted();
+							downloaded += read;
+							session.receiveData(ByteBuffer.wrap(buf, 0, read));
+							skipRetry = true;
+							callback.updateProgress(downloaded, total);
+							skipRetry = false;
+						}
+						if (expected != -1 && downloaded < expected) {
+							throw new IOException("Premature end of stream: received " + downloaded + " of " + expected + " bytes");
+						}
+					} catch (Throwable e) {
+						session.failed();
+						throw e;
+					}
+					// the response has been fully read, so the connection can go back to the keep-alive cache
+					reusable = true;
+					return session.completed();
+				} finally {
+					if (!reusable && connection instanceof HttpURLConnection) {
+						((HttpURLConnection) connection).disconnect();
 					}
-				} catch (Throwable e) {
-					session.failed();
-					throw e;
 				}
-				return session.completed();
-			} finally {
-				if (connection instanceof HttpURLConnection) {
-					((HttpURLConnection) connection).disconnect();
+			} catch (Throwable e) {
+				DownloadSession<T> unopened = conditional != null ? conditional : resumable;
+				if (session == null && unopened != null) {
+					try {
+						unopened.failed();
+					} catch (Throwable e1) {
+						e.addSuppressed(e1);
+					}
 				}
+				throw e;
 			}
 		}
 
@@ -150,6 +238,39 @@ class JdkHttpDownloader implements Downloader {
 
 	}
 
+	// starts a task once it holds a connection permit of its host
+	private class HostPermitTask implements Runnable {
+
+		private final FutureTask<?> task;
+		private final String hostKey;
+
+		public HostPermitTask(FutureTask<?> task, String hostKey) {
+			this.task = task;
+			this.hostKey = hostKey;
+		}
+
+		@Override
+		public void run() {
+			try {
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							task.run();
+						} finally {
+							limiter.release(hostKey);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				task.cancel(true);
+				limiter.release(hostKey);
+			}
+		}
+
+	}
+
 	private class TaskInactiver implements Runnable {
 
 		private final Future<?> future;
@@ -172,17 +293,39 @@ class JdkHttpDownloader implements Downloader {
 	private int readTimeout;
 	private Proxy proxy;
 
+	private final HostConnectionLimiter limiter;
+	private final ConnectionMetrics metrics;
+
 	private volatile boolean shutdown;
 	private final ReadWriteLock rwlock = new ReentrantReadWriteLock();
 	private final Set<Future<?>> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
 
 	public JdkHttpDownloader(int maxConns, int connectTimeout, int readTimeout, long poolThreadLivingTime, TimeUnit poolThreadLivingTimeUnit, Proxy proxy) {
+		this(ThreadPoolUtils.createPool(maxConns, poolThreadLivingTime, poolThreadLivingTimeUnit, "jdkDownloader.io"), null, null, connectTimeout, readTimeout, proxy);
+	}
+
+	/**
+	 * Constructs a JdkHttpDownloader.
+	 * 
+	 * @param executor the executor to run the requests, every request blocks
+	 *            a thread of it
+	 * @param limiter limits the concurrent connections to each host, null if
+	 *            they're only limited by the executor
+	 * @param metrics the metrics to update, can be null
+	 * @param connectTimeout the connect timeout
+	 * @param readTimeout the read timeout
+	 * @param proxy the proxy
+	 */
+	public JdkHttpDownloader(ExecutorService executor, HostConnectionLimiter limiter, ConnectionMetrics metrics, int connectTimeout, int readTimeout, Proxy proxy) {
+		Objects.requireNonNull(executor);
 		Objects.requireNonNull(proxy);
 
 		this.connectTimeout = connectTimeout;
 		this.readTimeout = readTimeout;
 		this.proxy = proxy;
-		executor = ThreadPoolUtils.createPool(maxConns, poolThreadLivingTime, poolThreadLivingTimeUnit, "jdkDownloader.io");
+		this.executor = executor;
+		this.limiter = limiter;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -209,6 +352,9 @@ class JdkHttpDownloader implements Downloader {
 		if (tries < 1)
 			throw new IllegalArgumentException("tries < 1");
 
+		if (downloadTask.getSegments() > 1)
+			return SegmentedDownloadHandler.start(this, downloadTask, callback, tries);
+
 		CallbackFutureTask<T> task = new CallbackFutureTask<>(new CallableDownloadTask<>(
 				downloadTask,
 				callback == null ? DownloadCallbacks.<T> empty() : callback,
@@ -227,7 +373,13 @@ class JdkHttpDownloader implements Downloader {
 				throw new RejectedExecutionException("The downloader has been shutdown.");
 
 			tasks.add(task);
-			executor.execute(task);
+			String hostKey = limiter == null ? null : limiter.keyOf(downloadTask.getURI());
+			if (hostKey == null) {
+				executor.execute(task);
+			} else {
+				// wait for a permit in a queue rather than on a pool thread
+				limiter.execute(hostKey, new HostPermitTask(task, hostKey));
+			}
 		} finally {
 			lock.unlock();
 		}
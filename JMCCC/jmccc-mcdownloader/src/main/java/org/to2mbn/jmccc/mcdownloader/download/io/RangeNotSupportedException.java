@@ -0,0 +1,20 @@
+package org.to2mbn.jmccc.mcdownloader.download.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server doesn't support the range requests needed by a
+ * segmented download.
+ * <p>
+ * Retrying the same request won't help, so the downloader falls back to a
+ * single request instead.
+ */
+public class RangeNotSupportedException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RangeNotSupportedException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,425 @@
+package org.to2mbn.jmccc.mcdownloader.download.io;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackAsyncTask;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallbacks;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ResumableDownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.SegmentedDownloadTarget;
+
+/**
+ * Downloads a resource in several concurrent range requests.
+ * <p>
+ * A one-byte range is requested first to learn whether the server supports
+ * ranges, the length and the validator of the resource. Then the resource is
+ * split into segments, which are fetched concurrently through the underlying
+ * downloader and written into a {@link SegmentedDownloadTarget}. A segment
+ * resumes from where it stopped when it's retried. If the server doesn't
+ * support ranges, or the resource is too small, the task is downloaded in a
+ * single request instead.
+ * <p>
+ * This class is used by the downloaders in this package to handle the tasks
+ * whose {@link DownloadTask#getSegments()} is greater than 1.
+ * 
+ * @param <T> the type of result
+ */
+public class SegmentedDownloadHandler<T> extends CallbackAsyncTask<T> {
+
+	/**
+	 * The min length of a segment.
+	 */
+	public static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+	/**
+	 * Starts a segmented download.
+	 * 
+	 * @param downloader the downloader to fetch the segments with
+	 * @param task the task to download, whose segments is greater than 1
+	 * @param callback the callback, can be null
+	 * @param tries the max number of tries of each request
+	 * @param <T> the type of result
+	 * @return the future representing the download
+	 * @throws RejectedExecutionException if the downloader has been shutdown
+	 */
+	public static <T> Future<T> start(Downloader downloader, DownloadTask<T> task, DownloadCallback<T> callback, int tries) {
+		if (downloader.isShutdown())
+			throw new RejectedExecutionException("The downloader has been shutdown.");
+
+		SegmentedDownloadHandler<T> handler = new SegmentedDownloadHandler<>(downloader, task, callback == null ? DownloadCallbacks.<T> empty() : callback, tries);
+		handler.setCallback(callback);
+		// only the probe request is submitted here, so it won't block
+		handler.run();
+		return handler;
+	}
+
+	private static class Probe {
+
+		final long length;
+		final String validator;
+
+		Probe(long length, String validator) {
+			this.length = length;
+			this.validator = validator;
+		}
+
+	}
+
+	private static class ProbeTask extends DownloadTask<Probe> {
+
+		public ProbeTask(URI uri) {
+			super(uri);
+		}
+
+		@Override
+		public DownloadSession<Probe> createSession() throws IOException {
+			return createResumableSession();
+		}
+
+		@Override
+		public ResumableDownloadSession<Probe> createResumableSession() throws IOException {
+			return new ResumableDownloadSession<Probe>() {
+
+				private Probe probe;
+
+				@Override
+				public long getResumeOffset() {
+					return 0;
+				}
+
+				@Override
+				public long getRangeEnd() {
+					return 0;
+				}
+
+				@Override
+				public String getValidator() {
+					return null;
+				}
+
+				@Override
+				public void beginTransfer(boolean partial, long totalLength, String validator) throws IOException {
+					if (!partial || totalLength <= 0) {
+						throw new RangeNotSupportedException("The server doesn't support range requests: " + getURI());
+					}
+					if (validator == null) {
+						// the segments may come from different versions of the resource
+						throw new RangeNotSupportedException("The server provided no validator: " + getURI());
+					}
+					probe = new Probe(totalLength, validator);
+				}
+
+				@Override
+				public void receiveData(ByteBuffer data) throws IOException {
+					data.position(data.limit());
+				}
+
+				@Override
+				public Probe completed() throws IOException {
+					if (probe == null) {
+						throw new RangeNotSupportedException("The server doesn't support range requests: " + getURI());
+					}
+					return probe;
+				}
+
+				@Override
+				public void failed() {}
+			};
+		}
+
+	}
+
+	private static class Segment {
+
+		final long end;
+		volatile long position;
+
+		Segment(long start, long end) {
+			this.position = start;
+			this.end = end;
+		}
+
+	}
+
+	private class SegmentTask extends DownloadTask<Void> {
+
+		private final Segment segment;
+
+		public SegmentTask(Segment segment) {
+			super(task.getURI());
+			this.segment = segment;
+		}
+
+		@Override
+		public DownloadSession<Void> createSession() throws IOException {
+			return createResumableSession();
+		}
+
+		@Override
+		public ResumableDownloadSession<Void> createResumableSession() throws IOException {
+			return new ResumableDownloadSession<Void>() {
+
+				@Override
+				public long getResumeOffset() {
+					return segment.position;
+				}
+
+				@Override
+				public long getRangeEnd() {
+					return segment.end;
+				}
+
+				@Override
+				public String getValidator() {
+					return validator;
+				}
+
+				@Override
+				public void beginTransfer(boolean partial, long totalLength, String newValidator) throws IOException {
+					if (!partial || totalLength != length) {
+						throw new IOException("The resource has changed during segmented downloading: " + getURI());
+					}
+				}
+
+				@Override
+				public void receiveData(ByteBuffer data) throws IOException {
+					int len = data.remaining();
+					if (segment.position + len > segment.end + 1) {
+						throw new IOException("Received more data than requested: " + getURI());
+					}
+					target.write(segment.position, data);
+					segment.position += len;
+					callback.updateProgress(downloaded.addAndGet(len), length);
+				}
+
+				@Override
+				public Void completed() throws IOException {
+					if (segment.position != segment.end + 1) {
+						throw new IOException("Incomplete segment: received " + segment.position + " of " + (segment.end + 1) + " bytes");
+					}
+					return null;
+				}
+
+				@Override
+				public void failed() {
+					// keep the position, so that the next try can resume from it
+				}
+			};
+		}
+
+	}
+
+	private class ProbeCallback implements DownloadCallback<Probe> {
+
+		@Override
+		public void done(Probe result) {
+			try {
+				startSegments(result);
+			} catch (Throwable e) {
+				lifecycle().failed(e);
+			}
+		}
+
+		@Override
+		public void failed(Throwable e) {
+			if (e instanceof RangeNotSupportedException) {
+				startSingle();
+			} else {
+				lifecycle().failed(e);
+			}
+		}
+
+		@Override
+		public void cancelled() {
+			lifecycle().cancelled();
+		}
+
+		@Override
+		public void updateProgress(long done, long total) {}
+
+		@Override
+		public void retry(Throwable e, int current, int max) {
+			callback.retry(e, current, max);
+		}
+
+	}
+
+	private class SingleCallback implements DownloadCallback<T> {
+
+		@Override
+		public void done(T result) {
+			lifecycle().done(result);
+		}
+
+		@Override
+		public void failed(Throwable e) {
+			lifecycle().failed(e);
+		}
+
+		@Override
+		public void cancelled() {
+			lifecycle().cancelled();
+		}
+
+		@Override
+		public void updateProgress(long done, long total) {
+			callback.updateProgress(done, total);
+		}
+
+		@Override
+		public void retry(Throwable e, int current, int max) {
+			callback.retry(e, current, max);
+		}
+
+	}
+
+	private class SegmentCallback implements DownloadCallback<Void> {
+
+		@Override
+		public void done(Void result) {
+			if (remaining.decrementAndGet() == 0 && terminated.compareAndSet(false, true)) {
+				T targetResult;
+				try {
+					targetResult = target.completed();
+				} catch (Throwable e) {
+					lifecycle().failed(e);
+					return;
+				}
+				lifecycle().done(targetResult);
+			}
+		}
+
+		@Override
+		public void failed(Throwable e) {
+			if (terminated.compareAndSet(false, true)) {
+				cancelSegments();
+				try {
+					target.failed();
+				} catch (Throwable e1) {
+					e.addSuppressed(e1);
+				}
+				lifecycle().failed(e);
+			}
+		}
+
+		@Override
+		public void cancelled() {
+			if (terminated.compareAndSet(false, true)) {
+				cancelSegments();
+				try {
+					target.failed();
+				} catch (Throwable e) {
+					lifecycle().failed(e);
+					return;
+				}
+				lifecycle().cancelled();
+			}
+		}
+
+		@Override
+		public void updateProgress(long done, long total) {
+			// the progress is reported by the sessions
+		}
+
+		@Override
+		public void retry(Throwable e, int current, int max) {
+			callback.retry(e, current, max);
+		}
+
+	}
+
+	private final Downloader downloader;
+	private final DownloadTask<T> task;
+	private final DownloadCallback<T> callback;
+	private final int tries;
+
+	private final AtomicLong downloaded = new AtomicLong();
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final AtomicBoolean terminated = new AtomicBoolean();
+	private final List<Future<?>> segmentFutures = new CopyOnWriteArrayList<>();
+
+	private volatile long length;
+	private volatile String validator;
+	private volatile SegmentedDownloadTarget<T> target;
+
+	private SegmentedDownloadHandler(Downloader downloader, DownloadTask<T> task, DownloadCallback<T> callback, int tries) {
+		this.downloader = Objects.requireNonNull(downloader);
+		this.task = Objects.requireNonNull(task);
+		this.callback = Objects.requireNonNull(callback);
+		this.tries = tries;
+	}
+
+	@Override
+	protected void execute() throws Exception {
+		FutureManager<Probe> manager = createFutureManager();
+		manager.setFuture(downloader.download(new ProbeTask(task.getURI()), DownloadCallbacks.group(DownloadCallbacks.fromCallback(manager), new ProbeCallback()), tries));
+	}
+
+	private void startSingle() {
+		try {
+			FutureManager<T> manager = createFutureManager();
+			manager.setFuture(downloader.download(task.segmented(1), DownloadCallbacks.group(DownloadCallbacks.fromCallback(manager), new SingleCallback()), tries));
+		} catch (Throwable e) {
+			lifecycle().failed(e);
+		}
+	}
+
+	private void startSegments(Probe probe) throws IOException {
+		int segments = (int) Math.min(task.getSegments(), probe.length / MIN_SEGMENT_SIZE);
+		if (segments < 2 || isDone()) {
+			startSingle();
+			return;
+		}
+
+		target = task.createSegmentedTarget(probe.length);
+		if (target == null) {
+			startSingle();
+			return;
+		}
+
+		length = probe.length;
+		validator = probe.validator;
+		remaining.set(segments);
+
+		long segmentSize = (probe.length + segments - 1) / segments;
+		for (int i = 0; i < segments; i++) {
+			long start = i * segmentSize;
+			long end = Math.min(probe.length, start + segmentSize) - 1;
+
+			FutureManager<Void> manager = createFutureManager();
+			SegmentCallback segmentCallback = new SegmentCallback();
+			Future<Void> future;
+			try {
+				future = downloader.download(new SegmentTask(new Segment(start, end)), DownloadCallbacks.group(DownloadCallbacks.fromCallback(manager), segmentCallback), tries);
+			} catch (Throwable e) {
+				segmentCallback.failed(e);
+				return;
+			}
+			manager.setFuture(future);
+			segmentFutures.add(future);
+			if (terminated.get()) {
+				future.cancel(true);
+				return;
+			}
+		}
+	}
+
+	private void cancelSegments() {
+		for (Future<?> future : segmentFutures) {
+			future.cancel(true);
+		}
+	}
+
+}
@@ -7,8 +7,11 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -19,8 +22,11 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 import org.apache.http.nio.IOControl;
 import org.apache.http.nio.client.methods.AsyncByteConsumer;
 import org.apache.http.nio.client.methods.HttpAsyncMethods;
@@ -32,11 +38,16 @@ import org.to2mbn.jmccc.mcdownloader.download.concurrent.CallbackAsyncTask;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.Callbacks;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
 import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallbacks;
+import org.to2mbn.jmccc.mcdownloader.download.io.ConnectionMetrics;
 import org.to2mbn.jmccc.mcdownloader.download.io.DownloaderHelper;
 import org.to2mbn.jmccc.mcdownloader.download.io.GzipDownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.io.IllegalHttpResponseCodeException;
+import org.to2mbn.jmccc.mcdownloader.download.io.SegmentedDownloadHandler;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ConditionalDownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
 import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.ResumableDownloadSession;
+import org.to2mbn.jmccc.mcdownloader.util.ThreadPoolUtils;
 
 class HttpAsyncDownloader implements Downloader {
 
@@ -66,14 +77,31 @@ class HttpAsyncDownloader implements Downloader {
 			@Override
 			protected void onResponseReceived(HttpResponse response) throws HttpException, IOException {
 				StatusLine statusLine = response.getStatusLine();
+				int statusCode = -1;
 				if (statusLine != null) {
-					int statusCode = statusLine.getStatusCode();
+					statusCode = statusLine.getStatusCode();
+					if (statusCode == 416 && resumable != null && (resumable.getResumeOffset() > 0 || resumable.getRangeEnd() >= 0)) {
+						// the resource has been truncated, restart from the beginning next time
+						resumable.beginTransfer(false, -1, null);
+						throw new IOException("Range not satisfiable, discarded the partial data of " + task.getURI());
+					}
+					if (statusCode == 304 && conditional != null) {
+						// the body is built from the copy held by the session
+						notModified = true;
+						return;
+					}
 					if (statusCode < 200 || statusCode > 299)
 						// non-2xx response code
 						throw new IllegalHttpResponseCodeException(statusLine.toString(), statusCode);
 				}
 
-				if (session == null) {
+				if (conditional != null) {
+					beginConditionalTransfer(response);
+
+				} else if (resumable != null) {
+					beginResumableTransfer(response, statusCode == 206);
+
+				} else if (session == null) {
 					boolean gzipOn = false;
 					HttpEntity httpEntity = response.getEntity();
 					if (httpEntity != null) {
@@ -98,15 +126,74 @@ class HttpAsyncDownloader implements Downloader {
 				}
 			}
 
+			private void beginConditionalTransfer(HttpResponse response) throws IOException {
+				boolean gzipOn = false;
+				long length = -1;
+				HttpEntity httpEntity = response.getEntity();
+				if (httpEntity != null) {
+					length = httpEntity.getContentLength();
+					Header contentEncodingHeader = httpEntity.getContentEncoding();
+					if (contentEncodingHeader != null && "gzip".equals(contentEncodingHeader.getValue())) {
+						gzipOn = true;
+					}
+				}
+
+				Header etag = response.getFirstHeader("ETag");
+				Header lastModified = response.getFirstHeader("Last-Modified");
+				conditional.beginTransfer(gzipOn ? -1 : length,
+						etag == null ? null : etag.getValue(),
+						lastModified == null ? null : lastModified.getValue());
+				contextLength = length;
+				session = gzipOn ? new GzipDownloadSession<>(conditional) : conditional;
+			}
+
+			private void beginResumableTransfer(HttpResponse response, boolean partial) throws IOException {
+				boolean gzipOn = false;
+				long total = -1;
+				HttpEntity httpEntity = response.getEntity();
+				if (httpEntity != null) {
+					total = httpEntity.getContentLength();
+					Header contentEncodingHeader = httpEntity.getContentEncoding();
+					if (contentEncodingHeader != null && "gzip".equals(contentEncodingHeader.getValue())) {
+						gzipOn = true;
+					}
+				}
+
+				if (partial) {
+					Header contentRange = response.getFirstHeader("Content-Range");
+					long[] range = contentRange == null ? null : DownloaderHelper.parseContentRange(contentRange.getValue());
+					if (gzipOn || range == null || range[0] != resumable.getResumeOffset()) {
+						resumable.beginTransfer(false, -1, null);
+						throw new IOException("Unexpected partial response: Content-Range=" + (contentRange == null ? null : contentRange.getValue()) + ", gzip=" + gzipOn);
+					}
+					received = range[0];
+					total = range[2];
+				}
+
+				Header etag = response.getFirstHeader("ETag");
+				Header lastModified = response.getFirstHeader("Last-Modified");
+				String validator = gzipOn ? null : DownloaderHelper.getRangeValidator(
+						etag == null ? null : etag.getValue(),
+						lastModified == null ? null : lastModified.getValue());
+
+				resumable.beginTransfer(partial, total, validator);
+				contextLength = total;
+				session = gzipOn ? new GzipDownloadSession<>(resumable) : resumable;
+			}
+
 			@Override
 			protected T buildResult(HttpContext context) throws Exception {
 				T result = null;
 				try {
-					if (session == null) {
-						throw new IllegalStateException("Download session is not active");
-					}
+					if (notModified) {
+						result = conditional.notModified();
+					} else {
+						if (session == null) {
+							throw new IllegalStateException("Download session is not active");
+						}
 
-					result = session.completed();
+						result = session.completed();
+					}
 					resultBuildingEx = null;
 				} catch (Throwable e) {
 					resultBuildingEx = e;
@@ -135,6 +222,7 @@ class HttpAsyncDownloader implements Downloader {
 
 			@Override
 			public void failed(Exception ex) {
+				DownloadSession<T> session = activeSession();
 				if (session != null) {
 					try {
 						session.failed();
@@ -148,6 +236,7 @@ class HttpAsyncDownloader implements Downloader {
 
 			@Override
 			public void cancelled() {
+				DownloadSession<T> session = activeSession();
 				if (session != null) {
 					try {
 						session.failed();
@@ -162,24 +251,66 @@ class HttpAsyncDownloader implements Downloader {
 		}
 
 		private final DownloadTask<T> task;
+		private final ResumableDownloadSession<T> resumable;
+		private final ConditionalDownloadSession<T> conditional;
 		private final DownloadCallback<T> downloadCallback;
 
 		private volatile DownloadSession<T> session;
+		private volatile boolean notModified;
 		private volatile Throwable resultBuildingEx;
 
 		public final HttpAsyncResponseConsumer<T> consumer;
 		public final FutureCallback<T> callback;
 
-		public DownloadSessionHandler(DownloadTask<T> task, DownloadCallback<T> downloadCallback) {
+		public DownloadSessionHandler(DownloadTask<T> task, ResumableDownloadSession<T> resumable, ConditionalDownloadSession<T> conditional, DownloadCallback<T> downloadCallback) {
 			Objects.requireNonNull(task);
 			Objects.requireNonNull(downloadCallback);
 			this.task = task;
+			this.resumable = resumable;
+			this.conditional = conditional;
 			this.downloadCallback = downloadCallback;
 
 			consumer = new DataConsumer();
 			callback = new DownloadCallbackAdapter(downloadCallback);
 		}
 
+		public HttpUriRequest createRequest() {
+			HttpGet request = new HttpGet(task.getURI());
+			if (resumable != null) {
+				// ranges are applied to the encoded data, so don't let the server compress it
+				request.setHeader("Accept-Encoding", "identity");
+				long offset = resumable.getResumeOffset();
+				long end = resumable.getRangeEnd();
+				if (offset > 0 || end >= 0) {
+					request.setHeader("Range", "bytes=" + offset + "-" + (end >= 0 ? String.valueOf(end) : ""));
+					if (resumable.getValidator() != null) {
+						request.setHeader("If-Range", resumable.getValidator());
+					}
+				}
+			}
+			if (conditional != null) {
+				if (conditional.getETag() != null) {
+					request.setHeader("If-None-Match", conditional.getETag());
+				}
+				if (conditional.getLastModified() != null) {
+					request.setHeader("If-Modified-Since", conditional.getLastModified());
+				}
+			}
+			return request;
+		}
+
+		private DownloadSession<T> activeSession() {
+			if (session != null) {
+				return session;
+			}
+			if (notModified) {
+				// the session has been consumed by notModified()
+				return null;
+			}
+			// the resumable or conditional session is opened before the response arrives
+			return resumable != null ? resumable : conditional;
+		}
+
 	}
 
 	private class AsyncDownloadTask<T> extends CallbackAsyncTask<T> {
@@ -261,13 +392,48 @@ class HttpAsyncDownloader implements Downloader {
 
 			FutureManager<T> manager = createFutureManager();
 			DownloadRetryHandler retryHandler = new DownloadRetryHandler();
-			DownloadSessionHandler<T> handler = new DownloadSessionHandler<>(task, DownloadCallbacks.group(DownloadCallbacks.fromCallback(manager), retryHandler));
-			Future<T> downloadFuture = httpClient.execute(HttpAsyncMethods.createGet(task.getURI()), handler.consumer, handler.callback);
+			DownloadCallback<T> handlerCallback = DownloadCallbacks.group(DownloadCallbacks.fromCallback(manager), retryHandler);
+			if (metrics != null) {
+				metrics.requestStarted(task.getURI());
+				handlerCallback = DownloadCallbacks.group(DownloadCallbacks.<T> whatever(new RequestCompletionRecorder()), handlerCallback);
+			}
+
+			ConditionalDownloadSession<T> conditional;
+			ResumableDownloadSession<T> resumable;
+			try {
+				conditional = task.createConditionalSession();
+				resumable = conditional == null ? task.createResumableSession() : null;
+			} catch (IOException e) {
+				handlerCallback.failed(e);
+				return;
+			}
+
+			DownloadSessionHandler<T> handler = new DownloadSessionHandler<>(task, resumable, conditional, handlerCallback);
+			Future<T> downloadFuture = httpClient.execute(HttpAsyncMethods.create(handler.createRequest()), handler.consumer, handler.callback);
 			manager.setFuture(downloadFuture);
 		}
 
 	}
 
+	private class RequestCompletionRecorder implements Runnable {
+
+		@Override
+		public void run() {
+			metrics.requestCompleted();
+		}
+
+	}
+
+	private class IdleConnectionEvictor implements Runnable {
+
+		@Override
+		public void run() {
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(connectionIdleTimeout, TimeUnit.MILLISECONDS);
+		}
+
+	}
+
 	private class TaskInactiver implements Runnable {
 
 		private final Future<?> task;
@@ -331,18 +497,48 @@ class HttpAsyncDownloader implements Downloader {
 
 	private CloseableHttpAsyncClient httpClient;
 	private ExecutorService bootstrapPool;
+	private ScheduledExecutorService evictor;
+
+	private final PoolingNHttpClientConnectionManager connectionManager;
+	private final long connectionIdleTimeout;
+	private final ConnectionMetrics metrics;
 
 	private volatile int status = RUNNING;
 	private final ReadWriteLock rwlock = new ReentrantReadWriteLock();
 	private final Set<Future<?>> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
 
 	public HttpAsyncDownloader(CloseableHttpAsyncClient client, ExecutorService bootstrapPool) {
+		this(client, bootstrapPool, null, -1, null);
+	}
+
+	/**
+	 * Constructs a HttpAsyncDownloader.
+	 * 
+	 * @param client the http client
+	 * @param bootstrapPool the pool to start the requests
+	 * @param connectionManager the connection pool of the client, null if
+	 *            it's unknown
+	 * @param connectionIdleTimeout the time in milliseconds after which idle
+	 *            connections are evicted from the pool, &lt;=0 to disable
+	 *            eviction
+	 * @param metrics the metrics to update, can be null
+	 */
+	public HttpAsyncDownloader(CloseableHttpAsyncClient client, ExecutorService bootstrapPool, PoolingNHttpClientConnectionManager connectionManager, long connectionIdleTimeout, ConnectionMetrics metrics) {
 		Objects.requireNonNull(client);
 		Objects.requireNonNull(bootstrapPool);
 		this.httpClient = client;
 		this.bootstrapPool = bootstrapPool;
+		this.connectionManager = connectionManager;
+		this.connectionIdleTimeout = connectionIdleTimeout;
+		this.metrics = metrics;
 
 		httpClient.start();
+
+		if (connectionManager != null && connectionIdleTimeout > 0) {
+			long period = Math.max(1000, connectionIdleTimeout / 2);
+			evictor = Executors.newSingleThreadScheduledExecutor(ThreadPoolUtils.createNamedThreadFactory("asyncDownloader.evictor"));
+			evictor.scheduleWithFixedDelay(new IdleConnectionEvictor(), period, period, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	@Override
@@ -364,6 +560,9 @@ class HttpAsyncDownloader implements Downloader {
 		if (tries < 1)
 			throw new IllegalArgumentException("tries < 1");
 
+		if (downloadTask.getSegments() > 1)
+			return SegmentedDownloadHandler.start(this, downloadTask, callback, tries);
+
 		CallbackAsyncTask<T> task = new AsyncDownloadTask<T>(downloadTask, callback == null ? DownloadCallbacks.<T> empty() : callback, tries);
 		Callback<T> statusCallback = Callbacks.whatever(new TaskInactiver(task));
 		if (callback != null)
@@ -448,6 +647,10 @@ class HttpAsyncDownloader implements Downloader {
 
 	private void completeShutdown() {
 		bootstrapPool = null;
+		if (evictor != null) {
+			evictor.shutdownNow();
+			evictor = null;
+		}
 		try {
 			httpClient.close();
 		} catch (IOException e) {
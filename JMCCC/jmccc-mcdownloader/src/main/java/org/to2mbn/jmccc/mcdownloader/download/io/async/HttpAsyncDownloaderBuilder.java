@@ -4,15 +4,34 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.SocketAddress;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.NHttpConnectionFactory;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.protocol.HttpContext;
 import org.to2mbn.jmccc.mcdownloader.download.Downloader;
 import org.to2mbn.jmccc.mcdownloader.download.io.AbstractDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.ConnectionMetrics;
 import org.to2mbn.jmccc.mcdownloader.util.ThreadPoolUtils;
 import org.to2mbn.jmccc.util.Builder;
 
@@ -42,6 +61,43 @@ public class HttpAsyncDownloaderBuilder extends AbstractDownloaderBuilder {
 
 	}
 
+	private static class MeasuredConnectionFactory implements NHttpConnectionFactory<ManagedNHttpClientConnection> {
+
+		private final ConnectionMetrics metrics;
+
+		public MeasuredConnectionFactory(ConnectionMetrics metrics) {
+			this.metrics = metrics;
+		}
+
+		@Override
+		public ManagedNHttpClientConnection create(IOSession session, ConnectionConfig config) {
+			ManagedNHttpClientConnection connection = ManagedNHttpClientConnectionFactory.INSTANCE.create(session, config);
+			metrics.connectionOpened();
+			return connection;
+		}
+
+	}
+
+	private static class IdleTimeoutKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+		private final long idleTimeout;
+
+		public IdleTimeoutKeepAliveStrategy(long idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			if (idleTimeout <= 0) {
+				return duration;
+			}
+			// don't keep a connection longer than the server or the idle timeout allows
+			return duration <= 0 ? idleTimeout : Math.min(duration, idleTimeout);
+		}
+
+	}
+
 	public static HttpAsyncDownloaderBuilder create() {
 		return new HttpAsyncDownloaderBuilder();
 	}
@@ -53,6 +109,9 @@ public class HttpAsyncDownloaderBuilder extends AbstractDownloaderBuilder {
 	protected Builder<CloseableHttpAsyncClient> httpClient;
 	protected int bootstrapPoolSize = Runtime.getRuntime().availableProcessors();
 
+	// the pool of the client being built by build()
+	private PoolingNHttpClientConnectionManager defaultConnectionManager;
+
 	public HttpAsyncDownloaderBuilder httpClient(Builder<CloseableHttpAsyncClient> httpClient) {
 		this.httpClient = httpClient;
 		return this;
@@ -73,14 +132,19 @@ public class HttpAsyncDownloaderBuilder extends AbstractDownloaderBuilder {
 		CloseableHttpAsyncClient client = null;
 		ExecutorService pool = null;
 		try {
+			PoolingNHttpClientConnectionManager connectionManager = null;
 			if (httpClient == null) {
+				defaultConnectionManager = null;
 				client = buildDefaultHttpAsyncClient();
+				// null if a subclass builds the client without the default pool
+				connectionManager = defaultConnectionManager;
+				defaultConnectionManager = null;
 			} else {
 				client = httpClient.build();
 			}
 
 			pool = ThreadPoolUtils.createPool(bootstrapPoolSize, downloadPoolKeepAliveTime, downloadPoolKeepAliveTimeUnit, "asyncDownloader.bootstrap");
-			return new HttpAsyncDownloader(client, pool);
+			return new HttpAsyncDownloader(client, pool, connectionManager, connectionIdleTimeoutUnit.toMillis(connectionIdleTimeout), metrics);
 		} catch (Throwable e) {
 			if (client != null) {
 				try {
@@ -101,15 +165,55 @@ public class HttpAsyncDownloaderBuilder extends AbstractDownloaderBuilder {
 	}
 
 	protected CloseableHttpAsyncClient buildDefaultHttpAsyncClient() {
+		return buildDefaultHttpAsyncClient(buildConnectionManager());
+	}
+
+	/**
+	 * Builds the connection pool of the default http client.
+	 * <p>
+	 * The pool is limited by <code>maxConnections</code> in total, and by
+	 * <code>maxConnectionsPerHost</code> or the limit of the specific host for
+	 * each host.
+	 * 
+	 * @return the connection pool
+	 */
+	protected PoolingNHttpClientConnectionManager buildConnectionManager() {
+		HttpHost httpProxy = resolveProxy(proxy);
+		DefaultConnectingIOReactor ioReactor;
+		try {
+			ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+					.setConnectTimeout(connectTimeout)
+					.setSoTimeout(readTimeout)
+					.build());
+		} catch (IOReactorException e) {
+			throw new IllegalStateException("Couldn't create I/O reactor", e);
+		}
+
+		PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+				ioReactor,
+				metrics == null ? ManagedNHttpClientConnectionFactory.INSTANCE : new MeasuredConnectionFactory(metrics),
+				RegistryBuilder.<SchemeIOSessionStrategy> create()
+						.register("http", NoopIOSessionStrategy.INSTANCE)
+						.register("https", SSLIOSessionStrategy.getDefaultStrategy())
+						.build());
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost == -1 ? maxConnections : maxConnectionsPerHost);
+		for (Map.Entry<String, Integer> entry : hostConnectionLimits.entrySet()) {
+			// the route of a request depends on the scheme and the proxy
+			connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(entry.getKey(), 80, "http"), null, httpProxy, false), entry.getValue());
+			connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(entry.getKey(), 443, "https"), null, httpProxy, true), entry.getValue());
+		}
+		return connectionManager;
+	}
+
+	protected CloseableHttpAsyncClient buildDefaultHttpAsyncClient(PoolingNHttpClientConnectionManager connectionManager) {
+		// the downloader evicts the idle connections of the pool
+		defaultConnectionManager = connectionManager;
 		HttpHost httpProxy = resolveProxy(proxy);
 		return HttpAsyncClientBuilder.create()
-				.setMaxConnTotal(maxConnections)
-				.setMaxConnPerRoute(maxConnections)
+				.setConnectionManager(connectionManager)
+				.setKeepAliveStrategy(new IdleTimeoutKeepAliveStrategy(connectionIdleTimeoutUnit.toMillis(connectionIdleTimeout)))
 				.setProxy(httpProxy)
-				.setDefaultIOReactorConfig(IOReactorConfig.custom()
-						.setConnectTimeout(connectTimeout)
-						.setSoTimeout(readTimeout)
-						.build())
 				.setDefaultRequestConfig(RequestConfig.custom()
 						.setConnectTimeout(connectTimeout)
 						.setSocketTimeout(readTimeout)
@@ -0,0 +1,102 @@
+package org.to2mbn.jmccc.mcdownloader.download.io.http;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.Proxy;
+import java.util.concurrent.ExecutorService;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.io.AbstractDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.ConnectionMetrics;
+import org.to2mbn.jmccc.mcdownloader.download.io.HostConnectionLimiter;
+import org.to2mbn.jmccc.mcdownloader.util.ThreadPoolUtils;
+
+/**
+ * Builds a downloader based on <code>java.net.http.HttpClient</code>, which
+ * multiplexes the requests to a host over HTTP/2 connections.
+ * <p>
+ * The downloader requires Java 11 or later. It's compiled separately from the
+ * rest of the library, so it's only available if the library was built on
+ * Java 11 or later and the JVM supports <code>java.net.http</code>.
+ * <p>
+ * Only direct connections and HTTP proxies are supported, {@link #build()}
+ * throws an <code>IllegalArgumentException</code> for a SOCKS proxy.
+ * <code>readTimeout</code> limits both the wait for the response headers and
+ * the time between two chunks of the response body.
+ * <p>
+ * <code>maxConnections</code> limits the number of requests in flight. The
+ * per-host limits apply to the requests in flight to each host as well. On
+ * HTTP/2, these requests share a few connections, so the number of opened
+ * connections is not reported in the {@link ConnectionMetrics}.
+ */
+public class HttpClientDownloaderBuilder extends AbstractDownloaderBuilder {
+
+	private static final String IMPLEMENTATION = "org.to2mbn.jmccc.mcdownloader.download.io.http.HttpClientDownloader";
+
+	public static boolean isAvailable() {
+		try {
+			Class.forName("java.net.http.HttpClient");
+			Class.forName(IMPLEMENTATION);
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+		return true;
+	}
+
+	public static HttpClientDownloaderBuilder create() {
+		return new HttpClientDownloaderBuilder();
+	}
+
+	public static Downloader buildDefault() {
+		return create().build();
+	}
+
+	protected int bootstrapPoolSize = Runtime.getRuntime().availableProcessors();
+
+	public HttpClientDownloaderBuilder bootstrapPoolSize(int bootstrapPoolSize) {
+		this.bootstrapPoolSize = bootstrapPoolSize;
+		return this;
+	}
+
+	@Override
+	public Downloader build() {
+		ExecutorService bootstrapPool = null;
+		ExecutorService ioPool = null;
+		try {
+			bootstrapPool = ThreadPoolUtils.createPool(bootstrapPoolSize, downloadPoolKeepAliveTime, downloadPoolKeepAliveTimeUnit, "httpClientDownloader.bootstrap");
+			ioPool = ThreadPoolUtils.createPool(bootstrapPoolSize, downloadPoolKeepAliveTime, downloadPoolKeepAliveTimeUnit, "httpClientDownloader.io");
+
+			HostConnectionLimiter limiter = maxConnectionsPerHost == -1 && hostConnectionLimits.isEmpty()
+					? null
+					: new HostConnectionLimiter(maxConnectionsPerHost, hostConnectionLimits);
+
+			Constructor<?> constructor = Class.forName(IMPLEMENTATION).getConstructor(ExecutorService.class, ExecutorService.class, int.class, HostConnectionLimiter.class, int.class, int.class, Proxy.class, ConnectionMetrics.class);
+			return (Downloader) constructor.newInstance(bootstrapPool, ioPool, maxConnections, limiter, connectTimeout, readTimeout, proxy, metrics);
+		} catch (Throwable e) {
+			if (e instanceof InvocationTargetException) {
+				e = e.getCause();
+			}
+			if (bootstrapPool != null) {
+				try {
+					bootstrapPool.shutdownNow();
+				} catch (Throwable e1) {
+					e.addSuppressed(e1);
+				}
+			}
+			if (ioPool != null) {
+				try {
+					ioPool.shutdownNow();
+				} catch (Throwable e1) {
+					e.addSuppressed(e1);
+				}
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			throw new IllegalStateException("Couldn't create HttpClient downloader", e);
+		}
+	}
+
+}
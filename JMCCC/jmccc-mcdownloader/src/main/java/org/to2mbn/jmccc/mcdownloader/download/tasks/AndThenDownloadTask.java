@@ -1,5 +1,7 @@
 package org.to2mbn.jmccc.mcdownloader.download.tasks;
 
+import java.io.IOException;
+
 class AndThenDownloadTask<SRC, DEST> extends DownloadTaskDecorator<SRC, DEST> {
 
 	private ResultProcessor<SRC, DEST> processor;
@@ -14,4 +16,16 @@ class AndThenDownloadTask<SRC, DEST> extends DownloadTaskDecorator<SRC, DEST> {
 		return new AndThenDownloadSession<>(processor, toDelegate);
 	}
 
+	@Override
+	public ResumableDownloadSession<DEST> createResumableSession() throws IOException {
+		ResumableDownloadSession<SRC> session = delegated.createResumableSession();
+		return session == null ? null : new AndThenResumableDownloadSession<>(processor, session);
+	}
+
+	@Override
+	public SegmentedDownloadTarget<DEST> createSegmentedTarget(long length) throws IOException {
+		SegmentedDownloadTarget<SRC> target = delegated.createSegmentedTarget(length);
+		return target == null ? null : new AndThenSegmentedDownloadTarget<>(processor, target);
+	}
+
 }
\ No newline at end of file
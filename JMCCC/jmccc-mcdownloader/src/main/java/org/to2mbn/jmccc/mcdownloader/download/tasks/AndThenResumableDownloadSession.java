@@ -0,0 +1,34 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+import java.io.IOException;
+
+class AndThenResumableDownloadSession<R, S> extends AndThenDownloadSession<R, S> implements ResumableDownloadSession<S> {
+
+	private ResumableDownloadSession<R> delegated;
+
+	public AndThenResumableDownloadSession(ResultProcessor<R, S> processor, ResumableDownloadSession<R> delegated) {
+		super(processor, delegated);
+		this.delegated = delegated;
+	}
+
+	@Override
+	public long getResumeOffset() {
+		return delegated.getResumeOffset();
+	}
+
+	@Override
+	public long getRangeEnd() {
+		return delegated.getRangeEnd();
+	}
+
+	@Override
+	public String getValidator() {
+		return delegated.getValidator();
+	}
+
+	@Override
+	public void beginTransfer(boolean partial, long totalLength, String validator) throws IOException {
+		delegated.beginTransfer(partial, totalLength, validator);
+	}
+
+}
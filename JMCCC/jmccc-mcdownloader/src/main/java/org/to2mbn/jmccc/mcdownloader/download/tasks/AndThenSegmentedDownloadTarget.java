@@ -0,0 +1,31 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+class AndThenSegmentedDownloadTarget<R, S> implements SegmentedDownloadTarget<S> {
+
+	private ResultProcessor<R, S> processor;
+	private SegmentedDownloadTarget<R> delegated;
+
+	public AndThenSegmentedDownloadTarget(ResultProcessor<R, S> processor, SegmentedDownloadTarget<R> delegated) {
+		this.processor = processor;
+		this.delegated = delegated;
+	}
+
+	@Override
+	public void write(long position, ByteBuffer data) throws IOException {
+		delegated.write(position, data);
+	}
+
+	@Override
+	public S completed() throws Exception {
+		return processor.process(delegated.completed());
+	}
+
+	@Override
+	public void failed() throws Exception {
+		delegated.failed();
+	}
+
+}
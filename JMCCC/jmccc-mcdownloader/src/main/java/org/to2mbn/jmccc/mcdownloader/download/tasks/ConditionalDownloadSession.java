@@ -0,0 +1,59 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+import java.io.IOException;
+
+/**
+ * A download session which holds a copy of the resource, and asks the server
+ * to send the resource only if it has changed.
+ * <p>
+ * Before sending the request, the downloader asks the session for the
+ * validators of the copy, and sends them in the <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> headers. If the server responds with
+ * <code>304 Not Modified</code>, the downloader invokes {@link #notModified()}
+ * to get the result from the copy, and the session won't receive any data.
+ * Otherwise the downloader invokes {@link #beginTransfer(long, String, String)}
+ * and then uses the session as an ordinary {@link DownloadSession}.
+ * 
+ * @param <T> the type of result
+ * @see DownloadTask#createConditionalSession()
+ */
+public interface ConditionalDownloadSession<T> extends DownloadSession<T> {
+
+	/**
+	 * Gets the entity tag of the copy.
+	 * 
+	 * @return the entity tag, null if unknown
+	 */
+	String getETag();
+
+	/**
+	 * Gets the <code>Last-Modified</code> date of the copy.
+	 * 
+	 * @return the date, in the format sent by the server, null if unknown
+	 */
+	String getLastModified();
+
+	/**
+	 * Calls when the server sends the whole resource, before any data is
+	 * received.
+	 * 
+	 * @param length the length of the data, -1 if unknown
+	 * @param etag the entity tag of the resource, null if the server provided
+	 *            none
+	 * @param lastModified the <code>Last-Modified</code> date of the resource,
+	 *            null if the server provided none
+	 * @throws IOException if an I/O error occurs
+	 */
+	void beginTransfer(long length, String etag, String lastModified) throws IOException;
+
+	/**
+	 * Calls when the server responds that the resource hasn't changed.
+	 * <p>
+	 * No other methods will be invoked after this method.
+	 * 
+	 * @return the result built from the copy
+	 * @throws Exception if an exception occurs
+	 */
+	T notModified() throws Exception;
+
+}
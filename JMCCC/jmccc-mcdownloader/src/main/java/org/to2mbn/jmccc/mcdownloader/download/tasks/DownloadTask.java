@@ -61,6 +61,20 @@ abstract public class DownloadTask<T> {
 		return null;
 	}
 
+	/**
+	 * Gets the number of segments to split the resource into.
+	 * <p>
+	 * If it's greater than 1, the downloader will fetch the ranges of the
+	 * resource concurrently, provided the server supports range requests and
+	 * {@link #createSegmentedTarget(long)} doesn't return null.
+	 * 
+	 * @return the number of segments, 1 if the resource should be downloaded
+	 *         in a single request
+	 */
+	public int getSegments() {
+		return 1;
+	}
+
 	/**
 	 * Calls when the download task begins.
 	 * 
@@ -80,6 +94,56 @@ abstract public class DownloadTask<T> {
 		return createSession();
 	}
 
+	/**
+	 * Calls when the download task begins, if the task can resume from the
+	 * data received before.
+	 * <p>
+	 * The default implementation returns null, which means the task cannot be
+	 * resumed, and {@link #createSession()} or {@link #createSession(long)}
+	 * will be used instead.
+	 * 
+	 * @return a new resumable download session, or null if the task doesn't
+	 *         support resuming
+	 * @throws IOException if an I/O error occurs
+	 * @see ResumableDownloadSession
+	 */
+	public ResumableDownloadSession<T> createResumableSession() throws IOException {
+		return null;
+	}
+
+	/**
+	 * Calls when the download task begins, if the task holds a copy of the
+	 * resource which can be revalidated with a conditional request.
+	 * <p>
+	 * The default implementation returns null. A conditional session takes
+	 * precedence over a resumable session.
+	 * 
+	 * @return a new conditional download session, or null if the task doesn't
+	 *         support conditional requests
+	 * @throws IOException if an I/O error occurs
+	 * @see ConditionalDownloadSession
+	 */
+	public ConditionalDownloadSession<T> createConditionalSession() throws IOException {
+		return null;
+	}
+
+	/**
+	 * Calls when a segmented download begins.
+	 * <p>
+	 * The default implementation returns null, which means the task cannot be
+	 * downloaded in segments, and it will be downloaded in a single request
+	 * instead.
+	 * 
+	 * @param length the length of the resource
+	 * @return a new segmented download target, or null if the task doesn't
+	 *         support segmented downloading
+	 * @throws IOException if an I/O error occurs
+	 * @see #getSegments()
+	 */
+	public SegmentedDownloadTarget<T> createSegmentedTarget(long length) throws IOException {
+		return null;
+	}
+
 	public final <R> DownloadTask<R> andThen(ResultProcessor<T, R> processor) {
 		Objects.requireNonNull(processor);
 		return new AndThenDownloadTask<>(processor, this);
@@ -103,4 +167,14 @@ abstract public class DownloadTask<T> {
 		return new DownloadTaskCachePoolDecorator<>(this, pool);
 	}
 
+	public final DownloadTask<T> segmented(int segments) {
+		if (segments < 1) {
+			throw new IllegalArgumentException("segments < 1");
+		}
+		if (getSegments() == segments) {
+			return this;
+		}
+		return new DownloadTaskSegmentsDecorator<>(this, segments);
+	}
+
 }
@@ -0,0 +1,16 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+class DownloadTaskSegmentsDecorator<T> extends SimpleDownloadTaskDecorator<T> {
+
+	private int segments;
+
+	public DownloadTaskSegmentsDecorator(DownloadTask<T> delegated, int segments) {
+		super(delegated);
+		this.segments = segments;
+	}
+
+	@Override
+	public int getSegments() {
+		return segments;
+	}
+}
@@ -3,11 +3,16 @@ package org.to2mbn.jmccc.mcdownloader.download.tasks;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.util.IOUtils;
 
 /**
  * A download task which stores data into a file.
@@ -74,7 +79,7 @@ public class FileDownloadTask extends DownloadTask<Void> {
 
 	@Override
 	public DownloadSession<Void> createSession() throws IOException {
-		final File partFile = new File(target.getParentFile(), target.getName() + ".part");
+		final File partFile = getPartFile();
 
 		FileUtils.prepareWrite(partFile);
 		
@@ -99,22 +104,176 @@ public class FileDownloadTask extends DownloadTask<Void> {
 			@Override
 			public Void completed() throws IOException {
 				close();
-				FileUtils.prepareWrite(target);
-				if (target.exists()) {
-					if (!target.delete()) {
-						throw new IOException("Failed to delete " + target);
+				moveToTarget(partFile);
+				return null;
+			}
+
+			private void close() throws IOException {
+				out.close();
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The partial data is kept in <code>${target}.part</code>, and the
+	 * validator of it is kept in <code>${target}.part.validator</code>. If the
+	 * download fails, the partial data won't be deleted unless the server
+	 * provided no validator.
+	 */
+	@Override
+	public ResumableDownloadSession<Void> createResumableSession() throws IOException {
+		final File partFile = getPartFile();
+		final File validatorFile = getValidatorFile();
+
+		FileUtils.prepareWrite(partFile);
+
+		String savedValidator = null;
+		if (partFile.isFile() && validatorFile.isFile()) {
+			savedValidator = IOUtils.toString(validatorFile).trim();
+			if (savedValidator.isEmpty()) {
+				savedValidator = null;
+			}
+		}
+		final String previousValidator = savedValidator;
+		final FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		final long offset = previousValidator == null ? 0 : channel.size();
+
+		return new ResumableDownloadSession<Void>() {
+
+			private String validator = previousValidator;
+
+			@Override
+			public long getResumeOffset() {
+				return offset;
+			}
+
+			@Override
+			public long getRangeEnd() {
+				return -1;
+			}
+
+			@Override
+			public String getValidator() {
+				return previousValidator;
+			}
+
+			@Override
+			public void beginTransfer(boolean partial, long totalLength, String newValidator) throws IOException {
+				if (partial) {
+					channel.position(offset);
+				} else {
+					channel.truncate(0);
+					channel.position(0);
+				}
+
+				validator = newValidator;
+				if (validator == null) {
+					validatorFile.delete();
+				} else {
+					try (Writer writer = new OutputStreamWriter(new FileOutputStream(validatorFile), "UTF-8")) {
+						writer.write(validator);
 					}
 				}
-				if (!partFile.renameTo(target)) {
-					throw new IOException("Failed to rename " + partFile + " to " + target);
+			}
+
+			@Override
+			public void receiveData(ByteBuffer data) throws IOException {
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			}
+
+			@Override
+			public void failed() throws IOException {
+				channel.close();
+				if (validator == null) {
+					validatorFile.delete();
+					if (!partFile.delete()) {
+						throw new IOException("Failed to delete " + partFile);
+					}
 				}
+			}
+
+			@Override
+			public Void completed() throws IOException {
+				channel.close();
+				validatorFile.delete();
+				moveToTarget(partFile);
 				return null;
 			}
+		};
+	}
 
-			private void close() throws IOException {
-				out.close();
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The <code>${target}.part</code> file is allocated to the given length
+	 * first, then each segment is written at its position.
+	 */
+	@Override
+	public SegmentedDownloadTarget<Void> createSegmentedTarget(long length) throws IOException {
+		final File partFile = getPartFile();
+
+		FileUtils.prepareWrite(partFile);
+		// the part file is about to be overwritten, so it cannot be resumed any more
+		getValidatorFile().delete();
+
+		final RandomAccessFile file = new RandomAccessFile(partFile, "rw");
+		final FileChannel channel;
+		try {
+			file.setLength(length);
+			channel = file.getChannel();
+		} catch (Throwable e) {
+			file.close();
+			throw e;
+		}
+
+		return new SegmentedDownloadTarget<Void>() {
+
+			@Override
+			public void write(long position, ByteBuffer data) throws IOException {
+				while (data.hasRemaining()) {
+					position += channel.write(data, position);
+				}
+			}
+
+			@Override
+			public void failed() throws IOException {
+				file.close();
+				if (!partFile.delete()) {
+					throw new IOException("Failed to delete " + partFile);
+				}
+			}
+
+			@Override
+			public Void completed() throws IOException {
+				file.close();
+				moveToTarget(partFile);
+				return null;
 			}
 		};
 	}
 
+	private File getPartFile() {
+		return new File(target.getParentFile(), target.getName() + ".part");
+	}
+
+	private File getValidatorFile() {
+		return new File(target.getParentFile(), target.getName() + ".part.validator");
+	}
+
+	private void moveToTarget(File partFile) throws IOException {
+		FileUtils.prepareWrite(target);
+		if (target.exists()) {
+			if (!target.delete()) {
+				throw new IOException("Failed to delete " + target);
+			}
+		}
+		if (!partFile.renameTo(target)) {
+			throw new IOException("Failed to rename " + partFile + " to " + target);
+		}
+	}
+
 }
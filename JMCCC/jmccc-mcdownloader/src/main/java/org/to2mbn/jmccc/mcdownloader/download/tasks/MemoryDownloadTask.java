@@ -6,6 +6,7 @@ import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 
 /**
  * A download task which stores data in memory.
@@ -38,9 +39,13 @@ public class MemoryDownloadTask extends DownloadTask<byte[]> {
 
 	@Override
 	public DownloadSession<byte[]> createSession(final long length) throws IOException {
+		if (length >= 0 && length <= Integer.MAX_VALUE - 8) {
+			return new ExactLengthSession((int) length);
+		}
+
 		return new DownloadSession<byte[]>() {
 
-			private ByteArrayOutputStream out = new ByteArrayOutputStream(length == -1 ? 8192 : (int) length);
+			private ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
 			private WritableByteChannel channel = Channels.newChannel(out);
 
 			@Override
@@ -67,9 +72,82 @@ public class MemoryDownloadTask extends DownloadTask<byte[]> {
 		};
 	}
 
+	/**
+	 * Writes into an array of the declared length, so that the array can be
+	 * returned without being copied again.
+	 */
+	private static class ExactLengthSession implements DownloadSession<byte[]> {
+
+		private byte[] buffer;
+		private int count;
+
+		ExactLengthSession(int length) {
+			buffer = new byte[length];
+		}
+
+		@Override
+		public void receiveData(ByteBuffer data) throws IOException {
+			int remaining = data.remaining();
+			if (remaining > buffer.length - count) {
+				// more data than declared
+				long newLength = Math.max((long) buffer.length * 2, (long) count + remaining);
+				if (newLength > Integer.MAX_VALUE - 8) {
+					if ((long) count + remaining > Integer.MAX_VALUE - 8) {
+						throw new IOException("Data is too large to be stored in memory");
+					}
+					newLength = Integer.MAX_VALUE - 8;
+				}
+				buffer = Arrays.copyOf(buffer, (int) newLength);
+			}
+			data.get(buffer, count, remaining);
+			count += remaining;
+		}
+
+		@Override
+		public void failed() throws IOException {
+			buffer = null;
+		}
+
+		@Override
+		public byte[] completed() throws IOException {
+			byte[] data = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+			buffer = null;
+			return data;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns null if the length exceeds the max length of an array.
+	 */
+	@Override
+	public SegmentedDownloadTarget<byte[]> createSegmentedTarget(long length) throws IOException {
+		if (length > Integer.MAX_VALUE - 8) {
+			return null;
+		}
+		final byte[] buffer = new byte[(int) length];
+
+		return new SegmentedDownloadTarget<byte[]>() {
+
+			@Override
+			public void write(long position, ByteBuffer data) throws IOException {
+				data.get(buffer, (int) position, data.remaining());
+			}
+
+			@Override
+			public void failed() throws IOException {}
+
+			@Override
+			public byte[] completed() throws IOException {
+				return buffer;
+			}
+		};
+	}
+
 	@Override
 	public DownloadSession<byte[]> createSession() throws IOException {
-		return createSession(8192);
+		return createSession(-1);
 	}
 
 }
@@ -0,0 +1,62 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+import java.io.IOException;
+
+/**
+ * A download session which can continue from the data received by a previous
+ * session.
+ * <p>
+ * Before sending the request, the downloader asks the session for the offset
+ * to resume from, the end of the range, and the validator of the partial data.
+ * If the offset is greater than 0 or the end is specified, the downloader
+ * requests the range, with the validator (if any) in the
+ * <code>If-Range</code> header. Once the response
+ * arrives, the downloader invokes {@link #beginTransfer(boolean, long, String)}
+ * to tell the session whether the server sent the requested range or the whole
+ * resource. Then the session is used as an ordinary {@link DownloadSession}.
+ * <p>
+ * Unlike an ordinary session, {@link #failed()} should keep the received data
+ * if a validator is known, so that a later session can resume from it.
+ * 
+ * @param <T> the type of result
+ * @see DownloadTask#createResumableSession()
+ */
+public interface ResumableDownloadSession<T> extends DownloadSession<T> {
+
+	/**
+	 * Gets the number of bytes which have been received by previous sessions.
+	 * 
+	 * @return the offset to resume from, 0 if the download must start from the
+	 *         beginning
+	 */
+	long getResumeOffset();
+
+	/**
+	 * Gets the position of the last byte to request.
+	 * 
+	 * @return the inclusive end of the range, -1 to request until the end of
+	 *         the resource
+	 */
+	long getRangeEnd();
+
+	/**
+	 * Gets the validator (a strong entity tag or a <code>Last-Modified</code>
+	 * date) of the resource from which the partial data was received.
+	 * 
+	 * @return the validator, or null if no validator is known
+	 */
+	String getValidator();
+
+	/**
+	 * Calls when the response arrives, before any data is received.
+	 * 
+	 * @param partial true if the server sent the range starting at the resume
+	 *            offset, false if the server sent the whole resource
+	 * @param totalLength the length of the whole resource, -1 if unknown
+	 * @param validator the validator of the resource, null if the server
+	 *            provided none
+	 * @throws IOException if an I/O error occurs
+	 */
+	void beginTransfer(boolean partial, long totalLength, String validator) throws IOException;
+
+}
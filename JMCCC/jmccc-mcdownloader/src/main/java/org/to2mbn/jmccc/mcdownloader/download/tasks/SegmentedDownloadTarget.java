@@ -0,0 +1,47 @@
+package org.to2mbn.jmccc.mcdownloader.download.tasks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The target of a segmented download, which receives the segments of a
+ * resource concurrently.
+ * <p>
+ * The length of the resource is known before the target is created, so the
+ * target can be allocated in advance, and each segment is written at its own
+ * position. Once the target is created, one of the following methods
+ * {@link #completed()}, {@link #failed()} must be invoked.
+ * 
+ * @param <T> the type of result
+ * @see DownloadTask#createSegmentedTarget(long)
+ */
+public interface SegmentedDownloadTarget<T> {
+
+	/**
+	 * Calls when receives a part of data of a segment.
+	 * <p>
+	 * This method is invoked concurrently by different segments, but the
+	 * ranges being written never overlap.
+	 * 
+	 * @param position the position of the data in the resource
+	 * @param data the data
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(long position, ByteBuffer data) throws IOException;
+
+	/**
+	 * Calls when all the segments have been received successfully.
+	 * 
+	 * @return the result
+	 * @throws Exception if an I/O error occurs
+	 */
+	T completed() throws Exception;
+
+	/**
+	 * Calls when any of the segments fails.
+	 * 
+	 * @throws Exception if an I/O error occurs
+	 */
+	void failed() throws Exception;
+
+}
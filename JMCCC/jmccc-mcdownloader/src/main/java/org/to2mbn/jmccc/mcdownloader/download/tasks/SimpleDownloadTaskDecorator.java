@@ -1,5 +1,6 @@
 package org.to2mbn.jmccc.mcdownloader.download.tasks;
 
+import java.io.IOException;
 import java.net.URI;
 
 /**
@@ -23,4 +24,14 @@ public class SimpleDownloadTaskDecorator<T> extends DownloadTaskDecorator<T, T>
 		return toDelegate;
 	}
 
+	@Override
+	public ResumableDownloadSession<T> createResumableSession() throws IOException {
+		return delegated.createResumableSession();
+	}
+
+	@Override
+	public SegmentedDownloadTarget<T> createSegmentedTarget(long length) throws IOException {
+		return delegated.createSegmentedTarget(length);
+	}
+
 }
@@ -32,7 +32,7 @@ class DownloadInfoProvider extends AbstractMinecraftDownloadProvider implements
 
 	@Override
 	public CombinedDownloadTask<Set<Asset>> assetsIndex(final MinecraftDirectory mcdir, final Version version) {
-		CombinedDownloadTask<Void> task = download(version.getAssetIndexDownloadInfo(), mcdir.getAssetIndex(version), CacheNames.ASSET_INDEX);
+		CombinedDownloadTask<Void> task = download(version.getAssetIndexDownloadInfo(), mcdir.getAssetIndex(version), CacheNames.ASSET_INDEX, 1);
 		if (task != null) {
 			return task
 					.andThen(new ResultProcessor<Void, Set<Asset>>() {
@@ -51,7 +51,7 @@ class DownloadInfoProvider extends AbstractMinecraftDownloadProvider implements
 	public CombinedDownloadTask<Void> gameJar(MinecraftDirectory mcdir, Version version) {
 		Map<String, DownloadInfo> downloads = version.getDownloads();
 		if (downloads != null) {
-			return download(downloads.get("client"), mcdir.getVersionJar(version), CacheNames.GAME_JAR);
+			return download(downloads.get("client"), mcdir.getVersionJar(version), CacheNames.GAME_JAR, 4);
 		}
 		return null;
 	}
@@ -60,7 +60,7 @@ class DownloadInfoProvider extends AbstractMinecraftDownloadProvider implements
 	public CombinedDownloadTask<Void> library(MinecraftDirectory mcdir, Library library) {
 		LibraryInfo info = library.getDownloadInfo();
 		if (info != null) {
-			return download(info, mcdir.getLibrary(library), CacheNames.LIBRARY);
+			return download(info, mcdir.getLibrary(library), CacheNames.LIBRARY, 1);
 		}
 		return null;
 	}
@@ -95,7 +95,7 @@ class DownloadInfoProvider extends AbstractMinecraftDownloadProvider implements
 		this.upstreamProvider = upstreamProvider;
 	}
 
-	private CombinedDownloadTask<Void> download(final DownloadInfo info, final File target, String cachePool) {
+	private CombinedDownloadTask<Void> download(final DownloadInfo info, final File target, String cachePool, int segments) {
 		if (info == null || info.getUrl() == null) {
 			return null;
 		}
@@ -110,7 +110,8 @@ class DownloadInfoProvider extends AbstractMinecraftDownloadProvider implements
 						return null;
 					}
 				})
-				.cachePool(cachePool));
+				.cachePool(cachePool)
+				.segmented(segments));
 	}
 
 	private URI parseURI(String str) {
@@ -97,7 +97,8 @@ abstract public class URIDownloadProvider implements MinecraftDownloadProvider {
 		}
 		return CombinedDownloadTask.single(
 				new FileDownloadTask(uri, mcdir.getVersionJar(version))
-						.cachePool(CacheNames.GAME_JAR));
+						.cachePool(CacheNames.GAME_JAR)
+						.segmented(4));
 	}
 
 	@Override
@@ -219,7 +219,8 @@ public class ForgeDownloadProvider extends AbstractMinecraftDownloadProvider imp
 			Library lib = new Library(FORGE_GROUP_ID, FORGE_ARTIFACT_ID, m2Version, CLASSIFIER_UNIVERSAL, types[i]);
 			tasks[i + 1] = CombinedDownloadTask.single(
 					new FileDownloadTask(source.getForgeMavenRepositoryUrl() + lib.getPath(), target)
-							.cachePool(CacheNames.FORGE_UNIVERSAL));
+							.cachePool(CacheNames.FORGE_UNIVERSAL)
+							.segmented(4));
 		}
 
 		return CombinedDownloadTask.any(tasks);
@@ -1,6 +1,10 @@
 package org.to2mbn.jmccc.mcdownloader.util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -30,6 +34,38 @@ public final class ThreadPoolUtils {
 
 	}
 
+	private static class VirtualThreadSupport {
+
+		static final Method OF_VIRTUAL;
+		static final Method BUILDER_NAME;
+		static final Method BUILDER_FACTORY;
+		static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+		static {
+			Method ofVirtual = null;
+			Method builderName = null;
+			Method builderFactory = null;
+			Method newThreadPerTaskExecutor = null;
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				ofVirtual = Thread.class.getMethod("ofVirtual");
+				builderName = builderClass.getMethod("name", String.class, long.class);
+				builderFactory = builderClass.getMethod("factory");
+				newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+				// virtual threads are a preview feature on some JVMs, make sure they can be created
+				builderFactory.invoke(ofVirtual.invoke(null));
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+				ofVirtual = null;
+			}
+			OF_VIRTUAL = ofVirtual;
+			BUILDER_NAME = builderName;
+			BUILDER_FACTORY = builderFactory;
+			NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+		}
+
+	}
+
 	public static ThreadFactory createNamedThreadFactory(String name) {
 		return new NamedThreadFactory(Objects.requireNonNull(name));
 	}
@@ -40,5 +76,57 @@ public final class ThreadPoolUtils {
 		return pool;
 	}
 
+	/**
+	 * Returns true if the JVM supports virtual threads.
+	 * 
+	 * @return true if virtual threads are available
+	 */
+	public static boolean isVirtualThreadAvailable() {
+		return VirtualThreadSupport.OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Creates an executor which starts a new virtual thread for each task.
+	 * 
+	 * @param poolName the name prefix of the threads
+	 * @return the executor
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 *             available
+	 * @see #isVirtualThreadAvailable()
+	 */
+	public static ExecutorService createVirtualThreadExecutor(String poolName) {
+		Objects.requireNonNull(poolName);
+		if (!isVirtualThreadAvailable()) {
+			throw new UnsupportedOperationException("Virtual threads are not available");
+		}
+		try {
+			Object builder = VirtualThreadSupport.OF_VIRTUAL.invoke(null);
+			builder = VirtualThreadSupport.BUILDER_NAME.invoke(builder, "virtual-" + poolName + "-thread-", 1L);
+			ThreadFactory factory = (ThreadFactory) VirtualThreadSupport.BUILDER_FACTORY.invoke(builder);
+			return (ExecutorService) VirtualThreadSupport.NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedOperationException("Couldn't create virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Creates an executor for the given pool, using virtual threads if
+	 * <code>virtual</code> is true and they are available, or a pool of
+	 * platform threads otherwise.
+	 * 
+	 * @param virtual whether to use virtual threads
+	 * @param threads the size of the platform thread pool
+	 * @param keepAliveTime the keep alive time of the platform threads
+	 * @param unit the unit of <code>keepAliveTime</code>
+	 * @param poolName the name of the pool
+	 * @return the executor
+	 */
+	public static ExecutorService createExecutor(boolean virtual, int threads, long keepAliveTime, TimeUnit unit, String poolName) {
+		if (virtual && isVirtualThreadAvailable()) {
+			return createVirtualThreadExecutor(poolName);
+		}
+		return createPool(threads, keepAliveTime, unit, poolName);
+	}
+
 	private ThreadPoolUtils() {}
 }
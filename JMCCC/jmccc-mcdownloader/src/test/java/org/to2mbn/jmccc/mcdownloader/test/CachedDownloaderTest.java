@@ -0,0 +1,135 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.cache.CacheNames;
+import org.to2mbn.jmccc.mcdownloader.download.cache.CachedDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.cache.provider.CacheProvider;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.CompletedFuture;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadSession;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.MemoryDownloadTask;
+import org.to2mbn.jmccc.util.Builder;
+import org.to2mbn.jmccc.util.Builders;
+
+public class CachedDownloaderTest {
+
+	private static class MapCacheProvider implements CacheProvider<URI, byte[]> {
+
+		Map<URI, byte[]> entries = new HashMap<>();
+
+		@Override
+		public byte[] get(String cachePool, URI key) {
+			return entries.get(key);
+		}
+
+		@Override
+		public void put(String cachePool, URI key, byte[] value) {
+			entries.put(key, value);
+		}
+
+		@Override
+		public void remove(String cachePool, URI key) {
+			entries.remove(key);
+		}
+
+		@Override
+		public boolean hasCache(String cachePool) {
+			return CacheNames.DEFAULT.equals(cachePool);
+		}
+
+		@Override
+		public void close() throws IOException {}
+	}
+
+	/**
+	 * Feeds the data in small chunks, declaring the given length.
+	 */
+	private static class FakeDownloader implements Downloader {
+
+		byte[] data;
+		long declaredLength;
+		int requests;
+
+		@Override
+		public <T> Future<T> download(DownloadTask<T> task, DownloadCallback<T> callback) {
+			requests++;
+			try {
+				DownloadSession<T> session = declaredLength == -1 ? task.createSession() : task.createSession(declaredLength);
+				for (int i = 0; i < data.length; i += 1000) {
+					session.receiveData(ByteBuffer.wrap(data, i, Math.min(1000, data.length - i)));
+				}
+				T result = session.completed();
+				if (callback != null)
+					callback.done(result);
+				return new CompletedFuture<>(result);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public <T> Future<T> download(DownloadTask<T> task, DownloadCallback<T> callback, int tries) {
+			return download(task, callback);
+		}
+
+		@Override
+		public void shutdown() {}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+	}
+
+	private void testCache(int length, long declaredLength) throws Exception {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+
+		final FakeDownloader upstream = new FakeDownloader();
+		upstream.data = data;
+		upstream.declaredLength = declaredLength;
+		MapCacheProvider cache = new MapCacheProvider();
+
+		Downloader downloader = CachedDownloaderBuilder.create(new Builder<Downloader>() {
+
+			@Override
+			public Downloader build() {
+				return upstream;
+			}
+		}).cacheProvider(Builders.of(cache)).build();
+
+		DownloadTask<byte[]> task = new MemoryDownloadTask("http://test/cached").cacheable();
+		assertArrayEquals(data, downloader.download(task, null).get());
+		assertArrayEquals(data, cache.entries.get(task.getURI()));
+
+		assertArrayEquals(data, downloader.download(task, null).get());
+		assertEquals(1, upstream.requests);
+	}
+
+	@Test
+	public void testKnownLength() throws Exception {
+		testCache(200_000, 200_000);
+	}
+
+	@Test
+	public void testUnknownLength() throws Exception {
+		testCache(200_000, -1);
+	}
+
+	@Test
+	public void testWrongLength() throws Exception {
+		testCache(200_000, 1500);
+		testCache(1500, 200_000);
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.cache.CachedDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.JdkDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.http.HttpClientDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.DownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.FileDownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.MemoryDownloadTask;
+import org.to2mbn.jmccc.util.Builder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class DiskCacheTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	private final byte[] content = "{\"versions\":[]}".getBytes(StandardCharsets.UTF_8);
+	private final AtomicInteger fullResponses = new AtomicInteger();
+	private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+	private HttpServer server;
+	private File cacheDir;
+
+	@Before
+	public void setup() throws IOException {
+		cacheDir = new File("disk-cache-test");
+		delete(cacheDir);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/manifest", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				try (OutputStream out = exchange.getResponseBody()) {
+					if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+						notModifiedResponses.incrementAndGet();
+						exchange.sendResponseHeaders(304, -1);
+					} else {
+						fullResponses.incrementAndGet();
+						exchange.sendResponseHeaders(200, content.length);
+						out.write(content);
+					}
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+		delete(cacheDir);
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private byte[] download(Builder<Downloader> underlying, long ttl) throws Exception {
+		Downloader downloader = CachedDownloaderBuilder.create(underlying)
+				.diskCache(cacheDir, ttl, TimeUnit.HOURS, 1024 * 1024)
+				.build();
+		try {
+			DownloadTask<byte[]> task = new MemoryDownloadTask("http://127.0.0.1:" + server.getAddress().getPort() + "/manifest").cacheable();
+			return downloader.download(task, null).get();
+		} finally {
+			downloader.shutdown();
+		}
+	}
+
+	@Test
+	public void testRevalidation() throws Exception {
+		testRevalidation(JdkDownloaderBuilder.create());
+	}
+
+	@Test
+	public void testRevalidationHttpClient() throws Exception {
+		assumeTrue(HttpClientDownloaderBuilder.isAvailable());
+		testRevalidation(HttpClientDownloaderBuilder.create());
+	}
+
+	@Test
+	public void testRevalidationResumable() throws Exception {
+		File target = new File("disk-cache-test.bin");
+		try {
+			// a file task is downloaded with a resumable session, which must collect the validator too
+			download(JdkDownloaderBuilder.create(), 0, target);
+			assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+			assertEquals(1, fullResponses.get());
+			assertEquals(0, notModifiedResponses.get());
+
+			assertTrue(target.delete());
+			download(JdkDownloaderBuilder.create(), 0, target);
+			assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+			assertEquals(1, fullResponses.get());
+			assertEquals(1, notModifiedResponses.get());
+		} finally {
+			target.delete();
+		}
+	}
+
+	private void download(Builder<Downloader> underlying, long ttl, File target) throws Exception {
+		Downloader downloader = CachedDownloaderBuilder.create(underlying)
+				.diskCache(cacheDir, ttl, TimeUnit.HOURS, 1024 * 1024)
+				.build();
+		try {
+			downloader.download(new FileDownloadTask("http://127.0.0.1:" + server.getAddress().getPort() + "/manifest", target).cacheable(), null).get();
+		} finally {
+			downloader.shutdown();
+		}
+	}
+
+	private void testRevalidation(Builder<Downloader> underlying) throws Exception {
+		assertArrayEquals(content, download(underlying, 0));
+		assertEquals(1, fullResponses.get());
+		assertEquals(0, notModifiedResponses.get());
+
+		// expired, revalidated by a conditional request
+		assertArrayEquals(content, download(underlying, 0));
+		assertEquals(1, fullResponses.get());
+		assertEquals(1, notModifiedResponses.get());
+
+		// fresh, no request at all
+		assertArrayEquals(content, download(underlying, 1));
+		assertEquals(1, fullResponses.get());
+		assertEquals(1, notModifiedResponses.get());
+	}
+
+}
@@ -0,0 +1,159 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.io.ConnectionMetrics;
+import org.to2mbn.jmccc.mcdownloader.download.io.HostConnectionLimiter;
+import org.to2mbn.jmccc.mcdownloader.download.io.JdkDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.io.http.HttpClientDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.MemoryDownloadTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HostConnectionLimitTest {
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger maxActive = new AtomicInteger();
+
+	private HttpServer server;
+	private ExecutorService serverPool;
+
+	@Before
+	public void setup() throws IOException {
+		serverPool = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(serverPool);
+		server.createContext("/file", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int current = active.incrementAndGet();
+				for (;;) {
+					int max = maxActive.get();
+					if (current <= max || maxActive.compareAndSet(max, current)) {
+						break;
+					}
+				}
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				active.decrementAndGet();
+				try (OutputStream out = exchange.getResponseBody()) {
+					exchange.sendResponseHeaders(200, 1);
+					out.write(1);
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+		serverPool.shutdownNow();
+	}
+
+	private void downloadAll(Downloader downloader, int count) throws Exception {
+		try {
+			List<Future<byte[]>> futures = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				futures.add(downloader.download(new MemoryDownloadTask("http://127.0.0.1:" + server.getAddress().getPort() + "/file"), null));
+			}
+			for (Future<byte[]> future : futures) {
+				assertArrayEquals(new byte[] { 1 }, future.get());
+			}
+		} finally {
+			downloader.shutdown();
+		}
+	}
+
+	@Test
+	public void testMaxConnectionsPerHost() throws Exception {
+		downloadAll(JdkDownloaderBuilder.create()
+				.useVirtualThreads(true)
+				.maxConnectionsPerHost(2)
+				.build(), 10);
+		assertTrue("max concurrent connections: " + maxActive.get(), maxActive.get() <= 2);
+	}
+
+	@Test
+	public void testHostLimitAndMetrics() throws Exception {
+		ConnectionMetrics metrics = new ConnectionMetrics();
+		downloadAll(JdkDownloaderBuilder.create()
+				.maxConnectionsPerHost("127.0.0.1", 1)
+				.metrics(metrics)
+				.build(), 5);
+		assertEquals(1, maxActive.get());
+		assertEquals(5, metrics.getRequests());
+		assertEquals(0, metrics.getActiveRequests());
+		assertEquals(Long.valueOf(5), metrics.getRequestsPerHost().get("127.0.0.1"));
+		// URLConnection doesn't tell whether a connection is reused
+		assertEquals(-1, metrics.getConnectionsOpened());
+	}
+
+	@Test
+	public void testHttpClientMaxConnectionsPerHost() throws Exception {
+		assumeTrue(HttpClientDownloaderBuilder.isAvailable());
+		downloadAll(HttpClientDownloaderBuilder.create()
+				.maxConnectionsPerHost(2)
+				.build(), 10);
+		assertTrue("max concurrent requests: " + maxActive.get(), maxActive.get() <= 2);
+	}
+
+	@Test
+	public void testPortsAreLimitedSeparately() throws Exception {
+		HostConnectionLimiter limiter = new HostConnectionLimiter(1, Collections.<String, Integer> emptyMap());
+		String key = limiter.acquire(new URI("http://example.com/a"));
+		String anotherPort = limiter.acquire(new URI("http://example.com:8080/a"));
+		assertNotEquals(key, anotherPort);
+		limiter.release(key);
+		// http://example.com is the same server as http://example.com:80
+		assertEquals(key, limiter.acquire(new URI("http://example.com:80/b")));
+	}
+
+	@Test
+	public void testQueuedUntilReleased() throws Exception {
+		HostConnectionLimiter limiter = new HostConnectionLimiter(1, Collections.<String, Integer> emptyMap());
+		final AtomicInteger started = new AtomicInteger();
+		Runnable action = new Runnable() {
+
+			@Override
+			public void run() {
+				started.incrementAndGet();
+			}
+		};
+		String key = limiter.keyOf(new URI("http://example.com/a"));
+		limiter.execute(key, action);
+		assertEquals(1, started.get());
+		// no permit left, the caller isn't blocked
+		limiter.execute(key, action);
+		assertEquals(1, started.get());
+		// the permit is handed over to the queued action
+		limiter.release(key);
+		assertEquals(2, started.get());
+		limiter.release(key);
+		limiter.release(key);
+
+		// unlimited hosts have no key
+		assertNull(new HostConnectionLimiter(-1, Collections.<String, Integer> emptyMap()).keyOf(new URI("http://example.com/a")));
+	}
+
+}
@@ -0,0 +1,162 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.io.IllegalHttpResponseCodeException;
+import org.to2mbn.jmccc.mcdownloader.download.io.http.HttpClientDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.FileDownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.MemoryDownloadTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpClientDownloaderTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	private final byte[] content = new byte[3 * 1024 * 1024 + 17];
+
+	private HttpServer server;
+	private ExecutorService serverPool;
+	private Downloader downloader;
+	private File target;
+
+	@Before
+	public void setup() throws IOException {
+		assumeTrue(HttpClientDownloaderBuilder.isAvailable());
+
+		new Random(0).nextBytes(content);
+		target = new File("httpclient-test.bin");
+		target.delete();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/file", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				try (OutputStream out = exchange.getResponseBody()) {
+					if (range != null && (exchange.getRequestHeaders().getFirst("If-Range") == null || ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range")))) {
+						String[] bounds = range.substring("bytes=".length()).split("-", -1);
+						int first = Integer.parseInt(bounds[0]);
+						int last = bounds[1].isEmpty() ? content.length - 1 : Integer.parseInt(bounds[1]);
+						exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+						exchange.sendResponseHeaders(206, last - first + 1);
+						out.write(content, first, last - first + 1);
+					} else {
+						exchange.sendResponseHeaders(200, content.length);
+						out.write(content);
+					}
+				}
+			}
+		});
+		server.createContext("/missing", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/stalled", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(200, content.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(content, 0, 1000);
+					out.flush();
+					Thread.sleep(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		serverPool = Executors.newCachedThreadPool();
+		server.setExecutor(serverPool);
+		server.start();
+
+		downloader = HttpClientDownloaderBuilder.create().readTimeout(500).build();
+	}
+
+	@After
+	public void teardown() {
+		if (downloader != null) {
+			downloader.shutdown();
+		}
+		if (server != null) {
+			server.stop(0);
+		}
+		if (serverPool != null) {
+			serverPool.shutdownNow();
+		}
+		if (target != null) {
+			target.delete();
+			new File(target.getPath() + ".part").delete();
+			new File(target.getPath() + ".part.validator").delete();
+		}
+	}
+
+	private String uri(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Test
+	public void testMemory() throws Exception {
+		assertArrayEquals(content, downloader.download(new MemoryDownloadTask(uri("/file")), null).get());
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		Files.write(new File(target.getPath() + ".part").toPath(), Arrays.copyOf(content, 1000));
+		Files.write(new File(target.getPath() + ".part.validator").toPath(), ETAG.getBytes("UTF-8"));
+
+		downloader.download(new FileDownloadTask(uri("/file"), target), null).get();
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+	}
+
+	@Test
+	public void testSegmented() throws Exception {
+		downloader.download(new FileDownloadTask(uri("/file"), target).segmented(3), null).get();
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+	}
+
+	@Test
+	public void testStalledBody() throws Exception {
+		try {
+			downloader.download(new MemoryDownloadTask(uri("/stalled")), null).get(4, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SocketTimeoutException);
+		}
+	}
+
+	@Test
+	public void testResponseCode() throws Exception {
+		try {
+			downloader.download(new MemoryDownloadTask(uri("/missing")), null).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalHttpResponseCodeException);
+			assertEquals(404, ((IllegalHttpResponseCodeException) e.getCause()).getResponseCode());
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.io.JdkDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.FileDownloadTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ResumableDownloadTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	private final byte[] content = new byte[256 * 1024];
+	private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+	private HttpServer server;
+	private File target;
+
+	@Before
+	public void setup() throws IOException {
+		new Random(0).nextBytes(content);
+		target = new File("resumable-test.bin");
+		cleanup(target);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/file", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				ranges.add(String.valueOf(range));
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				try (OutputStream out = exchange.getResponseBody()) {
+					if (range != null && ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+						int offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+						exchange.getResponseHeaders().set("Content-Range", "bytes " + offset + "-" + (content.length - 1) + "/" + content.length);
+						exchange.sendResponseHeaders(206, content.length - offset);
+						out.write(content, offset, content.length - offset);
+					} else {
+						exchange.sendResponseHeaders(200, content.length);
+						out.write(content);
+					}
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+		cleanup(target);
+	}
+
+	private void cleanup(File file) {
+		file.delete();
+		new File(file.getPath() + ".part").delete();
+		new File(file.getPath() + ".part.validator").delete();
+	}
+
+	private String uri() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+	}
+
+	@Test
+	public void testResumeFromPartFile() throws Exception {
+		Files.write(new File(target.getPath() + ".part").toPath(), Arrays.copyOf(content, 1000));
+		Files.write(new File(target.getPath() + ".part.validator").toPath(), ETAG.getBytes("UTF-8"));
+
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			downloader.download(new FileDownloadTask(uri(), target), null).get();
+		} finally {
+			downloader.shutdown();
+		}
+
+		assertEquals("bytes=1000-", ranges.get(0));
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+		assertFalse(new File(target.getPath() + ".part.validator").exists());
+	}
+
+	@Test
+	public void testStaleValidator() throws Exception {
+		Files.write(new File(target.getPath() + ".part").toPath(), new byte[1000]);
+		Files.write(new File(target.getPath() + ".part.validator").toPath(), "\"v0\"".getBytes("UTF-8"));
+
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			downloader.download(new FileDownloadTask(uri(), target), null).get();
+		} finally {
+			downloader.shutdown();
+		}
+
+		// the server ignores the range because the validator mismatches
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+	}
+
+	@Test
+	public void testPartFileWithoutValidator() throws Exception {
+		Files.write(new File(target.getPath() + ".part").toPath(), new byte[1000]);
+
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			downloader.download(new FileDownloadTask(uri(), target), null).get();
+		} finally {
+			downloader.shutdown();
+		}
+
+		// no validator is known, so the part file cannot be trusted
+		assertEquals("null", ranges.get(0));
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+	}
+
+}
@@ -0,0 +1,149 @@
+package org.to2mbn.jmccc.mcdownloader.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.to2mbn.jmccc.mcdownloader.download.Downloader;
+import org.to2mbn.jmccc.mcdownloader.download.concurrent.DownloadCallback;
+import org.to2mbn.jmccc.mcdownloader.download.io.JdkDownloaderBuilder;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.FileDownloadTask;
+import org.to2mbn.jmccc.mcdownloader.download.tasks.MemoryDownloadTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class SegmentedDownloadTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	private final byte[] content = new byte[3 * 1024 * 1024 + 17];
+	private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+	private HttpServer server;
+	private File target;
+
+	@Before
+	public void setup() throws IOException {
+		new Random(0).nextBytes(content);
+		target = new File("segmented-test.bin");
+		target.delete();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/ranges", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				ranges.add(String.valueOf(range));
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				try (OutputStream out = exchange.getResponseBody()) {
+					if (range != null) {
+						String[] bounds = range.substring("bytes=".length()).split("-", -1);
+						int first = Integer.parseInt(bounds[0]);
+						int last = bounds[1].isEmpty() ? content.length - 1 : Integer.parseInt(bounds[1]);
+						exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+						exchange.sendResponseHeaders(206, last - first + 1);
+						out.write(content, first, last - first + 1);
+					} else {
+						exchange.sendResponseHeaders(200, content.length);
+						out.write(content);
+					}
+				}
+			}
+		});
+		server.createContext("/plain", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				ranges.add(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+				try (OutputStream out = exchange.getResponseBody()) {
+					exchange.sendResponseHeaders(200, content.length);
+					out.write(content);
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+		target.delete();
+	}
+
+	private String uri(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Test
+	public void testSegmentedFile() throws Exception {
+		final AtomicLong progress = new AtomicLong();
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			downloader.download(new FileDownloadTask(uri("/ranges"), target).segmented(3), new DownloadCallback<Void>() {
+
+				@Override
+				public void done(Void result) {}
+
+				@Override
+				public void failed(Throwable e) {}
+
+				@Override
+				public void cancelled() {}
+
+				@Override
+				public void updateProgress(long done, long total) {
+					assertEquals(content.length, total);
+					progress.set(Math.max(progress.get(), done));
+				}
+
+				@Override
+				public void retry(Throwable e, int current, int max) {}
+			}).get();
+		} finally {
+			downloader.shutdown();
+		}
+
+		assertEquals("bytes=0-0", ranges.get(0));
+		assertEquals(4, ranges.size());
+		assertEquals(content.length, progress.get());
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+		assertFalse(new File(target.getPath() + ".part").exists());
+	}
+
+	@Test
+	public void testSegmentedMemory() throws Exception {
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			assertArrayEquals(content, downloader.download(new MemoryDownloadTask(uri("/ranges")).segmented(2), null).get());
+		} finally {
+			downloader.shutdown();
+		}
+		assertEquals(3, ranges.size());
+	}
+
+	@Test
+	public void testFallbackWithoutRanges() throws Exception {
+		Downloader downloader = JdkDownloaderBuilder.buildDefault();
+		try {
+			downloader.download(new FileDownloadTask(uri("/plain"), target).segmented(3), null).get();
+		} finally {
+			downloader.shutdown();
+		}
+
+		// the probe is rejected, then the whole file is fetched in one request
+		assertEquals(2, ranges.size());
+		assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+	}
+
+}
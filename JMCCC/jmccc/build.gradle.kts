@@ -1,5 +1,26 @@
 val junitVersion = "4.12"
+val jmhVersion = "1.21"
 
 dependencies {
     testImplementation("junit:junit:$junitVersion")
 }
+
+// JMH benchmarks, run with `./gradlew :JMCCC/jmccc:jmh`.
+// Pass -Pjmh.includes=<regex> to run only the matching benchmarks.
+val main = sourceSets["main"]
+val jmh by sourceSets.creating {
+    compileClasspath += main.output + main.compileClasspath
+    runtimeClasspath += main.output + main.runtimeClasspath
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+task<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks."
+    classpath = jmh.runtimeClasspath
+    main = "org.openjdk.jmh.Main"
+    args = listOfNotNull(project.findProperty("jmh.includes") as String?)
+}
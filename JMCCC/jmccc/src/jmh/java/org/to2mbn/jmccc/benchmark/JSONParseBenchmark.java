@@ -0,0 +1,147 @@
+package org.to2mbn.jmccc.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.to2mbn.jmccc.internal.org.json.JSONArray;
+import org.to2mbn.jmccc.internal.org.json.JSONByteParser;
+import org.to2mbn.jmccc.internal.org.json.JSONException;
+import org.to2mbn.jmccc.internal.org.json.JSONObject;
+import org.to2mbn.jmccc.internal.org.json.JSONTokener;
+
+/**
+ * Compares {@link JSONByteParser} with the reader based {@link JSONTokener}
+ * which <code>IOUtils.toJson</code> used before.
+ * <p>
+ * The <code>parse*</code> benchmarks only build the tree, the
+ * <code>read*</code> ones also read every value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONParseBenchmark {
+
+	/**
+	 * <code>version</code>: a version json with 100 libraries;
+	 * <code>assetIndex</code>: an asset index with 4000 objects.
+	 */
+	@Param({ "version", "assetIndex" })
+	public String input;
+
+	private byte[] data;
+
+	@Setup
+	public void setup() {
+		data = ("version".equals(input) ? versionJson(100) : assetIndexJson(4000)).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public JSONObject parseTokener() throws JSONException {
+		return tokener();
+	}
+
+	@Benchmark
+	public JSONObject parseByteParser() throws JSONException {
+		return JSONByteParser.parseObject(ByteBuffer.wrap(data));
+	}
+
+	@Benchmark
+	public void readTokener(Blackhole blackhole) throws JSONException {
+		consume(tokener(), blackhole);
+	}
+
+	@Benchmark
+	public void readByteParser(Blackhole blackhole) throws JSONException {
+		consume(JSONByteParser.parseObject(ByteBuffer.wrap(data)), blackhole);
+	}
+
+	private JSONObject tokener() throws JSONException {
+		Reader reader = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8);
+		return new JSONObject(new JSONTokener(reader));
+	}
+
+	private static void consume(Object value, Blackhole blackhole) {
+		if (value instanceof JSONObject) {
+			JSONObject json = (JSONObject) value;
+			for (String key : json.keySet()) {
+				consume(json.get(key), blackhole);
+			}
+		} else if (value instanceof JSONArray) {
+			JSONArray array = (JSONArray) value;
+			for (int i = 0; i < array.length(); i++) {
+				consume(array.get(i), blackhole);
+			}
+		} else {
+			blackhole.consume(value);
+		}
+	}
+
+	private static String versionJson(int libraries) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n  \"id\": \"1.12.2\",\n  \"type\": \"release\",\n  \"mainClass\": \"net.minecraft.client.main.Main\",\n");
+		sb.append("  \"minecraftArguments\": \"--username ${auth_player_name} --version ${version_name} --gameDir ${game_directory}\",\n");
+		sb.append("  \"assetIndex\": {\"id\": \"1.12\", \"sha1\": \"").append(sha1(0)).append("\", \"size\": 169014, \"totalSize\": 127023413, \"url\": \"https://launchermeta.mojang.com/mc/assets/1.12/1.12.json\"},\n");
+		sb.append("  \"libraries\": [\n");
+		for (int i = 0; i < libraries; i++) {
+			if (i > 0) {
+				sb.append(",\n");
+			}
+			String path = "org/example/library" + i + "/1." + i + "/library" + i + "-1." + i + ".jar";
+			sb.append("    {\n      \"name\": \"org.example:library").append(i).append(":1.").append(i).append("\",\n");
+			sb.append("      \"downloads\": {\"artifact\": {\"size\": ").append(10000 + i * 37)
+					.append(", \"sha1\": \"").append(sha1(i + 1))
+					.append("\", \"path\": \"").append(path)
+					.append("\", \"url\": \"https://libraries.minecraft.net/").append(path).append("\"}}");
+			if (i % 5 == 0) {
+				sb.append(",\n      \"rules\": [{\"action\": \"allow\"}, {\"action\": \"disallow\", \"os\": {\"name\": \"osx\", \"version\": \"^10\\\\.5\\\\.\\\\d$\"}}]");
+			}
+			sb.append("\n    }");
+		}
+		sb.append("\n  ]\n}\n");
+		return sb.toString();
+	}
+
+	private static String assetIndexJson(int objects) {
+		StringBuilder sb = new StringBuilder("{\n  \"objects\": {\n");
+		for (int i = 0; i < objects; i++) {
+			if (i > 0) {
+				sb.append(",\n");
+			}
+			sb.append("    \"minecraft/sounds/example/sound").append(i).append(".ogg\": {\"hash\": \"")
+					.append(sha1(i)).append("\", \"size\": ").append(1000 + i * 13).append('}');
+		}
+		sb.append("\n  }\n}\n");
+		return sb.toString();
+	}
+
+	private static String sha1(int seed) {
+		StringBuilder sb = new StringBuilder(40);
+		long x = seed * 0x9e3779b97f4a7c15L + 1;
+		while (sb.length() < 40) {
+			x ^= x << 13;
+			x ^= x >>> 7;
+			x ^= x << 17;
+			sb.append(Long.toHexString(x & 0xf));
+		}
+		return sb.toString();
+	}
+
+}
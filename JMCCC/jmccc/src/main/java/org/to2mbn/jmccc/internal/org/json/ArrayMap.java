@@ -0,0 +1,219 @@
+package org.to2mbn.jmccc.internal.org.json;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map behind the JSONObjects created by {@link JSONByteParser}.
+ * <p>
+ * The keys are kept sorted in an array, so the map iterates in the same order
+ * as the TreeMap used by the other JSONObjects, and a lookup is a binary
+ * search. Most of the objects in a json have only a few members, and an array
+ * is much smaller than a tree for them.
+ */
+final class ArrayMap extends AbstractMap<String, Object> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String[] keys;
+	private Object[] values;
+	private int size;
+	private transient int modCount;
+
+	/**
+	 * @param keys the keys, sorted and distinct
+	 * @param values the values
+	 * @param size the number of the entries
+	 */
+	ArrayMap(String[] keys, Object[] values, int size) {
+		this.keys = keys;
+		this.values = values;
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			Object old = values[index];
+			values[index] = value;
+			return old;
+		}
+
+		index = -(index + 1);
+		if (size == keys.length) {
+			int capacity = Math.max(4, size * 2);
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(values, index, values, index + 1, size - index);
+		keys[index] = key;
+		values[index] = value;
+		size++;
+		modCount++;
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		Object old = values[index];
+		removeAt(index);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private void removeAt(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		modCount++;
+	}
+
+	/**
+	 * Searches for the given key.
+	 *
+	 * @param key the key
+	 * @return the index of the key, or <code>(-(insertion point) - 1)</code>
+	 *         if it's not found
+	 */
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			// there's no insertion point for null, but we never insert it
+			return -1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+		private int next;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			final int index = last;
+			return new Map.Entry<String, Object>() {
+
+				@Override
+				public String getKey() {
+					return keys[index];
+				}
+
+				@Override
+				public Object getValue() {
+					return values[index];
+				}
+
+				@Override
+				public Object setValue(Object value) {
+					Object old = values[index];
+					values[index] = value;
+					return old;
+				}
+
+				@Override
+				public boolean equals(Object obj) {
+					if (!(obj instanceof Map.Entry)) {
+						return false;
+					}
+					Map.Entry<?, ?> another = (Map.Entry<?, ?>) obj;
+					return getKey().equals(another.getKey())
+							&& (getValue() == null ? another.getValue() == null : getValue().equals(another.getValue()));
+				}
+
+				@Override
+				public int hashCode() {
+					Object value = getValue();
+					return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+				}
+
+				@Override
+				public String toString() {
+					return getKey() + "=" + getValue();
+				}
+			};
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+	}
+
+}
@@ -0,0 +1,466 @@
+package org.to2mbn.jmccc.internal.org.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Parses a JSONObject from UTF-8 bytes without decoding them into chars
+ * first.
+ * <p>
+ * The parser accepts only strict JSON: double-quoted strings, lowercase
+ * literals, numbers in the json grammar, and no duplicated keys. Anything else
+ * is handed to {@link JSONTokener}, so the accepted texts, the parsed values
+ * and the error messages are the same as
+ * <code>new JSONObject(String)</code>. Like that constructor, the text after
+ * the closing brace is ignored.
+ * <p>
+ * The objects are backed by sorted arrays instead of TreeMaps, and the
+ * integers are converted straight from the bytes. The parsed tree doesn't
+ * refer to the bytes.
+ */
+public final class JSONByteParser {
+
+	// any integer of at most 18 digits fits into a long
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private static final Comparator<Object[]> BY_KEY = new Comparator<Object[]>() {
+
+		@Override
+		public int compare(Object[] o1, Object[] o2) {
+			return ((String) o1[0]).compareTo((String) o2[0]);
+		}
+	};
+
+	/**
+	 * Thrown when the text is not in the strict form, then it's parsed by
+	 * {@link JSONTokener} instead.
+	 */
+	private static final class NotStrictJSON extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		NotStrictJSON() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	private static final NotStrictJSON NOT_STRICT = new NotStrictJSON();
+
+	/**
+	 * Parses a JSONObject from the remaining bytes of the buffer. The position
+	 * of the buffer is not changed.
+	 *
+	 * @param buffer the UTF-8 bytes, which must not be changed afterwards
+	 * @return the JSONObject
+	 * @throws JSONException if there is a syntax error or a duplicated key
+	 */
+	public static JSONObject parseObject(ByteBuffer buffer) throws JSONException {
+		byte[] buf;
+		int offset;
+		int limit;
+		if (buffer.hasArray()) {
+			buf = buffer.array();
+			offset = buffer.arrayOffset() + buffer.position();
+			limit = buffer.arrayOffset() + buffer.limit();
+		} else {
+			buf = new byte[buffer.remaining()];
+			buffer.duplicate().get(buf);
+			offset = 0;
+			limit = buf.length;
+		}
+
+		try {
+			return new JSONByteParser(buf, offset, limit).readTopLevel();
+		} catch (NotStrictJSON e) {
+			return new JSONObject(new String(buf, offset, limit - offset, StandardCharsets.UTF_8));
+		}
+	}
+
+	private final byte[] buf;
+	private final int limit;
+	private int pos;
+
+	private JSONByteParser(byte[] buf, int offset, int limit) {
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = limit;
+	}
+
+	private JSONObject readTopLevel() {
+		if (nextClean() != '{') {
+			throw NOT_STRICT;
+		}
+		return readObject();
+	}
+
+	/**
+	 * Skips the whitespaces in the same way as {@link JSONTokener#nextClean()}.
+	 *
+	 * @return the next byte which is not a whitespace
+	 */
+	private int nextClean() {
+		while (pos < limit) {
+			byte b = buf[pos++];
+			if (b < 0 || b > ' ') {
+				return b & 0xff;
+			}
+			if (b == 0) {
+				break;
+			}
+		}
+		throw NOT_STRICT;
+	}
+
+	// called after '{'
+	private JSONObject readObject() {
+		String[] keys = new String[8];
+		Object[] values = new Object[8];
+		int size = 0;
+		boolean sorted = true;
+
+		int c = nextClean();
+		if (c != '}') {
+			for (;;) {
+				if (c != '"') {
+					throw NOT_STRICT;
+				}
+				String key = readString();
+				if (nextClean() != ':') {
+					throw NOT_STRICT;
+				}
+				Object value = readValue(nextClean());
+
+				if (size == keys.length) {
+					keys = Arrays.copyOf(keys, size * 2);
+					values = Arrays.copyOf(values, size * 2);
+				}
+				if (sorted && size > 0 && keys[size - 1].compareTo(key) >= 0) {
+					sorted = false;
+				}
+				keys[size] = key;
+				values[size] = value;
+				size++;
+
+				c = nextClean();
+				if (c == '}') {
+					break;
+				}
+				if (c != ',') {
+					throw NOT_STRICT;
+				}
+				c = nextClean();
+			}
+		}
+
+		if (!sorted) {
+			sort(keys, values, size);
+		}
+		if (keys.length != size) {
+			keys = Arrays.copyOf(keys, size);
+			values = Arrays.copyOf(values, size);
+		}
+		return new JSONObject(new ArrayMap(keys, values, size));
+	}
+
+	// called after '['
+	private JSONArray readArray() {
+		JSONArray array = new JSONArray();
+		int c = nextClean();
+		if (c != ']') {
+			for (;;) {
+				array.put(readValue(c));
+
+				c = nextClean();
+				if (c == ']') {
+					break;
+				}
+				if (c != ',') {
+					throw NOT_STRICT;
+				}
+				c = nextClean();
+			}
+		}
+		return array;
+	}
+
+	private Object readValue(int c) {
+		switch (c) {
+			case '"':
+				return readString();
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case 't':
+				readLiteral("rue");
+				return Boolean.TRUE;
+			case 'f':
+				readLiteral("alse");
+				return Boolean.FALSE;
+			case 'n':
+				readLiteral("ull");
+				return JSONObject.NULL;
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					return readNumber(pos - 1);
+				}
+				throw NOT_STRICT;
+		}
+	}
+
+	private void readLiteral(String rest) {
+		for (int i = 0; i < rest.length(); i++) {
+			if (pos >= limit || buf[pos++] != rest.charAt(i)) {
+				throw NOT_STRICT;
+			}
+		}
+		checkTokenEnd();
+	}
+
+	private Object readNumber(int start) {
+		boolean negative = buf[pos - 1] == '-';
+		if (negative && pos >= limit) {
+			throw NOT_STRICT;
+		}
+
+		int digitsStart = pos = negative ? start + 1 : start;
+		if (buf[pos] == '0') {
+			pos++;
+		} else if (buf[pos] >= '1' && buf[pos] <= '9') {
+			skipDigits();
+		} else {
+			throw NOT_STRICT;
+		}
+		int digits = pos - digitsStart;
+
+		boolean integer = true;
+		if (pos < limit && buf[pos] == '.') {
+			pos++;
+			integer = false;
+			if (skipDigits() == 0) {
+				throw NOT_STRICT;
+			}
+		}
+		if (pos < limit && (buf[pos] == 'e' || buf[pos] == 'E')) {
+			pos++;
+			integer = false;
+			if (pos < limit && (buf[pos] == '+' || buf[pos] == '-')) {
+				pos++;
+			}
+			if (skipDigits() == 0) {
+				throw NOT_STRICT;
+			}
+		}
+		checkTokenEnd();
+
+		if (integer && digits <= MAX_LONG_DIGITS && !(negative && buf[digitsStart] == '0')) {
+			return toInteger(digitsStart, digits, negative);
+		}
+		// doubles, -0 and the integers which may not fit into a long
+		return JSONObject.stringToValue(new String(buf, start, pos - start, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Converts an integer in the same way as
+	 * {@link JSONObject#stringToValue(String)}.
+	 *
+	 * @return an Integer, or a Long if it doesn't fit into an int
+	 */
+	private Number toInteger(int digitsStart, int digits, boolean negative) {
+		long value = 0;
+		for (int i = digitsStart; i < digitsStart + digits; i++) {
+			value = value * 10 + (buf[i] - '0');
+		}
+		if (negative) {
+			value = -value;
+		}
+		if (value == (int) value) {
+			return Integer.valueOf((int) value);
+		}
+		return Long.valueOf(value);
+	}
+
+	private int skipDigits() {
+		int start = pos;
+		while (pos < limit && buf[pos] >= '0' && buf[pos] <= '9') {
+			pos++;
+		}
+		return pos - start;
+	}
+
+	/**
+	 * Checks that the literal or number ends here, otherwise JSONTokener would
+	 * read a longer unquoted token.
+	 */
+	private void checkTokenEnd() {
+		if (pos >= limit) {
+			return;
+		}
+		byte b = buf[pos];
+		if (b >= 0 && (b < ' ' || ",:]}/\\\"[{;=#".indexOf(b) >= 0)) {
+			return;
+		}
+		if (b == ' ') {
+			return;
+		}
+		throw NOT_STRICT;
+	}
+
+	// called after '"'
+	private String readString() {
+		int start = pos;
+		boolean ascii = true;
+		for (;;) {
+			if (pos >= limit) {
+				throw NOT_STRICT;
+			}
+			byte b = buf[pos];
+			if (b == '"') {
+				String str = decode(start, pos, ascii);
+				pos++;
+				return str;
+			}
+			if (b == '\\') {
+				return readEscapedString(start, ascii);
+			}
+			if (b == '\n' || b == '\r' || b == 0) {
+				throw NOT_STRICT;
+			}
+			if (b < 0) {
+				ascii = false;
+			}
+			pos++;
+		}
+	}
+
+	// called at the first '\\' in the string
+	private String readEscapedString(int runStart, boolean runAscii) {
+		StringBuilder sb = new StringBuilder();
+		for (;;) {
+			if (pos >= limit) {
+				throw NOT_STRICT;
+			}
+			byte b = buf[pos];
+			if (b == '"') {
+				sb.append(decode(runStart, pos, runAscii));
+				pos++;
+				return sb.toString();
+			}
+			if (b == '\\') {
+				sb.append(decode(runStart, pos, runAscii));
+				pos++;
+				if (pos >= limit) {
+					throw NOT_STRICT;
+				}
+				switch (buf[pos++]) {
+					case 'b':
+						sb.append('\b');
+						break;
+					case 't':
+						sb.append('\t');
+						break;
+					case 'n':
+						sb.append('\n');
+						break;
+					case 'f':
+						sb.append('\f');
+						break;
+					case 'r':
+						sb.append('\r');
+						break;
+					case 'u':
+						sb.append(readUnicodeEscape());
+						break;
+					case '"':
+						sb.append('"');
+						break;
+					case '\'':
+						sb.append('\'');
+						break;
+					case '\\':
+						sb.append('\\');
+						break;
+					case '/':
+						sb.append('/');
+						break;
+					default:
+						throw NOT_STRICT;
+				}
+				runStart = pos;
+				runAscii = true;
+				continue;
+			}
+			if (b == '\n' || b == '\r' || b == 0) {
+				throw NOT_STRICT;
+			}
+			if (b < 0) {
+				runAscii = false;
+			}
+			pos++;
+		}
+	}
+
+	private char readUnicodeEscape() {
+		if (limit - pos < 4) {
+			throw NOT_STRICT;
+		}
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			int digit = Character.digit(buf[pos++], 16);
+			if (digit == -1) {
+				throw NOT_STRICT;
+			}
+			value = (value << 4) | digit;
+		}
+		return (char) value;
+	}
+
+	private String decode(int start, int end, boolean ascii) {
+		return new String(buf, start, end - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Sorts the members by their keys.
+	 *
+	 * @throws NotStrictJSON if a key is duplicated
+	 */
+	private static void sort(String[] keys, Object[] values, int size) {
+		if (size <= INSERTION_SORT_THRESHOLD) {
+			for (int i = 1; i < size; i++) {
+				String key = keys[i];
+				Object value = values[i];
+				int j = i - 1;
+				while (j >= 0 && keys[j].compareTo(key) > 0) {
+					keys[j + 1] = keys[j];
+					values[j + 1] = values[j];
+					j--;
+				}
+				keys[j + 1] = key;
+				values[j + 1] = value;
+			}
+		} else {
+			Object[][] entries = new Object[size][];
+			for (int i = 0; i < size; i++) {
+				entries[i] = new Object[] { keys[i], values[i] };
+			}
+			Arrays.sort(entries, BY_KEY);
+			for (int i = 0; i < size; i++) {
+				keys[i] = (String) entries[i][0];
+				values[i] = entries[i][1];
+			}
+		}
+
+		for (int i = 1; i < size; i++) {
+			if (keys[i - 1].equals(keys[i])) {
+				// let JSONTokener report it
+				throw NOT_STRICT;
+			}
+		}
+	}
+
+}
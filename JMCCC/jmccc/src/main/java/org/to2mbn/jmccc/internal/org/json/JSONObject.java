@@ -312,6 +312,16 @@ public class JSONObject implements Serializable {
 		this(new JSONTokener(source));
 	}
 
+	/**
+	 * Construct a JSONObject backed by the given map. Used by
+	 * {@link JSONByteParser}.
+	 *
+	 * @param map The map, which is not copied.
+	 */
+	JSONObject(ArrayMap map) {
+		this.map = map;
+	}
+
 	/**
 	 * Construct a JSONObject from a ResourceBundle.
 	 *
@@ -0,0 +1,30 @@
+package org.to2mbn.jmccc.launch;
+
+import java.util.List;
+
+/**
+ * A {@link ProcessListener} which receives logs in batches.
+ * <p>
+ * If the listener passed to the launcher implements this interface,
+ * {@link #onLogs(List)} and {@link #onErrorLogs(List)} are called instead of
+ * {@link #onLog(String)} and {@link #onErrorLog(String)}. A batch contains the
+ * lines which are available at the same time, so a chatty game process
+ * results in fewer and larger calls.
+ */
+public interface BatchProcessListener extends ProcessListener {
+
+	/**
+	 * Called when receiving logs from stdout.
+	 * 
+	 * @param logs the logs, in order
+	 */
+	void onLogs(List<String> logs);
+
+	/**
+	 * Called when receiving logs from stderr.
+	 * 
+	 * @param logs the logs, in order
+	 */
+	void onErrorLogs(List<String> logs);
+
+}
@@ -0,0 +1,137 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.util.HexUtils;
+
+/**
+ * A jar containing only a manifest, whose <code>Class-Path</code> lists the
+ * libraries of a launch.
+ * <p>
+ * Putting the jar on the classpath instead of the libraries keeps the
+ * commandline short. The jar is named after the hash of the classpath, so a
+ * jar is never rewritten while another game process may be loading it.
+ * <p>
+ * When a jar is written, the jars of the other classpaths with the same prefix
+ * are deleted, unless they have been written or used within the last minute:
+ * a game launched with one of them may not have opened it yet.
+ */
+final class ClasspathJar {
+
+	private static final String SUFFIX = ".jmccc-classpath.jar";
+
+	// 64 bits in hex
+	private static final int HASH_LENGTH = 16;
+
+	// the game opens its classpath within seconds
+	private static final long SETTLE_TIME = 60_000;
+
+	/**
+	 * Gets the classpath jar for the given classpath, and writes it unless it
+	 * already exists.
+	 * 
+	 * @param dir the directory to put the jar in
+	 * @param prefix the prefix of the file name
+	 * @param classpath the classpath
+	 * @return the classpath jar
+	 * @throws IOException if an I/O error occurs
+	 */
+	static File write(File dir, String prefix, Collection<File> classpath) throws IOException {
+		String value = toClassPathAttribute(classpath);
+		File jar = new File(dir, prefix + "-" + hash(value) + SUFFIX);
+		if (value.equals(readClassPathAttribute(jar))) {
+			// keeps the jar from being deleted as a stale one
+			jar.setLastModified(System.currentTimeMillis());
+			return jar;
+		}
+
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		attributes.put(Attributes.Name.CLASS_PATH, value);
+		attributes.putValue("Created-By", "jmccc");
+
+		File tmp = FileUtils.createTempFile(jar);
+		try (OutputStream out = new FileOutputStream(tmp); JarOutputStream jarOut = new JarOutputStream(out, manifest)) {
+			// only the manifest
+			jarOut.finish();
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, jar);
+		deleteStale(dir, prefix, jar);
+		return jar;
+	}
+
+	private static void deleteStale(File dir, String prefix, File current) {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		long settled = System.currentTimeMillis() - SETTLE_TIME;
+		for (File file : files) {
+			String name = file.getName();
+			if (name.length() == prefix.length() + 1 + HASH_LENGTH + SUFFIX.length()
+					&& name.startsWith(prefix + "-")
+					&& name.endsWith(SUFFIX)
+					&& !file.getAbsoluteFile().equals(current.getAbsoluteFile())
+					&& file.lastModified() <= settled) {
+				// fails harmlessly if the jar is still open on windows
+				file.delete();
+			}
+		}
+	}
+
+	private static String hash(String classpath) throws IOException {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(classpath.getBytes(StandardCharsets.UTF_8));
+			// 64 bits are enough to tell the classpaths of a version apart
+			return HexUtils.bytesToHex(Arrays.copyOf(digest, 8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static String toClassPathAttribute(Collection<File> classpath) {
+		// the entries are urls, so the spaces in the paths are escaped
+		StringBuilder sb = new StringBuilder();
+		for (File file : classpath) {
+			if (file != null) {
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				sb.append(file.getAbsoluteFile().toURI().toASCIIString());
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String readClassPathAttribute(File jar) {
+		if (!jar.isFile()) {
+			return null;
+		}
+		try (JarFile jarFile = new JarFile(jar, false)) {
+			Manifest manifest = jarFile.getManifest();
+			return manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+		} catch (IOException e) {
+			// broken, will be written again
+			return null;
+		}
+	}
+
+	private ClasspathJar() {}
+
+}
@@ -2,13 +2,14 @@ package org.to2mbn.jmccc.launch;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import org.to2mbn.jmccc.option.LaunchOption;
 import org.to2mbn.jmccc.util.Platform;
+import org.to2mbn.jmccc.version.ArgumentTemplate;
 import org.to2mbn.jmccc.version.Version;
 
 /**
@@ -20,9 +21,11 @@ class LaunchArgument {
 	private File nativesPath;
 	private Set<File> libraries;
 	private Map<String, String> defaultVariables;
+	private List<String> sharingArguments;
 
-	public LaunchArgument(LaunchOption launchOption, Map<String, String> defaultVariables, Set<File> libraries, File nativesPath) {
+	public LaunchArgument(LaunchOption launchOption, Map<String, String> defaultVariables, Set<File> libraries, File nativesPath, List<String> sharingArguments) {
 		this.launchOption = launchOption;
+		this.sharingArguments = sharingArguments;
 		this.libraries = libraries;
 		this.nativesPath = nativesPath;
 		this.defaultVariables = defaultVariables;
@@ -52,37 +55,39 @@ class LaunchArgument {
 			}
 		}
 
-		// natives path
-		args.add("-Djava.library.path=" + nativesPath);
-
-		// launcher brand
-		args.add("-Dminecraft.launcher.brand=" + launchOption.getLauncherBrand());
-		args.add("-Dminecraft.launcher.version=" + launchOption.getLauncherVersion());
-
-//		if(windows) { //TODO fix version switch
-			args.add("-XX:HeapDumpPath=MojangTricksIntelDriversForPerformance_javaw.exe_minecraft.exe.heapdump");
-//		} else if(osx) {
-//			args.add("-XstartOnFirstThread");
-//		}
-
-		// class path
-		// ==========START==========
-		args.add("-cp");
-		StringBuilder cpBuilder = new StringBuilder();
-
-		// libraries
-		for (File lib : libraries) {
-			if (lib != null) {
-				cpBuilder.append(lib.getAbsolutePath()).append(Platform.getPathSeparator());
-			}
-		}
-		if (cpBuilder.length() > 0) {
-			cpBuilder.deleteCharAt(cpBuilder.length() - 1); // to avoid the last unnecessary ':'
+		// class data sharing
+		args.addAll(sharingArguments);
+
+		ArgumentTemplate jvmArguments = version.getJvmArguments();
+		if (jvmArguments == null) {
+			// natives path
+			args.add("-Djava.library.path=" + nativesPath);
+
+			// launcher brand
+			args.add("-Dminecraft.launcher.brand=" + launchOption.getLauncherBrand());
+			args.add("-Dminecraft.launcher.version=" + launchOption.getLauncherVersion());
+
+//			if(windows) { //TODO fix version switch
+				args.add("-XX:HeapDumpPath=MojangTricksIntelDriversForPerformance_javaw.exe_minecraft.exe.heapdump");
+//			} else if(osx) {
+//				args.add("-XstartOnFirstThread");
+//			}
+
+			// class path
+			args.add("-cp");
+			args.add(getClasspath());
+		} else {
+			// 1.13+ versions specify their own jvm arguments
+			Map<String, String> variables = getVariables();
+			variables.put("natives_directory", nativesPath.getAbsolutePath());
+			variables.put("launcher_name", launchOption.getLauncherBrand());
+			variables.put("launcher_version", launchOption.getLauncherVersion());
+			variables.put("classpath", getClasspath());
+			variables.put("classpath_separator", Platform.getPathSeparator());
+			variables.put("library_directory", launchOption.getMinecraftDirectory().getLibraries().getAbsolutePath());
+			args.addAll(jvmArguments.resolve(variables, Collections.<String> emptySet()));
 		}
 
-		args.add(cpBuilder.toString());
-		// ==========END==========
-
 		// main class
 		args.add(version.getMainClass());
 
@@ -127,23 +132,28 @@ class LaunchArgument {
 	}
 
 	private List<String> getFormattedMinecraftArguments() {
+		// window size is passed separately, so no feature is enabled here
+		return launchOption.getVersion().getGameArguments().resolve(getVariables(), Collections.<String> emptySet());
+	}
+
+	private Map<String, String> getVariables() {
 		Map<String, String> variables = new HashMap<>();
 		variables.putAll(defaultVariables);
 		variables.putAll(launchOption.commandlineVariables());
+		return variables;
+	}
 
-		String templete = launchOption.getVersion().getLaunchArgs();
-		List<String> args = new ArrayList<>();
-		for (String arg : templete.split(" ")) {
-			for (Entry<String, String> var : variables.entrySet()) {
-				String k = var.getKey();
-				String v = var.getValue();
-				if (k != null && v != null) {
-					arg = arg.replace("${" + k + "}", v);
-				}
+	private String getClasspath() {
+		StringBuilder cpBuilder = new StringBuilder();
+		for (File lib : libraries) {
+			if (lib != null) {
+				cpBuilder.append(lib.getAbsolutePath()).append(Platform.getPathSeparator());
 			}
-			args.add(arg);
 		}
-		return args;
+		if (cpBuilder.length() > 0) {
+			cpBuilder.deleteCharAt(cpBuilder.length() - 1); // to avoid the last unnecessary ':'
+		}
+		return cpBuilder.toString();
 	}
 
 	// Getters
@@ -152,5 +162,6 @@ class LaunchArgument {
 	public File getNativesPath() { return nativesPath; }
 	public Set<File> getLibraries() { return libraries; }
 	public Map<String, String> getTokens() { return defaultVariables; }
+	public List<String> getSharingArguments() { return sharingArguments; }
 	// @formatter:on
 }
@@ -0,0 +1,305 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.to2mbn.jmccc.internal.org.json.JSONException;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.util.IOUtils;
+import org.to2mbn.jmccc.util.Platform;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.Native;
+import org.to2mbn.jmccc.version.Version;
+
+/**
+ * The parts of a launch which depend only on the version, the platform and
+ * the minecraft directory.
+ * <p>
+ * A plan is stored next to the version json, and it stays valid as long as
+ * the json files of the version hierarchy keep their lengths and modification
+ * times. The stored plan is trusted then, without walking the libraries of the
+ * version again. The libraries are checked only when the plan is created,
+ * unless the launcher verifies them on every launch.
+ * <p>
+ * The plan file is in the user-writable game directory, so it's stored in a
+ * plain format rather than with java serialization:
+ *
+ * <pre>
+ * int     magic
+ * int     format version
+ * string  version, platform, minecraft directory
+ * int     number of json files, then (string path, long length, long lastModified) for each
+ * int     number of libraries, then string path for each
+ * int     number of native jars, then (string path, int number of excludes or -1, string exclude...) for each
+ * string  natives directory
+ * </pre>
+ */
+class LaunchPlan {
+
+	private static final String FILE_SUFFIX = ".jmccc-plan";
+	private static final int MAGIC = 0x4a4d4c50; // JMLP
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Creates a plan for the given version.
+	 * <p>
+	 * The libraries should have been checked by {@link Preflight}.
+	 * 
+	 * @param mcdir the minecraft directory
+	 * @param version the version
+	 * @return the plan
+	 */
+	static LaunchPlan create(MinecraftDirectory mcdir, Version version) {
+		List<File> libraries = new ArrayList<>();
+		Map<File, Set<String>> natives = new LinkedHashMap<>();
+		for (Library library : version.getLibraries()) {
+			File libraryFile = mcdir.getLibrary(library);
+			if (library instanceof Native) {
+				Set<String> excludes = ((Native) library).getExtractExcludes();
+				natives.put(libraryFile, excludes == null ? null : new LinkedHashSet<>(excludes));
+			} else {
+				libraries.add(libraryFile);
+			}
+		}
+		libraries.add(mcdir.getVersionJar(version));
+
+		return new LaunchPlan(version.getVersion(), platformKey(), mcdir.getRoot().getAbsolutePath(), jsonStamps(mcdir, version),
+				libraries, natives, mcdir.getNatives(version));
+	}
+
+	/**
+	 * Loads the stored plan of the given version.
+	 * 
+	 * @param mcdir the minecraft directory
+	 * @param version the version
+	 * @return the plan, or null if no valid plan is stored
+	 */
+	static LaunchPlan load(MinecraftDirectory mcdir, Version version) {
+		File file = getPlanFile(mcdir, version.getVersion());
+		if (!file.isFile()) {
+			return null;
+		}
+
+		LaunchPlan plan;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			plan = read(in);
+		} catch (IOException e) {
+			// the plan is only a cache
+			return null;
+		}
+		return plan != null && plan.isValid(mcdir, version) ? plan : null;
+	}
+
+	private static LaunchPlan read(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+			return null;
+		}
+		String version = in.readUTF();
+		String platform = in.readUTF();
+		String mcdirRoot = in.readUTF();
+
+		Map<String, long[]> jsonStamps = new LinkedHashMap<>();
+		for (int i = readCount(in); i > 0; i--) {
+			jsonStamps.put(in.readUTF(), new long[] { in.readLong(), in.readLong() });
+		}
+
+		List<File> libraries = new ArrayList<>();
+		for (int i = readCount(in); i > 0; i--) {
+			libraries.add(new File(in.readUTF()));
+		}
+
+		Map<File, Set<String>> natives = new LinkedHashMap<>();
+		for (int i = readCount(in); i > 0; i--) {
+			File jar = new File(in.readUTF());
+			Set<String> excludes = null;
+			int excludesCount = in.readInt();
+			if (excludesCount != -1) {
+				if (excludesCount < 0) {
+					throw new IOException("Illegal count: " + excludesCount);
+				}
+				excludes = new LinkedHashSet<>();
+				for (int j = 0; j < excludesCount; j++) {
+					excludes.add(in.readUTF());
+				}
+			}
+			natives.put(jar, excludes);
+		}
+
+		File nativesDir = new File(in.readUTF());
+		return new LaunchPlan(version, platform, mcdirRoot, jsonStamps, libraries, natives, nativesDir);
+	}
+
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Illegal count: " + count);
+		}
+		return count;
+	}
+
+	private static File getPlanFile(MinecraftDirectory mcdir, String version) {
+		return new File(mcdir.getVersion(version), version + FILE_SUFFIX);
+	}
+
+	private static String platformKey() {
+		return Platform.CURRENT + "/" + System.getProperty("os.arch") + "/" + Platform.isX64();
+	}
+
+	/**
+	 * Returns the length and the modification time of every json in the
+	 * hierarchy, or null if the version doesn't come from json files.
+	 */
+	private static Map<String, long[]> jsonStamps(MinecraftDirectory mcdir, Version version) {
+		Map<String, long[]> stamps = new LinkedHashMap<>();
+		String current = version.getVersion();
+		try {
+			do {
+				File json = mcdir.getVersionJson(current);
+				if (!json.isFile() || stamps.containsKey(json.getAbsolutePath())) {
+					return null;
+				}
+				stamps.put(json.getAbsolutePath(), new long[] { json.length(), json.lastModified() });
+				current = IOUtils.toJson(json).optString("inheritsFrom", null);
+			} while (current != null);
+		} catch (IOException | JSONException e) {
+			return null;
+		}
+		return stamps;
+	}
+
+	private final String version;
+	private final String platform;
+	private final String mcdirRoot;
+	private final Map<String, long[]> jsonStamps;
+	private final List<File> libraries;
+	private final Map<File, Set<String>> natives;
+	private final File nativesDir;
+
+	private LaunchPlan(String version, String platform, String mcdirRoot, Map<String, long[]> jsonStamps, List<File> libraries, Map<File, Set<String>> natives, File nativesDir) {
+		this.version = version;
+		this.platform = platform;
+		this.mcdirRoot = mcdirRoot;
+		this.jsonStamps = jsonStamps;
+		this.libraries = libraries;
+		this.natives = natives;
+		this.nativesDir = nativesDir;
+	}
+
+	/**
+	 * Returns true if the plan can be stored, that is, the version has been
+	 * resolved from the json files in the minecraft directory.
+	 * 
+	 * @return true if the plan can be stored
+	 */
+	boolean isStorable() {
+		return jsonStamps != null;
+	}
+
+	/**
+	 * Stores the plan next to the version json.
+	 * 
+	 * @param mcdir the minecraft directory
+	 * @throws IOException if an I/O error occurs
+	 */
+	void save(MinecraftDirectory mcdir) throws IOException {
+		File file = getPlanFile(mcdir, version);
+		File tmp = FileUtils.createTempFile(file);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			write(out);
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, file);
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeUTF(version);
+		out.writeUTF(platform);
+		out.writeUTF(mcdirRoot);
+
+		out.writeInt(jsonStamps.size());
+		for (Map.Entry<String, long[]> stamp : jsonStamps.entrySet()) {
+			out.writeUTF(stamp.getKey());
+			out.writeLong(stamp.getValue()[0]);
+			out.writeLong(stamp.getValue()[1]);
+		}
+
+		out.writeInt(libraries.size());
+		for (File library : libraries) {
+			out.writeUTF(library.getPath());
+		}
+
+		out.writeInt(natives.size());
+		for (Map.Entry<File, Set<String>> entry : natives.entrySet()) {
+			out.writeUTF(entry.getKey().getPath());
+			Set<String> excludes = entry.getValue();
+			if (excludes == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(excludes.size());
+				for (String exclude : excludes) {
+					out.writeUTF(exclude);
+				}
+			}
+		}
+
+		out.writeUTF(nativesDir.getPath());
+	}
+
+	private boolean isValid(MinecraftDirectory mcdir, Version version) {
+		if (jsonStamps == null
+				|| !platform.equals(platformKey())
+				|| !mcdirRoot.equals(mcdir.getRoot().getAbsolutePath())
+				|| !this.version.equals(version.getVersion())) {
+			return false;
+		}
+		// the version is resolved from these json files only, so the libraries
+		// can't have changed either, and they aren't compared on every launch
+		for (Map.Entry<String, long[]> stamp : jsonStamps.entrySet()) {
+			File json = new File(stamp.getKey());
+			if (json.length() != stamp.getValue()[0] || json.lastModified() != stamp.getValue()[1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the classpath, including the version jar.
+	 * 
+	 * @return the classpath
+	 */
+	List<File> getLibraries() {
+		return Collections.unmodifiableList(libraries);
+	}
+
+	/**
+	 * Gets the native jars and their excludes.
+	 * 
+	 * @return the native jars and their excludes
+	 */
+	Map<File, Set<String>> getNatives() {
+		return Collections.unmodifiableMap(natives);
+	}
+
+	File getNativesDir() {
+		return nativesDir;
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.to2mbn.jmccc.launch;
 
+import java.util.Objects;
 import org.to2mbn.jmccc.util.Builder;
 
 /**
@@ -28,19 +29,28 @@ public class LauncherBuilder implements Builder<Launcher> {
 	}
 
 	private boolean nativeFastCheck = false;
+	private boolean cacheLaunchPlan = false;
+	private boolean verifyLibraries = false;
+	private boolean useClasspathJar = false;
 	private boolean printDebugCommandline = false;
 	private boolean useDaemonThreads = false;
+	private OutputOverflowPolicy outputOverflowPolicy = OutputOverflowPolicy.BLOCK;
+	private ProcessSupervisor supervisor;
 
 	protected LauncherBuilder() {}
 
 	/**
 	 * Sets whether to do a fast check on natives.
 	 * <p>
+	 * Jmccc keeps a manifest of the extracted natives, so the natives which
+	 * haven't changed since the last launch are not checked again. This option
+	 * only affects the natives which are not in the manifest.
+	 * <p>
 	 * By default, this feature is off. In this case, when decompressing
-	 * natives, the jmccc will fully compare the existing natives and the
-	 * natives in jars. If, and only if, a existing native is modified, jmccc
-	 * will replace it. Because replacing a native in use may cause the running
-	 * JVM to be crashed.<br>
+	 * natives, the jmccc will compare the checksums of the existing natives
+	 * and the natives in jars. If, and only if, a existing native is modified,
+	 * jmccc will replace it. Because replacing a native in use may cause the
+	 * running JVM to be crashed.<br>
 	 * If the feature is on, the jmccc won't compare the full content of
 	 * natives. Jmccc only compares the sizes. This can improve the launching
 	 * speed. But we cannot ensure the contents of the natives are correct.
@@ -53,6 +63,69 @@ public class LauncherBuilder implements Builder<Launcher> {
 		return this;
 	}
 
+	/**
+	 * Sets whether to cache the launch plan of versions.
+	 * <p>
+	 * By default, this feature is off. If the feature is on, jmccc stores the
+	 * classpath and the natives of a version in a file next to the version
+	 * json after the first launch, and reuses them until any json in the
+	 * version hierarchy is modified. The libraries are not checked again
+	 * while the cached plan is used, so this is suitable for installations
+	 * which launch the same versions repeatedly.
+	 * 
+	 * @param cacheLaunchPlan true to cache the launch plan
+	 * @return the builder itself
+	 */
+	public LauncherBuilder cacheLaunchPlan(boolean cacheLaunchPlan) {
+		this.cacheLaunchPlan = cacheLaunchPlan;
+		return this;
+	}
+
+	/**
+	 * Sets whether to verify the checksums of the libraries before launching.
+	 * <p>
+	 * By default, this feature is off, and jmccc only checks whether the
+	 * libraries exist. If the feature is on, jmccc also compares the
+	 * libraries with the checksums in the version json on every launch, even
+	 * if the launch plan is cached. A {@link MissingDependenciesException}
+	 * whose {@link MissingDependenciesException#getReport() report} lists the
+	 * corrupted libraries is thrown if any of them doesn't match.
+	 * 
+	 * @param verifyLibraries true to verify the checksums of the libraries
+	 * @return the builder itself
+	 * @see Preflight
+	 */
+	public LauncherBuilder verifyLibraries(boolean verifyLibraries) {
+		this.verifyLibraries = verifyLibraries;
+		return this;
+	}
+
+	/**
+	 * Sets whether to put the libraries on the classpath through a jar.
+	 * <p>
+	 * By default, this feature is off, and every library is listed in the
+	 * <code>-cp</code> argument. If the feature is on, jmccc writes a jar
+	 * next to the version json, which contains only a manifest listing the
+	 * libraries in its <code>Class-Path</code>, and puts that jar on the
+	 * classpath instead. This keeps the commandline short, which matters on
+	 * Windows where its length is limited. The jar is named after the hash of
+	 * the libraries, so a new jar is written when they change, and a jar is
+	 * never rewritten while another game process may be loading it.
+	 * <p>
+	 * Note that the <code>java.class.path</code> system property contains
+	 * only the jar in this case. Some loaders, such as old versions of
+	 * LaunchWrapper, read the libraries from that property and may not work
+	 * with this feature.
+	 * 
+	 * @param useClasspathJar true to put the libraries on the classpath
+	 *            through a jar
+	 * @return the builder itself
+	 */
+	public LauncherBuilder useClasspathJar(boolean useClasspathJar) {
+		this.useClasspathJar = useClasspathJar;
+		return this;
+	}
+
 	/**
 	 * Sets whether to print the launch commandline for debugging.
 	 * <p>
@@ -89,6 +162,40 @@ public class LauncherBuilder implements Builder<Launcher> {
 		return this;
 	}
 
+	/**
+	 * Sets what to do when the {@link ProcessListener} cannot keep up with the
+	 * output of the game process.
+	 * <p>
+	 * By default, the policy is {@link OutputOverflowPolicy#BLOCK}. Use
+	 * {@link OutputOverflowPolicy#DROP} if a slow listener must not stall the
+	 * game.
+	 * 
+	 * @param outputOverflowPolicy the policy
+	 * @return the builder itself
+	 * @throws NullPointerException if <code>outputOverflowPolicy==null</code>
+	 */
+	public LauncherBuilder outputOverflowPolicy(OutputOverflowPolicy outputOverflowPolicy) {
+		this.outputOverflowPolicy = Objects.requireNonNull(outputOverflowPolicy);
+		return this;
+	}
+
+	/**
+	 * Sets the supervisor of the launched processes.
+	 * <p>
+	 * By default, no supervisor is used, and jmccc starts dedicated threads
+	 * for each process. If a supervisor is set, the output and the termination
+	 * of the processes are handled by the supervisor, which can be shared
+	 * between launchers. In this case, {@link #useDaemonThreads(boolean)} and
+	 * {@link #outputOverflowPolicy(OutputOverflowPolicy)} have no effect.
+	 * 
+	 * @param supervisor the supervisor, null to use dedicated threads
+	 * @return the builder itself
+	 */
+	public LauncherBuilder supervisor(ProcessSupervisor supervisor) {
+		this.supervisor = supervisor;
+		return this;
+	}
+
 	/**
 	 * Creates a new <code>Launcher</code> instance according to the
 	 * configurations.
@@ -99,8 +206,13 @@ public class LauncherBuilder implements Builder<Launcher> {
 	public Launcher build() {
 		LauncherImpl launcher = new LauncherImpl();
 		launcher.setNativeFastCheck(nativeFastCheck);
+		launcher.setCacheLaunchPlan(cacheLaunchPlan);
+		launcher.setVerifyLibraries(verifyLibraries);
+		launcher.setUseClasspathJar(useClasspathJar);
 		launcher.setPrintDebugCommandline(printDebugCommandline);
 		launcher.setUseDaemonThreads(useDaemonThreads);
+		launcher.setOutputOverflowPolicy(outputOverflowPolicy);
+		launcher.setSupervisor(supervisor);
 		return launcher;
 	}
 
@@ -1,20 +1,16 @@
 package org.to2mbn.jmccc.launch;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.Callable;
 import org.to2mbn.jmccc.auth.AuthInfo;
 import org.to2mbn.jmccc.internal.org.json.JSONObject;
 import org.to2mbn.jmccc.option.LaunchOption;
@@ -22,16 +18,22 @@ import org.to2mbn.jmccc.option.MinecraftDirectory;
 import org.to2mbn.jmccc.util.FileUtils;
 import org.to2mbn.jmccc.util.UUIDUtils;
 import org.to2mbn.jmccc.version.Asset;
-import org.to2mbn.jmccc.version.Library;
-import org.to2mbn.jmccc.version.Native;
 import org.to2mbn.jmccc.version.Version;
 import org.to2mbn.jmccc.version.parsing.Versions;
 
 class LauncherImpl implements Launcher {
 
+	private static final int LEGACY_ASSETS_BATCH_SIZE = 64;
+	private static final int LOG_BUFFER_CAPACITY = 8192;
+
 	private boolean nativeFastCheck = false;
+	private boolean cacheLaunchPlan = false;
+	private boolean verifyLibraries = false;
+	private boolean useClasspathJar = false;
 	private boolean printDebugCommandline = true;
 	private boolean useDaemonThreads = false;
+	private OutputOverflowPolicy outputOverflowPolicy = OutputOverflowPolicy.BLOCK;
+	private ProcessSupervisor supervisor;
 
 	public LauncherImpl() {
 	}
@@ -50,6 +52,18 @@ class LauncherImpl implements Launcher {
 		this.nativeFastCheck = nativeFastCheck;
 	}
 
+	public void setCacheLaunchPlan(boolean cacheLaunchPlan) {
+		this.cacheLaunchPlan = cacheLaunchPlan;
+	}
+
+	public void setVerifyLibraries(boolean verifyLibraries) {
+		this.verifyLibraries = verifyLibraries;
+	}
+
+	public void setUseClasspathJar(boolean useClasspathJar) {
+		this.useClasspathJar = useClasspathJar;
+	}
+
 	public void setPrintDebugCommandline(boolean printDebugCommandline) {
 		this.printDebugCommandline = printDebugCommandline;
 	}
@@ -58,6 +72,14 @@ class LauncherImpl implements Launcher {
 		this.useDaemonThreads = useDaemonThreads;
 	}
 
+	public void setOutputOverflowPolicy(OutputOverflowPolicy outputOverflowPolicy) {
+		this.outputOverflowPolicy = outputOverflowPolicy;
+	}
+
+	public void setSupervisor(ProcessSupervisor supervisor) {
+		this.supervisor = supervisor;
+	}
+
 	private Process launch(LaunchArgument arg, ProcessListener listener) throws LaunchException {
 		List<String> commandline = arg.generateCommandline();
 		if (printDebugCommandline) {
@@ -74,7 +96,9 @@ class LauncherImpl implements Launcher {
 			throw new LaunchException("Couldn't start process", e);
 		}
 
-		if (listener == null) {
+		if (supervisor != null) {
+			supervisor.supervise(process, listener);
+		} else if (listener == null) {
 			startStreamPumps(process);
 		} else {
 			startStreamLoggers(process, listener, useDaemonThreads);
@@ -90,38 +114,85 @@ class LauncherImpl implements Launcher {
 			throw new IllegalArgumentException("No JavaEnvironment is specified");
 		}
 
-		MinecraftDirectory mcdir = option.getMinecraftDirectory();
-		Version version = option.getVersion();
+		final MinecraftDirectory mcdir = option.getMinecraftDirectory();
+		final Version version = option.getVersion();
 
-		// check libraries
-		Set<Library> missing = version.getMissingLibraries(mcdir);
-		if (!missing.isEmpty()) {
-			throw new MissingDependenciesException(missing);
+		LaunchPlan plan = cacheLaunchPlan ? LaunchPlan.load(mcdir, version) : null;
+		if (plan == null || verifyLibraries) {
+			PreflightReport report;
+			try {
+				report = Preflight.check(mcdir, version, verifyLibraries);
+			} catch (IOException e) {
+				throw new LaunchException("Couldn't check libraries", e);
+			}
+			if (!report.isPassed()) {
+				throw new MissingDependenciesException(report);
+			}
 		}
-
-		Set<File> javaLibraries = new LinkedHashSet<>();
-		File nativesDir = mcdir.getNatives(version);
-		for (Library library : version.getLibraries()) {
-			File libraryFile = mcdir.getLibrary(library);
-			if (library instanceof Native) {
+		if (plan == null) {
+			plan = LaunchPlan.create(mcdir, version);
+			if (cacheLaunchPlan && plan.isStorable()) {
 				try {
-					decompressZipWithExcludes(libraryFile, nativesDir, ((Native) library).getExtractExcludes());
+					plan.save(mcdir);
 				} catch (IOException e) {
-					throw new LaunchException("Couldn't uncompress " + libraryFile, e);
+					// the plan is only a cache, it will be created again next time
 				}
-			} else {
-				javaLibraries.add(libraryFile);
 			}
 		}
-		javaLibraries.add(mcdir.getVersionJar(version));
-		javaLibraries.addAll(option.extraClasspath());
 
+		// natives and legacy assets don't depend on each other
+		final LaunchPlan finalPlan = plan;
+		List<Callable<Void>> tasks = new ArrayList<>();
+		tasks.add(new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				// the message names the jar
+				new NativesExtractor(nativeFastCheck).extract(finalPlan.getNatives(), finalPlan.getNativesDir());
+				return null;
+			}
+		});
 		if (version.isLegacy()) {
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException {
+					try {
+						buildLegacyAssets(mcdir, version);
+					} catch (IOException e) {
+						throw new IOException("Couldn't build virtual assets", e);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			ParallelTasks.invokeAll(tasks);
+		} catch (IOException e) {
+			throw new LaunchException(e.getMessage(), e);
+		}
+
+		File nativesDir = plan.getNativesDir();
+		Set<File> javaLibraries = new LinkedHashSet<>(plan.getLibraries());
+		javaLibraries.addAll(option.extraClasspath());
+
+		List<String> sharingArguments = Collections.emptyList();
+		if (option.isClassDataSharing()) {
+			try {
+				sharingArguments = SharedArchive.getArguments(mcdir.getVersion(version.getVersion()), version, javaLibraries, option.getJavaEnvironment());
+			} catch (IOException e) {
+				throw new LaunchException("Couldn't prepare class data sharing archive", e);
+			}
+		}
+
+		if (useClasspathJar) {
+			File classpathJar;
 			try {
-				buildLegacyAssets(mcdir, version);
+				classpathJar = ClasspathJar.write(mcdir.getVersion(version.getVersion()), version.getVersion(), javaLibraries);
 			} catch (IOException e) {
-				throw new LaunchException("Couldn't build virtual assets", e);
+				throw new LaunchException("Couldn't write classpath jar", e);
 			}
+			javaLibraries = Collections.singleton(classpathJar);
 		}
 
 		AuthInfo auth = option.getAuthenticator().auth();
@@ -146,86 +217,31 @@ class LauncherImpl implements Launcher {
 			tokens.put("version_type", type);
 		}
 
-		return new LaunchArgument(option, tokens, javaLibraries, nativesDir);
+		return new LaunchArgument(option, tokens, javaLibraries, nativesDir, sharingArguments);
 	}
 
-	private void buildLegacyAssets(MinecraftDirectory mcdir, Version version) throws IOException {
+	private void buildLegacyAssets(final MinecraftDirectory mcdir, Version version) throws IOException {
 		Set<Asset> assets = Versions.resolveAssets(mcdir, version);
-		if (assets != null)
-			for (Asset asset : assets)
-				FileUtils.copyFile(mcdir.getAsset(asset), mcdir.getVirtualAsset(asset));
-	}
-
-	private void decompressZipWithExcludes(File zip, File outputDir, Set<String> excludes) throws IOException {
-		if (!outputDir.exists())
-			outputDir.mkdirs();
-
-		try (ZipInputStream in = new ZipInputStream(new FileInputStream(zip))) {
-			ZipEntry entry;
-			byte[] buf = null;
-
-			while ((entry = in.getNextEntry()) != null) {
-				boolean excluded = false; // true if the file is in excludes list
-				if (excludes != null) {
-					for (String exclude : excludes) {
-						if (entry.getName().startsWith(exclude)) {
-							excluded = true;
-							break;
-						}
-					}
-
-					if(entry.getName().contains("META-INF")){
-						excluded = true;
+		if (assets == null)
+			return;
+
+		// link the assets in batches, most of them are already up to date
+		List<Callable<Void>> tasks = new ArrayList<>();
+		List<Asset> all = new ArrayList<>(assets);
+		for (int i = 0; i < all.size(); i += LEGACY_ASSETS_BATCH_SIZE) {
+			final List<Asset> batch = all.subList(i, Math.min(all.size(), i + LEGACY_ASSETS_BATCH_SIZE));
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException {
+					for (Asset asset : batch) {
+						FileUtils.link(mcdir.resolveAsset(asset), mcdir.getVirtualAsset(asset));
 					}
+					return null;
 				}
-
-				if (!excluded) {
-					// 1 unused byte for sentinel
-					if (buf == null || buf.length < entry.getSize() - 1) {
-						buf = new byte[(int) entry.getSize() + 1];
-					}
-					int len = 0;
-					int read;
-					// read the zipped data fully
-					while ((read = in.read(buf, len, buf.length - len)) != -1) {
-						if (read == 0) {
-							// reach the sentinel
-							throw new IOException("actual length and entry length mismatch");
-						}
-						len += read;
-					}
-
-					File outFile = new File(outputDir, entry.getName());
-					boolean match; // true if two files are the same
-					if (outFile.isFile() && outFile.length() == entry.getSize()) {
-						// same length, check the content
-						match = true;
-						if (!nativeFastCheck) {
-							try (InputStream targetin = new BufferedInputStream(new FileInputStream(outFile))) {
-								for (int i = 0; i < len; i++) {
-									if (buf[i] != (byte) targetin.read()) {
-										match = false;
-										break;
-									}
-								}
-							}
-						}
-					} else {
-						// different length
-						match = false;
-					}
-
-					if (!match) {
-						try (OutputStream out = new FileOutputStream(outFile)) {
-							out.write(buf, 0, len);
-						}
-					}
-				}
-
-				in.closeEntry();
-			}
+			});
 		}
-
+		ParallelTasks.invokeAll(tasks);
 	}
 
 	private void printDebugCommandline(List<String> commandline) {
@@ -243,8 +259,16 @@ class LauncherImpl implements Launcher {
 	}
 
 	private void startStreamLoggers(Process process, ProcessListener listener, boolean daemon) {
-		startThread("stdout-logger", daemon, new StreamLogger(listener, false, process.getInputStream()));
-		startThread("stderr-logger", daemon, new StreamLogger(listener, true, process.getErrorStream()));
+		LogDispatcher stdoutDispatcher = null;
+		LogDispatcher stderrDispatcher = null;
+		if (outputOverflowPolicy == OutputOverflowPolicy.DROP) {
+			stdoutDispatcher = new LogDispatcher(listener, false, LOG_BUFFER_CAPACITY);
+			stderrDispatcher = new LogDispatcher(listener, true, LOG_BUFFER_CAPACITY);
+			startThread("stdout-dispatcher", daemon, stdoutDispatcher);
+			startThread("stderr-dispatcher", daemon, stderrDispatcher);
+		}
+		startThread("stdout-logger", daemon, new StreamLogger(listener, false, process.getInputStream(), stdoutDispatcher));
+		startThread("stderr-logger", daemon, new StreamLogger(listener, true, process.getErrorStream(), stderrDispatcher));
 		startThread("exit-waiter", daemon, new ExitWaiter(process, listener));
 	}
 
@@ -0,0 +1,91 @@
+package org.to2mbn.jmccc.launch;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a byte stream into lines.
+ */
+class LineSplitter {
+
+	// a longer line is split, so a process printing no line separator cannot
+	// exhaust the memory
+	private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+	private Charset charset;
+	private byte[] pending = new byte[256];
+	private int pendingLength;
+
+	public LineSplitter(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Feeds bytes to the splitter.
+	 * 
+	 * @return the lines completed by the bytes
+	 */
+	public List<String> feed(byte[] buffer, int length) {
+		// '\n' never occurs inside a multibyte character in the ascii
+		// compatible encodings, so the bytes can be scanned directly
+		List<String> lines = null;
+		int lineStart = 0;
+		for (int i = 0; i < length; i++) {
+			if (buffer[i] == '\n') {
+				if (lines == null) {
+					lines = new ArrayList<>();
+				}
+				if (pendingLength == 0) {
+					lines.add(decodeLine(buffer, lineStart, i));
+				} else {
+					append(buffer, lineStart, i);
+					lines.add(decodeLine(pending, 0, pendingLength));
+					pendingLength = 0;
+				}
+				lineStart = i + 1;
+			}
+		}
+		append(buffer, lineStart, length);
+		if (pendingLength >= MAX_LINE_LENGTH) {
+			if (lines == null) {
+				lines = new ArrayList<>();
+			}
+			lines.add(flush());
+		}
+		return lines == null ? Collections.<String> emptyList() : lines;
+	}
+
+	/**
+	 * Returns the last line, which has no line separator.
+	 * 
+	 * @return the last line, null if there is none
+	 */
+	public String flush() {
+		if (pendingLength == 0) {
+			return null;
+		}
+		String line = new String(pending, 0, pendingLength, charset);
+		pendingLength = 0;
+		return line;
+	}
+
+	private void append(byte[] buffer, int from, int to) {
+		int length = to - from;
+		if (pendingLength + length > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+		}
+		System.arraycopy(buffer, from, pending, pendingLength, length);
+		pendingLength += length;
+	}
+
+	private String decodeLine(byte[] buffer, int from, int to) {
+		if (to > from && buffer[to - 1] == '\r') {
+			to--;
+		}
+		return new String(buffer, from, to - from, charset);
+	}
+
+}
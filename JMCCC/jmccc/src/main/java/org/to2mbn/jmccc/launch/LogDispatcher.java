@@ -0,0 +1,78 @@
+package org.to2mbn.jmccc.launch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Delivers the logs buffered by a {@link StreamLogger} on its own thread, and
+ * drops the logs when the buffer is full.
+ */
+class LogDispatcher implements Runnable {
+
+	// marks the end of the stream
+	private static final String EOF = new String();
+
+	private ProcessListener listener;
+	private boolean isErr;
+	private BlockingQueue<String> queue;
+
+	public LogDispatcher(ProcessListener listener, boolean isErr, int capacity) {
+		this.listener = listener;
+		this.isErr = isErr;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public void offer(List<String> logs) {
+		for (String log : logs) {
+			if (!queue.offer(log)) {
+				// the listener is too slow
+				return;
+			}
+		}
+	}
+
+	public void close() {
+		boolean interrupted = false;
+		for (;;) {
+			try {
+				queue.put(EOF);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void run() {
+		List<String> batch = new ArrayList<>();
+		try {
+			for (;;) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+
+				boolean eof = false;
+				int last = batch.size() - 1;
+				if (batch.get(last) == EOF) {
+					batch.remove(last);
+					eof = true;
+				}
+				if (!batch.isEmpty()) {
+					StreamLogger.deliver(listener, isErr, new ArrayList<>(batch));
+					batch.clear();
+				}
+				if (eof) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -13,6 +13,7 @@ public class MissingDependenciesException extends LaunchException {
 	private static final long serialVersionUID = 1L;
 
 	private Set<Library> missingLibraries;
+	private PreflightReport report;
 
 	public MissingDependenciesException() {}
 
@@ -29,8 +30,30 @@ public class MissingDependenciesException extends LaunchException {
 		this.missingLibraries = missingLibraries;
 	}
 
+	/**
+	 * Constructs a MissingDependenciesException from a preflight report.
+	 * <p>
+	 * {@link #getMissingLibraries()} returns both the missing and the
+	 * corrupted libraries, so they can be downloaded again.
+	 * 
+	 * @param report the report
+	 */
+	public MissingDependenciesException(PreflightReport report) {
+		this(report.toString(), report.getLibrariesToRepair());
+		this.report = report;
+	}
+
 	public Set<Library> getMissingLibraries() {
 		return missingLibraries;
 	}
 
+	/**
+	 * Gets the preflight report which causes the exception.
+	 * 
+	 * @return the report, null if the exception is not caused by a preflight
+	 */
+	public PreflightReport getReport() {
+		return report;
+	}
+
 }
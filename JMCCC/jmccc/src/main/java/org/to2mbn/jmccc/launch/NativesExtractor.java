@@ -0,0 +1,357 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.to2mbn.jmccc.util.ChecksumUtils;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.util.HexUtils;
+
+/**
+ * Extracts natives incrementally.
+ * <p>
+ * The extractor keeps a manifest in the natives directory. For every native
+ * jar it records the length, the modification time, the SHA-1 and the
+ * excludes of the jar. For every extracted file it records the CRC32 and the
+ * size of the zip entry, and the length and the modification time of the file
+ * after extraction. When neither the jars nor the extracted files have
+ * changed, only their attributes are read. Otherwise only the changed entries
+ * are extracted, in parallel.
+ * <p>
+ * An existing file is never rewritten if its content already matches the
+ * entry, because replacing a native in use may crash the JVM which loaded it.
+ */
+public class NativesExtractor {
+
+	private static final String MANIFEST_NAME = ".jmccc-natives";
+	private static final String MANIFEST_HEADER = "# jmccc natives manifest v1";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static class JarRecord {
+
+		final long length;
+		final long lastModified;
+		final String sha1;
+		final String excludes;
+		final Map<String, FileRecord> files = new LinkedHashMap<>();
+
+		JarRecord(long length, long lastModified, String sha1, String excludes) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.sha1 = sha1;
+			this.excludes = excludes;
+		}
+	}
+
+	private static class FileRecord {
+
+		final long crc;
+		final long size;
+		volatile long outLength;
+		volatile long outLastModified;
+
+		FileRecord(long crc, long size, long outLength, long outLastModified) {
+			this.crc = crc;
+			this.size = size;
+			this.outLength = outLength;
+			this.outLastModified = outLastModified;
+		}
+
+		boolean matches(File outFile) {
+			return outFile.lastModified() == outLastModified && outFile.length() == outLength;
+		}
+	}
+
+	private class ExtractTask implements Callable<Void> {
+
+		private final ZipFile zip;
+		private final ZipEntry entry;
+		private final File outFile;
+		private final FileRecord record;
+
+		ExtractTask(ZipFile zip, ZipEntry entry, File outFile, FileRecord record) {
+			this.zip = zip;
+			this.entry = entry;
+			this.outFile = outFile;
+			this.record = record;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			if (!isExtracted()) {
+				// never write in place, the old file may be linked to a shared copy
+				File tmp = FileUtils.createTempFile(outFile);
+				try (CheckedInputStream in = new CheckedInputStream(zip.getInputStream(entry), new CRC32());
+						OutputStream out = new FileOutputStream(tmp)) {
+					byte[] buf = new byte[BUFFER_SIZE];
+					int read;
+					while ((read = in.read(buf)) != -1) {
+						out.write(buf, 0, read);
+					}
+					if (entry.getCrc() != -1 && in.getChecksum().getValue() != entry.getCrc()) {
+						throw new IOException("CRC mismatch: " + entry.getName() + " in " + zip.getName());
+					}
+				} catch (IOException e) {
+					tmp.delete();
+					throw e;
+				}
+				FileUtils.replace(tmp, outFile);
+			}
+			record.outLength = outFile.length();
+			record.outLastModified = outFile.lastModified();
+			return null;
+		}
+
+		private boolean isExtracted() throws IOException {
+			if (!outFile.isFile() || outFile.length() != entry.getSize()) {
+				return false;
+			}
+			if (fastCheck) {
+				return true;
+			}
+			if (entry.getCrc() == -1) {
+				return false;
+			}
+			CRC32 crc = new CRC32();
+			try (InputStream in = new FileInputStream(outFile)) {
+				byte[] buf = new byte[BUFFER_SIZE];
+				int read;
+				while ((read = in.read(buf)) != -1) {
+					crc.update(buf, 0, read);
+				}
+			}
+			return crc.getValue() == entry.getCrc();
+		}
+	}
+
+	private final boolean fastCheck;
+
+	/**
+	 * Constructs a NativesExtractor.
+	 * 
+	 * @param fastCheck true to trust an existing file which is not in the
+	 *            manifest if its size matches, false to compare its CRC32
+	 */
+	public NativesExtractor(boolean fastCheck) {
+		this.fastCheck = fastCheck;
+	}
+
+	/**
+	 * Extracts the given native jars into the natives directory.
+	 * 
+	 * @param natives the native jars and their excludes, the excludes can be
+	 *            null
+	 * @param nativesDir the natives directory
+	 * @throws IOException if an I/O error occurs, the message names the jar
+	 *             which couldn't be extracted
+	 */
+	public void extract(Map<File, Set<String>> natives, File nativesDir) throws IOException {
+		Objects.requireNonNull(natives);
+		Objects.requireNonNull(nativesDir);
+		if (!nativesDir.isDirectory()) {
+			FileUtils.mkdirs(nativesDir);
+		}
+
+		File manifestFile = new File(nativesDir, MANIFEST_NAME);
+		Map<String, JarRecord> manifest = readManifest(manifestFile);
+		Map<String, JarRecord> updated = new LinkedHashMap<>();
+		boolean changed = false;
+		for (Map.Entry<File, Set<String>> entry : natives.entrySet()) {
+			String path = entry.getKey().getAbsolutePath();
+			JarRecord old = manifest.get(path);
+			JarRecord record;
+			try {
+				record = extract(entry.getKey(), entry.getValue(), old, nativesDir);
+			} catch (IOException e) {
+				throw new IOException("Couldn't uncompress " + entry.getKey(), e);
+			}
+			changed |= record != old;
+			updated.put(path, record);
+		}
+
+		if (changed || !updated.keySet().equals(manifest.keySet())) {
+			writeManifest(manifestFile, updated);
+		}
+	}
+
+	private JarRecord extract(File jar, Set<String> excludes, JarRecord old, File outputDir) throws IOException {
+		String excludesKey = excludesKey(excludes);
+		long length = jar.length();
+		long lastModified = jar.lastModified();
+		if (old != null && old.excludes.equals(excludesKey) && old.length == length && old.lastModified == lastModified && filesUnchanged(old, outputDir)) {
+			return old;
+		}
+
+		String sha1 = sha1(jar);
+		if (old != null && old.excludes.equals(excludesKey) && old.sha1.equals(sha1) && filesUnchanged(old, outputDir)) {
+			// the jar has been touched, but its content hasn't changed
+			JarRecord record = new JarRecord(length, lastModified, sha1, excludesKey);
+			record.files.putAll(old.files);
+			return record;
+		}
+
+		JarRecord record = new JarRecord(length, lastModified, sha1, excludesKey);
+		try (ZipFile zip = new ZipFile(jar)) {
+			List<ExtractTask> tasks = new ArrayList<>();
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (entry.isDirectory() || isExcluded(name, excludes)) {
+					continue;
+				}
+				File outFile = new File(outputDir, name);
+				if (!isInside(name, outFile, outputDir)) {
+					throw new IOException("Illegal entry name: " + name + " in " + jar);
+				}
+
+				FileRecord previous = old == null ? null : old.files.get(name);
+				if (previous != null && previous.crc == entry.getCrc() && previous.size == entry.getSize() && previous.matches(outFile)) {
+					record.files.put(name, previous);
+				} else {
+					FileRecord fileRecord = new FileRecord(entry.getCrc(), entry.getSize(), -1, -1);
+					record.files.put(name, fileRecord);
+					tasks.add(new ExtractTask(zip, entry, outFile, fileRecord));
+				}
+			}
+			ParallelTasks.invokeAll(tasks);
+		}
+		return record;
+	}
+
+	/**
+	 * Checks that the entry is extracted into the output directory, that is,
+	 * the name is relative and has no <code>..</code> segment.
+	 */
+	private boolean isInside(String name, File outFile, File outputDir) {
+		if (name.startsWith("/") || name.startsWith("\\")) {
+			return false;
+		}
+		for (String segment : name.split("[/\\\\]")) {
+			if (segment.equals("..")) {
+				return false;
+			}
+		}
+		Path dir = outputDir.getAbsoluteFile().toPath().normalize();
+		Path path = outFile.getAbsoluteFile().toPath().normalize();
+		return !path.equals(dir) && path.startsWith(dir);
+	}
+
+	private boolean filesUnchanged(JarRecord record, File outputDir) {
+		for (Map.Entry<String, FileRecord> entry : record.files.entrySet()) {
+			if (!entry.getValue().matches(new File(outputDir, entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isExcluded(String name, Set<String> excludes) {
+		if (excludes != null) {
+			for (String exclude : excludes) {
+				if (name.startsWith(exclude)) {
+					return true;
+				}
+			}
+
+			if (name.contains("META-INF")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String excludesKey(Set<String> excludes) {
+		if (excludes == null) {
+			return "-";
+		}
+		return Integer.toHexString(new TreeSet<>(excludes).toString().hashCode());
+	}
+
+	private String sha1(File file) throws IOException {
+		try {
+			return HexUtils.bytesToHex(ChecksumUtils.compute(file, "SHA-1"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported", e);
+		}
+	}
+
+	private Map<String, JarRecord> readManifest(File manifestFile) {
+		Map<String, JarRecord> manifest = new HashMap<>();
+		if (!manifestFile.isFile()) {
+			return manifest;
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8))) {
+			if (!MANIFEST_HEADER.equals(reader.readLine())) {
+				return manifest;
+			}
+			JarRecord current = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(" ", 6);
+				if (fields.length != 6) {
+					throw new IOException("Malformed line: " + line);
+				}
+				if ("J".equals(fields[0])) {
+					current = new JarRecord(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3], fields[4]);
+					manifest.put(fields[5], current);
+				} else if ("F".equals(fields[0]) && current != null) {
+					current.files.put(fields[5], new FileRecord(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+				} else {
+					throw new IOException("Malformed line: " + line);
+				}
+			}
+			return manifest;
+		} catch (IOException | RuntimeException e) {
+			// extract everything again
+			return new HashMap<>();
+		}
+	}
+
+	private void writeManifest(File manifestFile, Map<String, JarRecord> manifest) throws IOException {
+		// the natives directory may be shared by several launches
+		File tmp = FileUtils.createTempFile(manifestFile);
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+			writer.write(MANIFEST_HEADER);
+			writer.write('\n');
+			for (Map.Entry<String, JarRecord> jar : manifest.entrySet()) {
+				JarRecord record = jar.getValue();
+				writer.write("J " + record.length + " " + record.lastModified + " " + record.sha1 + " " + record.excludes + " " + jar.getKey() + "\n");
+				for (Map.Entry<String, FileRecord> file : record.files.entrySet()) {
+					FileRecord f = file.getValue();
+					writer.write("F " + f.crc + " " + f.size + " " + f.outLength + " " + f.outLastModified + " " + file.getKey() + "\n");
+				}
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, manifestFile);
+	}
+
+}
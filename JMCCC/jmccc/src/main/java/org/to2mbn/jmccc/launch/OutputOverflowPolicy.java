@@ -0,0 +1,22 @@
+package org.to2mbn.jmccc.launch;
+
+/**
+ * Describes what to do when the {@link ProcessListener} cannot keep up with
+ * the output of the game process.
+ */
+public enum OutputOverflowPolicy {
+
+	/**
+	 * The listener is called on the thread reading the output. If the listener
+	 * is slow, the game process is blocked when it writes to stdout or stderr.
+	 */
+	BLOCK,
+
+	/**
+	 * The output is buffered and the listener is called on another thread. If
+	 * the buffer is full, the new lines are dropped, so the game process is
+	 * never blocked by the listener.
+	 */
+	DROP;
+
+}
@@ -0,0 +1,123 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the file operations of a launch concurrently.
+ * <p>
+ * The calling thread runs every task that no pool thread has picked up yet
+ * before it starts waiting. So the tasks may call {@link #invokeAll(List)}
+ * themselves: nested calls are still spread over the idle pool threads, and
+ * the pool is never exhausted by threads waiting for tasks queued behind
+ * them.
+ */
+final class ParallelTasks {
+
+	private static class PoolHolder {
+
+		static final ExecutorService POOL = createPool();
+
+		private static ExecutorService createPool() {
+			// the tasks are I/O bound, so use a few more threads than processors
+			int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "jmccc-launch-io-" + count.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			return pool;
+		}
+	}
+
+	/**
+	 * Runs the given tasks and waits for all of them to finish.
+	 * 
+	 * @param tasks the tasks
+	 * @throws IOException if any task fails, the other exceptions are added as
+	 *             suppressed exceptions
+	 */
+	static void invokeAll(List<? extends Callable<?>> tasks) throws IOException {
+		if (tasks.isEmpty()) {
+			return;
+		}
+		if (tasks.size() == 1) {
+			invokeInline(tasks);
+			return;
+		}
+
+		List<FutureTask<?>> submitted = new ArrayList<>(tasks.size());
+		for (Callable<?> task : tasks) {
+			FutureTask<?> future = new FutureTask<>(task);
+			submitted.add(future);
+			PoolHolder.POOL.execute(future);
+		}
+
+		// help out, a task that has already been started won't run again
+		for (FutureTask<?> task : submitted) {
+			task.run();
+		}
+
+		IOException ex = null;
+		for (Future<?> task : submitted) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				for (Future<?> t : submitted) {
+					t.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (ex == null) {
+					ex = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+				} else {
+					ex.addSuppressed(cause);
+				}
+			}
+		}
+		if (ex != null) {
+			throw ex;
+		}
+	}
+
+	private static void invokeInline(List<? extends Callable<?>> tasks) throws IOException {
+		IOException ex = null;
+		for (Callable<?> task : tasks) {
+			try {
+				task.call();
+			} catch (Exception e) {
+				if (ex == null) {
+					ex = e instanceof IOException ? (IOException) e : new IOException(e);
+				} else {
+					ex.addSuppressed(e);
+				}
+			}
+		}
+		if (ex != null) {
+			throw ex;
+		}
+	}
+
+	private ParallelTasks() {}
+
+}
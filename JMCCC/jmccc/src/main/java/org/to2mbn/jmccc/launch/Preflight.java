@@ -0,0 +1,116 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.util.ChecksumEngine;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.LibraryInfo;
+import org.to2mbn.jmccc.version.Version;
+
+/**
+ * Checks the libraries of a version before launching it.
+ * <p>
+ * The files are checked concurrently, which matters on slow file systems
+ * where a stat call can take milliseconds.
+ */
+public final class Preflight {
+
+	private static final int BATCH_SIZE = 32;
+
+	/**
+	 * Checks the libraries of the given version.
+	 * 
+	 * @param mcdir the minecraft directory
+	 * @param version the version
+	 * @param verifyChecksums true to verify the checksums of the existing
+	 *            libraries against the download infos in the version json
+	 * @return the report
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if <code>mcdir==null||version==null</code>
+	 */
+	public static PreflightReport check(final MinecraftDirectory mcdir, Version version, boolean verifyChecksums) throws IOException {
+		Objects.requireNonNull(mcdir);
+		final List<Library> libraries = new ArrayList<>(version.getLibraries());
+
+		final boolean[] missingFlags = new boolean[libraries.size()];
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < libraries.size(); i += BATCH_SIZE) {
+			final int from = i;
+			final int to = Math.min(libraries.size(), i + BATCH_SIZE);
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException {
+					for (int j = from; j < to; j++) {
+						// not Library.isMissing, so a failure to link from the store is reported as is
+						missingFlags[j] = !mcdir.resolveLibrary(libraries.get(j)).isFile();
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(tasks);
+
+		Set<Library> missing = new LinkedHashSet<>();
+		final Map<File, LibraryInfo> toVerify = new HashMap<>();
+		Map<File, Library> files = new HashMap<>();
+		for (int i = 0; i < libraries.size(); i++) {
+			Library library = libraries.get(i);
+			if (missingFlags[i]) {
+				missing.add(library);
+			} else if (verifyChecksums) {
+				LibraryInfo info = library.getDownloadInfo();
+				if (info != null && info.getChecksum() != null) {
+					File file = mcdir.resolveLibrary(library);
+					toVerify.put(file, info);
+					files.put(file, library);
+				}
+			}
+		}
+
+		Set<Library> corrupted = new LinkedHashSet<>();
+		if (!toVerify.isEmpty()) {
+			Iterator<ChecksumEngine.Result> results = ChecksumEngine.getDefault().verifyAll(toVerify.keySet(), "SHA-1", new Function<File, String>() {
+
+				@Override
+				public String apply(File file) {
+					return toVerify.get(file).getChecksum();
+				}
+			}, new ToLongFunction<File>() {
+
+				@Override
+				public long applyAsLong(File file) {
+					return toVerify.get(file).getSize();
+				}
+			}).iterator();
+			while (results.hasNext()) {
+				ChecksumEngine.Result result = results.next();
+				if (!result.isValid()) {
+					corrupted.add(files.get(result.getFile()));
+				}
+			}
+
+			// keeps the order of the version
+			Set<Library> ordered = new LinkedHashSet<>(libraries);
+			ordered.retainAll(corrupted);
+			corrupted = ordered;
+		}
+
+		return new PreflightReport(missing, corrupted);
+	}
+
+	private Preflight() {}
+
+}
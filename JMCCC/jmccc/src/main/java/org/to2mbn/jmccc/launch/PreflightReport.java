@@ -0,0 +1,99 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import org.to2mbn.jmccc.version.Library;
+
+/**
+ * Describes the problems of the libraries of a version, found before the
+ * launch.
+ * 
+ * @see Preflight
+ */
+public class PreflightReport implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Set<Library> missingLibraries;
+	private final Set<Library> corruptedLibraries;
+
+	/**
+	 * Constructs a PreflightReport.
+	 * 
+	 * @param missingLibraries the libraries which don't exist
+	 * @param corruptedLibraries the libraries whose checksums don't match
+	 * @throws NullPointerException if any of the arguments is null
+	 */
+	public PreflightReport(Set<Library> missingLibraries, Set<Library> corruptedLibraries) {
+		this.missingLibraries = Collections.unmodifiableSet(new LinkedHashSet<>(Objects.requireNonNull(missingLibraries)));
+		this.corruptedLibraries = Collections.unmodifiableSet(new LinkedHashSet<>(Objects.requireNonNull(corruptedLibraries)));
+	}
+
+	/**
+	 * Gets the libraries which don't exist.
+	 * 
+	 * @return the missing libraries
+	 */
+	public Set<Library> getMissingLibraries() {
+		return missingLibraries;
+	}
+
+	/**
+	 * Gets the libraries whose checksums don't match.
+	 * <p>
+	 * This is always empty if the checksums were not verified.
+	 * 
+	 * @return the corrupted libraries
+	 */
+	public Set<Library> getCorruptedLibraries() {
+		return corruptedLibraries;
+	}
+
+	/**
+	 * Gets the libraries which have to be downloaded again, that is, the
+	 * missing libraries and the corrupted libraries.
+	 * 
+	 * @return the libraries to download
+	 */
+	public Set<Library> getLibrariesToRepair() {
+		Set<Library> result = new LinkedHashSet<>(missingLibraries);
+		result.addAll(corruptedLibraries);
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Returns true if no problem is found.
+	 * 
+	 * @return true if no problem is found
+	 */
+	public boolean isPassed() {
+		return missingLibraries.isEmpty() && corruptedLibraries.isEmpty();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof PreflightReport) {
+			PreflightReport another = (PreflightReport) obj;
+			return missingLibraries.equals(another.missingLibraries)
+					&& corruptedLibraries.equals(another.corruptedLibraries);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(missingLibraries, corruptedLibraries);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PreflightReport [missingLibraries=%s, corruptedLibraries=%s]", missingLibraries, corruptedLibraries);
+	}
+
+}
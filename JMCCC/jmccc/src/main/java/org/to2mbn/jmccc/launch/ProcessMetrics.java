@@ -0,0 +1,131 @@
+package org.to2mbn.jmccc.launch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of a process supervised by a {@link ProcessSupervisor}.
+ * <p>
+ * The values are updated as the output of the process is read.
+ */
+public class ProcessMetrics {
+
+	private final long startTime = System.nanoTime();
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong lines = new AtomicLong();
+	private final AtomicLong errorLines = new AtomicLong();
+	private final AtomicLong droppedLines = new AtomicLong();
+	private volatile long exitTime = -1;
+	private volatile Throwable failure;
+
+	ProcessMetrics() {
+	}
+
+	/**
+	 * Gets the total number of bytes read from stdout and stderr.
+	 * 
+	 * @return the number of bytes
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Gets the number of lines read from stdout.
+	 * 
+	 * @return the number of lines from stdout
+	 */
+	public long getLines() {
+		return lines.get();
+	}
+
+	/**
+	 * Gets the number of lines read from stderr.
+	 * 
+	 * @return the number of lines from stderr
+	 */
+	public long getErrorLines() {
+		return errorLines.get();
+	}
+
+	/**
+	 * Gets the number of lines which were not delivered to the listener,
+	 * because it couldn't keep up with the output.
+	 * 
+	 * @return the number of dropped lines
+	 */
+	public long getDroppedLines() {
+		return droppedLines.get();
+	}
+
+	/**
+	 * Gets the time since the process was supervised, until it terminated.
+	 * 
+	 * @param unit the unit of the result
+	 * @return the uptime
+	 */
+	public long getUptime(TimeUnit unit) {
+		long end = exitTime == -1 ? System.nanoTime() : exitTime;
+		return unit.convert(end - startTime, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the average number of lines (stdout and stderr) per second.
+	 * 
+	 * @return the average number of lines per second
+	 */
+	public double getLinesPerSecond() {
+		long nanos = getUptime(TimeUnit.NANOSECONDS);
+		if (nanos <= 0) {
+			return 0;
+		}
+		return (lines.get() + errorLines.get()) * 1e9 / nanos;
+	}
+
+	/**
+	 * Returns true if the process has terminated and all of its output has
+	 * been delivered.
+	 * 
+	 * @return true if the process has terminated
+	 */
+	public boolean isTerminated() {
+		return exitTime != -1;
+	}
+
+	/**
+	 * Gets the last exception thrown while supervising the process, such as
+	 * an I/O error when reading its output, or an exception thrown by its
+	 * listener.
+	 * 
+	 * @return the last exception, null if nothing went wrong
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	void addBytes(long count) {
+		bytes.addAndGet(count);
+	}
+
+	void addLines(boolean isErr, int count) {
+		(isErr ? errorLines : lines).addAndGet(count);
+	}
+
+	void addDroppedLines(int count) {
+		droppedLines.addAndGet(count);
+	}
+
+	void failed(Throwable e) {
+		failure = e;
+	}
+
+	void terminated() {
+		exitTime = System.nanoTime();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ProcessMetrics [bytes=%d, lines=%d, errorLines=%d, uptime=%dms]", getBytes(), getLines(), getErrorLines(), getUptime(TimeUnit.MILLISECONDS));
+	}
+
+}
@@ -0,0 +1,364 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.to2mbn.jmccc.util.Platform;
+
+/**
+ * Supervises many game processes with a single thread.
+ * <p>
+ * By default, the launcher starts three threads for each game process to
+ * receive its output and wait for its termination. If a supervisor is given
+ * to the launcher (see {@link LauncherBuilder#supervisor(ProcessSupervisor)}),
+ * the output of all the processes is polled by the supervisor instead.
+ * <p>
+ * By default ({@link OutputOverflowPolicy#DROP}), the listeners are called on
+ * a dispatcher thread shared by the processes, so a slow listener never stops
+ * the polling. The lines waiting for a listener are buffered, up to 8192 lines
+ * per process, and the new lines are dropped when the buffer is full (see
+ * {@link ProcessMetrics#getDroppedLines()}). With
+ * {@link OutputOverflowPolicy#BLOCK}, the listeners are called on the
+ * supervisor thread, so they must return quickly: a slow listener delays the
+ * polling of every process.
+ * <p>
+ * On Java 9+, the termination of processes is detected with
+ * <code>Process.onExit()</code>. Otherwise, the processes are polled.
+ * <p>
+ * The output is only read when the supervisor polls, and only as much as the
+ * pipe holds. So the throughput of each process is capped at about one pipe
+ * buffer (usually 64 KiB on Linux) per poll interval, that is about 1.3 MB/s
+ * with the default interval. A process writing faster than that is blocked
+ * until the next poll. Use the default per-process threads for such
+ * processes, or a shorter poll interval.
+ * <p>
+ * If the output of a process cannot be read, or its listener throws an
+ * exception, the exception is recorded in its metrics (see
+ * {@link ProcessMetrics#getFailure()}) and the other processes are not
+ * affected. A process whose output cannot be read is still supervised until
+ * it terminates.
+ */
+public class ProcessSupervisor {
+
+	private static final Method ON_EXIT = getOnExitMethod();
+
+	private static Method getOnExitMethod() {
+		try {
+			return Process.class.getMethod("onExit");
+		} catch (NoSuchMethodException e) {
+			// java 8
+			return null;
+		}
+	}
+
+	private class Supervised implements Runnable {
+
+		final Process process;
+		final ProcessListener listener;
+		final ProcessMetrics metrics = new ProcessMetrics();
+		final LineSplitter stdout;
+		final LineSplitter stderr;
+		volatile boolean exited;
+		boolean outputBroken;
+
+		// the lines queued on the dispatcher
+		final AtomicInteger pendingLines = new AtomicInteger();
+
+		Supervised(Process process, ProcessListener listener) {
+			this.process = process;
+			this.listener = listener;
+			Charset charset = Charset.forName(Platform.getEncoding());
+			stdout = new LineSplitter(charset);
+			stderr = new LineSplitter(charset);
+		}
+
+		// called when the process exits, on the supervisor thread
+		@Override
+		public void run() {
+			if (!processes.containsKey(process)) {
+				return;
+			}
+			exited = true;
+			pollSafely(this);
+		}
+
+	}
+
+	private static final int BUFFER_CAPACITY = 8192;
+
+	private final Map<Process, Supervised> processes = new ConcurrentHashMap<>();
+	private final ScheduledThreadPoolExecutor executor;
+	private final ExecutorService dispatcher;
+	private final byte[] buffer = new byte[StreamLogger.BUFFER_SIZE];
+
+	/**
+	 * Constructs a ProcessSupervisor which polls every 50 milliseconds.
+	 */
+	public ProcessSupervisor() {
+		this(50, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Constructs a ProcessSupervisor which calls the listeners on a
+	 * dispatcher thread.
+	 * 
+	 * @param pollInterval the interval between polling the output
+	 * @param unit the unit of <code>pollInterval</code>
+	 * @throws NullPointerException if <code>unit==null</code>
+	 * @throws IllegalArgumentException if <code>pollInterval &lt;= 0</code>
+	 */
+	public ProcessSupervisor(long pollInterval, TimeUnit unit) {
+		this(pollInterval, unit, OutputOverflowPolicy.DROP);
+	}
+
+	/**
+	 * Constructs a ProcessSupervisor.
+	 * 
+	 * @param pollInterval the interval between polling the output
+	 * @param unit the unit of <code>pollInterval</code>
+	 * @param overflowPolicy {@link OutputOverflowPolicy#DROP} to call the
+	 *            listeners on a dispatcher thread,
+	 *            {@link OutputOverflowPolicy#BLOCK} to call them on the
+	 *            supervisor thread
+	 * @throws NullPointerException if <code>unit==null</code> or
+	 *             <code>overflowPolicy==null</code>
+	 * @throws IllegalArgumentException if <code>pollInterval &lt;= 0</code>
+	 */
+	public ProcessSupervisor(long pollInterval, TimeUnit unit, OutputOverflowPolicy overflowPolicy) {
+		Objects.requireNonNull(unit);
+		Objects.requireNonNull(overflowPolicy);
+		if (pollInterval <= 0) {
+			throw new IllegalArgumentException("pollInterval <= 0");
+		}
+		if (overflowPolicy == OutputOverflowPolicy.DROP) {
+			dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "process-supervisor-dispatcher");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		} else {
+			dispatcher = null;
+		}
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "process-supervisor");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				pollAll();
+			}
+		}, pollInterval, pollInterval, unit);
+	}
+
+	/**
+	 * Starts supervising a process.
+	 * 
+	 * @param process the process
+	 * @param listener the listener, null if the output should be discarded
+	 * @return the metrics of the process
+	 * @throws NullPointerException if <code>process==null</code>
+	 */
+	public ProcessMetrics supervise(Process process, ProcessListener listener) {
+		Objects.requireNonNull(process);
+		final Supervised supervised = new Supervised(process, listener);
+		processes.put(process, supervised);
+		if (ON_EXIT != null) {
+			try {
+				((CompletableFuture<?>) ON_EXIT.invoke(process)).thenRun(new Runnable() {
+
+					@Override
+					public void run() {
+						executor.execute(supervised);
+					}
+				});
+			} catch (ReflectiveOperationException e) {
+				// falls back to polling
+			}
+		}
+		return supervised.metrics;
+	}
+
+	/**
+	 * Gets the metrics of a supervised process.
+	 * 
+	 * @param process the process
+	 * @return the metrics of the process, null if the process is not
+	 *         supervised or has terminated
+	 */
+	public ProcessMetrics getMetrics(Process process) {
+		Supervised supervised = processes.get(process);
+		return supervised == null ? null : supervised.metrics;
+	}
+
+	/**
+	 * Gets the number of the processes being supervised.
+	 * 
+	 * @return the number of the processes
+	 */
+	public int getProcessCount() {
+		return processes.size();
+	}
+
+	/**
+	 * Stops supervising all the processes. The processes are not destroyed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+		processes.clear();
+	}
+
+	private void pollAll() {
+		for (Supervised supervised : processes.values()) {
+			if (ON_EXIT == null && !supervised.process.isAlive()) {
+				supervised.exited = true;
+			}
+			pollSafely(supervised);
+		}
+	}
+
+	private void pollSafely(Supervised supervised) {
+		// one process must never cancel the polling of the others
+		try {
+			poll(supervised);
+		} catch (RuntimeException | Error e) {
+			supervised.metrics.failed(e);
+			processes.remove(supervised.process);
+			supervised.metrics.terminated();
+		}
+	}
+
+	private void poll(Supervised supervised) {
+		if (!supervised.outputBroken) {
+			try {
+				drain(supervised, supervised.process.getInputStream(), supervised.stdout, false);
+				drain(supervised, supervised.process.getErrorStream(), supervised.stderr, true);
+			} catch (IOException e) {
+				// stop reading, but keep waiting for the process to exit
+				supervised.outputBroken = true;
+				supervised.metrics.failed(e);
+			}
+		}
+
+		// exitValue() throws if the process is still alive
+		if (supervised.exited && !supervised.process.isAlive()) {
+			// all the output has been read
+			processes.remove(supervised.process);
+			flush(supervised, supervised.stdout, false);
+			flush(supervised, supervised.stderr, true);
+			exit(supervised, supervised.process.exitValue());
+		}
+	}
+
+	private void exit(final Supervised supervised, final int exitCode) {
+		Runnable action = new Runnable() {
+
+			@Override
+			public void run() {
+				// after the output queued before
+				supervised.metrics.terminated();
+				if (supervised.listener != null) {
+					try {
+						supervised.listener.onExit(exitCode);
+					} catch (RuntimeException e) {
+						supervised.metrics.failed(e);
+					}
+				}
+			}
+		};
+		if (dispatcher == null) {
+			action.run();
+		} else {
+			dispatcher.execute(action);
+		}
+	}
+
+	private void drain(Supervised supervised, InputStream in, LineSplitter splitter, boolean isErr) throws IOException {
+		// only read what is available, so the thread is never blocked
+		int available;
+		while ((available = in.available()) > 0) {
+			int read = in.read(buffer, 0, Math.min(available, buffer.length));
+			if (read == -1) {
+				break;
+			}
+			supervised.metrics.addBytes(read);
+			List<String> lines = splitter.feed(buffer, read);
+			if (!lines.isEmpty()) {
+				output(supervised, lines, isErr);
+			}
+		}
+	}
+
+	private void flush(Supervised supervised, LineSplitter splitter, boolean isErr) {
+		String last = splitter.flush();
+		if (last != null) {
+			output(supervised, Collections.singletonList(last), isErr);
+		}
+	}
+
+	private void output(final Supervised supervised, final List<String> lines, final boolean isErr) {
+		supervised.metrics.addLines(isErr, lines.size());
+		if (supervised.listener == null) {
+			return;
+		}
+		if (dispatcher == null) {
+			deliver(supervised, lines, isErr);
+			return;
+		}
+
+		final int count = lines.size();
+		if (supervised.pendingLines.addAndGet(count) > BUFFER_CAPACITY) {
+			// the listener is too slow
+			supervised.pendingLines.addAndGet(-count);
+			supervised.metrics.addDroppedLines(count);
+			return;
+		}
+		dispatcher.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					deliver(supervised, lines, isErr);
+				} finally {
+					supervised.pendingLines.addAndGet(-count);
+				}
+			}
+		});
+	}
+
+	private void deliver(Supervised supervised, List<String> lines, boolean isErr) {
+		try {
+			StreamLogger.deliver(supervised.listener, isErr, lines);
+		} catch (RuntimeException e) {
+			// the output must still be drained
+			supervised.metrics.failed(e);
+		}
+	}
+
+}
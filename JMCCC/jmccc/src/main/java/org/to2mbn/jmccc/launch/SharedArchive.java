@@ -0,0 +1,162 @@
+package org.to2mbn.jmccc.launch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.to2mbn.jmccc.option.JavaEnvironment;
+import org.to2mbn.jmccc.option.JavaRuntime;
+import org.to2mbn.jmccc.util.HexUtils;
+import org.to2mbn.jmccc.version.Version;
+
+/**
+ * Manages the dynamic class data sharing archives of a version.
+ * <p>
+ * The archives are stored in <code>versions/&lt;id&gt;/&lt;id&gt;.jmccc-cds</code>
+ * and named after a key of the version, the classpath and the java runtime.
+ * When no archive matches the key, the game records one when it exits.
+ * <p>
+ * Each recording game writes to its own <code>.part</code> file, so
+ * concurrent first launches never write the same file. A later launch renames
+ * a finished part file to the archive. Files which have been modified
+ * recently may still be being written, so they are never renamed or deleted.
+ * The other files are deleted, including the archives of the old keys.
+ * <p>
+ * The jvm writes the header of the archive after all of its content, so a
+ * file without the archive magic has been left by a jvm which crashed or was
+ * killed while writing it. Such files are deleted rather than renamed.
+ */
+final class SharedArchive {
+
+	// -XX:ArchiveClassesAtExit was added in java 13
+	private static final int MIN_JAVA_VERSION = 13;
+
+	private static final String DIR_SUFFIX = ".jmccc-cds";
+	private static final String ARCHIVE_SUFFIX = ".jsa";
+	private static final String PART_SUFFIX = ".jsa.part";
+
+	// the jvm writes the archive within seconds
+	private static final long SETTLE_TIME = 60_000;
+
+	// CDS_DYNAMIC_ARCHIVE_MAGIC, in the byte order of the jvm
+	private static final int DYNAMIC_ARCHIVE_MAGIC = 0xf00baba8;
+
+	/**
+	 * Returns the jvm arguments to use or record the archive.
+	 * 
+	 * @param versionDir the directory of the version
+	 * @param version the version
+	 * @param classpath the classpath of the launch
+	 * @param java the java runtime
+	 * @return the jvm arguments, empty if the java runtime doesn't support
+	 *         dynamic archives
+	 * @throws IOException if an I/O error occurs
+	 */
+	static List<String> getArguments(File versionDir, Version version, Collection<File> classpath, JavaEnvironment java) throws IOException {
+		if (java instanceof JavaRuntime && !((JavaRuntime) java).getSupportedFlags().isEmpty()) {
+			// the flags have been probed, which also rules out the jvms
+			// without dynamic archives, such as OpenJ9
+			if (!((JavaRuntime) java).isFlagSupported("ArchiveClassesAtExit")) {
+				return Collections.emptyList();
+			}
+		} else if (java.getMajorVersion() < MIN_JAVA_VERSION) {
+			return Collections.emptyList();
+		}
+
+		File dir = new File(versionDir, version.getVersion() + DIR_SUFFIX);
+		String key = key(version, classpath, java);
+		File archive = new File(dir, key + ARCHIVE_SUFFIX);
+		if (isUsable(archive)) {
+			return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+		}
+
+		Files.createDirectories(dir.toPath());
+		long settled = System.currentTimeMillis() - SETTLE_TIME;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if ((file.equals(archive) && isUsable(archive)) || file.lastModified() > settled) {
+					continue;
+				}
+				if (!isUsable(archive) && file.getName().startsWith(key + ".") && file.getName().endsWith(PART_SUFFIX) && isUsable(file)) {
+					try {
+						Files.move(file.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+						continue;
+					} catch (IOException e) {
+						// another launch has renamed it, or the rename isn't
+						// supported, so it's treated as stale
+					}
+				}
+				// the jvm creates read-only archives
+				file.setWritable(true);
+				file.delete();
+			}
+		}
+		if (isUsable(archive)) {
+			return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+		}
+
+		// the archive is written by the jvm when the game exits
+		File part = new File(dir, key + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + PART_SUFFIX);
+		return Collections.singletonList("-XX:ArchiveClassesAtExit=" + part.getAbsolutePath());
+	}
+
+	private static boolean isUsable(File archive) {
+		if (!archive.isFile() || archive.length() < 4) {
+			return false;
+		}
+		ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+		try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+			while (magic.hasRemaining()) {
+				if (channel.read(magic) == -1) {
+					return false;
+				}
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		return magic.getInt(0) == DYNAMIC_ARCHIVE_MAGIC;
+	}
+
+	private static String key(Version version, Collection<File> classpath, JavaEnvironment java) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		update(digest, version.getVersion());
+		update(digest, version.getMainClass());
+		for (File file : classpath) {
+			if (file != null) {
+				update(digest, file.getAbsolutePath());
+				update(digest, file.length() + "/" + file.lastModified());
+			}
+		}
+		update(digest, java.getJavaHome().getAbsolutePath());
+		File release = java.getReleaseFile();
+		if (release.isFile()) {
+			digest.update(Files.readAllBytes(release.toPath()));
+		}
+		return HexUtils.bytesToHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private SharedArchive() {}
+
+}
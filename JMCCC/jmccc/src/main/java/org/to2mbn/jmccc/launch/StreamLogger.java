@@ -2,63 +2,85 @@ package org.to2mbn.jmccc.launch;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
 import org.to2mbn.jmccc.util.Platform;
 
 class StreamLogger implements Runnable {
 
+	static final int BUFFER_SIZE = 16384;
+
+	static void deliver(ProcessListener listener, boolean isErr, List<String> logs) {
+		if (listener instanceof BatchProcessListener) {
+			BatchProcessListener batchListener = (BatchProcessListener) listener;
+			if (isErr) {
+				batchListener.onErrorLogs(logs);
+			} else {
+				batchListener.onLogs(logs);
+			}
+		} else {
+			for (String log : logs) {
+				if (isErr) {
+					listener.onErrorLog(log);
+				} else {
+					listener.onLog(log);
+				}
+			}
+		}
+	}
+
 	private ProcessListener listener;
 	private boolean isErr;
 	private InputStream in;
+	private LogDispatcher dispatcher;
 
-	public StreamLogger(ProcessListener listener, boolean isErr, InputStream in) {
+	/**
+	 * @param dispatcher the dispatcher to hand the logs to, null to call the
+	 *            listener directly
+	 */
+	public StreamLogger(ProcessListener listener, boolean isErr, InputStream in, LogDispatcher dispatcher) {
 		this.listener = listener;
 		this.isErr = isErr;
 		this.in = in;
+		this.dispatcher = dispatcher;
 	}
 
 	@Override
 	public void run() {
-		char[] eol = Platform.getLineSeparator().toCharArray();
+		LineSplitter splitter = new LineSplitter(Charset.forName(Platform.getEncoding()));
+		byte[] buffer = new byte[BUFFER_SIZE];
 		try {
-			// no need for closing this
-			// because we don't need to close the underlying stream
-			Reader reader = new InputStreamReader(in, Platform.getEncoding());
-
-			StringBuilder buffer = new StringBuilder();
-			int ch;
-			while ((ch = reader.read()) != -1) {
-				buffer.append((char) ch);
-
-				if (buffer.length() >= eol.length) {
-					// check eol
-					boolean isEOL = true;
-					for (int i = 0; i < eol.length; i++) {
-						if (eol[i] != buffer.charAt(buffer.length() - eol.length + i)) {
-							isEOL = false;
-							break;
-						}
-					}
-
-					if (isEOL) {
-						buffer.delete(buffer.length() - eol.length, buffer.length());
-						String log = buffer.toString();
-						buffer.delete(0, buffer.length());
-						if (isErr) {
-							listener.onErrorLog(log);
-						} else {
-							listener.onLog(log);
-						}
-					}
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				List<String> logs = splitter.feed(buffer, read);
+				if (!logs.isEmpty()) {
+					output(logs);
 				}
 
 				if (Thread.interrupted()) {
 					return;
 				}
 			}
+
+			String last = splitter.flush();
+			if (last != null) {
+				output(Collections.singletonList(last));
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
+		} finally {
+			if (dispatcher != null) {
+				dispatcher.close();
+			}
+		}
+	}
+
+	private void output(List<String> logs) {
+		if (dispatcher == null) {
+			deliver(listener, isErr, logs);
+		} else {
+			dispatcher.offer(logs);
 		}
 	}
 
@@ -13,9 +13,10 @@ class StreamPump implements Runnable {
 
 	@Override
 	public void run() {
+		byte[] buffer = new byte[8192];
 		try {
 			while (!Thread.interrupted()) {
-				if (in.read() == -1) {
+				if (in.read(buffer) == -1) {
 					break;
 				}
 			}
@@ -1,8 +1,12 @@
 package org.to2mbn.jmccc.option;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.Objects;
+import java.util.Properties;
 import org.to2mbn.jmccc.util.Platform;
 
 public class JavaEnvironment implements Serializable {
@@ -56,6 +60,76 @@ public class JavaEnvironment implements Serializable {
 		return javaPath;
 	}
 
+	/**
+	 * Gets the java home, that is, the directory containing <code>bin</code>.
+	 * 
+	 * @return the java home
+	 */
+	public File getJavaHome() {
+		File bin = javaPath.getAbsoluteFile().getParentFile();
+		return bin == null || bin.getParentFile() == null ? bin : bin.getParentFile();
+	}
+
+	/**
+	 * Gets the <code>release</code> file in the java home, which describes the
+	 * java runtime.
+	 * 
+	 * @return the <code>release</code> file, it may not exist
+	 */
+	public File getReleaseFile() {
+		return new File(getJavaHome(), "release");
+	}
+
+	/**
+	 * Reads the java version from the <code>release</code> file, such as
+	 * <code>"17.0.2"</code> or <code>"1.8.0_292"</code>.
+	 * 
+	 * @return the java version, or null if it's unknown
+	 */
+	public String getVersion() {
+		Properties release = new Properties();
+		try (InputStream in = new FileInputStream(getReleaseFile())) {
+			release.load(in);
+		} catch (IOException e) {
+			return null;
+		}
+		String version = release.getProperty("JAVA_VERSION");
+		if (version == null) {
+			return null;
+		}
+		if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+			version = version.substring(1, version.length() - 1);
+		}
+		return version;
+	}
+
+	/**
+	 * Gets the major version of java, such as 8 or 17.
+	 * 
+	 * @return the major version, or -1 if it's unknown
+	 * @see #getVersion()
+	 */
+	public int getMajorVersion() {
+		return parseMajorVersion(getVersion());
+	}
+
+	private static int parseMajorVersion(String version) {
+		if (version == null) {
+			return -1;
+		}
+		String[] parts = version.split("[._\\-+]");
+		try {
+			int major = Integer.parseInt(parts[0]);
+			if (major == 1 && parts.length > 1) {
+				// 1.8.0_292
+				major = Integer.parseInt(parts[1]);
+			}
+			return major;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return javaPath.toString();
@@ -0,0 +1,129 @@
+package org.to2mbn.jmccc.option;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A java runtime whose properties have been probed.
+ * <p>
+ * Unlike {@link JavaEnvironment}, the properties are known without reading
+ * any file, so a <code>JavaRuntime</code> can be passed to
+ * {@link LaunchOption#setJavaEnvironment(JavaEnvironment)} to select the jvm
+ * arguments cheaply.
+ * 
+ * @see JavaRuntimeDiscovery
+ */
+public class JavaRuntime extends JavaEnvironment {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String version;
+	private final String vendor;
+	private final String arch;
+	private final boolean is64Bit;
+	private final Set<String> supportedFlags;
+
+	/**
+	 * Constructs a JavaRuntime.
+	 * 
+	 * @param javaPath the 'java' executable file
+	 * @param version the value of <code>java.version</code>
+	 * @param vendor the value of <code>java.vendor</code>, can be null
+	 * @param arch the value of <code>os.arch</code>, can be null
+	 * @param is64Bit true if it's a 64-bit runtime
+	 * @throws NullPointerException if <code>javaPath==null||version==null</code>
+	 */
+	public JavaRuntime(File javaPath, String version, String vendor, String arch, boolean is64Bit) {
+		this(javaPath, version, vendor, arch, is64Bit, Collections.<String> emptySet());
+	}
+
+	/**
+	 * Constructs a JavaRuntime.
+	 * 
+	 * @param javaPath the 'java' executable file
+	 * @param version the value of <code>java.version</code>
+	 * @param vendor the value of <code>java.vendor</code>, can be null
+	 * @param arch the value of <code>os.arch</code>, can be null
+	 * @param is64Bit true if it's a 64-bit runtime
+	 * @param supportedFlags the names of the <code>-XX</code> flags the
+	 *            runtime supports, empty if they are unknown
+	 * @throws NullPointerException if
+	 *             <code>javaPath==null||version==null||supportedFlags==null</code>
+	 */
+	public JavaRuntime(File javaPath, String version, String vendor, String arch, boolean is64Bit, Set<String> supportedFlags) {
+		super(javaPath);
+		this.version = Objects.requireNonNull(version);
+		this.vendor = vendor;
+		this.arch = arch;
+		this.is64Bit = is64Bit;
+		this.supportedFlags = Collections.unmodifiableSet(new TreeSet<>(supportedFlags));
+	}
+
+	/**
+	 * Gets the probed java version, such as <code>"17.0.2"</code>.
+	 * 
+	 * @return the java version
+	 */
+	@Override
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the vendor of the runtime.
+	 * 
+	 * @return the vendor, or null if it's unknown
+	 */
+	public String getVendor() {
+		return vendor;
+	}
+
+	/**
+	 * Gets the architecture of the runtime, such as <code>"amd64"</code>.
+	 * 
+	 * @return the architecture, or null if it's unknown
+	 */
+	public String getArch() {
+		return arch;
+	}
+
+	/**
+	 * Returns true if it's a 64-bit runtime.
+	 * 
+	 * @return true if it's a 64-bit runtime
+	 */
+	public boolean is64Bit() {
+		return is64Bit;
+	}
+
+	/**
+	 * Gets the names of the <code>-XX</code> flags the runtime supports, such
+	 * as <code>"UseZGC"</code>.
+	 * 
+	 * @return the names of the supported flags, empty if they are unknown
+	 */
+	public Set<String> getSupportedFlags() {
+		return supportedFlags;
+	}
+
+	/**
+	 * Returns true if the runtime is known to support the given
+	 * <code>-XX</code> flag.
+	 * 
+	 * @param flag the name of the flag, such as <code>"UseZGC"</code>
+	 * @return true if the flag is supported, false if it's not supported or
+	 *         the flags are unknown
+	 */
+	public boolean isFlagSupported(String flag) {
+		return supportedFlags.contains(flag);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("JavaRuntime [javaPath=%s, version=%s, vendor=%s, arch=%s, is64Bit=%s]", getJavaPath(), version, vendor, arch, is64Bit);
+	}
+
+}
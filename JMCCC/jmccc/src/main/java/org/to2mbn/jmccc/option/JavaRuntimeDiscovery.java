@@ -0,0 +1,392 @@
+package org.to2mbn.jmccc.option;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.util.Platform;
+
+/**
+ * Finds the java runtimes installed on the computer.
+ * <p>
+ * Each 'java' executable is probed by running
+ * <code>java -XshowSettings:properties -XX:+PrintFlagsFinal -version</code>,
+ * which prints the system properties and the <code>-XX</code> flags the jvm
+ * supports. Jvms which don't know <code>PrintFlagsFinal</code>, such as
+ * OpenJ9, ignore it, and no flags are reported for them. The results can be
+ * cached in a file, keyed by the path, the size and the modification time of
+ * the executable, so a runtime is probed only once until it's updated.
+ */
+public class JavaRuntimeDiscovery {
+
+	private static final String CACHE_HEADER = "# jmccc java runtimes v2";
+	private static final Pattern FLAG_PATTERN = Pattern.compile("^\\s+\\w+\\s+(\\w+)\\s+:?=.*\\{.*\\}\\s*$");
+	private static final long PROBE_TIMEOUT = 10000;
+	private static final int MAX_PARALLEL_PROBES = 4;
+
+	private static class CacheEntry {
+
+		final long length;
+		final long lastModified;
+		final JavaRuntime runtime;
+
+		CacheEntry(long length, long lastModified, JavaRuntime runtime) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.runtime = runtime;
+		}
+
+	}
+
+	/**
+	 * Returns the 'java' executables in the common install locations, the
+	 * <code>JAVA_HOME</code> and the <code>PATH</code>. The files are not
+	 * probed.
+	 * 
+	 * @return the 'java' executables
+	 */
+	public static List<File> findJavaExecutables() {
+		String executable = Platform.CURRENT == Platform.WINDOWS ? "java.exe" : "java";
+		Set<File> homes = new LinkedHashSet<>();
+		homes.add(new File(System.getProperty("java.home")));
+
+		String javaHome = System.getenv("JAVA_HOME");
+		if (javaHome != null) {
+			homes.add(new File(javaHome));
+		}
+
+		String userHome = System.getProperty("user.home");
+		switch (Platform.CURRENT) {
+			case WINDOWS:
+				for (String env : new String[] { "ProgramFiles", "ProgramFiles(x86)", "ProgramW6432" }) {
+					String programFiles = System.getenv(env);
+					if (programFiles != null) {
+						for (String vendor : new String[] { "Java", "Eclipse Adoptium", "Eclipse Foundation", "AdoptOpenJDK", "Zulu", "Microsoft", "Amazon Corretto", "BellSoft" }) {
+							addChildren(homes, new File(programFiles, vendor), null);
+						}
+					}
+				}
+				break;
+
+			case OSX:
+				addChildren(homes, new File("/Library/Java/JavaVirtualMachines"), "Contents/Home");
+				addChildren(homes, new File(userHome, "Library/Java/JavaVirtualMachines"), "Contents/Home");
+				break;
+
+			default:
+				addChildren(homes, new File("/usr/lib/jvm"), null);
+				addChildren(homes, new File("/usr/java"), null);
+				addChildren(homes, new File("/opt/java"), null);
+				break;
+		}
+		addChildren(homes, new File(userHome, ".sdkman/candidates/java"), null);
+		addChildren(homes, new File(userHome, ".jdks"), null);
+
+		Set<File> executables = new LinkedHashSet<>();
+		for (File home : homes) {
+			addExecutable(executables, new File(home, "bin/" + executable));
+		}
+
+		String path = System.getenv("PATH");
+		if (path != null) {
+			for (String dir : path.split(File.pathSeparator)) {
+				if (!dir.isEmpty()) {
+					addExecutable(executables, new File(dir, executable));
+				}
+			}
+		}
+		return new ArrayList<>(executables);
+	}
+
+	private static void addChildren(Set<File> homes, File dir, String subPath) {
+		File[] children = dir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					homes.add(subPath == null ? child : new File(child, subPath));
+				}
+			}
+		}
+	}
+
+	private static void addExecutable(Set<File> executables, File file) {
+		if (file.isFile()) {
+			try {
+				// resolves the symlinks, such as /usr/bin/java
+				executables.add(file.getCanonicalFile());
+			} catch (IOException e) {
+				executables.add(file.getAbsoluteFile());
+			}
+		}
+	}
+
+	private final File cacheFile;
+	private final Map<String, CacheEntry> cache = new HashMap<>();
+
+	/**
+	 * Constructs a JavaRuntimeDiscovery without a cache file.
+	 */
+	public JavaRuntimeDiscovery() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a JavaRuntimeDiscovery.
+	 * 
+	 * @param cacheFile the file to cache the probed runtimes in, null if the
+	 *            results shouldn't be stored
+	 */
+	public JavaRuntimeDiscovery(File cacheFile) {
+		this.cacheFile = cacheFile;
+		if (cacheFile != null) {
+			loadCache();
+		}
+	}
+
+	/**
+	 * Finds and probes the java runtimes.
+	 * <p>
+	 * The executables which cannot be probed are skipped. The runtimes are
+	 * sorted by their major versions, from the newest.
+	 * 
+	 * @return the java runtimes
+	 * @see #findJavaExecutables()
+	 */
+	public List<JavaRuntime> discover() {
+		List<File> executables = findJavaExecutables();
+		List<JavaRuntime> runtimes = new ArrayList<>();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_PARALLEL_PROBES, executables.size())));
+		try {
+			List<Future<JavaRuntime>> futures = new ArrayList<>();
+			for (final File executable : executables) {
+				futures.add(pool.submit(new Callable<JavaRuntime>() {
+
+					@Override
+					public JavaRuntime call() throws Exception {
+						return probe(executable, false);
+					}
+				}));
+			}
+			for (Future<JavaRuntime> future : futures) {
+				try {
+					runtimes.add(future.get());
+				} catch (ExecutionException e) {
+					// not a working runtime
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		saveCacheQuietly();
+
+		Collections.sort(runtimes, new Comparator<JavaRuntime>() {
+
+			@Override
+			public int compare(JavaRuntime o1, JavaRuntime o2) {
+				return Integer.compare(o2.getMajorVersion(), o1.getMajorVersion());
+			}
+		});
+		return runtimes;
+	}
+
+	/**
+	 * Probes the given 'java' executable, or returns the cached result if the
+	 * executable hasn't changed since it was probed.
+	 * 
+	 * @param javaPath the 'java' executable
+	 * @return the java runtime
+	 * @throws IOException if the executable cannot be probed
+	 * @throws NullPointerException if <code>javaPath==null</code>
+	 */
+	public JavaRuntime probe(File javaPath) throws IOException {
+		return probe(javaPath, true);
+	}
+
+	private JavaRuntime probe(File javaPath, boolean save) throws IOException {
+		File file = javaPath.getAbsoluteFile();
+		String key = file.getPath();
+		long length = file.length();
+		long lastModified = file.lastModified();
+		synchronized (cache) {
+			CacheEntry entry = cache.get(key);
+			if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+				return entry.runtime;
+			}
+		}
+
+		JavaRuntime runtime = doProbe(file);
+		synchronized (cache) {
+			cache.put(key, new CacheEntry(length, lastModified, runtime));
+		}
+		if (save) {
+			saveCacheQuietly();
+		}
+		return runtime;
+	}
+
+	private JavaRuntime doProbe(File javaPath) throws IOException {
+		if (!javaPath.isFile()) {
+			throw new IOException("Not a file: " + javaPath);
+		}
+
+		// the output goes to a file, so a hung jvm can't block the reading,
+		// and the timeout always applies
+		File output = File.createTempFile("jmccc-probe", ".txt");
+		Map<String, String> properties = new HashMap<>();
+		Set<String> flags = new TreeSet<>();
+		try {
+			ProcessBuilder builder = new ProcessBuilder(javaPath.getPath(), "-XshowSettings:properties", "-XX:+PrintFlagsFinal", "-version");
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(output);
+			Process process = builder.start();
+			try {
+				process.getOutputStream().close();
+				if (!process.waitFor(PROBE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					throw new IOException("Probing " + javaPath + " timed out");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", e);
+			} finally {
+				process.destroyForcibly();
+			}
+
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(output), Platform.getEncoding()))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					// '    bool UseG1GC    = true    {product} {default}'
+					Matcher flag = FLAG_PATTERN.matcher(line);
+					if (flag.matches()) {
+						flags.add(flag.group(1));
+					}
+					// '    key = value', the continuation lines are indented deeper
+					else if (line.startsWith("    ") && !line.startsWith("     ")) {
+						int idx = line.indexOf(" = ");
+						if (idx != -1) {
+							properties.put(line.substring(4, idx), line.substring(idx + 3));
+						}
+					}
+				}
+			}
+		} finally {
+			output.delete();
+		}
+
+		String version = properties.get("java.version");
+		if (version == null) {
+			throw new IOException("Couldn't probe " + javaPath);
+		}
+		return new JavaRuntime(javaPath, version, properties.get("java.vendor"), properties.get("os.arch"), "64".equals(properties.get("sun.arch.data.model")), flags);
+	}
+
+	private void loadCache() {
+		if (!cacheFile.isFile()) {
+			return;
+		}
+		try (InputStream in = new FileInputStream(cacheFile);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			if (!CACHE_HEADER.equals(reader.readLine())) {
+				return;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// path, length, lastModified, version, vendor, arch, is64Bit, flags
+				String[] fields = line.split("\t", -1);
+				if (fields.length != 8) {
+					continue;
+				}
+				Set<String> flags = fields[7].isEmpty() ? Collections.<String> emptySet() : new TreeSet<>(Arrays.asList(fields[7].split(",")));
+				JavaRuntime runtime = new JavaRuntime(new File(fields[0]), fields[3], emptyToNull(fields[4]), emptyToNull(fields[5]), Boolean.parseBoolean(fields[6]), flags);
+				cache.put(fields[0], new CacheEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), runtime));
+			}
+		} catch (IOException | NumberFormatException e) {
+			// the cache will be rebuilt
+			cache.clear();
+		}
+	}
+
+	private void saveCacheQuietly() {
+		if (cacheFile == null) {
+			return;
+		}
+		try {
+			saveCache();
+		} catch (IOException e) {
+			// the cache is optional
+		}
+	}
+
+	private void saveCache() throws IOException {
+		File tmp = FileUtils.createTempFile(cacheFile);
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+			writer.write(CACHE_HEADER);
+			writer.write('\n');
+			synchronized (cache) {
+				for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+					JavaRuntime runtime = entry.getValue().runtime;
+					writer.write(field(entry.getKey()) + '\t' + entry.getValue().length + '\t' + entry.getValue().lastModified + '\t'
+							+ field(runtime.getVersion()) + '\t' + field(runtime.getVendor()) + '\t' + field(runtime.getArch()) + '\t' + runtime.is64Bit() + '\t'
+							+ join(runtime.getSupportedFlags()) + '\n');
+				}
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, cacheFile);
+	}
+
+	private static String field(String value) {
+		return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+	}
+
+	private static String join(Set<String> flags) {
+		StringBuilder sb = new StringBuilder();
+		for (String flag : flags) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(flag);
+		}
+		return sb.toString();
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+
+	@Override
+	public String toString() {
+		return "JavaRuntimeDiscovery [cacheFile=" + cacheFile + "]";
+	}
+
+}
@@ -91,6 +91,11 @@ public class LaunchOption implements Serializable {
 	 */
 	private Set<File> extraClasspath = new LinkedHashSet<>();
 
+	/**
+	 * Whether to use a class data sharing archive
+	 */
+	private boolean classDataSharing;
+
 	private String launcherVersion = "2.0";
 	private String launcherBrand = "Minilauncher";//TODO fix hardcoded launcher brand
 
@@ -190,6 +195,37 @@ public class LaunchOption implements Serializable {
 		this.javaEnvironment = javaEnvironment;
 	}
 
+	/**
+	 * Returns true if a class data sharing archive is used, default to false.
+	 * 
+	 * @return true if a class data sharing archive is used
+	 * @see #setClassDataSharing(boolean)
+	 */
+	public boolean isClassDataSharing() {
+		return classDataSharing;
+	}
+
+	/**
+	 * Sets whether to use a class data sharing (AppCDS) archive to speed up
+	 * the startup of the game.
+	 * <p>
+	 * If it's true, the first launch records the loaded classes into an
+	 * archive when the game exits (<code>-XX:ArchiveClassesAtExit</code>),
+	 * and the following launches map the archive
+	 * (<code>-XX:SharedArchiveFile</code>). The archive is stored in the
+	 * version directory, and it's created again when the version, the
+	 * libraries or the java runtime change.
+	 * <p>
+	 * This requires Java 13 or later, whose version can be read from the
+	 * <code>release</code> file of the java home. Otherwise, the option is
+	 * ignored.
+	 * 
+	 * @param classDataSharing true to use a class data sharing archive
+	 */
+	public void setClassDataSharing(boolean classDataSharing) {
+		this.classDataSharing = classDataSharing;
+	}
+
 	/**
 	 * Gets the max memory(MB), default to 1024.
 	 * <p>
@@ -343,7 +379,8 @@ public class LaunchOption implements Serializable {
 	 * modifiable.
 	 * <p>
 	 * When generating launch commandline, the variables in
-	 * {@link Version#getLaunchArgs()} will be replaced. For example,
+	 * {@link Version#getGameArguments()} and
+	 * {@link Version#getJvmArguments()} will be replaced. For example,
 	 * <code>${version_name}</code> will be replaced by the version id. Some
 	 * variables are automatically replaced by the launcher. If you want to add
 	 * customized variables, you can set the values of the variables via
@@ -369,7 +406,7 @@ public class LaunchOption implements Serializable {
 
 	@Override
 	public String toString() {
-		return "LaunchOption [maxMemory=" + maxMemory + ", minMemory=" + minMemory + ", version=" + version + ", authenticator=" + authenticator + ", serverInfo=" + serverInfo + ", windowSize=" + windowSize + ", javaEnvironment=" + javaEnvironment + ", minecraftDirectory=" + minecraftDirectory + ", runtimeDirectory=" + runtimeDirectory + ", extraJvmArguments=" + extraJvmArguments + ", extraMinecraftArguments=" + extraMinecraftArguments + ", commandlineVariables=" + commandlineVariables + ", extraClasspath=" + extraClasspath + "]";
+		return "LaunchOption [maxMemory=" + maxMemory + ", minMemory=" + minMemory + ", version=" + version + ", authenticator=" + authenticator + ", serverInfo=" + serverInfo + ", windowSize=" + windowSize + ", javaEnvironment=" + javaEnvironment + ", minecraftDirectory=" + minecraftDirectory + ", runtimeDirectory=" + runtimeDirectory + ", extraJvmArguments=" + extraJvmArguments + ", extraMinecraftArguments=" + extraMinecraftArguments + ", commandlineVariables=" + commandlineVariables + ", extraClasspath=" + extraClasspath + ", classDataSharing=" + classDataSharing + "]";
 	}
 
 	@Override
@@ -391,7 +428,8 @@ public class LaunchOption implements Serializable {
 					Objects.equals(extraJvmArguments, another.extraJvmArguments) &&
 					Objects.equals(extraMinecraftArguments, another.extraMinecraftArguments) &&
 					Objects.equals(commandlineVariables, another.commandlineVariables) &&
-					Objects.equals(extraClasspath, another.extraClasspath);
+					Objects.equals(extraClasspath, another.extraClasspath) &&
+					classDataSharing == another.classDataSharing;
 		}
 		return false;
 	}
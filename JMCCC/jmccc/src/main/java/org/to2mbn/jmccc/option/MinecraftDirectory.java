@@ -1,6 +1,7 @@
 package org.to2mbn.jmccc.option;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Objects;
 import org.to2mbn.jmccc.version.Asset;
@@ -21,6 +22,11 @@ public class MinecraftDirectory implements Serializable {
 	 */
 	protected File rootDir;
 
+	/**
+	 * The shared object store, may be null.
+	 */
+	protected SharedObjectStore objectStore;
+
 	/**
 	 * Creates a MinecraftDirectory with the '.minecraft' directory in the current directory.
 	 */
@@ -43,8 +49,21 @@ public class MinecraftDirectory implements Serializable {
 	 * @param rootDir the root directory of minecraft (eg. <code>".minecraft"</code>)
 	 */
 	public MinecraftDirectory(File rootDir) {
+		this(rootDir, null);
+	}
+
+	/**
+	 * Creates a MinecraftDirectory with the given root directory, whose assets
+	 * and libraries can be shared with other directories through the given
+	 * object store.
+	 * 
+	 * @param rootDir the root directory of minecraft (eg. <code>".minecraft"</code>)
+	 * @param objectStore the shared object store, null if no store is used
+	 */
+	public MinecraftDirectory(File rootDir, SharedObjectStore objectStore) {
 		Objects.requireNonNull(rootDir);
 		this.rootDir = rootDir.getAbsoluteFile();
+		this.objectStore = objectStore;
 	}
 
 	/**
@@ -58,6 +77,15 @@ public class MinecraftDirectory implements Serializable {
 		return rootDir;
 	}
 
+	/**
+	 * Gets the shared object store.
+	 * 
+	 * @return the shared object store, null if no store is used
+	 */
+	public SharedObjectStore getObjectStore() {
+		return objectStore;
+	}
+
 	/**
 	 * Gets the versions directory.
 	 * 
@@ -86,6 +114,23 @@ public class MinecraftDirectory implements Serializable {
 		return new File(getLibraries(), library.getPath());
 	}
 
+	/**
+	 * Gets the library file, linking it from the shared object store if it
+	 * doesn't exist in this directory.
+	 * 
+	 * @param library the library
+	 * @return the library file
+	 * @throws IOException if the library cannot be linked from the store
+	 * @see #getObjectStore()
+	 */
+	public File resolveLibrary(Library library) throws IOException {
+		File file = getLibrary(library);
+		if (objectStore != null && !file.isFile()) {
+			objectStore.linkLibrary(this, library);
+		}
+		return file;
+	}
+
 	/**
 	 * Gets the natives directory.
 	 * 
@@ -231,6 +276,23 @@ public class MinecraftDirectory implements Serializable {
 		return new File(getAssetObjects(), asset.getPath());
 	}
 
+	/**
+	 * Gets the location of the given asset, linking it from the shared object
+	 * store if it doesn't exist in this directory.
+	 * 
+	 * @param asset the asset
+	 * @return the location of the asset
+	 * @throws IOException if the asset cannot be linked from the store
+	 * @see #getObjectStore()
+	 */
+	public File resolveAsset(Asset asset) throws IOException {
+		File file = getAsset(asset);
+		if (objectStore != null && !file.isFile()) {
+			objectStore.linkAsset(this, asset);
+		}
+		return file;
+	}
+
 	/**
 	 * Gets the virtual location of the given asset.
 	 * 
@@ -241,6 +303,16 @@ public class MinecraftDirectory implements Serializable {
 		return new File(getVirtualLegacyAssets(), asset.getVirtualPath());
 	}
 
+	/**
+	 * Gets the file where the verification journal is stored.
+	 * 
+	 * @return the verification journal file
+	 * @see org.to2mbn.jmccc.util.VerificationJournal
+	 */
+	public File getVerificationJournal() {
+		return new File(rootDir, "verification.journal");
+	}
+
 	public String getAbsolutePath() {
 		return rootDir.getAbsolutePath();
 	}
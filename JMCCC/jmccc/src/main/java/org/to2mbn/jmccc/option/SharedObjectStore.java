@@ -0,0 +1,217 @@
+package org.to2mbn.jmccc.option;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import org.to2mbn.jmccc.util.ChecksumUtils;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.LibraryInfo;
+
+/**
+ * Describes a content-addressed store which is shared among several minecraft
+ * directories.
+ * <p>
+ * Objects whose SHA-1 checksum is known are stored at:
+ *
+ * <pre>
+ * ${store}/objects/${2-character-prefix of hash}/${hash}
+ * </pre>
+ *
+ * Libraries without a known checksum are never shared, since they cannot be
+ * verified.
+ * <p>
+ * Files are linked into the minecraft directories with hard links, falling
+ * back to copying if the file system doesn't support hard links (eg. the
+ * store and the minecraft directory are on different volumes). Only verified
+ * files are added into the store.
+ * <p>
+ * A hard link shares its content with the store, so a linked file must never
+ * be written in place, otherwise the stored object and every other minecraft
+ * directory linking it are changed as well. Write a new file and move it onto
+ * the linked one instead (see {@link FileUtils#createTempFile(File)} and
+ * {@link FileUtils#replace(File, File)}), or delete the link first.
+ *
+ * @see MinecraftDirectory#MinecraftDirectory(File, SharedObjectStore)
+ */
+public class SharedObjectStore implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The root dir of the store.
+	 */
+	protected File rootDir;
+
+	/**
+	 * Creates a SharedObjectStore with the given root directory.
+	 *
+	 * @param rootDir the root directory of the store
+	 */
+	public SharedObjectStore(File rootDir) {
+		Objects.requireNonNull(rootDir);
+		this.rootDir = rootDir.getAbsoluteFile();
+	}
+
+	/**
+	 * Gets the root of the store.
+	 *
+	 * @return the root of the store
+	 */
+	public File getRoot() {
+		return rootDir;
+	}
+
+	/**
+	 * Gets the location of the object with the given SHA-1 checksum.
+	 *
+	 * @param hash the SHA-1 checksum of the object
+	 * @return the location of the object
+	 */
+	public File getObject(String hash) {
+		hash = hash.toLowerCase();
+		return new File(new File(rootDir, "objects"), hash.substring(0, 2) + "/" + hash);
+	}
+
+	/**
+	 * Gets the location of the given asset in the store.
+	 *
+	 * @param asset the asset
+	 * @return the location of the asset
+	 */
+	public File getAsset(Asset asset) {
+		return getObject(asset.getHash());
+	}
+
+	/**
+	 * Gets the location of the given library in the store.
+	 *
+	 * @param library the library
+	 * @return the location of the library, or null if the library cannot be
+	 *         shared, that is, its checksum is unknown
+	 */
+	public File getLibrary(Library library) {
+		String checksum = getLibraryChecksum(library);
+		return checksum == null ? null : getObject(checksum);
+	}
+
+	/**
+	 * Links the asset from the store into the given minecraft directory.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param asset the asset to link
+	 * @return true if the asset is available in the minecraft directory now
+	 * @throws IOException if an I/O error occurs
+	 */
+	public boolean linkAsset(MinecraftDirectory mcdir, Asset asset) throws IOException {
+		return link(getAsset(asset), mcdir.getAsset(asset), asset.getSize());
+	}
+
+	/**
+	 * Links the library from the store into the given minecraft directory.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param library the library to link
+	 * @return true if the library is available in the minecraft directory now
+	 * @throws IOException if an I/O error occurs
+	 */
+	public boolean linkLibrary(MinecraftDirectory mcdir, Library library) throws IOException {
+		File stored = getLibrary(library);
+		if (stored == null) {
+			return false;
+		}
+		LibraryInfo info = library.getDownloadInfo();
+		return link(stored, mcdir.getLibrary(library), info == null ? -1 : info.getSize());
+	}
+
+	/**
+	 * Adds the asset in the given minecraft directory into the store.
+	 * <p>
+	 * The asset is added only if its checksum is valid.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param asset the asset to add
+	 * @return true if the asset has been added
+	 * @throws IOException if an I/O error occurs
+	 * @throws NoSuchAlgorithmException if SHA-1 is not supported
+	 */
+	public boolean storeAsset(MinecraftDirectory mcdir, Asset asset) throws IOException, NoSuchAlgorithmException {
+		File stored = getAsset(asset);
+		if (stored.isFile()) {
+			return true;
+		}
+		File file = mcdir.getAsset(asset);
+		if (!ChecksumUtils.verify(file, asset.getHash(), "SHA-1", asset.getSize())) {
+			return false;
+		}
+		FileUtils.linkOrCopy(file, stored);
+		return true;
+	}
+
+	/**
+	 * Adds the library in the given minecraft directory into the store.
+	 * <p>
+	 * The library is added only if its checksum is known and valid.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param library the library to add
+	 * @return true if the library has been added
+	 * @throws IOException if an I/O error occurs
+	 * @throws NoSuchAlgorithmException if SHA-1 is not supported
+	 */
+	public boolean storeLibrary(MinecraftDirectory mcdir, Library library) throws IOException, NoSuchAlgorithmException {
+		File stored = getLibrary(library);
+		if (stored == null) {
+			return false;
+		}
+		if (stored.isFile()) {
+			return true;
+		}
+		File file = mcdir.getLibrary(library);
+		LibraryInfo info = library.getDownloadInfo();
+		if (!ChecksumUtils.verify(file, getLibraryChecksum(library), "SHA-1", info == null ? -1 : info.getSize())) {
+			return false;
+		}
+		FileUtils.linkOrCopy(file, stored);
+		return true;
+	}
+
+	private boolean link(File stored, File target, long size) throws IOException {
+		if (!stored.isFile() || (size != -1 && stored.length() != size)) {
+			return false;
+		}
+		FileUtils.linkOrCopy(stored, target);
+		return true;
+	}
+
+	private String getLibraryChecksum(Library library) {
+		LibraryInfo info = library.getDownloadInfo();
+		return info == null ? null : info.getChecksum();
+	}
+
+	@Override
+	public String toString() {
+		return rootDir.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof SharedObjectStore) {
+			SharedObjectStore another = (SharedObjectStore) obj;
+			return rootDir.equals(another.rootDir);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return rootDir.hashCode();
+	}
+
+}
@@ -0,0 +1,233 @@
+package org.to2mbn.jmccc.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Verifies checksums of files in parallel.
+ * <p>
+ * Files are hashed on a bounded {@link ForkJoinPool}, and the results are
+ * returned as a stream in the order they complete, so the caller can handle
+ * the first results while the others are still being hashed.
+ *
+ * @see ChecksumUtils
+ */
+public class ChecksumEngine {
+
+	/**
+	 * Describes the result of verifying a file.
+	 */
+	public static class Result {
+
+		private final File file;
+		private final boolean valid;
+		private final Throwable exception;
+
+		public Result(File file, boolean valid, Throwable exception) {
+			this.file = file;
+			this.valid = valid;
+			this.exception = exception;
+		}
+
+		/**
+		 * Gets the verified file.
+		 *
+		 * @return the verified file
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns true if the file exists and matches the expected checksum and
+		 * size.
+		 *
+		 * @return true if the file is valid
+		 */
+		public boolean isValid() {
+			return valid;
+		}
+
+		/**
+		 * Gets the exception thrown during verifying, the file is treated as
+		 * invalid if it's not null.
+		 *
+		 * @return the exception, or null if no exception was thrown
+		 */
+		public Throwable getException() {
+			return exception;
+		}
+
+		@Override
+		public String toString() {
+			return file + " [valid=" + valid + (exception == null ? "" : ", exception=" + exception) + "]";
+		}
+
+	}
+
+	private static final int BATCH_SIZE = 16;
+
+	private static class DefaultHolder {
+
+		static final ChecksumEngine INSTANCE = new ChecksumEngine(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Gets the shared engine, whose parallelism is the number of available
+	 * processors.
+	 *
+	 * @return the shared engine
+	 */
+	public static ChecksumEngine getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a ChecksumEngine.
+	 *
+	 * @param parallelism the max number of files being hashed at the same time
+	 * @throws IllegalArgumentException if <code>parallelism &lt;= 0</code>
+	 */
+	public ChecksumEngine(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism <= 0");
+		}
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Verifies the given files in parallel.
+	 *
+	 * @param files the files to verify
+	 * @param algorithm the checksum algorithm
+	 * @param checksums returns the expected checksum of each file, or null to
+	 *            check the size only
+	 * @param sizes returns the expected size of each file, or -1 if the size is
+	 *            unknown
+	 * @return a stream of the results, in the order of completion
+	 * @see ChecksumUtils#verify(File, String, String, long)
+	 */
+	public Stream<Result> verifyAll(Collection<File> files, String algorithm, Function<? super File, String> checksums, ToLongFunction<? super File> sizes) {
+		return verifyAll(files, algorithm, checksums, sizes, null);
+	}
+
+	/**
+	 * Verifies the given files in parallel, skipping the files which haven't
+	 * changed since they were recorded in the journal.
+	 *
+	 * @param files the files to verify
+	 * @param algorithm the checksum algorithm
+	 * @param checksums returns the expected checksum of each file, or null to
+	 *            check the size only
+	 * @param sizes returns the expected size of each file, or -1 if the size is
+	 *            unknown
+	 * @param journal the verification journal, null if no journal is used
+	 * @return a stream of the results, in the order of completion
+	 * @see VerificationJournal#verify(File, String, String, long)
+	 */
+	public Stream<Result> verifyAll(Collection<File> files, final String algorithm, final Function<? super File, String> checksums, final ToLongFunction<? super File> sizes, final VerificationJournal journal) {
+		Objects.requireNonNull(files);
+		Objects.requireNonNull(algorithm);
+		Objects.requireNonNull(checksums);
+		Objects.requireNonNull(sizes);
+
+		final List<File> targets = new ArrayList<>(files);
+		final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+
+		if (!targets.isEmpty()) {
+			pool.execute(new VerifyAction(targets, 0, targets.size(), results, algorithm, checksums, sizes, journal));
+		}
+
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<Result>(targets.size(), Spliterator.SIZED | Spliterator.NONNULL) {
+
+			private int remaining = targets.size();
+
+			@Override
+			public boolean tryAdvance(Consumer<? super Result> action) {
+				if (remaining == 0) {
+					return false;
+				}
+				Result result;
+				try {
+					result = results.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new CancellationException("interrupted while waiting for checksum results");
+				}
+				remaining--;
+				action.accept(result);
+				return true;
+			}
+		}, false);
+	}
+
+	private static class VerifyAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<File> files;
+		private final int from;
+		private final int to;
+		private final BlockingQueue<Result> results;
+		private final String algorithm;
+		private final Function<? super File, String> checksums;
+		private final ToLongFunction<? super File> sizes;
+		private final VerificationJournal journal;
+
+		VerifyAction(List<File> files, int from, int to, BlockingQueue<Result> results, String algorithm, Function<? super File, String> checksums, ToLongFunction<? super File> sizes, VerificationJournal journal) {
+			this.files = files;
+			this.from = from;
+			this.to = to;
+			this.results = results;
+			this.algorithm = algorithm;
+			this.checksums = checksums;
+			this.sizes = sizes;
+			this.journal = journal;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > BATCH_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new VerifyAction(files, from, middle, results, algorithm, checksums, sizes, journal),
+						new VerifyAction(files, middle, to, results, algorithm, checksums, sizes, journal));
+			} else {
+				for (int i = from; i < to; i++) {
+					results.add(verify(files.get(i)));
+				}
+			}
+		}
+
+		private Result verify(File file) {
+			try {
+				String checksum = checksums.apply(file);
+				long size = sizes.applyAsLong(file);
+				boolean valid = journal == null
+						? ChecksumUtils.verify(file, checksum, algorithm, size)
+						: journal.verify(file, checksum, algorithm, size);
+				return new Result(file, valid, null);
+			} catch (Throwable e) {
+				return new Result(file, false, e);
+			}
+		}
+
+	}
+
+}
@@ -1,9 +1,11 @@
 package org.to2mbn.jmccc.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -11,6 +13,17 @@ import java.util.Objects;
 
 public final class ChecksumUtils {
 
+	private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<ByteBuffer> FILE_BUFFER = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			// MessageDigest consumes heap buffers without copying
+			return ByteBuffer.allocate(FILE_BUFFER_SIZE);
+		}
+	};
+
 	public static byte[] compute(InputStream in, String algorithm) throws IOException, NoSuchAlgorithmException {
 		Objects.requireNonNull(in);
 		Objects.requireNonNull(algorithm);
@@ -28,9 +41,19 @@ public final class ChecksumUtils {
 		Objects.requireNonNull(file);
 		Objects.requireNonNull(algorithm);
 
-		try (InputStream in = new FileInputStream(file)) {
-			return compute(in, algorithm);
+		MessageDigest checksum = MessageDigest.getInstance(algorithm);
+		ByteBuffer buffer = FILE_BUFFER.get();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			for (;;) {
+				buffer.clear();
+				if (channel.read(buffer) == -1) {
+					break;
+				}
+				buffer.flip();
+				checksum.update(buffer);
+			}
 		}
+		return checksum.digest();
 	}
 
 	public static boolean verify(File file, byte[] checksum, String algorithm, long size) throws IOException, NoSuchAlgorithmException {
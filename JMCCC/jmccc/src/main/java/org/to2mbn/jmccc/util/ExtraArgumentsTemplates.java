@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.Set;
 import org.to2mbn.jmccc.option.MinecraftDirectory;
 import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.AssetIndex;
 import org.to2mbn.jmccc.version.Version;
 import org.to2mbn.jmccc.version.parsing.Versions;
 
@@ -61,11 +62,12 @@ public final class ExtraArgumentsTemplates {
 	 * @see #OSX_DOCK_NAME
 	 */
 	public static String OSX_DOCK_ICON(MinecraftDirectory minecraftDir, Version version) throws IOException {
-		Set<Asset> assetIndex = Versions.resolveAssets(minecraftDir, version);
+		AssetIndex assetIndex = Versions.resolveAssetIndex(minecraftDir, version.getAssets());
 		if (assetIndex == null)
 			return null;
 
-		return OSX_DOCK_ICON(minecraftDir, assetIndex);
+		Asset icon = assetIndex.get("icons/minecraft.icns");
+		return icon == null ? null : "-Xdock:icon=" + minecraftDir.getAsset(icon).getAbsolutePath();
 	}
 
 	private ExtraArgumentsTemplates() {
@@ -5,6 +5,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 
 public final class FileUtils {
 
@@ -30,6 +35,125 @@ public final class FileUtils {
 		}
 	}
 
+	/**
+	 * Makes <code>target</code> refer to the same content as <code>src</code>.
+	 * <p>
+	 * A hard link is created if the file system supports it. Otherwise, the
+	 * file is copied. An existing <code>target</code> is replaced atomically,
+	 * so readers never observe a partially written file.
+	 * 
+	 * @param src the source file
+	 * @param target the file to create
+	 * @return true if a hard link was created, false if the file was copied
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static boolean linkOrCopy(File src, File target) throws IOException {
+		return linkOrCopy(src, target, false);
+	}
+
+	private static boolean linkOrCopy(File src, File target, boolean keepLastModified) throws IOException {
+		File tmp = createTempFile(target);
+		boolean linked;
+		try {
+			tmp.delete();
+			try {
+				Files.createLink(tmp.toPath(), src.toPath());
+				linked = true;
+			} catch (IOException | UnsupportedOperationException e) {
+				copyFile(src, tmp);
+				if (keepLastModified) {
+					Files.setLastModifiedTime(tmp.toPath(), Files.getLastModifiedTime(src.toPath()));
+				}
+				linked = false;
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		replace(tmp, target);
+		return linked;
+	}
+
+	/**
+	 * Creates an empty temporary file in the directory of <code>target</code>,
+	 * which is going to be moved onto <code>target</code> with
+	 * {@link #replace(File, File)}.
+	 * <p>
+	 * The name is unique across processes, so several launchers sharing a
+	 * directory never write into the same temporary file.
+	 * 
+	 * @param target the file to write
+	 * @return the temporary file
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static File createTempFile(File target) throws IOException {
+		target = target.getAbsoluteFile();
+		// unlike mkdirs, this doesn't fail if another thread creates the directory
+		Files.createDirectories(target.getParentFile().toPath());
+		return File.createTempFile(target.getName() + ".", ".tmp", target.getParentFile());
+	}
+
+	/**
+	 * Moves <code>tmp</code> onto <code>target</code>, atomically if the file
+	 * system supports it. <code>tmp</code> is deleted if it cannot be moved.
+	 * 
+	 * @param tmp the temporary file
+	 * @param target the file to replace
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void replace(File tmp, File target) throws IOException {
+		try {
+			try {
+				Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Makes <code>target</code> refer to <code>src</code>, unless it already
+	 * does.
+	 * <p>
+	 * This is {@link #linkOrCopy(File, File)}, except that a copy keeps the
+	 * modification time of <code>src</code>, and it is treated as up to date
+	 * if its length and modification time match <code>src</code>.
+	 * <p>
+	 * This method can be called concurrently for different targets.
+	 * 
+	 * @param src the source file
+	 * @param target the file to create
+	 * @return false if <code>target</code> was already up to date
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static boolean link(File src, File target) throws IOException {
+		if (isLinkUpToDate(src.toPath(), target.toPath())) {
+			return false;
+		}
+		linkOrCopy(src, target, true);
+		return true;
+	}
+
+	private static boolean isLinkUpToDate(Path src, Path target) throws IOException {
+		if (!Files.exists(target)) {
+			return false;
+		}
+		if (Files.isSameFile(src, target)) {
+			// a hard link or a symbolic link to src
+			return true;
+		}
+		if (Files.isSymbolicLink(target)) {
+			return false;
+		}
+		BasicFileAttributes srcAttributes = Files.readAttributes(src, BasicFileAttributes.class);
+		BasicFileAttributes targetAttributes = Files.readAttributes(target, BasicFileAttributes.class);
+		return srcAttributes.size() == targetAttributes.size()
+				&& srcAttributes.lastModifiedTime().equals(targetAttributes.lastModifiedTime());
+	}
+
 	private FileUtils() {
 	}
 }
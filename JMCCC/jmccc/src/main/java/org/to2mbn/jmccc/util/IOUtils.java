@@ -1,6 +1,5 @@
 package org.to2mbn.jmccc.util;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.CharArrayWriter;
 import java.io.File;
@@ -10,20 +9,30 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.to2mbn.jmccc.internal.org.json.JSONByteParser;
 import org.to2mbn.jmccc.internal.org.json.JSONException;
 import org.to2mbn.jmccc.internal.org.json.JSONObject;
-import org.to2mbn.jmccc.internal.org.json.JSONTokener;
 
 public final class IOUtils {
 
 	public static JSONObject toJson(File file) throws JSONException, IOException {
-		try (Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(file)), "UTF-8")) {
-			return new JSONObject(new JSONTokener(reader));
-		}
+		return JSONByteParser.parseObject(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
 	}
 
+	/**
+	 * Parses a JSONObject from the given UTF-8 bytes.
+	 * <p>
+	 * The returned object may refer to the array, so the array must not be
+	 * modified afterwards.
+	 * 
+	 * @param data the UTF-8 bytes
+	 * @return the JSONObject
+	 * @throws JSONException if there is a syntax error or a duplicated key
+	 */
 	public static JSONObject toJson(byte[] data) throws JSONException {
-		return new JSONObject(toString(data));
+		return JSONByteParser.parseObject(ByteBuffer.wrap(data));
 	}
 
 	public static String toString(File file) throws IOException {
@@ -0,0 +1,234 @@
+package org.to2mbn.jmccc.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the checksums of files which have been verified.
+ * <p>
+ * Each record is keyed by the path of the file, and stores the size, the
+ * modification time and the file key (the inode on most systems) at the time
+ * of verification. If none of them has changed since then, the file is
+ * considered unchanged, and the recorded checksum is trusted without reading
+ * the file again.
+ * <p>
+ * Files modified within {@link #RACY_INTERVAL} milliseconds before they were
+ * verified are not recorded, because a later modification may not change the
+ * modification time.
+ * <p>
+ * This class is thread-safe.
+ */
+public class VerificationJournal {
+
+	/**
+	 * The interval (in milliseconds) in which modification time is not
+	 * trusted.
+	 */
+	public static final long RACY_INTERVAL = 2000;
+
+	private static final String HEADER = "# jmccc verification journal v1";
+
+	private static class Record {
+
+		final long size;
+		final long lastModified;
+		final String fileKey;
+		final String algorithm;
+		final String checksum;
+
+		Record(long size, long lastModified, String fileKey, String algorithm, String checksum) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.fileKey = fileKey;
+			this.algorithm = algorithm;
+			this.checksum = checksum;
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size()
+					&& lastModified == attributes.lastModifiedTime().toMillis()
+					&& Objects.equals(fileKey, fileKeyOf(attributes));
+		}
+
+	}
+
+	/**
+	 * Loads the journal from the given file.
+	 * <p>
+	 * If the file doesn't exist or is corrupted, an empty journal is returned.
+	 *
+	 * @param file the journal file
+	 * @return the journal
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static VerificationJournal load(File file) throws IOException {
+		VerificationJournal journal = new VerificationJournal(file);
+		if (file.isFile()) {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+				if (!HEADER.equals(reader.readLine())) {
+					return journal;
+				}
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.split("\t", 6);
+					if (fields.length != 6) {
+						continue;
+					}
+					try {
+						journal.records.put(fields[5], new Record(Long.parseLong(fields[0]), Long.parseLong(fields[1]), "-".equals(fields[2]) ? null : fields[2], fields[3], fields[4]));
+					} catch (NumberFormatException e) {
+						// skip the corrupted record
+					}
+				}
+			}
+		}
+		return journal;
+	}
+
+	private final File file;
+	private final Map<String, Record> records = new ConcurrentHashMap<>();
+	private volatile boolean dirty;
+
+	/**
+	 * Creates an empty journal which will be saved to the given file.
+	 *
+	 * @param file the journal file
+	 */
+	public VerificationJournal(File file) {
+		this.file = Objects.requireNonNull(file);
+	}
+
+	/**
+	 * Gets the journal file.
+	 *
+	 * @return the journal file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Verifies the file, using the journal to avoid hashing unchanged files.
+	 * <p>
+	 * This method has the same semantics as
+	 * {@link ChecksumUtils#verify(File, String, String, long)}.
+	 *
+	 * @param target the file to verify
+	 * @param checksum the expected checksum, null to check the size only
+	 * @param algorithm the checksum algorithm
+	 * @param size the expected size, -1 if the size is unknown
+	 * @return true if the file is valid
+	 * @throws IOException if an I/O error occurs
+	 * @throws NoSuchAlgorithmException if the algorithm is not supported
+	 */
+	public boolean verify(File target, String checksum, String algorithm, long size) throws IOException, NoSuchAlgorithmException {
+		if (checksum == null) {
+			return ChecksumUtils.verify(target, (byte[]) null, algorithm, size);
+		}
+
+		BasicFileAttributes attributes = readAttributes(target);
+		if (attributes == null || !attributes.isRegularFile()) {
+			return false;
+		}
+		if (size != -1 && attributes.size() != size) {
+			return false;
+		}
+
+		String key = keyOf(target);
+		Record record = records.get(key);
+		if (record != null && record.matches(attributes) && record.algorithm.equalsIgnoreCase(algorithm)) {
+			return record.checksum.equalsIgnoreCase(checksum);
+		}
+
+		String actual = HexUtils.bytesToHex(ChecksumUtils.compute(target, algorithm));
+		if (System.currentTimeMillis() - attributes.lastModifiedTime().toMillis() >= RACY_INTERVAL) {
+			records.put(key, new Record(attributes.size(), attributes.lastModifiedTime().toMillis(), fileKeyOf(attributes), algorithm, actual));
+			dirty = true;
+		} else if (records.remove(key) != null) {
+			dirty = true;
+		}
+		return actual.equalsIgnoreCase(checksum);
+	}
+
+	/**
+	 * Removes the record of the given file.
+	 *
+	 * @param target the file
+	 */
+	public void invalidate(File target) {
+		if (records.remove(keyOf(target)) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Removes all the records, so that every file will be hashed again.
+	 */
+	public void clear() {
+		records.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Saves the journal if it has been modified since it was loaded.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void save() throws IOException {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+
+		File tmp = FileUtils.createTempFile(file);
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"))) {
+			writer.write(HEADER);
+			writer.write('\n');
+			for (Map.Entry<String, Record> entry : records.entrySet()) {
+				Record record = entry.getValue();
+				writer.write(record.size + "\t" + record.lastModified + "\t" + (record.fileKey == null ? "-" : record.fileKey) + "\t" + record.algorithm + "\t" + record.checksum + "\t" + entry.getKey());
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, file);
+	}
+
+	private static String keyOf(File target) {
+		return target.getAbsolutePath();
+	}
+
+	private static String fileKeyOf(BasicFileAttributes attributes) {
+		Object fileKey = attributes.fileKey();
+		if (fileKey == null) {
+			return null;
+		}
+		String str = fileKey.toString();
+		return str.indexOf('\t') == -1 && str.indexOf('\n') == -1 ? str : null;
+	}
+
+	private static BasicFileAttributes readAttributes(File target) throws IOException {
+		try {
+			return Files.readAttributes(target.toPath(), BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,349 @@
+package org.to2mbn.jmccc.version;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compiled list of launch arguments.
+ * <p>
+ * The <code>${...}</code> placeholders are parsed once when the template is
+ * created, so resolving the template needs only one pass over each argument.
+ * An argument can be conditional on the features of the launch, such as
+ * <code>is_demo_user</code> in the 1.13+ version format. Placeholders whose
+ * variables are not given are left as they are.
+ */
+public class ArgumentTemplate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * A rule of a conditional argument.
+	 */
+	public static class FeatureRule implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final boolean allow;
+		private final Map<String, Boolean> features;
+
+		/**
+		 * Constructs a FeatureRule.
+		 * 
+		 * @param allow true if the rule allows the argument, false if it
+		 *            disallows the argument
+		 * @param features the features which must be present (true) or absent
+		 *            (false) for the rule to apply
+		 * @throws NullPointerException if <code>features==null</code>
+		 */
+		public FeatureRule(boolean allow, Map<String, Boolean> features) {
+			this.allow = allow;
+			this.features = Objects.requireNonNull(features);
+		}
+
+		public boolean isAllow() {
+			return allow;
+		}
+
+		public Map<String, Boolean> getFeatures() {
+			return features;
+		}
+
+		boolean applies(Set<String> enabledFeatures) {
+			for (Map.Entry<String, Boolean> feature : features.entrySet()) {
+				if (enabledFeatures.contains(feature.getKey()) != feature.getValue().booleanValue()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (obj instanceof FeatureRule) {
+				FeatureRule another = (FeatureRule) obj;
+				return allow == another.allow
+						&& features.equals(another.features);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(allow, features);
+		}
+
+		@Override
+		public String toString() {
+			return (allow ? "allow" : "disallow") + features;
+		}
+
+	}
+
+	private static class Argument implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		// literal, variable, literal, ..., literal
+		final String[] parts;
+
+		// null if the argument is unconditional
+		final List<FeatureRule> rules;
+
+		Argument(String[] parts, List<FeatureRule> rules) {
+			this.parts = parts;
+			this.rules = rules;
+		}
+
+		boolean isEnabled(Set<String> enabledFeatures) {
+			if (rules == null) {
+				return true;
+			}
+			boolean allow = false;
+			for (FeatureRule rule : rules) {
+				if (rule.applies(enabledFeatures)) {
+					allow = rule.allow;
+				}
+			}
+			return allow;
+		}
+
+		String resolve(Map<String, String> variables) {
+			if (parts.length == 1) {
+				return parts[0];
+			}
+			StringBuilder sb = new StringBuilder(parts[0]);
+			for (int i = 1; i < parts.length; i += 2) {
+				String value = variables.get(parts[i]);
+				if (value == null) {
+					sb.append("${").append(parts[i]).append('}');
+				} else {
+					sb.append(value);
+				}
+				sb.append(parts[i + 1]);
+			}
+			return sb.toString();
+		}
+
+		String source() {
+			StringBuilder sb = new StringBuilder(parts[0]);
+			for (int i = 1; i < parts.length; i += 2) {
+				sb.append("${").append(parts[i]).append('}').append(parts[i + 1]);
+			}
+			return sb.toString();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (obj instanceof Argument) {
+				Argument another = (Argument) obj;
+				return Arrays.equals(parts, another.parts)
+						&& Objects.equals(rules, another.rules);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(parts) ^ Objects.hashCode(rules);
+		}
+
+	}
+
+	/**
+	 * Compiles a template in the legacy format, whose arguments are separated
+	 * by spaces.
+	 * 
+	 * @param template the template, such as the <code>minecraftArguments</code>
+	 *            in the version json
+	 * @return the compiled template
+	 * @throws NullPointerException if <code>template==null</code>
+	 */
+	public static ArgumentTemplate parse(String template) {
+		List<Argument> arguments = new ArrayList<>();
+		for (String argument : template.split(" ")) {
+			if (!argument.isEmpty()) {
+				arguments.add(compile(argument, null));
+			}
+		}
+		return new ArgumentTemplate(arguments);
+	}
+
+	/**
+	 * Compiles a list of arguments. Each element is an argument, which may
+	 * contain spaces.
+	 * 
+	 * @param arguments the arguments
+	 * @return the compiled template
+	 * @throws NullPointerException if <code>arguments==null</code>
+	 */
+	public static ArgumentTemplate of(List<String> arguments) {
+		return conditional(arguments, null);
+	}
+
+	/**
+	 * Compiles a list of arguments which are used only if the rules allow.
+	 * <p>
+	 * The arguments are disallowed by default. The last rule whose features
+	 * match the launch decides whether the arguments are used.
+	 * 
+	 * @param arguments the arguments
+	 * @param rules the rules, null if the arguments are unconditional
+	 * @return the compiled template
+	 * @throws NullPointerException if <code>arguments==null</code>
+	 */
+	public static ArgumentTemplate conditional(List<String> arguments, List<FeatureRule> rules) {
+		List<FeatureRule> copiedRules = rules == null ? null : Collections.unmodifiableList(new ArrayList<>(rules));
+		List<Argument> compiled = new ArrayList<>(arguments.size());
+		for (String argument : arguments) {
+			compiled.add(compile(Objects.requireNonNull(argument), copiedRules));
+		}
+		return new ArgumentTemplate(compiled);
+	}
+
+	/**
+	 * Concatenates templates.
+	 * 
+	 * @param templates the templates
+	 * @return a template containing the arguments of all the templates, in
+	 *         order
+	 */
+	public static ArgumentTemplate concat(List<ArgumentTemplate> templates) {
+		List<Argument> arguments = new ArrayList<>();
+		for (ArgumentTemplate template : templates) {
+			arguments.addAll(template.arguments);
+		}
+		return new ArgumentTemplate(arguments);
+	}
+
+	private static Argument compile(String argument, List<FeatureRule> rules) {
+		List<String> parts = new ArrayList<>();
+		int literalStart = 0;
+		int idx = 0;
+		for (;;) {
+			int start = argument.indexOf("${", idx);
+			if (start == -1) {
+				break;
+			}
+			int end = argument.indexOf('}', start + 2);
+			if (end == -1) {
+				break;
+			}
+			parts.add(argument.substring(literalStart, start));
+			parts.add(argument.substring(start + 2, end));
+			literalStart = end + 1;
+			idx = end + 1;
+		}
+		parts.add(argument.substring(literalStart));
+		return new Argument(parts.toArray(new String[parts.size()]), rules);
+	}
+
+	private final List<Argument> arguments;
+
+	private ArgumentTemplate(List<Argument> arguments) {
+		this.arguments = Collections.unmodifiableList(arguments);
+	}
+
+	/**
+	 * Resolves the template.
+	 * 
+	 * @param variables the values of the placeholders
+	 * @param features the enabled features
+	 * @return the arguments
+	 * @throws NullPointerException if <code>variables==null</code> or
+	 *             <code>features==null</code>
+	 */
+	public List<String> resolve(Map<String, String> variables, Set<String> features) {
+		Objects.requireNonNull(variables);
+		Objects.requireNonNull(features);
+		List<String> result = new ArrayList<>(arguments.size());
+		for (Argument argument : arguments) {
+			if (argument.isEnabled(features)) {
+				result.add(argument.resolve(variables));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the arguments as they were written, with the placeholders
+	 * unresolved.
+	 * 
+	 * @return the arguments, including the conditional ones
+	 */
+	public List<String> getArguments() {
+		List<String> result = new ArrayList<>(arguments.size());
+		for (Argument argument : arguments) {
+			result.add(argument.source());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the rules of each argument.
+	 * 
+	 * @return the rules, in the order of {@link #getArguments()}, an element
+	 *         is null if the argument is unconditional
+	 */
+	public List<List<FeatureRule>> getRules() {
+		List<List<FeatureRule>> result = new ArrayList<>(arguments.size());
+		for (Argument argument : arguments) {
+			result.add(argument.rules);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if the template has no arguments.
+	 * 
+	 * @return true if the template has no arguments
+	 */
+	public boolean isEmpty() {
+		return arguments.isEmpty();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof ArgumentTemplate) {
+			return arguments.equals(((ArgumentTemplate) obj).arguments);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return arguments.hashCode();
+	}
+
+	/**
+	 * Returns the unconditional arguments, separated by spaces.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Argument argument : arguments) {
+			if (argument.rules == null) {
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				sb.append(argument.source());
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -6,6 +6,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Objects;
 import org.to2mbn.jmccc.option.MinecraftDirectory;
 import org.to2mbn.jmccc.util.ChecksumUtils;
+import org.to2mbn.jmccc.util.VerificationJournal;
 
 public class Asset implements Serializable {
 
@@ -105,6 +106,22 @@ public class Asset implements Serializable {
 		return ChecksumUtils.verify(dir.getAsset(this), getHash(), "SHA-1", size);
 	}
 
+	/**
+	 * Validates the asset in the given mcdir, skipping the hash computation if
+	 * the asset file hasn't changed since it was last verified.
+	 * 
+	 * @param dir the mcdir where the asset is in
+	 * @param journal the verification journal
+	 * @return true if, and only if, the asset is valid
+	 * @throws IOException if an i/o error occurs
+	 * @throws NoSuchAlgorithmException if the default hash algorithm SHA-1
+	 *             doesn't exist
+	 * @see #isValid(MinecraftDirectory)
+	 */
+	public boolean isValid(MinecraftDirectory dir, VerificationJournal journal) throws IOException, NoSuchAlgorithmException {
+		return journal.verify(dir.getAsset(this), getHash(), "SHA-1", size);
+	}
+
 	@Override
 	public int hashCode() {
 		return hash.hashCode();
@@ -0,0 +1,360 @@
+package org.to2mbn.jmccc.version;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.to2mbn.jmccc.util.HexUtils;
+
+/**
+ * An immutable asset index in a compact form.
+ * <p>
+ * The assets are sorted by their virtual paths, and stored in columns: the
+ * sha1 hashes are packed into one byte array (20 bytes per asset), the sizes
+ * into one int array, and the virtual paths into one char buffer. No
+ * {@link Asset} object is kept, they are created when requested.
+ * <p>
+ * An asset can be looked up by its virtual path or by its hash in
+ * <code>O(log n)</code>.
+ *
+ * @see AssetIndexBuilder
+ */
+public final class AssetIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The length of a sha1 hash in bytes.
+	 */
+	static final int HASH_LENGTH = 20;
+
+	/**
+	 * Creates an asset index from the given assets. If several assets have the
+	 * same virtual path, only the first one is kept.
+	 *
+	 * @param assets the assets
+	 * @return the asset index
+	 * @throws NullPointerException if <code>assets==null</code>
+	 * @throws IllegalArgumentException if the hash of any asset is not a sha1
+	 *             hash
+	 */
+	public static AssetIndex of(Collection<Asset> assets) {
+		AssetIndexBuilder builder = AssetIndexBuilder.create();
+		for (Asset asset : assets) {
+			builder.add(asset);
+		}
+		return builder.build();
+	}
+
+	private final char[] paths;
+	private final int[] pathOffsets;
+	private final byte[] hashes;
+	private final int[] sizes;
+	private final int[] hashOrder;
+
+	private transient Set<Asset> set;
+
+	/**
+	 * @param paths the virtual paths, concatenated in the order of the assets
+	 * @param pathOffsets the offset of each virtual path in <code>paths</code>,
+	 *            followed by <code>paths.length</code>
+	 * @param hashes the packed hashes
+	 * @param sizes the sizes
+	 * @param hashOrder the indexes of the assets, sorted by the hashes
+	 */
+	AssetIndex(char[] paths, int[] pathOffsets, byte[] hashes, int[] sizes, int[] hashOrder) {
+		this.paths = paths;
+		this.pathOffsets = pathOffsets;
+		this.hashes = hashes;
+		this.sizes = sizes;
+		this.hashOrder = hashOrder;
+	}
+
+	/**
+	 * Gets the number of assets.
+	 *
+	 * @return the number of assets
+	 */
+	public int size() {
+		return sizes.length;
+	}
+
+	/**
+	 * Gets the virtual path of the asset at the given index.
+	 *
+	 * @param index the index of the asset
+	 * @return the virtual path
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public String getVirtualPath(int index) {
+		checkIndex(index);
+		return new String(paths, pathOffsets[index], pathOffsets[index + 1] - pathOffsets[index]);
+	}
+
+	/**
+	 * Gets the sha1 hash of the asset at the given index.
+	 *
+	 * @param index the index of the asset
+	 * @return the sha1 hash, in lowercase hexadecimal
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public String getHash(int index) {
+		checkIndex(index);
+		return HexUtils.bytesToHex(Arrays.copyOfRange(hashes, index * HASH_LENGTH, (index + 1) * HASH_LENGTH));
+	}
+
+	/**
+	 * Gets the size of the asset at the given index.
+	 *
+	 * @param index the index of the asset
+	 * @return the size
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public int getSize(int index) {
+		checkIndex(index);
+		return sizes[index];
+	}
+
+	/**
+	 * Gets the asset at the given index.
+	 *
+	 * @param index the index of the asset
+	 * @return the asset
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public Asset get(int index) {
+		return new Asset(getVirtualPath(index), getHash(index), getSize(index));
+	}
+
+	/**
+	 * Gets the asset with the given virtual path.
+	 *
+	 * @param virtualPath the virtual path
+	 * @return the asset, null if there is no such asset
+	 * @throws NullPointerException if <code>virtualPath==null</code>
+	 */
+	public Asset get(String virtualPath) {
+		int index = indexOf(virtualPath);
+		return index < 0 ? null : get(index);
+	}
+
+	/**
+	 * Searches for the asset with the given virtual path.
+	 *
+	 * @param virtualPath the virtual path
+	 * @return the index of the asset, -1 if there is no such asset
+	 * @throws NullPointerException if <code>virtualPath==null</code>
+	 */
+	public int indexOf(String virtualPath) {
+		Objects.requireNonNull(virtualPath);
+		int low = 0;
+		int high = sizes.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = comparePath(mid, virtualPath);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the assets with the given hash.
+	 * <p>
+	 * Several virtual paths may refer to the same object, so more than one
+	 * asset can be returned. They are sorted by their virtual paths.
+	 *
+	 * @param hash the sha1 hash
+	 * @return the assets with the given hash, an empty list if there is no such
+	 *         asset
+	 * @throws NullPointerException if <code>hash==null</code>
+	 */
+	public List<Asset> getByHash(String hash) {
+		Objects.requireNonNull(hash);
+		byte[] key = toHashBytes(hash);
+		if (key == null) {
+			return Collections.emptyList();
+		}
+
+		// find the first one with the hash
+		int low = 0;
+		int high = hashOrder.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compareHash(hashOrder[mid], key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		List<Asset> result = new ArrayList<>(1);
+		// hashOrder is stable, so the ones of the same hash are in path order
+		for (int i = low; i < hashOrder.length && compareHash(hashOrder[i], key) == 0; i++) {
+			result.add(get(hashOrder[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a read-only set view of the assets.
+	 * <p>
+	 * The set iterates over the assets in the order of their virtual paths.
+	 * {@link Set#contains(Object)} is a binary search.
+	 *
+	 * @return a set view of the assets
+	 */
+	public Set<Asset> asSet() {
+		if (set == null) {
+			set = new AssetSet();
+		}
+		return set;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof AssetIndex) {
+			AssetIndex another = (AssetIndex) obj;
+			return Arrays.equals(sizes, another.sizes)
+					&& Arrays.equals(hashes, another.hashes)
+					&& Arrays.equals(pathOffsets, another.pathOffsets)
+					&& Arrays.equals(paths, another.paths);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(hashes);
+	}
+
+	@Override
+	public String toString() {
+		return "AssetIndex [size=" + sizes.length + "]";
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= sizes.length) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+	}
+
+	/**
+	 * Compares the virtual path at the given index with the given string, in
+	 * the same order as {@link String#compareTo(String)}.
+	 */
+	private int comparePath(int index, String str) {
+		int offset = pathOffsets[index];
+		int length = pathOffsets[index + 1] - offset;
+		int n = Math.min(length, str.length());
+		for (int i = 0; i < n; i++) {
+			char c1 = paths[offset + i];
+			char c2 = str.charAt(i);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return length - str.length();
+	}
+
+	private int compareHash(int index, byte[] key) {
+		return compareHash(hashes, index, key, 0);
+	}
+
+	static int compareHash(byte[] a, int indexA, byte[] b, int indexB) {
+		int offsetA = indexA * HASH_LENGTH;
+		int offsetB = indexB * HASH_LENGTH;
+		for (int i = 0; i < HASH_LENGTH; i++) {
+			int cmp = (a[offsetA + i] & 0xff) - (b[offsetB + i] & 0xff);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Converts the given hash to bytes.
+	 *
+	 * @param hash the hash
+	 * @return the bytes, null if the hash is not a sha1 hash
+	 */
+	static byte[] toHashBytes(String hash) {
+		if (hash.length() != HASH_LENGTH * 2) {
+			return null;
+		}
+		try {
+			return HexUtils.hexToBytes(hash);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private class AssetSet extends AbstractSet<Asset> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Iterator<Asset> iterator() {
+			return new Iterator<Asset>() {
+
+				private int index;
+
+				@Override
+				public boolean hasNext() {
+					return index < sizes.length;
+				}
+
+				@Override
+				public Asset next() {
+					if (index >= sizes.length) {
+						throw new NoSuchElementException();
+					}
+					return get(index++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return sizes.length;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Asset)) {
+				return false;
+			}
+			Asset asset = (Asset) o;
+			int index = indexOf(asset.getVirtualPath());
+			if (index < 0 || sizes[index] != asset.getSize()) {
+				return false;
+			}
+			// the hashes are compared as bytes, so the case doesn't matter
+			byte[] key = toHashBytes(asset.getHash());
+			return key != null && compareHash(index, key) == 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+package org.to2mbn.jmccc.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.to2mbn.jmccc.util.Builder;
+
+/**
+ * Builds an {@link AssetIndex}.
+ * <p>
+ * The assets can be added in any order. If several assets have the same
+ * virtual path, only the first one is kept.
+ */
+public class AssetIndexBuilder implements Builder<AssetIndex> {
+
+	public static AssetIndexBuilder create() {
+		return new AssetIndexBuilder();
+	}
+
+	private final List<String> paths = new ArrayList<>();
+	private byte[] hashes = new byte[AssetIndex.HASH_LENGTH * 16];
+	private int[] sizes = new int[16];
+
+	protected AssetIndexBuilder() {
+	}
+
+	/**
+	 * Adds an asset.
+	 *
+	 * @param asset the asset
+	 * @return the builder itself
+	 * @throws NullPointerException if <code>asset==null</code>
+	 * @throws IllegalArgumentException if the hash of the asset is not a sha1
+	 *             hash
+	 */
+	public AssetIndexBuilder add(Asset asset) {
+		return add(asset.getVirtualPath(), asset.getHash(), asset.getSize());
+	}
+
+	/**
+	 * Adds an asset.
+	 *
+	 * @param virtualPath the virtual path
+	 * @param hash the sha1 hash
+	 * @param size the size
+	 * @return the builder itself
+	 * @throws NullPointerException if
+	 *             <code>virtualPath == null || hash == null</code>
+	 * @throws IllegalArgumentException if <code>size &lt; 0</code>, or the hash
+	 *             is not a sha1 hash
+	 */
+	public AssetIndexBuilder add(String virtualPath, String hash, int size) {
+		Objects.requireNonNull(virtualPath);
+		Objects.requireNonNull(hash);
+		if (size < 0)
+			throw new IllegalArgumentException("size < 0");
+		byte[] hashBytes = AssetIndex.toHashBytes(hash);
+		if (hashBytes == null)
+			throw new IllegalArgumentException("Not a sha1 hash: " + hash);
+
+		int index = paths.size();
+		if (index == sizes.length) {
+			sizes = Arrays.copyOf(sizes, index * 2);
+			hashes = Arrays.copyOf(hashes, index * 2 * AssetIndex.HASH_LENGTH);
+		}
+		paths.add(virtualPath);
+		System.arraycopy(hashBytes, 0, hashes, index * AssetIndex.HASH_LENGTH, AssetIndex.HASH_LENGTH);
+		sizes[index] = size;
+		return this;
+	}
+
+	@Override
+	public AssetIndex build() {
+		// stable, so the first one of the same path stays in front
+		int[] order = sortIndexes(paths.size(), new IndexComparator() {
+
+			@Override
+			public int compare(int a, int b) {
+				return paths.get(a).compareTo(paths.get(b));
+			}
+		});
+
+		int n = 0;
+		int chars = 0;
+		for (int i = 0; i < order.length; i++) {
+			if (n == 0 || !paths.get(order[n - 1]).equals(paths.get(order[i]))) {
+				order[n++] = order[i];
+				chars += paths.get(order[i]).length();
+			}
+		}
+
+		char[] newPaths = new char[chars];
+		int[] newPathOffsets = new int[n + 1];
+		final byte[] newHashes = new byte[n * AssetIndex.HASH_LENGTH];
+		int[] newSizes = new int[n];
+		int offset = 0;
+		for (int i = 0; i < n; i++) {
+			String path = paths.get(order[i]);
+			path.getChars(0, path.length(), newPaths, offset);
+			newPathOffsets[i] = offset;
+			offset += path.length();
+			System.arraycopy(hashes, order[i] * AssetIndex.HASH_LENGTH, newHashes, i * AssetIndex.HASH_LENGTH, AssetIndex.HASH_LENGTH);
+			newSizes[i] = sizes[order[i]];
+		}
+		newPathOffsets[n] = offset;
+
+		// stable, so the ones of the same hash stay in path order
+		int[] hashOrder = sortIndexes(n, new IndexComparator() {
+
+			@Override
+			public int compare(int a, int b) {
+				return AssetIndex.compareHash(newHashes, a, newHashes, b);
+			}
+		});
+
+		return new AssetIndex(newPaths, newPathOffsets, newHashes, newSizes, hashOrder);
+	}
+
+	private interface IndexComparator {
+
+		int compare(int a, int b);
+	}
+
+	/**
+	 * Sorts the indexes <code>0..n-1</code> with a stable bottom-up merge sort,
+	 * without boxing them.
+	 */
+	private static int[] sortIndexes(int n, IndexComparator comparator) {
+		int[] src = new int[n];
+		for (int i = 0; i < n; i++) {
+			src[i] = i;
+		}
+		int[] dest = new int[n];
+		for (int width = 1; width < n; width <<= 1) {
+			for (int low = 0; low < n; low += width << 1) {
+				int mid = Math.min(low + width, n);
+				int high = Math.min(low + (width << 1), n);
+				int i = low;
+				int j = mid;
+				int k = low;
+				while (i < mid && j < high) {
+					// takes the left one on ties, which keeps the sort stable
+					dest[k++] = comparator.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+				}
+				while (i < mid) {
+					dest[k++] = src[i++];
+				}
+				while (j < high) {
+					dest[k++] = src[j++];
+				}
+			}
+			int[] swap = src;
+			src = dest;
+			dest = swap;
+		}
+		return src;
+	}
+
+}
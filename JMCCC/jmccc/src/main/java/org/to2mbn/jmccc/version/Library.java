@@ -1,5 +1,6 @@
 package org.to2mbn.jmccc.version;
 
+import java.io.IOException;
 import java.util.Objects;
 import org.to2mbn.jmccc.option.MinecraftDirectory;
 
@@ -45,12 +46,20 @@ public class Library extends Artifact {
 
 	/**
 	 * Checks if the library is missing in the given minecraft directory.
+	 * <p>
+	 * If the minecraft directory has a shared object store, the library will
+	 * be linked from the store when possible. If it cannot be linked, it's
+	 * reported as missing.
 	 * 
 	 * @param minecraftDir the minecraft directory to check
 	 * @return true if the library is missing
 	 */
 	public boolean isMissing(MinecraftDirectory minecraftDir) {
-		return !minecraftDir.getLibrary(this).isFile();
+		try {
+			return !minecraftDir.resolveLibrary(this).isFile();
+		} catch (IOException e) {
+			return true;
+		}
 	}
 
 	@Override
@@ -22,6 +22,8 @@ public class Version implements Serializable {
 	private boolean legacy;
 	private AssetIndexInfo assetIndexDownloadInfo;
 	private Map<String, DownloadInfo> downloads;
+	private ArgumentTemplate gameArguments;
+	private ArgumentTemplate jvmArguments;
 
 	/**
 	 * Constructor of Version.
@@ -41,6 +43,31 @@ public class Version implements Serializable {
 	 *             assetIndexDownloadInfo) is null
 	 */
 	public Version(String version, String type, String mainClass, String assets, String launchArgs, String root, Set<Library> libraries, boolean legacy, AssetIndexInfo assetIndexDownloadInfo, Map<String, DownloadInfo> downloads) {
+		this(version, type, mainClass, assets, launchArgs, root, libraries, legacy, assetIndexDownloadInfo, downloads, null, null);
+	}
+
+	/**
+	 * Constructor of Version.
+	 * 
+	 * @param version the version number
+	 * @param type the type of the version, or null if the type is unknown
+	 * @param mainClass the main class
+	 * @param assets the assets index name
+	 * @param launchArgs the launch arguments
+	 * @param root the root of the version hierarchy
+	 * @param libraries the libraries to add to classpath
+	 * @param legacy true if this version is lower than 1.7.10, as well as using
+	 *            the legacy assets index
+	 * @param assetIndexDownloadInfo the asset download info, can be null
+	 * @param downloads the download infos
+	 * @param gameArguments the compiled game arguments, null to compile them
+	 *            from <code>launchArgs</code>
+	 * @param jvmArguments the compiled jvm arguments, null if the version does
+	 *            not specify them
+	 * @throws NullPointerException if any of the arguments (except type,
+	 *             assetIndexDownloadInfo, gameArguments, jvmArguments) is null
+	 */
+	public Version(String version, String type, String mainClass, String assets, String launchArgs, String root, Set<Library> libraries, boolean legacy, AssetIndexInfo assetIndexDownloadInfo, Map<String, DownloadInfo> downloads, ArgumentTemplate gameArguments, ArgumentTemplate jvmArguments) {
 		this.version = Objects.requireNonNull(version);
 		this.type = type;
 		this.mainClass = Objects.requireNonNull(mainClass);
@@ -51,6 +78,8 @@ public class Version implements Serializable {
 		this.legacy = legacy;
 		this.assetIndexDownloadInfo = assetIndexDownloadInfo;
 		this.downloads = Objects.requireNonNull(downloads);
+		this.gameArguments = gameArguments == null ? ArgumentTemplate.parse(launchArgs) : gameArguments;
+		this.jvmArguments = jvmArguments;
 	}
 
 	/**
@@ -102,6 +131,34 @@ public class Version implements Serializable {
 		return launchArgs;
 	}
 
+	/**
+	 * Gets the compiled game arguments.
+	 * <p>
+	 * Unlike {@link #getLaunchArgs()}, this includes the arguments which depend
+	 * on the features of the launch.
+	 * 
+	 * @return the compiled game arguments
+	 */
+	public ArgumentTemplate getGameArguments() {
+		if (gameArguments == null) {
+			// deserialized from an older form
+			gameArguments = ArgumentTemplate.parse(launchArgs);
+		}
+		return gameArguments;
+	}
+
+	/**
+	 * Gets the compiled jvm arguments.
+	 * <p>
+	 * Only the versions in the 1.13+ format specify jvm arguments.
+	 * 
+	 * @return the compiled jvm arguments, null if the version does not specify
+	 *         them
+	 */
+	public ArgumentTemplate getJvmArguments() {
+		return jvmArguments;
+	}
+
 	/**
 	 * Gets the root of the version hierarchy.
 	 * <p>
@@ -188,14 +245,16 @@ public class Version implements Serializable {
 					&& Objects.equals(libraries, another.libraries)
 					&& legacy == another.legacy
 					&& Objects.equals(assetIndexDownloadInfo, another.assetIndexDownloadInfo)
-					&& Objects.equals(downloads, another.downloads);
+					&& Objects.equals(downloads, another.downloads)
+					&& Objects.equals(getGameArguments(), another.getGameArguments())
+					&& Objects.equals(jvmArguments, another.jvmArguments);
 		}
 		return false;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(version, libraries);
+		return Objects.hash(version, libraries, getGameArguments(), jvmArguments);
 	}
 
 	@Override
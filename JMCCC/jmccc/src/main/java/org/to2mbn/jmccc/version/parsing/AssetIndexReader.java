@@ -0,0 +1,144 @@
+package org.to2mbn.jmccc.version.parsing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import org.to2mbn.jmccc.internal.org.json.JSONException;
+import org.to2mbn.jmccc.internal.org.json.JSONTokener;
+import org.to2mbn.jmccc.version.AssetIndex;
+import org.to2mbn.jmccc.version.AssetIndexBuilder;
+
+/**
+ * Reads an asset index without building a json tree.
+ * <p>
+ * The asset index looks like:
+ * 
+ * <pre>
+ * {
+ *   "objects": {
+ *     "&lt;virtual path&gt;": { "hash": "&lt;sha1&gt;", "size": &lt;size&gt; },
+ *     ......
+ *   },
+ *   ......
+ * }
+ * </pre>
+ * 
+ * The other members are skipped.
+ */
+class AssetIndexReader {
+
+	static AssetIndex read(File file) throws IOException, JSONException {
+		try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 65536)) {
+			return new AssetIndexReader(new JSONTokener(reader)).read();
+		}
+	}
+
+	private final JSONTokener tokener;
+	private final AssetIndexBuilder builder = AssetIndexBuilder.create();
+
+	AssetIndexReader(JSONTokener tokener) {
+		this.tokener = tokener;
+	}
+
+	AssetIndex read() throws JSONException {
+		expect('{');
+		if (!isEmptyObject()) {
+			do {
+				String key = nextKey();
+				if ("objects".equals(key)) {
+					readObjects();
+				} else {
+					tokener.nextValue();
+				}
+			} while (hasMoreMembers());
+		}
+		return builder.build();
+	}
+
+	private void readObjects() throws JSONException {
+		expect('{');
+		if (isEmptyObject()) {
+			return;
+		}
+		do {
+			String virtualPath = nextKey();
+			String hash = null;
+			int size = -1;
+			expect('{');
+			if (!isEmptyObject()) {
+				do {
+					String key = nextKey();
+					if ("hash".equals(key)) {
+						Object value = tokener.nextValue();
+						if (!(value instanceof String)) {
+							throw tokener.syntaxError("hash is not a string");
+						}
+						hash = (String) value;
+					} else if ("size".equals(key)) {
+						Object value = tokener.nextValue();
+						if (!(value instanceof Number)) {
+							throw tokener.syntaxError("size is not a number");
+						}
+						size = ((Number) value).intValue();
+					} else {
+						tokener.nextValue();
+					}
+				} while (hasMoreMembers());
+			}
+			if (hash == null || size == -1) {
+				throw tokener.syntaxError("Missing hash or size of " + virtualPath);
+			}
+			try {
+				builder.add(virtualPath, hash, size);
+			} catch (IllegalArgumentException e) {
+				throw tokener.syntaxError("Invalid asset " + virtualPath + ": " + e.getMessage());
+			}
+		} while (hasMoreMembers());
+	}
+
+	private String nextKey() throws JSONException {
+		char c = tokener.nextClean();
+		if (c != '"') {
+			throw tokener.syntaxError("A JSONObject key must be a string");
+		}
+		String key = tokener.nextString('"');
+		expect(':');
+		return key;
+	}
+
+	private boolean isEmptyObject() throws JSONException {
+		if (tokener.nextClean() == '}') {
+			return true;
+		}
+		tokener.back();
+		return false;
+	}
+
+	/**
+	 * Consumes the ',' after a member, or the '}' which ends the object.
+	 * 
+	 * @return true if another member follows
+	 */
+	private boolean hasMoreMembers() throws JSONException {
+		switch (tokener.nextClean()) {
+			case ',':
+				return true;
+			case '}':
+				return false;
+			default:
+				throw tokener.syntaxError("Expected a ',' or '}'");
+		}
+	}
+
+	private void expect(char expected) throws JSONException {
+		char c = tokener.nextClean();
+		if (c != expected) {
+			throw tokener.syntaxError("Expected '" + expected + "'");
+		}
+	}
+
+}
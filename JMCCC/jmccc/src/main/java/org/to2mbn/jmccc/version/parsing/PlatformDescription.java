@@ -6,17 +6,29 @@ import org.to2mbn.jmccc.util.Platform;
 public class PlatformDescription {
 
 	public static PlatformDescription current() {
-		return new PlatformDescription(Platform.CURRENT, System.getProperty("os.version"), Platform.isX64() ? "64" : "32");
+		return new PlatformDescription(Platform.CURRENT, System.getProperty("os.version"), Platform.isX64() ? "64" : "32", System.getProperty("os.arch"));
 	}
 
 	private Platform platform;
 	private String version;
 	private String arch;
+	private String osArch;
 
 	public PlatformDescription(Platform platform, String version, String arch) {
+		this(platform, version, arch, null);
+	}
+
+	/**
+	 * @param platform the platform
+	 * @param version the os version, can be null
+	 * @param arch the data model, "32" or "64"
+	 * @param osArch the value of <code>os.arch</code>, can be null
+	 */
+	public PlatformDescription(Platform platform, String version, String arch, String osArch) {
 		this.platform = Objects.requireNonNull(platform);
 		this.version = version;
 		this.arch = arch;
+		this.osArch = osArch;
 	}
 
 	public Platform getPlatform() {
@@ -31,9 +43,13 @@ public class PlatformDescription {
 		return arch;
 	}
 
+	public String getOsArch() {
+		return osArch;
+	}
+
 	@Override
 	public int hashCode() {
-		return Objects.hash(platform, version, arch);
+		return Objects.hash(platform, version, arch, osArch);
 	}
 
 	@Override
@@ -45,14 +61,15 @@ public class PlatformDescription {
 			PlatformDescription another = (PlatformDescription) obj;
 			return platform == another.platform
 					&& Objects.equals(version, another.version)
-					&& Objects.equals(arch, another.arch);
+					&& Objects.equals(arch, another.arch)
+					&& Objects.equals(osArch, another.osArch);
 		}
 		return false;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("PlatformDescription [platform=%s, version=%s, arch=%s]", platform, version, arch);
+		return String.format("PlatformDescription [platform=%s, version=%s, arch=%s, osArch=%s]", platform, version, arch, osArch);
 	}
 
 }
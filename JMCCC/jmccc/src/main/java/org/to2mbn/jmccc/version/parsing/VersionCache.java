@@ -0,0 +1,421 @@
+package org.to2mbn.jmccc.version.parsing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.util.FileUtils;
+import org.to2mbn.jmccc.version.ArgumentTemplate;
+import org.to2mbn.jmccc.version.ArgumentTemplate.FeatureRule;
+import org.to2mbn.jmccc.version.AssetIndexInfo;
+import org.to2mbn.jmccc.version.DownloadInfo;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.LibraryInfo;
+import org.to2mbn.jmccc.version.Native;
+import org.to2mbn.jmccc.version.Version;
+
+/**
+ * Stores resolved versions next to their json files.
+ * <p>
+ * The cache file starts with a header:
+ *
+ * <pre>
+ * int     magic
+ * int     format version
+ * string  platform, os version, arch, os.arch (the last three are nullable)
+ * int     number of json files in the hierarchy
+ * (string version, byte[20] sha1)  for each json file, from the child to the root
+ * </pre>
+ *
+ * followed by the fields of the {@link Version}, its libraries and its
+ * argument templates, written one by one. An entry is used only if it was
+ * resolved for the same platform, and every json file in the hierarchy still
+ * has the same hash. A hit doesn't touch the json parser at all.
+ * <p>
+ * Only plain data is read back, so a tampered cache file can at worst make
+ * the entry invalid.
+ */
+final class VersionCache {
+
+	private static final String FILE_SUFFIX = ".jmccc-version";
+	private static final int MAGIC = 0x4a4d5643; // JMVC
+	private static final int FORMAT_VERSION = 3;
+
+	// a version usually inherits from one or two others
+	private static final int MAX_HIERARCHY = 64;
+	private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+	private static final byte LIBRARY = 0;
+	private static final byte NATIVE = 1;
+
+	/**
+	 * Loads the cached version.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param version the version name
+	 * @param platform the platform the version is resolved for
+	 * @return the cached version, null if no valid entry is cached
+	 */
+	static Version load(MinecraftDirectory mcdir, String version, PlatformDescription platform) {
+		File file = getCacheFile(mcdir, version);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC
+					|| in.readInt() != FORMAT_VERSION
+					|| !platform.getPlatform().name().equals(in.readUTF())
+					|| !Objects.equals(platform.getVersion(), readNullableUTF(in))
+					|| !Objects.equals(platform.getArch(), readNullableUTF(in))
+					|| !Objects.equals(platform.getOsArch(), readNullableUTF(in))) {
+				return null;
+			}
+
+			// the child itself is always in the hierarchy
+			int count = in.readInt();
+			if (count <= 0 || count > MAX_HIERARCHY) {
+				return null;
+			}
+			byte[] hash = new byte[20];
+			for (int i = 0; i < count; i++) {
+				String current = in.readUTF();
+				if (i == 0 && !current.equals(version)) {
+					return null;
+				}
+				in.readFully(hash);
+				File json = mcdir.getVersionJson(current);
+				if (!json.isFile() || !Arrays.equals(hash, hash(Files.readAllBytes(json.toPath())))) {
+					return null;
+				}
+			}
+
+			Version result = readVersion(in);
+			if (in.read() != -1) {
+				return null;
+			}
+			return result;
+		} catch (IOException | RuntimeException e) {
+			// it's only a cache
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the resolved version.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @param platform the platform the version is resolved for
+	 * @param hierarchy the versions in the hierarchy, from the child to the
+	 *            root
+	 * @param hashes the sha1 hashes of the json files in the hierarchy
+	 * @param resolved the resolved version
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void save(MinecraftDirectory mcdir, PlatformDescription platform, List<String> hierarchy, List<byte[]> hashes, Version resolved) throws IOException {
+		File file = getCacheFile(mcdir, hierarchy.get(0));
+		File tmp = FileUtils.createTempFile(file);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(platform.getPlatform().name());
+			writeNullableUTF(out, platform.getVersion());
+			writeNullableUTF(out, platform.getArch());
+			writeNullableUTF(out, platform.getOsArch());
+			out.writeInt(hierarchy.size());
+			for (int i = 0; i < hierarchy.size(); i++) {
+				out.writeUTF(hierarchy.get(i));
+				out.write(hashes.get(i));
+			}
+
+			writeVersion(out, resolved);
+		} catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		FileUtils.replace(tmp, file);
+	}
+
+	static byte[] hash(byte[] data) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(data);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported", e);
+		}
+	}
+
+	private static void writeVersion(DataOutputStream out, Version version) throws IOException {
+		writeString(out, version.getVersion());
+		writeString(out, version.getType());
+		writeString(out, version.getMainClass());
+		writeString(out, version.getAssets());
+		writeString(out, version.getLaunchArgs());
+		writeString(out, version.getRoot());
+		out.writeBoolean(version.isLegacy());
+
+		AssetIndexInfo assetIndex = version.getAssetIndexDownloadInfo();
+		out.writeBoolean(assetIndex != null);
+		if (assetIndex != null) {
+			writeDownloadInfo(out, assetIndex);
+			writeString(out, assetIndex.getId());
+			out.writeLong(assetIndex.getTotalSize());
+		}
+
+		Map<String, DownloadInfo> downloads = version.getDownloads();
+		out.writeInt(downloads.size());
+		for (Map.Entry<String, DownloadInfo> entry : downloads.entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeBoolean(entry.getValue() != null);
+			if (entry.getValue() != null) {
+				writeDownloadInfo(out, entry.getValue());
+			}
+		}
+
+		Set<Library> libraries = version.getLibraries();
+		out.writeInt(libraries.size());
+		for (Library library : libraries) {
+			writeLibrary(out, library);
+		}
+
+		writeTemplate(out, version.getGameArguments());
+		out.writeBoolean(version.getJvmArguments() != null);
+		if (version.getJvmArguments() != null) {
+			writeTemplate(out, version.getJvmArguments());
+		}
+	}
+
+	private static Version readVersion(DataInputStream in) throws IOException {
+		String version = readString(in);
+		String type = readString(in);
+		String mainClass = readString(in);
+		String assets = readString(in);
+		String launchArgs = readString(in);
+		String root = readString(in);
+		boolean legacy = in.readBoolean();
+
+		AssetIndexInfo assetIndex = null;
+		if (in.readBoolean()) {
+			DownloadInfo info = readDownloadInfo(in);
+			assetIndex = new AssetIndexInfo(info.getUrl(), info.getChecksum(), info.getSize(), readString(in), in.readLong());
+		}
+
+		int downloadCount = readCount(in);
+		Map<String, DownloadInfo> downloads = new HashMap<>();
+		for (int i = 0; i < downloadCount; i++) {
+			downloads.put(readString(in), in.readBoolean() ? readDownloadInfo(in) : null);
+		}
+
+		int libraryCount = readCount(in);
+		Set<Library> libraries = new LinkedHashSet<>();
+		for (int i = 0; i < libraryCount; i++) {
+			libraries.add(readLibrary(in));
+		}
+
+		ArgumentTemplate gameArguments = readTemplate(in);
+		ArgumentTemplate jvmArguments = in.readBoolean() ? readTemplate(in) : null;
+
+		return new Version(version, type, mainClass, assets, launchArgs, root, libraries, legacy, assetIndex, downloads, gameArguments, jvmArguments);
+	}
+
+	private static void writeLibrary(DataOutputStream out, Library library) throws IOException {
+		out.writeByte(library instanceof Native ? NATIVE : LIBRARY);
+		writeString(out, library.getGroupId());
+		writeString(out, library.getArtifactId());
+		writeString(out, library.getVersion());
+		writeString(out, library.getClassifier());
+		writeString(out, library.getType());
+
+		LibraryInfo info = library.getDownloadInfo();
+		out.writeBoolean(info != null);
+		if (info != null) {
+			writeDownloadInfo(out, info);
+			writeString(out, info.getPath());
+		}
+
+		writeString(out, library.getCustomizedUrl());
+		writeStrings(out, library.getChecksums() == null ? null : Arrays.asList(library.getChecksums()));
+		if (library instanceof Native) {
+			Set<String> excludes = ((Native) library).getExtractExcludes();
+			writeStrings(out, excludes == null ? null : new ArrayList<>(excludes));
+		}
+	}
+
+	private static Library readLibrary(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		if (kind != LIBRARY && kind != NATIVE) {
+			throw new IOException("Unknown library kind: " + kind);
+		}
+		String groupId = readString(in);
+		String artifactId = readString(in);
+		String version = readString(in);
+		String classifier = readString(in);
+		String type = readString(in);
+
+		LibraryInfo info = null;
+		if (in.readBoolean()) {
+			DownloadInfo base = readDownloadInfo(in);
+			info = new LibraryInfo(base.getUrl(), base.getChecksum(), base.getSize(), readString(in));
+		}
+
+		String customizedUrl = readString(in);
+		List<String> checksums = readStrings(in);
+		String[] checksumsArray = checksums == null ? null : checksums.toArray(new String[checksums.size()]);
+		if (kind == NATIVE) {
+			List<String> excludes = readStrings(in);
+			return new Native(groupId, artifactId, version, classifier, type, info, customizedUrl, checksumsArray, excludes == null ? null : new LinkedHashSet<>(excludes));
+		}
+		return new Library(groupId, artifactId, version, classifier, type, info, customizedUrl, checksumsArray);
+	}
+
+	private static void writeDownloadInfo(DataOutputStream out, DownloadInfo info) throws IOException {
+		writeString(out, info.getUrl());
+		writeString(out, info.getChecksum());
+		out.writeLong(info.getSize());
+	}
+
+	private static DownloadInfo readDownloadInfo(DataInputStream in) throws IOException {
+		return new DownloadInfo(readString(in), readString(in), in.readLong());
+	}
+
+	private static void writeTemplate(DataOutputStream out, ArgumentTemplate template) throws IOException {
+		List<String> arguments = template.getArguments();
+		List<List<FeatureRule>> rules = template.getRules();
+		out.writeInt(arguments.size());
+		for (int i = 0; i < arguments.size(); i++) {
+			writeString(out, arguments.get(i));
+			List<FeatureRule> argumentRules = rules.get(i);
+			out.writeInt(argumentRules == null ? -1 : argumentRules.size());
+			if (argumentRules != null) {
+				for (FeatureRule rule : argumentRules) {
+					out.writeBoolean(rule.isAllow());
+					out.writeInt(rule.getFeatures().size());
+					for (Map.Entry<String, Boolean> feature : rule.getFeatures().entrySet()) {
+						writeString(out, feature.getKey());
+						out.writeBoolean(feature.getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private static ArgumentTemplate readTemplate(DataInputStream in) throws IOException {
+		int count = readCount(in);
+		List<ArgumentTemplate> arguments = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String argument = readString(in);
+			int ruleCount = in.readInt();
+			List<FeatureRule> rules = null;
+			if (ruleCount != -1) {
+				if (ruleCount < 0) {
+					throw new IOException("Negative count: " + ruleCount);
+				}
+				rules = new ArrayList<>(ruleCount);
+				for (int j = 0; j < ruleCount; j++) {
+					boolean allow = in.readBoolean();
+					int featureCount = readCount(in);
+					Map<String, Boolean> features = new LinkedHashMap<>();
+					for (int k = 0; k < featureCount; k++) {
+						features.put(readString(in), in.readBoolean());
+					}
+					rules.add(new FeatureRule(allow, Collections.unmodifiableMap(features)));
+				}
+			}
+			arguments.add(ArgumentTemplate.conditional(Collections.singletonList(argument), rules));
+		}
+		return ArgumentTemplate.concat(arguments);
+	}
+
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+		out.writeInt(strings == null ? -1 : strings.size());
+		if (strings != null) {
+			for (String str : strings) {
+				writeString(out, str);
+			}
+		}
+	}
+
+	private static List<String> readStrings(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count == -1) {
+			return null;
+		}
+		if (count < 0) {
+			throw new IOException("Negative count: " + count);
+		}
+		List<String> result = new ArrayList<>(Math.min(count, 1024));
+		for (int i = 0; i < count; i++) {
+			result.add(readString(in));
+		}
+		return result;
+	}
+
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Negative count: " + count);
+		}
+		return count;
+	}
+
+	// unlike writeUTF, this isn't limited to 64K and allows null
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] data = str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(data.length);
+			out.write(data);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > MAX_STRING_LENGTH) {
+			throw new IOException("Illegal string length: " + length);
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		return new String(data, StandardCharsets.UTF_8);
+	}
+
+	private static File getCacheFile(MinecraftDirectory mcdir, String version) {
+		return new File(mcdir.getVersion(version), version + FILE_SUFFIX);
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, String str) throws IOException {
+		out.writeBoolean(str != null);
+		if (str != null) {
+			out.writeUTF(str);
+		}
+	}
+
+	private static String readNullableUTF(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private VersionCache() {
+	}
+
+}
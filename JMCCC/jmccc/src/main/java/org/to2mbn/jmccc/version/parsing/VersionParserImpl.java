@@ -3,7 +3,10 @@ package org.to2mbn.jmccc.version.parsing;
 import org.to2mbn.jmccc.internal.org.json.JSONArray;
 import org.to2mbn.jmccc.internal.org.json.JSONException;
 import org.to2mbn.jmccc.internal.org.json.JSONObject;
+import org.to2mbn.jmccc.version.ArgumentTemplate;
+import org.to2mbn.jmccc.version.ArgumentTemplate.FeatureRule;
 import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.AssetIndexBuilder;
 import org.to2mbn.jmccc.version.AssetIndexInfo;
 import org.to2mbn.jmccc.version.DownloadInfo;
 import org.to2mbn.jmccc.version.Library;
@@ -11,16 +14,18 @@ import org.to2mbn.jmccc.version.LibraryInfo;
 import org.to2mbn.jmccc.version.Native;
 import org.to2mbn.jmccc.version.Version;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 class VersionParserImpl implements VersionParser {
 
@@ -95,21 +100,18 @@ class VersionParserImpl implements VersionParser {
         if (json == null) return null;
 
         JSONObject objects = json.getJSONObject("objects");
-        Set<Asset> assets = new TreeSet<>(new Comparator<Asset>() {
-
-            @Override
-            public int compare(Asset o1, Asset o2) {
-                return o1.getVirtualPath().compareTo(o2.getVirtualPath());
-            }
-        });
-        for (Object rawVirtualPath : objects.keySet()) {
-            String virtualPath = (String) rawVirtualPath;
+        AssetIndexBuilder builder = AssetIndexBuilder.create();
+        for (String virtualPath : objects.keySet()) {
             JSONObject object = objects.getJSONObject(virtualPath);
             String hash = object.getString("hash");
             int size = object.getInt("size");
-            assets.add(new Asset(virtualPath, hash, size));
+            try {
+                builder.add(virtualPath, hash, size);
+            } catch (IllegalArgumentException e) {
+                throw new JSONException("Invalid asset " + virtualPath, e);
+            }
         }
-        return Collections.unmodifiableSet(assets);
+        return builder.build().asSet();
     }
 
     @Override
@@ -119,7 +121,8 @@ class VersionParserImpl implements VersionParser {
 
         String assets = "legacy";
         String mainClass = null;
-        String launchArgs = null;
+        List<ArgumentTemplate> gameArguments = null;
+        List<ArgumentTemplate> jvmArguments = null;
         String type = null;
         Map<String, Library> librariesMap = new TreeMap<>();
         Map<String, DownloadInfo> downloads = new TreeMap<>();
@@ -131,13 +134,24 @@ class VersionParserImpl implements VersionParser {
 
             assets = json.optString("assets", assets);
             mainClass = json.optString("mainClass", mainClass);
-            // 1.13
+            // 1.13, appended to the arguments of the parent
             if (json.has("arguments")) {
-                launchArgs = parseArguments(json.getJSONObject("arguments"));
+                JSONObject arguments = json.getJSONObject("arguments");
+                if (gameArguments == null) {
+                    gameArguments = new ArrayList<>();
+                }
+                gameArguments.add(parseArguments(arguments.optJSONArray("game"), platformDescription));
+                if (arguments.has("jvm")) {
+                    if (jvmArguments == null) {
+                        jvmArguments = new ArrayList<>();
+                    }
+                    jvmArguments.add(parseArguments(arguments.getJSONArray("jvm"), platformDescription));
+                }
             }
-            // older
+            // older, replaces the arguments of the parent
             else if (json.has("minecraftArguments")) {
-                launchArgs = json.getString("minecraftArguments");
+                gameArguments = new ArrayList<>();
+                gameArguments.add(ArgumentTemplate.parse(json.getString("minecraftArguments")));
             }
             type = json.optString("type", type);
 
@@ -165,34 +179,137 @@ class VersionParserImpl implements VersionParser {
 
         if (mainClass == null)
             throw new JSONException("Missing mainClass");
-        if (launchArgs == null)
+        if (gameArguments == null)
             throw new JSONException("Missing minecraftArguments");
 
+        ArgumentTemplate gameTemplate = ArgumentTemplate.concat(gameArguments);
+        ArgumentTemplate jvmTemplate = jvmArguments == null ? null : ArgumentTemplate.concat(jvmArguments);
+
         Set<Library> libraries = new LinkedHashSet<>(librariesMap.values());
 
         return new Version(version,
                 type,
                 mainClass,
                 assets,
-                launchArgs,
+                gameTemplate.toString(),
                 root,
                 Collections.unmodifiableSet(libraries),
                 assets.equals("legacy"),
                 assetIndexInfo,
-                Collections.unmodifiableMap(downloads));
+                Collections.unmodifiableMap(downloads),
+                gameTemplate,
+                jvmTemplate);
     }
 
-    private String parseArguments(JSONObject arguments) {
-        StringBuilder sb = new StringBuilder();
-        if (arguments.has("game")) {
-            JSONArray game = arguments.getJSONArray("game");
-            game.forEach((o) -> {
-                if (o instanceof String) {
-                    sb.append(o).append(" ");
+    private ArgumentTemplate parseArguments(JSONArray json, PlatformDescription platformDescription) throws JSONException {
+        List<ArgumentTemplate> arguments = new ArrayList<>();
+        if (json != null) {
+            for (Object element : json) {
+                if (element instanceof String) {
+                    arguments.add(ArgumentTemplate.of(Collections.singletonList((String) element)));
+                } else {
+                    ArgumentTemplate argument = parseConditionalArgument((JSONObject) element, platformDescription);
+                    if (argument != null) {
+                        arguments.add(argument);
+                    }
+                }
+            }
+        }
+        return ArgumentTemplate.concat(arguments);
+    }
+
+    private ArgumentTemplate parseConditionalArgument(JSONObject json, PlatformDescription platformDescription) throws JSONException {
+        List<String> values = new ArrayList<>();
+        Object value = json.get("value");
+        if (value instanceof JSONArray) {
+            for (Object element : (JSONArray) value) {
+                values.add((String) element);
+            }
+        } else {
+            values.add((String) value);
+        }
+
+        JSONArray rules = json.optJSONArray("rules");
+        if (rules == null || rules.length() == 0) {
+            return ArgumentTemplate.of(values);
+        }
+
+        // os rules are decided now, feature rules are left to the launch
+        List<FeatureRule> featureRules = new ArrayList<>();
+        boolean conditional = false;
+        boolean allow = false;
+        for (int i = 0; i < rules.length(); i++) {
+            JSONObject rule = rules.getJSONObject(i);
+            JSONObject osRule = rule.optJSONObject("os");
+            if (osRule != null && !osMatches(osRule, platformDescription, true)) {
+                continue;
+            }
+
+            boolean action = rule.get("action").equals("allow");
+            JSONObject jsonFeatures = rule.optJSONObject("features");
+            Map<String, Boolean> features = new LinkedHashMap<>();
+            if (jsonFeatures != null) {
+                for (String feature : jsonFeatures.keySet()) {
+                    features.put(feature, jsonFeatures.getBoolean(feature));
                 }
-            });
+                conditional = true;
+            } else {
+                allow = action;
+            }
+            featureRules.add(new FeatureRule(action, Collections.unmodifiableMap(features)));
+        }
+
+        if (conditional) {
+            return ArgumentTemplate.conditional(values, featureRules);
+        }
+        return allow ? ArgumentTemplate.of(values) : null;
+    }
+
+    /**
+     * Checks an os rule.
+     * <p>
+     * The <code>arch</code> field is checked only if <code>matchArch</code> is
+     * true, that is for argument rules. Library rules never relied on it, and
+     * the natives of a library are selected by its classifier instead.
+     */
+    private boolean osMatches(JSONObject osRule, PlatformDescription platformDescription, boolean matchArch) throws JSONException {
+        String name = osRule.optString("name", null);
+        if (name != null && !platformDescription.getPlatform().name().equalsIgnoreCase(name)) {
+            return false;
+        }
+
+        String version = osRule.optString("version", null);
+        if (version != null && (platformDescription.getVersion() == null || !platformDescription.getVersion().matches(version))) {
+            return false;
+        }
+
+        String arch = osRule.optString("arch", null);
+        if (matchArch && arch != null && !archMatches(arch, platformDescription)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean archMatches(String arch, PlatformDescription platformDescription) {
+        String osArch = platformDescription.getOsArch();
+        boolean arm = osArch != null && (osArch.startsWith("arm") || osArch.startsWith("aarch"));
+        switch (arch.toLowerCase(Locale.ROOT)) {
+            // "x86" means a 32-bit x86 jvm
+            case "x86":
+                return !arm && "32".equals(platformDescription.getArch());
+            case "x86_64":
+            case "amd64":
+                return !arm && "64".equals(platformDescription.getArch());
+            case "arm64":
+            case "aarch64":
+                return arm && "64".equals(platformDescription.getArch());
+            case "arm":
+            case "arm32":
+                return arm && "32".equals(platformDescription.getArch());
+            default:
+                return arch.equalsIgnoreCase(osArch);
         }
-        return sb.toString();
     }
 
     @Override
@@ -213,18 +330,7 @@ class VersionParserImpl implements VersionParser {
             boolean apply = true;
 
             if (rule.has("os")) {
-                // don't apply by default if has os rule
-                apply = false;
-
-                JSONObject osRule = rule.getJSONObject("os");
-                String name = osRule.getString("name");
-                String version = osRule.has("version") ? osRule.getString("version") : null;
-
-                if (platformDescription.getPlatform().name().equalsIgnoreCase(name)) {
-                    if (version == null || platformDescription.getVersion().matches(version)) {
-                        apply = true;
-                    }
-                }
+                apply = osMatches(rule.getJSONObject("os"), platformDescription, false);
             }
 
             if (apply) {
@@ -0,0 +1,378 @@
+package org.to2mbn.jmccc.version.parsing;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.version.AssetIndex;
+import org.to2mbn.jmccc.version.Version;
+
+/**
+ * Keeps the versions and the asset indexes of a minecraft directory in memory.
+ * <p>
+ * The entries are resolved through {@link Versions} on the first access, and
+ * dropped when a {@link WatchService} reports a change under
+ * <code>versions/</code> or <code>assets/indexes/</code>. A change to any
+ * version json drops all the versions, since a version includes the versions
+ * it inherits from. The reads don't lock, so the repository can be shared by
+ * many threads.
+ * <p>
+ * The changes are noticed asynchronously. On some platforms the watch service
+ * polls, and it may take a few seconds before an entry is dropped.
+ * <p>
+ * If a directory cannot be watched any more, the repository stops keeping
+ * entries in memory, so stale entries are never returned, and
+ * {@link #getWatchFailure()} tells why.
+ * <p>
+ * The repository must be closed after use to stop watching the directory.
+ *
+ * @see Versions
+ */
+public class VersionRepository implements Closeable {
+
+	private static final String JSON_SUFFIX = ".json";
+
+	private static class VersionList {
+
+		final int generation;
+		final Set<String> versions;
+
+		VersionList(int generation, Set<String> versions) {
+			this.generation = generation;
+			this.versions = versions;
+		}
+
+	}
+
+	private final MinecraftDirectory mcdir;
+	private final Path root;
+	private final Path versionsDir;
+	private final Path assetsDir;
+	private final Path indexesDir;
+
+	private final WatchService watcher;
+	// accessed only by the watcher thread once it's started
+	private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+
+	private final ConcurrentMap<String, Version> versions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AssetIndex> assetIndexes = new ConcurrentHashMap<>();
+	private volatile VersionList versionList;
+
+	// increased on every invalidation, so that an entry resolved before the
+	// invalidation won't be put back
+	private final AtomicInteger versionsGeneration = new AtomicInteger();
+	private final AtomicInteger assetsGeneration = new AtomicInteger();
+	// the asset indexes are independent, so each one has its own generation
+	// besides the one for all of them
+	private final ConcurrentMap<String, AtomicInteger> assetIndexGenerations = new ConcurrentHashMap<>();
+
+	private volatile IOException watchFailure;
+
+	/**
+	 * Constructs a VersionRepository and starts watching the given minecraft
+	 * directory.
+	 * <p>
+	 * The minecraft directory itself should exist, otherwise the changes in
+	 * it won't be noticed.
+	 *
+	 * @param mcdir the minecraft directory
+	 * @throws IOException if the directory cannot be watched
+	 * @throws NullPointerException if <code>mcdir==null</code>
+	 */
+	public VersionRepository(MinecraftDirectory mcdir) throws IOException {
+		this.mcdir = Objects.requireNonNull(mcdir);
+		root = mcdir.getRoot().toPath().toAbsolutePath();
+		versionsDir = mcdir.getVersions().toPath().toAbsolutePath();
+		assetsDir = mcdir.getAssets().toPath().toAbsolutePath();
+		indexesDir = mcdir.getAssetIndexes().toPath().toAbsolutePath();
+
+		watcher = root.getFileSystem().newWatchService();
+		try {
+			register(root);
+			registerVersions();
+			registerAssets();
+		} catch (IOException e) {
+			watcher.close();
+			throw e;
+		}
+
+		Thread watcherThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "version-repository");
+		watcherThread.setDaemon(true);
+		watcherThread.start();
+	}
+
+	/**
+	 * Gets the minecraft directory.
+	 *
+	 * @return the minecraft directory
+	 */
+	public MinecraftDirectory getMinecraftDirectory() {
+		return mcdir;
+	}
+
+	/**
+	 * Returns the versions in the minecraft directory.
+	 *
+	 * @return the versions, unmodifiable
+	 * @see Versions#getVersions(MinecraftDirectory)
+	 */
+	public Set<String> getVersions() {
+		VersionList list = versionList;
+		int generation = versionsGeneration.get();
+		if (watchFailure != null) {
+			return Versions.getVersions(mcdir);
+		}
+		if (list == null || list.generation != generation) {
+			list = new VersionList(generation, Versions.getVersions(mcdir));
+			versionList = list;
+		}
+		return list.versions;
+	}
+
+	/**
+	 * Gets the resolved version.
+	 *
+	 * @param version the version name
+	 * @return the version object, or null if the version does not exist
+	 * @throws IOException if an I/O error has occurred during resolving version
+	 * @throws NullPointerException if <code>version==null</code>
+	 * @see Versions#resolveVersion(MinecraftDirectory, String)
+	 */
+	public Version getVersion(String version) throws IOException {
+		Objects.requireNonNull(version);
+		if (watchFailure != null) {
+			return Versions.resolveVersion(mcdir, version);
+		}
+		Version result = versions.get(version);
+		if (result == null) {
+			int generation = versionsGeneration.get();
+			result = Versions.resolveVersion(mcdir, version);
+			if (result != null) {
+				versions.put(version, result);
+				if (versionsGeneration.get() != generation) {
+					versions.remove(version, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the asset index.
+	 *
+	 * @param assets the name of the asset index, you can get this via
+	 *            {@link Version#getAssets()}
+	 * @return the asset index, null if the asset index does not exist
+	 * @throws IOException if an I/O error has occurred during resolving asset
+	 *             index
+	 * @throws NullPointerException if <code>assets==null</code>
+	 * @see Versions#resolveAssetIndex(MinecraftDirectory, String)
+	 */
+	public AssetIndex getAssetIndex(String assets) throws IOException {
+		Objects.requireNonNull(assets);
+		if (watchFailure != null) {
+			return Versions.resolveAssetIndex(mcdir, assets);
+		}
+		AssetIndex result = assetIndexes.get(assets);
+		if (result == null) {
+			AtomicInteger indexGeneration = getAssetIndexGeneration(assets);
+			int generation = assetsGeneration.get();
+			int localGeneration = indexGeneration.get();
+			result = Versions.resolveAssetIndex(mcdir, assets);
+			if (result != null) {
+				assetIndexes.put(assets, result);
+				if (assetsGeneration.get() != generation || indexGeneration.get() != localGeneration) {
+					assetIndexes.remove(assets, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the error which stopped the repository from watching the
+	 * minecraft directory.
+	 * <p>
+	 * Once a directory cannot be watched, the changes in it would go
+	 * unnoticed. So the repository stops keeping entries in memory, and every
+	 * access resolves the entry again.
+	 *
+	 * @return the error, null if the directory is still being watched
+	 */
+	public IOException getWatchFailure() {
+		return watchFailure;
+	}
+
+	/**
+	 * Drops all the entries.
+	 * <p>
+	 * This is needed only if the changes cannot be noticed by the watch
+	 * service, e.g. on some network file systems.
+	 */
+	public void invalidate() {
+		invalidateVersions();
+		invalidateAssetIndexes();
+	}
+
+	/**
+	 * Stops watching the minecraft directory.
+	 */
+	@Override
+	public void close() throws IOException {
+		watcher.close();
+	}
+
+	private void invalidateVersions() {
+		versionsGeneration.incrementAndGet();
+		versions.clear();
+	}
+
+	private void invalidateAssetIndexes() {
+		assetsGeneration.incrementAndGet();
+		assetIndexes.clear();
+	}
+
+	private void invalidateAssetIndex(String assets) {
+		getAssetIndexGeneration(assets).incrementAndGet();
+		assetIndexes.remove(assets);
+	}
+
+	private AtomicInteger getAssetIndexGeneration(String assets) {
+		AtomicInteger generation = assetIndexGenerations.get(assets);
+		if (generation == null) {
+			generation = new AtomicInteger();
+			AtomicInteger existing = assetIndexGenerations.putIfAbsent(assets, generation);
+			if (existing != null) {
+				generation = existing;
+			}
+		}
+		return generation;
+	}
+
+	private void watchFailed(IOException e) {
+		if (watchFailure == null) {
+			watchFailure = e;
+		}
+		invalidate();
+	}
+
+	private void watch() {
+		for (;;) {
+			WatchKey key;
+			try {
+				key = watcher.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path dir = watchedDirs.get(key);
+			if (dir != null) {
+				for (WatchEvent<?> event : key.pollEvents()) {
+					try {
+						if (event.kind() == OVERFLOW) {
+							invalidate();
+						} else {
+							onEvent(dir, (Path) event.context(), event.kind());
+						}
+					} catch (ClosedWatchServiceException e) {
+						return;
+					} catch (IOException e) {
+						// the directory cannot be watched any more
+						watchFailed(e);
+					}
+				}
+			}
+			if (!key.reset()) {
+				watchedDirs.remove(key);
+				if (root.equals(dir)) {
+					watchFailed(new IOException("The minecraft directory is not watched any more: " + root));
+				}
+			}
+		}
+	}
+
+	private void onEvent(Path dir, Path name, WatchEvent.Kind<?> kind) throws IOException {
+		Path child = dir.resolve(name);
+		if (dir.equals(root)) {
+			if (child.equals(versionsDir)) {
+				registerVersions();
+				invalidateVersions();
+			} else if (child.equals(assetsDir)) {
+				registerAssets();
+				invalidateAssetIndexes();
+			}
+
+		} else if (dir.equals(assetsDir)) {
+			if (child.equals(indexesDir)) {
+				register(indexesDir);
+				invalidateAssetIndexes();
+			}
+
+		} else if (dir.equals(indexesDir)) {
+			String filename = name.toString();
+			if (filename.endsWith(JSON_SUFFIX)) {
+				invalidateAssetIndex(filename.substring(0, filename.length() - JSON_SUFFIX.length()));
+			}
+
+		} else if (dir.equals(versionsDir)) {
+			if (kind == ENTRY_CREATE) {
+				register(child);
+			}
+			invalidateVersions();
+
+		} else if (versionsDir.equals(dir.getParent())) {
+			// ignore the files we put next to the json, such as the caches
+			if (name.toString().equals(dir.getFileName() + JSON_SUFFIX)) {
+				invalidateVersions();
+			}
+		}
+	}
+
+	private void registerVersions() throws IOException {
+		if (register(versionsDir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(versionsDir)) {
+				for (Path subdir : stream) {
+					register(subdir);
+				}
+			}
+		}
+	}
+
+	private void registerAssets() throws IOException {
+		if (register(assetsDir)) {
+			register(indexesDir);
+		}
+	}
+
+	private boolean register(Path dir) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			return false;
+		}
+		watchedDirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+		return true;
+	}
+
+}
@@ -2,7 +2,10 @@ package org.to2mbn.jmccc.version.parsing;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.Stack;
@@ -12,6 +15,7 @@ import org.to2mbn.jmccc.internal.org.json.JSONObject;
 import org.to2mbn.jmccc.option.MinecraftDirectory;
 import org.to2mbn.jmccc.util.IOUtils;
 import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.AssetIndex;
 import org.to2mbn.jmccc.version.Version;
 
 /**
@@ -25,24 +29,69 @@ public final class Versions {
 
 	/**
 	 * Resolves the version.
-	 * 
+	 * <p>
+	 * The resolved version is cached next to the version json, and the cache
+	 * is used as long as none of the json files in the hierarchy has changed.
+	 *
 	 * @param minecraftDir the minecraft directory
 	 * @param version the version name
 	 * @return the version object, or null if the version does not exist
 	 * @throws IOException if an I/O error has occurred during resolving version
 	 * @throws NullPointerException if
 	 *             <code>minecraftDir==null || version==null</code>
+	 * @see #resolveVersion(MinecraftDirectory, String, boolean)
 	 */
 	public static Version resolveVersion(MinecraftDirectory minecraftDir, String version) throws IOException {
+		return resolveVersion(minecraftDir, version, true);
+	}
+
+	/**
+	 * Resolves the version.
+	 * <p>
+	 * If <code>useCache</code> is true, the resolved version is cached next to
+	 * the version json, and the cache is used as long as none of the json
+	 * files in the hierarchy has changed. Otherwise the json files are always
+	 * parsed, and no cache file is read or written, for example when the
+	 * minecraft directory is shared with other launchers.
+	 *
+	 * @param minecraftDir the minecraft directory
+	 * @param version the version name
+	 * @param useCache whether to use the cache of resolved versions
+	 * @return the version object, or null if the version does not exist
+	 * @throws IOException if an I/O error has occurred during resolving version
+	 * @throws NullPointerException if
+	 *             <code>minecraftDir==null || version==null</code>
+	 */
+	public static Version resolveVersion(MinecraftDirectory minecraftDir, String version, boolean useCache) throws IOException {
 		Objects.requireNonNull(minecraftDir);
 		Objects.requireNonNull(version);
 
 		if (doesVersionExist(minecraftDir, version)) {
+			PlatformDescription platform = PlatformDescription.current();
+			if (useCache) {
+				Version cached = VersionCache.load(minecraftDir, version, platform);
+				if (cached != null) {
+					return cached;
+				}
+			}
+
+			List<String> hierarchy = new ArrayList<>();
+			List<byte[]> hashes = new ArrayList<>();
+			Version resolved;
 			try {
-				return getVersionParser().parseVersion(resolveVersionHierarchy(version, minecraftDir), PlatformDescription.current());
+				resolved = getVersionParser().parseVersion(resolveVersionHierarchy(version, minecraftDir, hierarchy, hashes), platform);
 			} catch (JSONException e) {
 				throw new IOException("Couldn't parse version json: " + version, e);
 			}
+
+			if (useCache) {
+				try {
+					VersionCache.save(minecraftDir, platform, hierarchy, hashes, resolved);
+				} catch (IOException e) {
+					// the cache is optional, e.g. the directory may be read-only
+				}
+			}
+			return resolved;
 		} else {
 			return null;
 		}
@@ -100,6 +149,27 @@ public final class Versions {
 	 *             <code>minecraftDir==null || assets==null</code>
 	 */
 	public static Set<Asset> resolveAssets(MinecraftDirectory minecraftDir, String assets) throws IOException {
+		AssetIndex index = resolveAssetIndex(minecraftDir, assets);
+		return index == null ? null : index.asSet();
+	}
+
+	/**
+	 * Resolves the asset index in the compact form.
+	 * <p>
+	 * This method uses much less memory than
+	 * {@link #resolveAssets(MinecraftDirectory, String)} on large asset
+	 * indexes, and supports lookups by virtual path and by hash.
+	 * 
+	 * @param minecraftDir the minecraft directory
+	 * @param assets the name of the asset index, you can get this via
+	 *            {@link Version#getAssets()}
+	 * @return the asset index, null if the asset index does not exist
+	 * @throws IOException if an I/O error has occurred during resolving asset
+	 *             index
+	 * @throws NullPointerException if
+	 *             <code>minecraftDir==null || assets==null</code>
+	 */
+	public static AssetIndex resolveAssetIndex(MinecraftDirectory minecraftDir, String assets) throws IOException {
 		Objects.requireNonNull(minecraftDir);
 		Objects.requireNonNull(assets);
 		if (!minecraftDir.getAssetIndex(assets).isFile()) {
@@ -107,7 +177,7 @@ public final class Versions {
 		}
 
 		try {
-			return getVersionParser().parseAssetIndex(IOUtils.toJson(minecraftDir.getAssetIndex(assets)));
+			return AssetIndexReader.read(minecraftDir.getAssetIndex(assets));
 		} catch (JSONException e) {
 			throw new IOException("Couldn't parse asset index: " + assets, e);
 		}
@@ -121,11 +191,14 @@ public final class Versions {
 		return minecraftDir.getVersionJson(version).isFile();
 	}
 
-	private static Stack<JSONObject> resolveVersionHierarchy(String version, MinecraftDirectory mcdir) throws IOException, JSONException {
+	private static Stack<JSONObject> resolveVersionHierarchy(String version, MinecraftDirectory mcdir, List<String> hierarchy, List<byte[]> hashes) throws IOException, JSONException {
 		Stack<JSONObject> result = new Stack<>();
 		do {
-			JSONObject json = IOUtils.toJson(mcdir.getVersionJson(version));
+			byte[] data = Files.readAllBytes(mcdir.getVersionJson(version).toPath());
+			JSONObject json = IOUtils.toJson(data);
 			result.push(json);
+			hierarchy.add(version);
+			hashes.add(VersionCache.hash(data));
 			version = json.optString("inheritsFrom", null);
 		} while (version != null);
 		return result;
@@ -0,0 +1,127 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Stack;
+import org.junit.Test;
+import org.to2mbn.jmccc.internal.org.json.JSONObject;
+import org.to2mbn.jmccc.util.Platform;
+import org.to2mbn.jmccc.version.ArgumentTemplate;
+import org.to2mbn.jmccc.version.ArgumentTemplate.FeatureRule;
+import org.to2mbn.jmccc.version.Version;
+import org.to2mbn.jmccc.version.parsing.PlatformDescription;
+import org.to2mbn.jmccc.version.parsing.Versions;
+
+public class ArgumentTemplateTest {
+
+	private static final String PARENT = "{\"id\":\"1.13\",\"mainClass\":\"net.minecraft.client.main.Main\",\"assets\":\"1.13\",\"arguments\":{"
+			+ "\"game\":[\"--username\",\"${auth_player_name}\",{\"rules\":[{\"action\":\"allow\",\"features\":{\"is_demo_user\":true}}],\"value\":\"--demo\"}],"
+			+ "\"jvm\":[{\"rules\":[{\"action\":\"allow\",\"os\":{\"name\":\"osx\"}}],\"value\":[\"-XstartOnFirstThread\"]},"
+			+ "{\"rules\":[{\"action\":\"allow\",\"os\":{\"arch\":\"x86\"}}],\"value\":\"-Xss1M\"},"
+			+ "\"-Djava.library.path=${natives_directory}\",\"-cp\",\"${classpath}\"]}}";
+
+	private static final String CHILD = "{\"id\":\"1.13-mod\",\"inheritsFrom\":\"1.13\",\"arguments\":{\"game\":[\"--tweakClass\",\"mod.Tweaker\"]}}";
+
+	private static Map<String, String> variables(String... kv) {
+		Map<String, String> variables = new HashMap<>();
+		for (int i = 0; i < kv.length; i += 2) {
+			variables.put(kv[i], kv[i + 1]);
+		}
+		return variables;
+	}
+
+	private static Version parse(String arch, String... jsons) {
+		return parse(new PlatformDescription(Platform.LINUX, "4.0", arch), jsons);
+	}
+
+	private static Version parse(PlatformDescription platform, String... jsons) {
+		Stack<JSONObject> hierarchy = new Stack<>();
+		for (String json : jsons) {
+			hierarchy.push(new JSONObject(json));
+		}
+		return Versions.getVersionParser().parseVersion(hierarchy, platform);
+	}
+
+	@Test
+	public void testResolve() {
+		ArgumentTemplate template = ArgumentTemplate.parse("--username ${auth_player_name}  --gameDir ${a}/${b}x ${unknown}");
+		assertEquals(Arrays.asList("--username", "player", "--gameDir", "1/2x", "${unknown}"),
+				template.resolve(variables("auth_player_name", "player", "a", "1", "b", "2"), Collections.<String> emptySet()));
+	}
+
+	@Test
+	public void testResolveNotRecursive() {
+		ArgumentTemplate template = ArgumentTemplate.parse("${a}");
+		assertEquals(Arrays.asList("${b}"), template.resolve(variables("a", "${b}", "b", "x"), Collections.<String> emptySet()));
+	}
+
+	@Test
+	public void testFeatures() {
+		ArgumentTemplate template = ArgumentTemplate.concat(Arrays.asList(
+				ArgumentTemplate.of(Arrays.asList("--version", "1.13")),
+				ArgumentTemplate.conditional(Arrays.asList("--demo"),
+						Arrays.asList(new FeatureRule(true, Collections.singletonMap("is_demo_user", true))))));
+		assertEquals(Arrays.asList("--version", "1.13"), template.resolve(variables(), Collections.<String> emptySet()));
+		assertEquals(Arrays.asList("--version", "1.13", "--demo"), template.resolve(variables(), Collections.singleton("is_demo_user")));
+		assertEquals("--version 1.13", template.toString());
+	}
+
+	@Test
+	public void testParseLegacyVersion() {
+		Version version = parse("64", "{\"id\":\"1.8\",\"mainClass\":\"Main\",\"minecraftArguments\":\"--username ${auth_player_name}\"}");
+		assertEquals(ArgumentTemplate.parse("--username ${auth_player_name}"), version.getGameArguments());
+		assertNull(version.getJvmArguments());
+	}
+
+	@Test
+	public void testParseVersion() {
+		Version version = parse("64", CHILD, PARENT);
+		assertEquals("--username ${auth_player_name} --tweakClass mod.Tweaker", version.getLaunchArgs());
+		assertEquals(Arrays.asList("--username", "steve", "--demo", "--tweakClass", "mod.Tweaker"),
+				version.getGameArguments().resolve(variables("auth_player_name", "steve"), Collections.singleton("is_demo_user")));
+		assertEquals(Arrays.asList("-Djava.library.path=natives", "-cp", "a.jar"),
+				version.getJvmArguments().resolve(variables("natives_directory", "natives", "classpath", "a.jar"), Collections.<String> emptySet()));
+	}
+
+	@Test
+	public void testParseVersionArchRule() {
+		Version version = parse("32", PARENT);
+		assertEquals(Arrays.asList("-Xss1M", "-Djava.library.path=${natives_directory}", "-cp", "${classpath}"),
+				version.getJvmArguments().resolve(variables(), Collections.<String> emptySet()));
+	}
+
+	@Test
+	public void testParseVersionArmArchRule() {
+		String arm = "{\"id\":\"arm\",\"mainClass\":\"Main\",\"arguments\":{\"game\":[],\"jvm\":["
+				+ "{\"rules\":[{\"action\":\"allow\",\"os\":{\"arch\":\"x86\"}}],\"value\":\"-Xss1M\"},"
+				+ "{\"rules\":[{\"action\":\"allow\",\"os\":{\"arch\":\"arm64\"}}],\"value\":\"-Darm=true\"}]}}";
+		assertEquals(Arrays.asList("-Darm=true"),
+				parse(new PlatformDescription(Platform.LINUX, "4.0", "64", "aarch64"), arm).getJvmArguments().resolve(variables(), Collections.<String> emptySet()));
+		assertEquals(Collections.<String> emptyList(),
+				parse(new PlatformDescription(Platform.LINUX, "4.0", "32", "arm"), arm).getJvmArguments().resolve(variables(), Collections.<String> emptySet()));
+		assertEquals(Arrays.asList("-Xss1M"),
+				parse(new PlatformDescription(Platform.LINUX, "4.0", "32", "x86"), arm).getJvmArguments().resolve(variables(), Collections.<String> emptySet()));
+	}
+
+	@Test
+	public void testLibraryRulesIgnoreArch() {
+		Version version = parse("64", "{\"id\":\"lib\",\"mainClass\":\"Main\",\"minecraftArguments\":\"\",\"libraries\":["
+				+ "{\"name\":\"a:b:1\",\"rules\":[{\"action\":\"allow\",\"os\":{\"name\":\"linux\",\"arch\":\"x86\"}}]}]}");
+		assertEquals(1, version.getLibraries().size());
+	}
+
+	@Test
+	public void testArgumentsInEquals() {
+		String base = "{\"id\":\"1.13\",\"mainClass\":\"Main\",\"arguments\":{\"game\":[\"--a\"],\"jvm\":[%s]}}";
+		Version version = parse("64", String.format(base, "\"-Dx\""));
+		assertEquals(version, parse("64", String.format(base, "\"-Dx\"")));
+		assertEquals(version.hashCode(), parse("64", String.format(base, "\"-Dx\"")).hashCode());
+		assertNotEquals(version, parse("64", String.format(base, "\"-Dy\"")));
+	}
+
+}
@@ -0,0 +1,152 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.AssetIndex;
+import org.to2mbn.jmccc.version.AssetIndexBuilder;
+
+public class AssetIndexTest {
+
+	private static final String HASH1 = "10a54fc66c8f479bb65c8d39c3b62265ac82e742";
+	private static final String HASH2 = "bf7fadaf64945f6b31c803d086ac6a652aabef9b";
+	private static final String HASH3 = "f4cfb2f24e7d91dbc22a2a0e3b880d9829320243";
+
+	private AssetIndex createIndex() {
+		return AssetIndexBuilder.create()
+				.add("minecraft/sounds/b.ogg", HASH2, 2)
+				.add("icons/icon_16x16.png", HASH3, 3)
+				.add("minecraft/sounds/a.ogg", HASH1, 1)
+				.add("minecraft/sounds/a.ogg", HASH2, 4)
+				.add("minecraft/sounds/c.ogg", HASH1, 1)
+				.build();
+	}
+
+	@Test
+	public void testSortedByPath() {
+		AssetIndex index = createIndex();
+		assertEquals(4, index.size());
+		assertEquals("icons/icon_16x16.png", index.getVirtualPath(0));
+		assertEquals("minecraft/sounds/a.ogg", index.getVirtualPath(1));
+		assertEquals("minecraft/sounds/b.ogg", index.getVirtualPath(2));
+		assertEquals("minecraft/sounds/c.ogg", index.getVirtualPath(3));
+		// the first one of the same path is kept
+		assertEquals(new Asset("minecraft/sounds/a.ogg", HASH1, 1), index.get(1));
+	}
+
+	@Test
+	public void testLookupByPath() {
+		AssetIndex index = createIndex();
+		assertEquals(new Asset("minecraft/sounds/b.ogg", HASH2, 2), index.get("minecraft/sounds/b.ogg"));
+		assertEquals(0, index.indexOf("icons/icon_16x16.png"));
+		assertEquals(-1, index.indexOf("minecraft/sounds"));
+		assertEquals(-1, index.indexOf("minecraft/sounds/d.ogg"));
+		assertNull(index.get(""));
+	}
+
+	@Test
+	public void testLookupByHash() {
+		AssetIndex index = createIndex();
+		assertEquals(Arrays.asList(
+				new Asset("minecraft/sounds/a.ogg", HASH1, 1),
+				new Asset("minecraft/sounds/c.ogg", HASH1, 1)),
+				index.getByHash(HASH1));
+		assertEquals(Collections.singletonList(new Asset("icons/icon_16x16.png", HASH3, 3)), index.getByHash(HASH3.toUpperCase()));
+		assertTrue(index.getByHash("000c82756fd54e40cb236199f2b479629d0aca2f").isEmpty());
+		assertTrue(index.getByHash("not a hash").isEmpty());
+	}
+
+	@Test
+	public void testSetView() {
+		Set<Asset> expected = new HashSet<>();
+		expected.add(new Asset("minecraft/sounds/b.ogg", HASH2, 2));
+		expected.add(new Asset("icons/icon_16x16.png", HASH3, 3));
+		expected.add(new Asset("minecraft/sounds/a.ogg", HASH1, 1));
+		expected.add(new Asset("minecraft/sounds/c.ogg", HASH1, 1));
+
+		Set<Asset> set = createIndex().asSet();
+		assertEquals(expected, set);
+		assertEquals(set, expected);
+		assertTrue(set.contains(new Asset("minecraft/sounds/a.ogg", HASH1, 1)));
+		assertFalse(set.contains(new Asset("minecraft/sounds/a.ogg", HASH2, 4)));
+		assertFalse(set.contains(new Asset("minecraft/sounds/a.ogg", HASH1, 2)));
+		assertFalse(set.contains("minecraft/sounds/a.ogg"));
+		assertTrue(set.contains(new Asset("minecraft/sounds/a.ogg", HASH1.toUpperCase(), 1)));
+
+		Iterator<Asset> it = set.iterator();
+		assertEquals("icons/icon_16x16.png", it.next().getVirtualPath());
+	}
+
+	@Test
+	public void testManyAssets() {
+		// enough assets for several merge passes, with duplicated paths and hashes
+		String[] hashes = { HASH1, HASH2, HASH3 };
+		AssetIndexBuilder builder = AssetIndexBuilder.create();
+		Map<String, Asset> expected = new TreeMap<>();
+		for (int i = 0; i < 1000; i++) {
+			int id = (i * 7919) % 600;
+			Asset asset = new Asset("objects/" + id, hashes[i % 3], i);
+			builder.add(asset);
+			if (!expected.containsKey(asset.getVirtualPath())) {
+				expected.put(asset.getVirtualPath(), asset);
+			}
+		}
+		AssetIndex index = builder.build();
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(index.asSet()));
+
+		List<Asset> byHash = index.getByHash(HASH2);
+		for (int i = 1; i < byHash.size(); i++) {
+			assertTrue(byHash.get(i - 1).getVirtualPath().compareTo(byHash.get(i).getVirtualPath()) < 0);
+		}
+		int count = 0;
+		for (Asset asset : expected.values()) {
+			if (asset.getHash().equals(HASH2)) {
+				count++;
+			}
+		}
+		assertEquals(count, byHash.size());
+	}
+
+	@Test
+	public void testEmpty() {
+		AssetIndex index = AssetIndex.of(Collections.<Asset> emptySet());
+		assertEquals(0, index.size());
+		assertEquals(-1, index.indexOf("a"));
+		assertTrue(index.getByHash(HASH1).isEmpty());
+		assertTrue(index.asSet().isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidHash() {
+		AssetIndexBuilder.create().add("a", "abc", 1);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		AssetIndex index = createIndex();
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(buf)) {
+			out.writeObject(index);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+			AssetIndex read = (AssetIndex) in.readObject();
+			assertEquals(index, read);
+			assertEquals(index.asSet(), read.asSet());
+		}
+	}
+
+}
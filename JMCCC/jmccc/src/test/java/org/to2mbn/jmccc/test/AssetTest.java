@@ -3,10 +3,15 @@ package org.to2mbn.jmccc.test;
 import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.GeneralSecurityException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 import org.junit.Test;
+import org.to2mbn.jmccc.util.VerificationJournal;
 import org.to2mbn.jmccc.version.Asset;
 import org.to2mbn.jmccc.version.parsing.Versions;
 
@@ -46,4 +51,64 @@ public class AssetTest extends MinecraftEnvironmentTest {
         assertEquals(assetsEx, indexAc);
     }
 
+	@Test
+	public void testJournalSkipsUnchangedFiles() throws IOException, GeneralSecurityException {
+		Asset asset = new Asset("minecraft/sounds/mob/skeleton/step3.ogg", "000c82756fd54e40cb236199f2b479629d0aca2f", 8565);
+		File file = mcdir().getAsset(asset);
+		long mtime = System.currentTimeMillis() - 60000;
+		file.setLastModified(mtime);
+
+		VerificationJournal journal = VerificationJournal.load(mcdir().getVerificationJournal());
+		assertTrue(asset.isValid(mcdir(), journal));
+		journal.save();
+
+		// modify the content without changing the size or the mtime
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.write(0);
+		}
+		file.setLastModified(mtime);
+
+		journal = VerificationJournal.load(mcdir().getVerificationJournal());
+		assertTrue(asset.isValid(mcdir(), journal));
+		journal.clear();
+		assertFalse(asset.isValid(mcdir(), journal));
+	}
+
+	@Test
+	public void testJournalDetectsModification() throws IOException, GeneralSecurityException {
+		Asset asset = new Asset("minecraft/sounds/mob/skeleton/step3.ogg", "000c82756fd54e40cb236199f2b479629d0aca2f", 8565);
+		File file = mcdir().getAsset(asset);
+		file.setLastModified(System.currentTimeMillis() - 60000);
+
+		VerificationJournal journal = VerificationJournal.load(mcdir().getVerificationJournal());
+		assertTrue(asset.isValid(mcdir(), journal));
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.write(0);
+		}
+		file.setLastModified(System.currentTimeMillis() - 30000);
+		assertFalse(asset.isValid(mcdir(), journal));
+	}
+
+	@Test
+	public void testFromJsonSkipsOtherMembers() throws IOException {
+		String json = "{\"virtual\": true, \"extra\": {\"a\": [1, {\"b\": null}]}, \"objects\": {"
+				+ "\"b\": {\"size\": 2, \"hash\": \"bf7fadaf64945f6b31c803d086ac6a652aabef9b\", \"extra\": [\"}\"]},"
+				+ "\"a\": {\"hash\": \"10a54fc66c8f479bb65c8d39c3b62265ac82e742\", \"size\": 1}"
+				+ "}, \"map_to_resources\": false}";
+		Files.write(new File("mcdir/assets/indexes/extra.json").toPath(), json.getBytes(StandardCharsets.UTF_8));
+
+		Iterator<Asset> assets = Versions.resolveAssets(mcdir(), "extra").iterator();
+		assertEquals(new Asset("a", "10a54fc66c8f479bb65c8d39c3b62265ac82e742", 1), assets.next());
+		assertEquals(new Asset("b", "bf7fadaf64945f6b31c803d086ac6a652aabef9b", 2), assets.next());
+		assertFalse(assets.hasNext());
+	}
+
+	@Test(expected = IOException.class)
+	public void testFromInvalidJson() throws IOException {
+		String json = "{\"objects\": {\"a\": {\"hash\": \"10a54fc66c8f479bb65c8d39c3b62265ac82e742\"} \"b\": {}}}";
+		Files.write(new File("mcdir/assets/indexes/invalid.json").toPath(), json.getBytes(StandardCharsets.UTF_8));
+		Versions.resolveAssets(mcdir(), "invalid");
+	}
+
 }
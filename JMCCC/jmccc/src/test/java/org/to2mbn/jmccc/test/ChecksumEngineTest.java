@@ -0,0 +1,59 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.junit.Test;
+import org.to2mbn.jmccc.util.ChecksumEngine;
+
+public class ChecksumEngineTest extends MinecraftEnvironmentTest {
+
+	private static final String HASH = "000c82756fd54e40cb236199f2b479629d0aca2f";
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File("mcdir/assets/objects/00").mkdirs();
+		copyFromJar("/mcdir/assets/objects/00/" + HASH, new File("mcdir/assets/objects/00/" + HASH));
+		copyFromJar("/mcdir/assets/objects/00/" + HASH, new File("mcdir/assets/objects/00/" + HASH + "0"));
+	}
+
+	@Test
+	public void testVerifyAll() {
+		final Map<File, String> checksums = new HashMap<>();
+		checksums.put(new File("mcdir/assets/objects/00/" + HASH), HASH);
+		checksums.put(new File("mcdir/assets/objects/00/" + HASH + "0"), "000c82756fd54e40cb236199f2b479629d0aca20");
+		checksums.put(new File("mcdir/assets/objects/00/missing"), HASH);
+
+		List<File> valid = new ArrayList<>();
+		List<File> invalid = new ArrayList<>();
+		Iterator<ChecksumEngine.Result> results = new ChecksumEngine(2).verifyAll(checksums.keySet(), "SHA-1", new Function<File, String>() {
+
+			@Override
+			public String apply(File file) {
+				return checksums.get(file);
+			}
+		}, new ToLongFunction<File>() {
+
+			@Override
+			public long applyAsLong(File file) {
+				return 8565;
+			}
+		}).iterator();
+		while (results.hasNext()) {
+			ChecksumEngine.Result result = results.next();
+			(result.isValid() ? valid : invalid).add(result.getFile());
+		}
+
+		assertEquals(1, valid.size());
+		assertEquals(new File("mcdir/assets/objects/00/" + HASH), valid.get(0));
+		assertEquals(2, invalid.size());
+	}
+
+}
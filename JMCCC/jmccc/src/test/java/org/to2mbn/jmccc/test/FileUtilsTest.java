@@ -0,0 +1,44 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.to2mbn.jmccc.util.FileUtils;
+
+public class FileUtilsTest extends MinecraftEnvironmentTest {
+
+	private final File src = new File("mcdir/assets/objects/ab/abcd");
+	private final File target = new File("mcdir/assets/virtual/legacy/sounds/step.ogg");
+
+	@Override
+	protected void copyFiles() throws IOException {
+		src.getParentFile().mkdirs();
+		Files.write(src.toPath(), "asset".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testLink() throws IOException {
+		assertTrue(FileUtils.link(src, target));
+		assertTrue(Files.isSameFile(src.toPath(), target.toPath()));
+		assertEquals("asset", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+
+		// already linked
+		assertFalse(FileUtils.link(src, target));
+
+		// no temporary file is left behind
+		assertArrayEquals(new String[] { "step.ogg" }, target.getParentFile().list());
+	}
+
+	@Test
+	public void testReplaceStaleCopy() throws IOException {
+		target.getParentFile().mkdirs();
+		Files.write(target.toPath(), "stale copy".getBytes(StandardCharsets.UTF_8));
+		assertTrue(FileUtils.link(src, target));
+		assertEquals("asset", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+		assertFalse(FileUtils.link(src, target));
+	}
+
+}
@@ -0,0 +1,126 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.junit.Test;
+import org.to2mbn.jmccc.internal.org.json.JSONByteParser;
+import org.to2mbn.jmccc.internal.org.json.JSONException;
+import org.to2mbn.jmccc.internal.org.json.JSONObject;
+import org.to2mbn.jmccc.util.IOUtils;
+
+public class JSONByteParserTest {
+
+	private static final String[] RESOURCES = {
+			"/mcdir/versions/1.6.4/1.6.4.json",
+			"/mcdir/versions/1.7.10/1.7.10.json",
+			"/mcdir/versions/1.7.10-LiteLoader1.7.10/1.7.10-LiteLoader1.7.10.json",
+			"/mcdir/versions/1.8/1.8.json",
+			"/mcdir/versions/1.8-forge1.8-11.14.3.1514/1.8-forge1.8-11.14.3.1514.json",
+			"/mcdir/versions/16w05b/16w05b.json",
+			"/mcdir/versions/16w05b_/16w05b_.json",
+			"/mcdir/assets/indexes/test.json"
+	};
+
+	private static JSONObject parse(String json) {
+		return JSONByteParser.parseObject(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static void assertSameAsTokener(String json) {
+		JSONObject expected = new JSONObject(json);
+		JSONObject actual = parse(json);
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testSameAsTokener() throws IOException {
+		for (String resource : RESOURCES) {
+			try (InputStream in = getClass().getResourceAsStream(resource)) {
+				assertSameAsTokener(IOUtils.toString(in));
+			}
+		}
+	}
+
+	@Test
+	public void testNumbers() {
+		JSONObject json = parse("{\"int\": -12, \"long\": 2147483648, \"big\": 99999999999999999999, \"negativeZero\": -0, \"double\": 1.5e3, \"infinite\": 1e999}");
+		assertEquals(Integer.valueOf(-12), json.get("int"));
+		assertEquals(Long.valueOf(2147483648L), json.get("long"));
+		assertEquals("99999999999999999999", json.get("big"));
+		assertEquals(Double.valueOf(-0.0), json.get("negativeZero"));
+		assertEquals(Double.valueOf(1500), json.get("double"));
+		assertEquals("1e999", json.get("infinite"));
+		assertEquals(Arrays.asList(1, 2L << 40, 3.0), parse("{\"a\": [1, 2199023255552, 3.0]}").getJSONArray("a").toList());
+	}
+
+	@Test
+	public void testStrings() {
+		JSONObject json = parse("{\"a\": \"h\u00e9llo \u4e2d\", \"b\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\u4e2d\", \"\": \"\"}");
+		assertEquals("h\u00e9llo \u4e2d", json.get("a"));
+		assertEquals("\"\\/\b\f\n\r\t\u00e9\u4e2d", json.get("b"));
+		assertEquals("", json.get(""));
+	}
+
+	@Test
+	public void testNonStrictJson() {
+		assertSameAsTokener("{'a': b, c: 1; \"d\": [1,], e: TRUE, f: 01, g: 1 2}");
+		assertSameAsTokener("{\"a\": {\"b\": null}} trailing");
+	}
+
+	@Test
+	public void testErrors() {
+		String[] invalid = { "", "[]", "{\"a\": 1", "{\"a\" 1}", "{\"a\": \"b\n\"}", "{\"a\": 1, \"a\": 2}", "{\"a\": \"\\x\"}" };
+		for (String json : invalid) {
+			String expected = null;
+			try {
+				new JSONObject(json);
+				fail(json);
+			} catch (JSONException e) {
+				expected = e.getMessage();
+			}
+			try {
+				parse(json);
+				fail(json);
+			} catch (JSONException e) {
+				assertEquals(expected, e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void testModify() {
+		JSONObject json = parse("{\"d\": 4, \"b\": 2, \"a\": 1}");
+		json.put("c", 3);
+		json.remove("a");
+		json.put("b", "two");
+		assertEquals("{\"b\":\"two\",\"c\":3,\"d\":4}", json.toString());
+
+		Iterator<String> keys = json.keySet().iterator();
+		keys.next();
+		keys.remove();
+		assertEquals("{\"c\":3,\"d\":4}", json.toString());
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		JSONObject json = parse("{\"a\": 1, \"b\": {\"c\": 2147483648}}");
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(buf)) {
+			out.writeObject(json);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+			assertEquals(json, in.readObject());
+		}
+	}
+
+}
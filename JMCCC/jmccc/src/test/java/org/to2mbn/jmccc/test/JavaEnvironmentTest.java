@@ -0,0 +1,49 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.to2mbn.jmccc.option.JavaEnvironment;
+
+public class JavaEnvironmentTest extends MinecraftEnvironmentTest {
+
+	private final File javaHome = new File("mcdir/jdk");
+	private final JavaEnvironment java = new JavaEnvironment(new File(javaHome, "bin/java"));
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File(javaHome, "bin").mkdirs();
+	}
+
+	private void writeRelease(String content) throws IOException {
+		Files.write(new File(javaHome, "release").toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testJavaHome() {
+		assertEquals(javaHome.getAbsoluteFile(), java.getJavaHome());
+	}
+
+	@Test
+	public void testVersion() throws IOException {
+		writeRelease("IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"17.0.2\"\n");
+		assertEquals("17.0.2", java.getVersion());
+		assertEquals(17, java.getMajorVersion());
+	}
+
+	@Test
+	public void testLegacyVersion() throws IOException {
+		writeRelease("JAVA_VERSION=\"1.8.0_292\"\n");
+		assertEquals(8, java.getMajorVersion());
+	}
+
+	@Test
+	public void testUnknownVersion() {
+		assertNull(java.getVersion());
+		assertEquals(-1, java.getMajorVersion());
+	}
+
+}
@@ -0,0 +1,61 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.to2mbn.jmccc.option.JavaEnvironment;
+import org.to2mbn.jmccc.option.JavaRuntime;
+import org.to2mbn.jmccc.option.JavaRuntimeDiscovery;
+
+public class JavaRuntimeDiscoveryTest extends MinecraftEnvironmentTest {
+
+	private final File cacheFile = new File("mcdir/java-runtimes.txt");
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File("mcdir").mkdirs();
+	}
+
+	@Test
+	public void testProbe() throws IOException {
+		File javaPath = JavaEnvironment.getCurrentJavaPath();
+		JavaRuntime runtime = new JavaRuntimeDiscovery(cacheFile).probe(javaPath);
+		assertEquals(System.getProperty("java.version"), runtime.getVersion());
+		assertEquals(System.getProperty("os.arch"), runtime.getArch());
+		assertEquals(javaPath.getAbsoluteFile(), runtime.getJavaPath());
+
+		String cache = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8);
+		assertTrue(cache.contains(javaPath.getAbsolutePath()));
+
+		JavaRuntime cached = new JavaRuntimeDiscovery(cacheFile).probe(javaPath);
+		assertEquals(runtime.getVersion(), cached.getVersion());
+		assertEquals(runtime.getVendor(), cached.getVendor());
+		assertEquals(runtime.is64Bit(), cached.is64Bit());
+		assertEquals(runtime.getSupportedFlags(), cached.getSupportedFlags());
+	}
+
+	@Test
+	public void testProbeFlags() throws IOException {
+		assumeTrue(System.getProperty("java.vm.name").contains("HotSpot") || System.getProperty("java.vm.name").contains("OpenJDK"));
+		JavaRuntime runtime = new JavaRuntimeDiscovery().probe(JavaEnvironment.getCurrentJavaPath());
+		assertTrue(runtime.isFlagSupported("UseSerialGC"));
+		assertFalse(runtime.isFlagSupported("NoSuchFlag"));
+		// the flags are not mistaken for system properties
+		assertFalse(runtime.getSupportedFlags().contains("java.version"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testProbeMissing() throws IOException {
+		new JavaRuntimeDiscovery().probe(new File("mcdir/nonexistent/java"));
+	}
+
+	@Test
+	public void testFindCurrentJava() throws IOException {
+		assertTrue(JavaRuntimeDiscovery.findJavaExecutables().contains(JavaEnvironment.getCurrentJavaPath().getCanonicalFile()));
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.to2mbn.jmccc.launch.NativesExtractor;
+
+public class NativesExtractorTest extends MinecraftEnvironmentTest {
+
+	private final File jar = new File("mcdir/natives.jar");
+	private final File nativesDir = new File("mcdir/natives");
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File("mcdir").mkdirs();
+	}
+
+	private void writeJar(String... entries) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+			for (int i = 0; i < entries.length; i += 2) {
+				out.putNextEntry(new ZipEntry(entries[i]));
+				out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		}
+	}
+
+	private String read(String name) throws IOException {
+		return new String(Files.readAllBytes(new File(nativesDir, name).toPath()), StandardCharsets.UTF_8);
+	}
+
+	private void extract() throws IOException {
+		Map<File, Set<String>> natives = Collections.singletonMap(jar, Collections.singleton("META-INF/"));
+		new NativesExtractor(false).extract(natives, nativesDir);
+	}
+
+	@Test
+	public void testExtract() throws IOException {
+		writeJar("liblwjgl.so", "lwjgl", "libopenal.so", "openal", "META-INF/MANIFEST.MF", "manifest");
+		extract();
+		assertEquals("lwjgl", read("liblwjgl.so"));
+		assertEquals("openal", read("libopenal.so"));
+		assertFalse(new File(nativesDir, "META-INF").exists());
+	}
+
+	@Test
+	public void testUnchangedFilesAreNotRewritten() throws IOException {
+		writeJar("liblwjgl.so", "lwjgl");
+		extract();
+		File extracted = new File(nativesDir, "liblwjgl.so");
+		long lastModified = 1000000000000L;
+		assertTrue(extracted.setLastModified(lastModified));
+
+		// the manifest doesn't match, but the content does
+		extract();
+		assertEquals(lastModified, extracted.lastModified());
+
+		// the manifest matches now
+		extract();
+		assertEquals(lastModified, extracted.lastModified());
+	}
+
+	@Test
+	public void testRestoreModifiedFile() throws IOException {
+		writeJar("liblwjgl.so", "lwjgl");
+		extract();
+		Files.write(new File(nativesDir, "liblwjgl.so").toPath(), "broken".getBytes(StandardCharsets.UTF_8));
+		extract();
+		assertEquals("lwjgl", read("liblwjgl.so"));
+	}
+
+	@Test
+	public void testJarChanged() throws IOException {
+		writeJar("liblwjgl.so", "lwjgl");
+		extract();
+		writeJar("liblwjgl.so", "lwjgl2", "libjinput.so", "jinput");
+		assertTrue(jar.setLastModified(jar.lastModified() + 2000));
+		extract();
+		assertEquals("lwjgl2", read("liblwjgl.so"));
+		assertEquals("jinput", read("libjinput.so"));
+	}
+
+	@Test
+	public void testDotsInEntryName() throws IOException {
+		writeJar("lib..so", "dots", "x86/..hidden.so", "hidden");
+		extract();
+		assertEquals("dots", read("lib..so"));
+		assertEquals("hidden", read("x86/..hidden.so"));
+	}
+
+	@Test
+	public void testRejectEntryOutsideNativesDir() throws IOException {
+		writeJar("../escaped.so", "escaped");
+		try {
+			extract();
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(jar.toString()));
+		}
+		assertFalse(new File("mcdir/escaped.so").exists());
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import static org.to2mbn.jmccc.test.TestUtils.hashSet;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Test;
+import org.to2mbn.jmccc.launch.MissingDependenciesException;
+import org.to2mbn.jmccc.launch.Preflight;
+import org.to2mbn.jmccc.launch.PreflightReport;
+import org.to2mbn.jmccc.util.HexUtils;
+import org.to2mbn.jmccc.version.DownloadInfo;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.LibraryInfo;
+import org.to2mbn.jmccc.version.Version;
+
+public class PreflightTest extends MinecraftEnvironmentTest {
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File("mcdir").mkdirs();
+	}
+
+	private Library library(String artifactId, String content) throws IOException, NoSuchAlgorithmException {
+		byte[] data = content.getBytes(StandardCharsets.UTF_8);
+		String sha1 = HexUtils.bytesToHex(MessageDigest.getInstance("SHA-1").digest(data));
+		return new Library("test", artifactId, "1.0", null, "jar", new LibraryInfo(null, sha1, data.length, null), null, null);
+	}
+
+	private void write(Library library, String content) throws IOException {
+		File file = mcdir().getLibrary(library);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Version version(Set<Library> libraries) {
+		return new Version("test", null, "Main", "legacy", "", "test", libraries, true, null, Collections.<String, DownloadInfo> emptyMap());
+	}
+
+	@Test
+	public void testCheck() throws Exception {
+		Set<Library> libraries = new LinkedHashSet<>();
+		for (int i = 0; i < 100; i++) {
+			libraries.add(library("lib" + i, "content" + i));
+		}
+		Library missing = library("missing", "missing");
+		Library corrupted = library("corrupted", "good");
+		libraries.add(missing);
+		libraries.add(corrupted);
+		for (Library library : libraries) {
+			if (library != missing) {
+				write(library, library == corrupted ? "evil" : "content" + library.getArtifactId().substring(3));
+			}
+		}
+		Version version = version(libraries);
+
+		PreflightReport report = Preflight.check(mcdir(), version, false);
+		assertEquals(hashSet(missing), report.getMissingLibraries());
+		assertTrue(report.getCorruptedLibraries().isEmpty());
+		assertFalse(report.isPassed());
+
+		report = Preflight.check(mcdir(), version, true);
+		assertEquals(hashSet(missing), report.getMissingLibraries());
+		assertEquals(hashSet(corrupted), report.getCorruptedLibraries());
+		assertEquals(hashSet(missing, corrupted), report.getLibrariesToRepair());
+
+		MissingDependenciesException ex = new MissingDependenciesException(report);
+		assertSame(report, ex.getReport());
+		assertEquals(hashSet(missing, corrupted), ex.getMissingLibraries());
+	}
+
+	@Test
+	public void testCheckPassed() throws Exception {
+		Library library = library("lib", "content");
+		write(library, "content");
+		assertTrue(Preflight.check(mcdir(), version(hashSet(library)), true).isPassed());
+	}
+
+}
@@ -0,0 +1,175 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.to2mbn.jmccc.launch.BatchProcessListener;
+import org.to2mbn.jmccc.launch.ProcessListener;
+import org.to2mbn.jmccc.launch.ProcessMetrics;
+import org.to2mbn.jmccc.launch.ProcessSupervisor;
+
+public class ProcessSupervisorTest {
+
+	private static Process startJava() throws IOException {
+		String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+		return new ProcessBuilder(java, "-version").start();
+	}
+
+	@Test
+	public void testSupervise() throws Exception {
+		ProcessSupervisor supervisor = new ProcessSupervisor(10, TimeUnit.MILLISECONDS);
+		try {
+			final List<String> errorLogs = new CopyOnWriteArrayList<>();
+			final CountDownLatch exited = new CountDownLatch(2);
+			final int[] exitCodes = new int[2];
+			BatchProcessListener listener = new BatchProcessListener() {
+
+				@Override
+				public void onLog(String log) {}
+
+				@Override
+				public void onErrorLog(String log) {}
+
+				@Override
+				public void onLogs(List<String> logs) {}
+
+				@Override
+				public void onErrorLogs(List<String> logs) {
+					errorLogs.addAll(logs);
+				}
+
+				@Override
+				public void onExit(int code) {
+					exitCodes[(int) exited.getCount() - 1] = code;
+					exited.countDown();
+				}
+			};
+
+			Process p1 = startJava();
+			Process p2 = startJava();
+			ProcessMetrics metrics = supervisor.supervise(p1, listener);
+			supervisor.supervise(p2, listener);
+
+			assertTrue(exited.await(30, TimeUnit.SECONDS));
+			assertEquals(0, exitCodes[0]);
+			assertEquals(0, exitCodes[1]);
+			assertTrue(metrics.isTerminated());
+			assertTrue(metrics.getErrorLines() > 0);
+			assertTrue(metrics.getBytes() > 0);
+			assertEquals(2 * metrics.getErrorLines(), errorLogs.size());
+			for (String log : errorLogs) {
+				assertFalse(log.endsWith("\r"));
+			}
+			assertNull(supervisor.getMetrics(p1));
+			assertEquals(0, supervisor.getProcessCount());
+		} finally {
+			supervisor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailingListener() throws Exception {
+		ProcessSupervisor supervisor = new ProcessSupervisor(10, TimeUnit.MILLISECONDS);
+		try {
+			final CountDownLatch exited = new CountDownLatch(2);
+			ProcessListener failing = new ProcessListener() {
+
+				@Override
+				public void onLog(String log) {}
+
+				@Override
+				public void onErrorLog(String log) {
+					throw new IllegalStateException("broken listener");
+				}
+
+				@Override
+				public void onExit(int code) {
+					exited.countDown();
+				}
+			};
+			ProcessListener working = new ProcessListener() {
+
+				@Override
+				public void onLog(String log) {}
+
+				@Override
+				public void onErrorLog(String log) {}
+
+				@Override
+				public void onExit(int code) {
+					exited.countDown();
+				}
+			};
+
+			ProcessMetrics failingMetrics = supervisor.supervise(startJava(), failing);
+			ProcessMetrics workingMetrics = supervisor.supervise(startJava(), working);
+
+			assertTrue(exited.await(30, TimeUnit.SECONDS));
+			assertNotNull(failingMetrics.getFailure());
+			assertTrue(failingMetrics.getErrorLines() > 0);
+			assertNull(workingMetrics.getFailure());
+			assertTrue(workingMetrics.isTerminated());
+		} finally {
+			supervisor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSlowListener() throws Exception {
+		ProcessSupervisor supervisor = new ProcessSupervisor(10, TimeUnit.MILLISECONDS);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			final CountDownLatch exited = new CountDownLatch(2);
+			ProcessListener slow = new ProcessListener() {
+
+				@Override
+				public void onLog(String log) {}
+
+				@Override
+				public void onErrorLog(String log) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				@Override
+				public void onExit(int code) {
+					exited.countDown();
+				}
+			};
+
+			Process slowProcess = startJava();
+			Process other = startJava();
+			supervisor.supervise(slowProcess, slow);
+			ProcessMetrics otherMetrics = supervisor.supervise(other, slow);
+
+			// both processes are still drained while the listener is blocked
+			long deadline = System.currentTimeMillis() + 30000;
+			while (supervisor.getProcessCount() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, supervisor.getProcessCount());
+			assertTrue(otherMetrics.getErrorLines() > 0);
+			assertEquals(2, exited.getCount());
+
+			release.countDown();
+			assertTrue(exited.await(30, TimeUnit.SECONDS));
+			assertTrue(otherMetrics.isTerminated());
+		} finally {
+			release.countDown();
+			supervisor.shutdown();
+		}
+	}
+
+}
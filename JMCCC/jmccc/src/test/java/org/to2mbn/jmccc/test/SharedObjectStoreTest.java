@@ -0,0 +1,63 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import org.junit.Test;
+import org.to2mbn.jmccc.option.MinecraftDirectory;
+import org.to2mbn.jmccc.option.SharedObjectStore;
+import org.to2mbn.jmccc.version.Asset;
+import org.to2mbn.jmccc.version.Library;
+
+public class SharedObjectStoreTest extends MinecraftEnvironmentTest {
+
+	private static final Asset ASSET = new Asset("minecraft/sounds/mob/skeleton/step3.ogg", "000c82756fd54e40cb236199f2b479629d0aca2f", 8565);
+
+	@Override
+	protected void copyFiles() throws IOException {
+		new File("mcdir/assets/objects/00").mkdirs();
+		copyFromJar("/mcdir/assets/objects/00/000c82756fd54e40cb236199f2b479629d0aca2f", new File("mcdir/assets/objects/00/000c82756fd54e40cb236199f2b479629d0aca2f"));
+	}
+
+	private SharedObjectStore store() {
+		return new SharedObjectStore(new File("mcdir/store"));
+	}
+
+	@Test
+	public void testStoreAndLink() throws IOException, GeneralSecurityException {
+		SharedObjectStore store = store();
+		assertTrue(store.storeAsset(new MinecraftDirectory(new File("mcdir"), store), ASSET));
+		assertTrue(store.getAsset(ASSET).isFile());
+
+		MinecraftDirectory another = new MinecraftDirectory(new File("mcdir/another"), store);
+		assertFalse(another.getAsset(ASSET).isFile());
+		assertTrue(another.resolveAsset(ASSET).isFile());
+		assertTrue(ASSET.isValid(another));
+	}
+
+	@Test
+	public void testRejectCorruptedObject() throws IOException, GeneralSecurityException {
+		SharedObjectStore store = store();
+		Asset corrupted = new Asset("minecraft/sounds/mob/skeleton/step3.ogg", "000c82756fd54e40cb236199f2b479629d0aca20", 8565);
+		new File("mcdir/assets/objects/00/000c82756fd54e40cb236199f2b479629d0aca2f").renameTo(new File("mcdir/assets/objects/00/000c82756fd54e40cb236199f2b479629d0aca20"));
+		assertFalse(store.storeAsset(new MinecraftDirectory(new File("mcdir"), store), corrupted));
+		assertFalse(store.getAsset(corrupted).exists());
+	}
+
+	@Test
+	public void testResolveWithoutStore() throws IOException {
+		MinecraftDirectory another = new MinecraftDirectory(new File("mcdir/another"));
+		assertFalse(another.resolveAsset(ASSET).isFile());
+	}
+
+	@Test
+	public void testUnverifiableLibraryIsNotShared() throws IOException, GeneralSecurityException {
+		SharedObjectStore store = store();
+		Library library = new Library("org.lwjgl", "lwjgl", "2.9.4");
+		assertNull(store.getLibrary(library));
+		assertFalse(store.storeLibrary(new MinecraftDirectory(new File("mcdir"), store), library));
+		assertTrue(library.isMissing(new MinecraftDirectory(new File("mcdir/another"), store)));
+	}
+
+}
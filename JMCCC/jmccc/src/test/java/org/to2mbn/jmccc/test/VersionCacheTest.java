@@ -0,0 +1,113 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.to2mbn.jmccc.version.Library;
+import org.to2mbn.jmccc.version.Version;
+import org.to2mbn.jmccc.version.parsing.Versions;
+
+public class VersionCacheTest extends MinecraftEnvironmentTest {
+
+	private static final String VERSION = "1.8-forge1.8-11.14.3.1514";
+
+	private final File cacheFile = new File("mcdir/versions/" + VERSION + "/" + VERSION + ".jmccc-version");
+
+	@Override
+	protected void copyFiles() throws IOException {
+		copyVersionJson(VERSION);
+		copyVersionJson("1.8");
+	}
+
+	@Test
+	public void testCacheHit() throws IOException {
+		Version resolved = Versions.resolveVersion(mcdir(), VERSION);
+		assertTrue(cacheFile.isFile());
+		long lastModified = cacheFile.lastModified();
+
+		Version cached = Versions.resolveVersion(mcdir(), VERSION);
+		assertEquals(resolved, cached);
+		assertNotSame(resolved, cached);
+		assertEquals(resolved.getGameArguments(), cached.getGameArguments());
+		assertEquals(resolved.getJvmArguments(), cached.getJvmArguments());
+		assertEquals(lastModified, cacheFile.lastModified());
+	}
+
+	@Test
+	public void testParentModified() throws IOException {
+		Library vecmath = new Library("java3d", "vecmath", "1.5.2");
+		assertFalse(Versions.resolveVersion(mcdir(), VERSION).getLibraries().contains(vecmath));
+
+		// same length, so only the hash tells the change
+		File parentJson = new File("mcdir/versions/1.8/1.8.json");
+		String json = new String(Files.readAllBytes(parentJson.toPath()), StandardCharsets.UTF_8);
+		long lastModified = parentJson.lastModified();
+		Files.write(parentJson.toPath(), json.replace("\"clientreq\": false", "\"clientreq\":  true").getBytes(StandardCharsets.UTF_8));
+		parentJson.setLastModified(lastModified);
+
+		assertTrue(Versions.resolveVersion(mcdir(), VERSION).getLibraries().contains(vecmath));
+	}
+
+	@Test
+	public void testCorruptedCache() throws IOException {
+		Version resolved = Versions.resolveVersion(mcdir(), VERSION);
+		Files.write(cacheFile.toPath(), new byte[] { 0x4a, 0x4d, 0x56 });
+		assertEquals(resolved, Versions.resolveVersion(mcdir(), VERSION));
+	}
+
+	@Test
+	public void testEmptyHierarchyIsRejected() throws IOException {
+		Library vecmath = new Library("java3d", "vecmath", "1.5.2");
+		assertFalse(Versions.resolveVersion(mcdir(), VERSION).getLibraries().contains(vecmath));
+
+		// drop the json hashes from the header, so nothing would be checked
+		byte[] cache = Files.readAllBytes(cacheFile.toPath());
+		byte[] name = VERSION.getBytes(StandardCharsets.UTF_8);
+		int countPos = indexOf(cache, name) - 2 - 4;
+		assertTrue(countPos > 0);
+		int bodyPos = countPos + 4 + (2 + name.length + 20) + (2 + "1.8".length() + 20);
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		buf.write(cache, 0, countPos);
+		buf.write(new byte[] { 0, 0, 0, 0 });
+		buf.write(cache, bodyPos, cache.length - bodyPos);
+		Files.write(cacheFile.toPath(), buf.toByteArray());
+
+		File parentJson = new File("mcdir/versions/1.8/1.8.json");
+		String json = new String(Files.readAllBytes(parentJson.toPath()), StandardCharsets.UTF_8);
+		Files.write(parentJson.toPath(), json.replace("\"clientreq\": false", "\"clientreq\":  true").getBytes(StandardCharsets.UTF_8));
+
+		assertTrue(Versions.resolveVersion(mcdir(), VERSION).getLibraries().contains(vecmath));
+	}
+
+	@Test
+	public void testCacheDisabled() throws IOException {
+		Version resolved = Versions.resolveVersion(mcdir(), VERSION, false);
+		assertFalse(cacheFile.exists());
+		assertEquals(resolved, Versions.resolveVersion(mcdir(), VERSION));
+		assertTrue(cacheFile.isFile());
+		assertEquals(resolved, Versions.resolveVersion(mcdir(), VERSION, false));
+	}
+
+	private static int indexOf(byte[] data, byte[] pattern) {
+		outer: for (int i = 0; i <= data.length - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private void copyVersionJson(String version) throws IOException {
+		new File("mcdir/versions/" + version).mkdirs();
+		String versionJsonPath = "mcdir/versions/" + version + "/" + version + ".json";
+		copyFromJar("/" + versionJsonPath, new File(versionJsonPath));
+	}
+
+}
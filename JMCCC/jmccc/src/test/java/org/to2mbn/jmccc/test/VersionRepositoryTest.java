@@ -0,0 +1,115 @@
+package org.to2mbn.jmccc.test;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.to2mbn.jmccc.version.AssetIndex;
+import org.to2mbn.jmccc.version.Version;
+import org.to2mbn.jmccc.version.parsing.VersionRepository;
+
+public class VersionRepositoryTest extends MinecraftEnvironmentTest {
+
+	private static final long TIMEOUT = 10000;
+
+	@Override
+	protected void copyFiles() throws IOException {
+		copyVersionJson("1.8");
+		copyVersionJson("1.8-forge1.8-11.14.3.1514");
+		new File("mcdir/assets/indexes").mkdirs();
+		copyFromJar("/mcdir/assets/indexes/test.json", new File("mcdir/assets/indexes/test.json"));
+	}
+
+	@Test
+	public void testMemoized() throws IOException {
+		try (VersionRepository repository = new VersionRepository(mcdir())) {
+			Version version = repository.getVersion("1.8");
+			assertNotNull(version);
+			assertSame(version, repository.getVersion("1.8"));
+			assertSame(repository.getVersions(), repository.getVersions());
+			assertSame(repository.getAssetIndex("test"), repository.getAssetIndex("test"));
+			assertNull(repository.getVersion("1.9"));
+			assertNull(repository.getAssetIndex("1.9"));
+		}
+	}
+
+	@Test
+	public void testParentModified() throws IOException, InterruptedException {
+		try (VersionRepository repository = new VersionRepository(mcdir())) {
+			String child = "1.8-forge1.8-11.14.3.1514";
+			Version version = repository.getVersion(child);
+
+			File parentJson = new File("mcdir/versions/1.8/1.8.json");
+			String json = new String(Files.readAllBytes(parentJson.toPath()), StandardCharsets.UTF_8);
+			Files.write(parentJson.toPath(), json.replace("\"clientreq\": false", "\"clientreq\": true").getBytes(StandardCharsets.UTF_8));
+
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (repository.getVersion(child) == version) {
+				assertTrue("the change is not noticed", System.currentTimeMillis() < deadline);
+				Thread.sleep(50);
+			}
+			assertNotEquals(version, repository.getVersion(child));
+		}
+	}
+
+	@Test
+	public void testVersionAdded() throws IOException, InterruptedException {
+		try (VersionRepository repository = new VersionRepository(mcdir())) {
+			assertFalse(repository.getVersions().contains("1.6.4"));
+
+			copyVersionJson("1.6.4");
+
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (!repository.getVersions().contains("1.6.4")) {
+				assertTrue("the change is not noticed", System.currentTimeMillis() < deadline);
+				Thread.sleep(50);
+			}
+			assertNotNull(repository.getVersion("1.6.4"));
+		}
+	}
+
+	@Test
+	public void testAssetIndexModified() throws IOException, InterruptedException {
+		try (VersionRepository repository = new VersionRepository(mcdir())) {
+			AssetIndex index = repository.getAssetIndex("test");
+			assertEquals(3, index.size());
+
+			Files.write(new File("mcdir/assets/indexes/test.json").toPath(), "{\"objects\": {}}".getBytes(StandardCharsets.UTF_8));
+
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (repository.getAssetIndex("test") == index) {
+				assertTrue("the change is not noticed", System.currentTimeMillis() < deadline);
+				Thread.sleep(50);
+			}
+			assertEquals(0, repository.getAssetIndex("test").size());
+		}
+	}
+
+	@Test
+	public void testRootRemoved() throws IOException, InterruptedException {
+		try (VersionRepository repository = new VersionRepository(mcdir())) {
+			assertNotNull(repository.getVersion("1.8"));
+			assertNull(repository.getWatchFailure());
+
+			cleanupMinecraftDir();
+
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (repository.getWatchFailure() == null) {
+				assertTrue("the failure is not noticed", System.currentTimeMillis() < deadline);
+				Thread.sleep(50);
+			}
+			// nothing stale is returned
+			assertNull(repository.getVersion("1.8"));
+			assertTrue(repository.getVersions().isEmpty());
+		}
+	}
+
+	private void copyVersionJson(String version) throws IOException {
+		new File("mcdir/versions/" + version).mkdirs();
+		String versionJsonPath = "mcdir/versions/" + version + "/" + version + ".json";
+		copyFromJar("/" + versionJsonPath, new File(versionJsonPath));
+	}
+
+}